@@ -19,9 +19,12 @@
  */
 package org.sbml.jsbml;
 
+import java.io.IOException;
+import java.io.Serializable;
 import java.io.StringReader;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +41,7 @@ import org.sbml.jsbml.math.ASTFactory;
 import org.sbml.jsbml.math.ASTNode2;
 import org.sbml.jsbml.text.parser.FormulaParser;
 import org.sbml.jsbml.text.parser.FormulaParserLL3;
+import org.sbml.jsbml.text.parser.FormulaParserLL3.LOG_BEHAVIOR;
 import org.sbml.jsbml.text.parser.IFormulaParser;
 import org.sbml.jsbml.text.parser.ParseException;
 import org.sbml.jsbml.util.Maths;
@@ -46,6 +50,7 @@ import org.sbml.jsbml.util.compilers.ASTNodeCompiler;
 import org.sbml.jsbml.util.compilers.ASTNodeValue;
 import org.sbml.jsbml.util.compilers.FormulaCompiler;
 import org.sbml.jsbml.util.compilers.FormulaCompilerLibSBML;
+import org.sbml.jsbml.util.compilers.FormulaText;
 import org.sbml.jsbml.util.compilers.LaTeXCompiler;
 import org.sbml.jsbml.util.compilers.MathMLXMLStreamCompiler;
 import org.sbml.jsbml.util.compilers.UnitsCompiler;
@@ -674,6 +679,85 @@ public class ASTNode extends AbstractTreeNode {
 
   }
 
+  /**
+   * The attributes of an {@link ASTNode} that are only set for few nodes,
+   * which are therefore allocated on demand.
+   * 
+   * @since 1.6
+   */
+  private static final class Attributes implements Serializable {
+
+    /**
+     * Generated serial version identifier.
+     */
+    private static final long serialVersionUID = 6059376396424405785L;
+
+    /**
+     * The value of the definitionURL for csymbol element. Level 3 extensions
+     * can create new csymbol element that we would not necessary be aware of,
+     * so we need to store the attribute value.
+     */
+    private String definitionURL;
+
+    /**
+     * Possible attributes for a MathML element
+     */
+    private String id;
+    /**
+     * 
+     */
+    private String style;
+    /**
+     * 
+     */
+    private String className;
+    /**
+     * 
+     */
+    private String encoding;
+
+    /**
+     * XMLNode that will hold the content of the 'semantics' mathML element.
+     */
+    private List<XMLNode> semanticsAnnotationList;
+
+    /**
+     * {@link Map} containing the ASTNode plugin object of additional packages
+     * with the appropriate name of the package.
+     */
+    private SortedMap<String, ASTNodePlugin> plugins;
+
+    /**
+     * 
+     */
+    Attributes() {
+      super();
+    }
+
+    /**
+     * Copies all attributes and semantics annotations, but no plugins, of
+     * the given attributes.
+     * 
+     * @param attributes
+     */
+    Attributes(Attributes attributes) {
+      definitionURL = attributes.definitionURL;
+      id = attributes.id;
+      className = attributes.className;
+      encoding = attributes.encoding;
+      style = attributes.style;
+
+      if (attributes.semanticsAnnotationList != null) {
+        semanticsAnnotationList = new ArrayList<XMLNode>();
+
+        for (XMLNode semanticsAnnotation : attributes.semanticsAnnotationList) {
+          semanticsAnnotationList.add(semanticsAnnotation.clone());
+        }
+      }
+    }
+
+  }
+
   /**
    * Generated serial version identifier.
    */
@@ -1102,19 +1186,66 @@ public class ASTNode extends AbstractTreeNode {
    * @see FormulaParser
    */
   public static ASTNode parseFormula(String formula) throws ParseException {
-    FormulaParserLL3 parser = new FormulaParserLL3(new StringReader(formula));
-    ASTNode result = null;
+    FormulaParserLL3 parser = formulaParser.get();
+    FormulaCache cache = formulaCache;
+    LOG_BEHAVIOR logBehavior = parser.getLogBehavior();
+    ASTNode result = (cache != null) ? cache.get(formula, logBehavior) : null;
+    if (result != null) {
+      return result;
+    }
+
+    formulaParser.remove(); // in case parse() leads to another call of this method
+    parser.ReInit(new StringReader(formula));
 
     try {
       result = parser.parse();
     } catch (Throwable e) {
       // the javacc parser can throw some TokenMgrError at least
       throw new ParseException(e);
+    } finally {
+      formulaParser.set(parser);
     }
 
+    if (cache != null) {
+      cache.put(formula, logBehavior, result);
+    }
     return result;
   }
 
+  /**
+   * Returns the number of formulas that {@link #parseFormula(String)}
+   * memorizes.
+   * 
+   * @return the maximal number of cached formulas, {@code 0} if no formula
+   *         is cached.
+   * @see #setFormulaCacheSize(int)
+   */
+  public static int getFormulaCacheSize() {
+    FormulaCache cache = formulaCache;
+    return (cache != null) ? cache.getCapacity() : 0;
+  }
+
+  /**
+   * Lets {@link #parseFormula(String)} memorize the given number of
+   * formulas, so that parsing a formula that has been parsed recently only
+   * requires to copy the previous result. This pays off when many elements
+   * have identical formulas, e.g., in rule-based models. The least recently
+   * used formula is discarded if the cache is full. By default, no formula
+   * is cached.
+   * 
+   * @param size
+   *        the maximal number of cached formulas, {@code 0} to disable and
+   *        empty the cache.
+   * @throws IllegalArgumentException
+   *         if the given size is negative.
+   */
+  public static void setFormulaCacheSize(int size) {
+    if (size < 0) {
+      throw new IllegalArgumentException("The size of the formula cache must not be negative.");
+    }
+    formulaCache = (size > 0) ? new FormulaCache(size) : null;
+  }
+
   /**
    * Parses a text-string mathematical formula, using the given {@link IFormulaParser} and returns a representation as
    * an Abstract Syntax Tree.
@@ -1451,11 +1582,11 @@ public class ASTNode extends AbstractTreeNode {
   }
 
   /**
-   * The value of the definitionURL for csymbol element. Level 3 extensions
-   * can create new csymbol element that we would not necessary be aware of,
-   * so we need to store the attribute value.
+   * The rarely used attributes of this node, or {@code null} if none of them
+   * has ever been set. Keeping them apart saves memory in large formulas,
+   * where almost all nodes are plain operators, names or numbers.
    */
-  private String definitionURL;
+  private Attributes attributes;
 
   /**
    * 
@@ -1467,29 +1598,6 @@ public class ASTNode extends AbstractTreeNode {
    */
   private int exponent;
 
-  /**
-   * Possible attributes for a MathML element
-   */
-  private String id;
-  /**
-   * 
-   */
-  private String style;
-  /**
-   * 
-   */
-  private String className;
-  /**
-   * 
-   */
-  private String encoding;
-
-  /**
-   * XMLNode that will hold the content of the 'semantics' mathML element.
-   */
-  private List<XMLNode> semanticsAnnotationList;
-
-
   /**
    * Tells if the type attribute of the cn element was set and we need to
    * write it back or if it is set to the default (REAL).
@@ -1508,6 +1616,27 @@ public class ASTNode extends AbstractTreeNode {
   private static transient final Logger logger = Logger.getLogger(ASTNode.class);
   private static final transient boolean isDebugEnabled = logger.isDebugEnabled();
   private static final transient boolean isTraceEnabled = logger.isTraceEnabled();
+
+  /**
+   * The parser of {@link #parseFormula(String)} for each thread, which is
+   * reinitialized for each formula.
+   */
+  private static final transient ThreadLocal<FormulaParserLL3> formulaParser = new ThreadLocal<FormulaParserLL3>() {
+
+    /* (non-Javadoc)
+     * @see java.lang.ThreadLocal#initialValue()
+     */
+    @Override
+    protected FormulaParserLL3 initialValue() {
+      return new FormulaParserLL3(new StringReader(""));
+    }
+  };
+
+  /**
+   * The formulas that {@link #parseFormula(String)} memorizes, or
+   * {@code null} if none.
+   */
+  private static volatile transient FormulaCache formulaCache;
   
   /**
    * The part of a number in scientific format (with an E) that is on the left
@@ -1553,12 +1682,6 @@ public class ASTNode extends AbstractTreeNode {
    */
   private CallableSBase variable;
 
-  /**
-   * {@link Map} containing the ASTNode plugin object of additional packages
-   * with the appropriate name of the package.
-   */
-  private SortedMap<String, ASTNodePlugin> plugins;
-
   /**
    * Creates a new {@link ASTNode} of unspecified type and without a pointer
    * to its containing {@link MathContainer}.
@@ -1589,15 +1712,13 @@ public class ASTNode extends AbstractTreeNode {
     denominator = astNode.denominator;
     exponent = astNode.exponent;
     mantissa = astNode.mantissa;
-    name = astNode.name == null ? null : new String(astNode.name);
+    name = astNode.name;
     variable = null; // the clone is not linked anymore to any model so we cannot have any 'variable' set
     numerator = astNode.numerator;
-    unitId = astNode.unitId == null ? null : new String(astNode.unitId);
-    definitionURL = astNode.definitionURL;
-    id = astNode.id;
-    className = astNode.className;
-    encoding = astNode.encoding;
-    style = astNode.style;
+    unitId = astNode.unitId;
+    if (astNode.attributes != null) {
+      attributes = new Attributes(astNode.attributes);
+    }
 
     if (astNode.getChildCount() > 0) {
       for (ASTNode child : astNode.listOfNodes) {
@@ -1606,14 +1727,6 @@ public class ASTNode extends AbstractTreeNode {
         listOfNodes.add(c);
       }
     }
-
-    if (astNode.semanticsAnnotationList != null) {
-      semanticsAnnotationList = new ArrayList<XMLNode>();
-
-      for (XMLNode semanticsAnnotation : astNode.semanticsAnnotationList) {
-        semanticsAnnotationList.add(semanticsAnnotation.clone());
-      }
-    }
   }
 
   /**
@@ -2204,7 +2317,7 @@ public class ASTNode extends AbstractTreeNode {
     case FUNCTION_CSYMBOL: {
       if (name == null) {
         System.out.println("WARNING: csymbol function name is null");
-        name = definitionURL; // TODO - extract the last part of the url and check first that definitionURL is declared.
+        name = getDefinitionURL(); // TODO - extract the last part of the url and check first that definitionURL is declared.
       }
       if (name != null) {
 
@@ -2557,7 +2670,7 @@ public class ASTNode extends AbstractTreeNode {
    * @return the class name of the mathML element represented by this ASTNode.
    */
   public String getClassName() {
-    return className;
+    return (attributes != null) ? attributes.className : null;
   }
 
   /**
@@ -2566,7 +2679,7 @@ public class ASTNode extends AbstractTreeNode {
    * @return the definitionURL
    */
   public String getDefinitionURL() {
-    return definitionURL;
+    return (attributes != null) ? attributes.definitionURL : null;
   }
 
   /**
@@ -2591,7 +2704,7 @@ public class ASTNode extends AbstractTreeNode {
    * @return the encoding of the mathML element represented by this ASTNode.
    */
   public String getEncoding() {
-    return encoding;
+    return (attributes != null) ? attributes.encoding : null;
   }
 
   /**
@@ -2616,7 +2729,7 @@ public class ASTNode extends AbstractTreeNode {
    * @return the id of the mathML element represented by this ASTNode.
    */
   public String getId() {
-    return id;
+    return (attributes != null) ? attributes.id : null;
   }
 
   /**
@@ -2829,7 +2942,7 @@ public class ASTNode extends AbstractTreeNode {
    * @return the style of the mathML element represented by this ASTNode.
    */
   public String getStyle() {
-    return style;
+    return (attributes != null) ? attributes.style : null;
   }
 
   /**
@@ -3021,6 +3134,17 @@ public class ASTNode extends AbstractTreeNode {
     return hasUnits;
   }
 
+  /**
+   * @return the rarely used attributes of this node, which are created on
+   *         the first call.
+   */
+  private Attributes attributes() {
+    if (attributes == null) {
+      attributes = new Attributes();
+    }
+    return attributes;
+  }
+
   /**
    * Initializes the default values/attributes of the node.
    */
@@ -3032,21 +3156,24 @@ public class ASTNode extends AbstractTreeNode {
 
     type = Type.UNKNOWN;
 
-    id = null;
-    style = null;
-    className = null;
-    encoding = null;
+    if (attributes != null) {
+      attributes.id = null;
+      attributes.style = null;
+      attributes.className = null;
+      attributes.encoding = null;
+      attributes.definitionURL = null;
+    }
     denominator = 0;
     exponent = 0;
     name = null;
     numerator = 0;
     // parent = null; // don't remove this node from the tree
     isSetNumberType = false;
-    definitionURL = null;
     unitId = null;
 
     if (listOfNodes == null) {
-      listOfNodes = new ArrayList<ASTNode>();
+      // most nodes have no or two children.
+      listOfNodes = new ArrayList<ASTNode>(0);
     } else {
       for (int i = listOfNodes.size() - 1; i >= 0; i--) {
         // This also removes the pointer from the previous child to this object, i.e., its previous parent node.
@@ -3058,9 +3185,6 @@ public class ASTNode extends AbstractTreeNode {
     variable = null;
     mantissa = Double.NaN;
 
-    if (plugins == null) {
-      plugins = new TreeMap<String, ASTNodePlugin>();
-    }
     firePropertyChange(TreeNodeChangeEvent.initialValue, old, this);
   }
 
@@ -3340,28 +3464,28 @@ public class ASTNode extends AbstractTreeNode {
    * @return
    */
   public boolean isSetClassName() {
-    return className != null;
+    return getClassName() != null;
   }
 
   /**
    * @return
    */
   public boolean isSetDefinitionURL() {
-    return definitionURL != null;
+    return getDefinitionURL() != null;
   }
 
   /**
    * @return
    */
   public boolean isSetEncoding() {
-    return encoding != null;
+    return getEncoding() != null;
   }
 
   /**
    * @return
    */
   public boolean isSetId() {
-    return id != null;
+    return getId() != null;
   }
 
   /**
@@ -3394,7 +3518,7 @@ public class ASTNode extends AbstractTreeNode {
    * @return
    */
   public boolean isSetStyle() {
-    return style != null;
+    return getStyle() != null;
   }
 
   /**
@@ -3945,8 +4069,8 @@ public class ASTNode extends AbstractTreeNode {
    *            the class name.
    */
   public void setClassName(String className) {
-    String oldValue = this.className;
-    this.className = className;
+    String oldValue = (attributes != null) ? attributes.className : null;
+    attributes().className = className;
     firePropertyChange(TreeNodeChangeEvent.className, oldValue, className);
   }
 
@@ -3955,8 +4079,8 @@ public class ASTNode extends AbstractTreeNode {
    * @param definitionURL
    */
   public void setDefinitionURL(String definitionURL) {
-    String oldValue = this.definitionURL;
-    this.definitionURL = definitionURL;
+    String oldValue = (attributes != null) ? attributes.definitionURL : null;
+    attributes().definitionURL = definitionURL;
     firePropertyChange(TreeNodeChangeEvent.definitionURL, oldValue, definitionURL);
   }
 
@@ -3967,8 +4091,8 @@ public class ASTNode extends AbstractTreeNode {
    *            the encoding
    */
   public void setEncoding(String encoding) {
-    String oldValue = this.encoding;
-    this.encoding = encoding;
+    String oldValue = (attributes != null) ? attributes.encoding : null;
+    attributes().encoding = encoding;
     firePropertyChange(TreeNodeChangeEvent.encoding, oldValue, encoding);
   }
 
@@ -3979,8 +4103,8 @@ public class ASTNode extends AbstractTreeNode {
    *            the id.
    */
   public void setId(String id) {
-    String oldValue = this.id;
-    this.id = id;
+    String oldValue = (attributes != null) ? attributes.id : null;
+    attributes().id = id;
     firePropertyChange(TreeNodeChangeEvent.id, oldValue, id);
   }
 
@@ -4035,8 +4159,8 @@ public class ASTNode extends AbstractTreeNode {
    *            the style.
    */
   public void setStyle(String style) {
-    String oldValue = this.style;
-    this.style = style;
+    String oldValue = (attributes != null) ? attributes.style : null;
+    attributes().style = style;
     firePropertyChange(TreeNodeChangeEvent.style, oldValue, style);
   }
 
@@ -4099,23 +4223,23 @@ public class ASTNode extends AbstractTreeNode {
     // set a name before calling setType
     if (type == Type.NAME_TIME) {
       name = "time";
-      definitionURL = URI_TIME_DEFINITION;
-      encoding = "text";
+      attributes().definitionURL = URI_TIME_DEFINITION;
+      attributes.encoding = "text";
     } else if (type == Type.FUNCTION_DELAY) {
       initDefaults();
       name = "delay";
-      definitionURL = URI_DELAY_DEFINITION;
-      encoding = "text";
+      attributes().definitionURL = URI_DELAY_DEFINITION;
+      attributes.encoding = "text";
     } else if (type == Type.NAME_AVOGADRO) {
       name = "Avogadro's number";
       setValue(Maths.AVOGADRO_L3V1);
-      definitionURL = URI_AVOGADRO_DEFINITION;
-      encoding = "text";
+      attributes().definitionURL = URI_AVOGADRO_DEFINITION;
+      attributes.encoding = "text";
     } else if (type == Type.FUNCTION_RATE_OF) {
       initDefaults();
       name = "rateOf";
-      definitionURL = URI_RATE_OF_DEFINITION;
-      encoding = "text";
+      attributes().definitionURL = URI_RATE_OF_DEFINITION;
+      attributes.encoding = "text";
     }
 
     Type oldValue = this.type;
@@ -4413,6 +4537,43 @@ public class ASTNode extends AbstractTreeNode {
     return compile(compiler).toString();
   }
 
+  /**
+   * Writes the formula representing this {@link ASTNode}, as returned by
+   * {@link #toFormula()}, to the given {@link Appendable}. The tree is
+   * compiled once and the formula is written into the {@link Appendable}
+   * without creating a {@link String} for it or for any of its parts.
+   * 
+   * @param out
+   * @throws SBMLException
+   *             if there is a problem in the ASTNode tree.
+   * @throws IOException
+   *             if the given {@link Appendable} cannot be written.
+   * @see #toFormula()
+   */
+  public void toFormula(Appendable out) throws SBMLException, IOException {
+    toFormula(new FormulaCompilerLibSBML(), out);
+  }
+
+  /**
+   * Writes the formula representing this {@link ASTNode}, as returned by
+   * {@link #toFormula(FormulaCompiler)}, to the given {@link Appendable}.
+   * Nothing is written if the given compiler is {@code null}.
+   * 
+   * @param compiler
+   * @param out
+   * @throws SBMLException
+   *             if there is a problem in the ASTNode tree.
+   * @throws IOException
+   *             if the given {@link Appendable} cannot be written.
+   * @see #toFormula(Appendable)
+   */
+  public void toFormula(FormulaCompiler compiler, Appendable out)
+      throws SBMLException, IOException {
+    if (compiler != null) {
+      FormulaText.appendTo(compile(compiler), out);
+    }
+  }
+
   /**
    * Converts this node recursively into a LaTeX formatted String.
    * 
@@ -4425,6 +4586,21 @@ public class ASTNode extends AbstractTreeNode {
     return compile(new LaTeXCompiler()).toString();
   }
 
+  /**
+   * Writes the LaTeX code representing this {@link ASTNode}, as returned by
+   * {@link #toLaTeX()}, to the given {@link Appendable}.
+   * 
+   * @param out
+   * @throws SBMLException
+   *             if there is a problem in the ASTNode tree.
+   * @throws IOException
+   *             if the given {@link Appendable} cannot be written.
+   * @see #toFormula(Appendable)
+   */
+  public void toLaTeX(Appendable out) throws SBMLException, IOException {
+    FormulaText.appendTo(compile(new LaTeXCompiler()), out);
+  }
+
   /**
    * Converts this node recursively into a MathML string that corresponds to
    * the subset of MathML defined in the SBML specification.
@@ -4511,7 +4687,7 @@ public class ASTNode extends AbstractTreeNode {
       buffer.append(", name = ").append(getName());
     }
 
-    if (definitionURL != null)
+    if (isSetDefinitionURL())
     {
       buffer.append(", definitionURL = ").append(getDefinitionURL());
     }
@@ -4532,16 +4708,16 @@ public class ASTNode extends AbstractTreeNode {
       buffer.append(", no parent defined");
     }
 
-    if (id != null) {
+    if (isSetId()) {
       buffer.append(", id = ").append(getId());
     }
-    if (style != null) {
+    if (isSetStyle()) {
       buffer.append(", style = ").append(getStyle());
     }
-    if (encoding != null) {
+    if (isSetEncoding()) {
       buffer.append(", encoding = ").append(getEncoding());
     }
-    if (className != null) {
+    if (isSetClassName()) {
       buffer.append(", className = ").append(getClassName());
     }
     buffer.append("] ");
@@ -4631,11 +4807,11 @@ public class ASTNode extends AbstractTreeNode {
     if (semanticsAnnotation == null) {
       return null;
     }
-    if (semanticsAnnotationList == null) {
-      semanticsAnnotationList = new ArrayList<XMLNode>();
+    if (attributes().semanticsAnnotationList == null) {
+      attributes.semanticsAnnotationList = new ArrayList<XMLNode>();
     }
 
-    semanticsAnnotationList.add(semanticsAnnotation);
+    attributes.semanticsAnnotationList.add(semanticsAnnotation);
 
     return semanticsAnnotation;
   }
@@ -4659,6 +4835,7 @@ public class ASTNode extends AbstractTreeNode {
    * @see ASTNode#addSemanticsAnnotation(XMLNode semanticsAnnotation)
    */
   public int getNumSemanticsAnnotations() {
+    List<XMLNode> semanticsAnnotationList = getListOfSemanticsAnnotations();
     if (semanticsAnnotationList == null) {
       return 0;
     }
@@ -4688,11 +4865,11 @@ public class ASTNode extends AbstractTreeNode {
    * @see ASTNode#addSemanticsAnnotation(XMLNode sAnnotation)
    */
   public XMLNode getSemanticsAnnotation(int n) {
-    if (semanticsAnnotationList == null || n < 0 || (n > (getNumSemanticsAnnotations() -1))) {
+    if (n < 0 || (n > (getNumSemanticsAnnotations() -1))) {
       return null;
     }
 
-    return semanticsAnnotationList.get(n);
+    return attributes.semanticsAnnotationList.get(n);
   }
 
   /**
@@ -4701,7 +4878,7 @@ public class ASTNode extends AbstractTreeNode {
    * @return the list of semantics annotations of this node or null if no semantics annotation are present.
    */
   public List<XMLNode> getListOfSemanticsAnnotations() {
-    return semanticsAnnotationList;
+    return (attributes != null) ? attributes.semanticsAnnotationList : null;
   }
 
   // TODO - removeSemanticsAnnotation
@@ -4753,11 +4930,13 @@ public class ASTNode extends AbstractTreeNode {
     if (packageParser != null) {
 
       // unset the previous plugin if needed
-      if (plugins.get(packageParser.getPackageName()) != null) {
+      if (attributes().plugins == null) {
+        attributes.plugins = new TreeMap<String, ASTNodePlugin>();
+      } else if (attributes.plugins.get(packageParser.getPackageName()) != null) {
         unsetPlugin(packageParser.getPackageName());
       }
 
-      plugins.put(packageParser.getPackageName(), sbasePlugin);
+      attributes.plugins.put(packageParser.getPackageName(), sbasePlugin);
 
       // Making sure that the correct extendedSBase is set in the SBasePlugin
       // And that all the ids and metaids are registered
@@ -4841,7 +5020,7 @@ public class ASTNode extends AbstractTreeNode {
     PackageParser packageParser = ParserManager.getManager().getPackageParser(nameOrUri);
 
     if (packageParser != null) {
-      return plugins.get(packageParser.getPackageName());
+      return getExtensionPackages().get(packageParser.getPackageName());
     }
 
     throw new IllegalArgumentException(MessageFormat.format(
@@ -4855,11 +5034,7 @@ public class ASTNode extends AbstractTreeNode {
    */
   public int getExtensionCount() {
 
-    if (plugins != null) {
-      return plugins.size();
-    }
-
-    return 0;
+    return getExtensionPackages().size();
   }
 
   //  /**
@@ -4900,7 +5075,7 @@ public class ASTNode extends AbstractTreeNode {
     PackageParser packageParser = ParserManager.getManager().getPackageParser(nameOrUri);
 
     if (packageParser != null) {
-      ASTNodePlugin plugin = plugins.get(packageParser.getPackageName());
+      ASTNodePlugin plugin = getExtensionPackages().get(packageParser.getPackageName());
       if (plugin != null) {
         return plugin;
       } else {
@@ -4918,7 +5093,7 @@ public class ASTNode extends AbstractTreeNode {
    * @return {@code true} if this object is extended by other packages.
    */
   public boolean isExtendedByOtherPackages() {
-    return !plugins.isEmpty();
+    return !getExtensionPackages().isEmpty();
   }
 
   /**
@@ -4970,7 +5145,7 @@ public class ASTNode extends AbstractTreeNode {
     PackageParser packageParser = ParserManager.getManager().getPackageParser(nameOrUri);
 
     if (packageParser != null) {
-      return plugins.get(packageParser.getPackageName()) != null;
+      return getExtensionPackages().get(packageParser.getPackageName()) != null;
     }
 
     throw new IllegalArgumentException(MessageFormat.format(
@@ -4991,7 +5166,7 @@ public class ASTNode extends AbstractTreeNode {
 
     if (packageParser != null) {
 
-      ASTNodePlugin sbasePlugin = plugins.remove(packageParser.getPackageName());
+      ASTNodePlugin sbasePlugin = getExtensionPackages().remove(packageParser.getPackageName());
       firePropertyChange(TreeNodeChangeEvent.extension, sbasePlugin, null);
       return;
     }
@@ -5021,7 +5196,10 @@ public class ASTNode extends AbstractTreeNode {
    * of this {@link ASTNode}.
    */
   public Map<String, ASTNodePlugin> getExtensionPackages() {
-    return plugins;
+    if ((attributes == null) || (attributes.plugins == null)) {
+      return Collections.emptyMap();
+    }
+    return attributes.plugins;
   }
 
 }
\ No newline at end of file
@@ -176,9 +176,31 @@ MathContainer {
    */
   @Override
   public UnitDefinition getDerivedUnitDefinition() {
+    Model m = isSetMath() ? getModel() : null;
+    if (m == null) {
+      return deriveUnitDefinition(m);
+    }
+    DerivedUnitCache cache = m.getDerivedUnitCache();
+    UnitDefinition ud = cache.get(this);
+    if (ud == null) {
+      ud = deriveUnitDefinition(m);
+      cache.put(this, ud);
+    }
+    // callers may change the result, which must not change the cache.
+    return (ud.getParentSBMLObject() != null) ? ud : ud.clone();
+  }
+
+  /**
+   * Derives the unit of the math of this container.
+   * 
+   * @param m the model of this container or {@code null}.
+   * @return the {@link UnitDefinition} of the model that is identical to the
+   *         derived unit, the derived unit, or an invalid unit if it cannot be
+   *         derived.
+   */
+  private UnitDefinition deriveUnitDefinition(Model m) {
     UnitDefinition ud = null;
     if (isSetMath()) {
-      Model m = getModel();
       ASTNode expandedMath = math;
       
       if (m != null && m.getFunctionDefinitionCount() > 0) {
@@ -208,7 +230,6 @@ MathContainer {
       }
     }
     if (ud != null) {
-      Model m = getModel();
       if (m != null) {
         UnitDefinition u = m.isSetListOfUnitDefinitions() ? m.findIdentical(ud) : null;
         return (u != null) ? u : ud;
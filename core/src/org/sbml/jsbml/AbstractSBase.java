@@ -22,6 +22,7 @@ package org.sbml.jsbml;
 import static java.text.MessageFormat.format;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
@@ -40,8 +41,11 @@ import org.sbml.jsbml.util.SBMLtools;
 import org.sbml.jsbml.util.StringTools;
 import org.sbml.jsbml.util.TreeNodeChangeEvent;
 import org.sbml.jsbml.util.TreeNodeChangeListener;
+import org.sbml.jsbml.util.TreeNodeIterator;
+import org.sbml.jsbml.util.TreeNodeWithChangeSupport;
 import org.sbml.jsbml.util.ValuePair;
 import org.sbml.jsbml.util.converters.LevelVersionConverter;
+import org.sbml.jsbml.util.filters.Filter;
 import org.sbml.jsbml.util.filters.MetaIdFilter;
 import org.sbml.jsbml.util.filters.SIdFilter;
 import org.sbml.jsbml.validator.SyntaxChecker;
@@ -53,6 +57,8 @@ import org.sbml.jsbml.xml.parsers.AbstractReaderWriter;
 import org.sbml.jsbml.xml.parsers.PackageParser;
 import org.sbml.jsbml.xml.parsers.PackageUtil;
 import org.sbml.jsbml.xml.parsers.ParserManager;
+import org.sbml.jsbml.xml.stax.DeferredContent;
+import org.sbml.jsbml.xml.stax.SBMLReader;
 
 /**
  * The base class for each {@link SBase} component.
@@ -156,9 +162,18 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
   private Annotation                           annotation;
 
   /**
-   * Contains all the namespaces declared on the XML node with their prefixes.
+   * Contains all the namespaces declared on the XML node with their prefixes,
+   * or {@code null} as long as no namespace has been declared on this
+   * element, which is the case for almost all elements except the
+   * {@link SBMLDocument}.
    */
-  private final Map<String, String>            declaredNamespaces;
+  private Map<String, String>                  declaredNamespaces;
+
+  /**
+   * Child elements of this element, whose parsing has been deferred while
+   * reading, or {@code null}.
+   */
+  private DeferredContent                      deferredContent;
 
   /**
    * the namespace which this SBase element belong to.
@@ -167,9 +182,10 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
 
   /**
    * {@link Map} containing the SBML extension object of additional packages
-   * with the appropriate name space of the package.
+   * with the appropriate name space of the package, or {@code null} as long
+   * as this element has not been extended by any package.
    */
-  private final SortedMap<String, SBasePlugin> extensions;
+  private SortedMap<String, SBasePlugin>       extensions;
 
   /**
    * {@link Map} containing the ignored package objects.
@@ -249,9 +265,9 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
     notesXMLNode = null;
     lv = getLevelAndVersion();
     annotation = null;
-    extensions = new TreeMap<String, SBasePlugin>();
+    extensions = null;
     elementNamespace = null;
-    declaredNamespaces = new TreeMap<String, String>();
+    declaredNamespaces = null;
   }
 
 
@@ -297,12 +313,9 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
   public AbstractSBase(SBase sb) {
     super(sb);
 
-    // extensions is needed when doing getChildCount()
-    extensions = new TreeMap<String, SBasePlugin>();
     elementNamespace = null;
     packageName = sb.getPackageName();
     packageVersion = sb.getPackageVersion();
-    declaredNamespaces = new TreeMap<String, String>();
 
     if (sb.isSetLevel()) {
       setLevel(sb.getLevel());
@@ -329,12 +342,8 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
     }
     if (sb.isExtendedByOtherPackages()) {
 
-      for (String key : sb.getExtensionPackages().keySet()) {
-
-        SBasePlugin plugin = sb.getExtensionPackages().get(key);
-        SBasePlugin clonedPlugin = plugin.clone();
-
-        addExtension(new String(key), clonedPlugin);
+      for (Map.Entry<String, SBasePlugin> entry : sb.getExtensionPackages().entrySet()) {
+        addExtension(entry.getKey(), entry.getValue().clone());
       }
     }
     // cloning namespace
@@ -342,10 +351,8 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
       elementNamespace = sb.getNamespace();
     }
     if (sb.getDeclaredNamespaces().size() > 0) {
-      for (String namespacePrefix : sb.getDeclaredNamespaces().keySet()) {
-        declaredNamespaces.put(new String(namespacePrefix),
-          new String(sb.getDeclaredNamespaces().get(namespacePrefix)));
-      }
+      // Strings are immutable, hence prefixes and URIs can be shared.
+      declaredNamespaces = new TreeMap<String, String>(sb.getDeclaredNamespaces());
     }
 
   }
@@ -419,6 +426,9 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
       }
       prefix = "xmlns:" + prefix;
     }
+    if (declaredNamespaces == null) {
+      declaredNamespaces = new TreeMap<String, String>();
+    }
     declaredNamespaces.put(prefix, namespace);
     firePropertyChange(TreeNodeChangeEvent.addDeclaredNamespace, null,
       namespace);
@@ -444,7 +454,9 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
     if (packageParser != null) {
 
       // unset the previous plugin if needed
-      if (extensions.get(packageParser.getPackageName()) != null) {
+      if (extensions == null) {
+        extensions = new TreeMap<String, SBasePlugin>();
+      } else if (extensions.get(packageParser.getPackageName()) != null) {
         unsetPlugin(packageParser.getPackageName());
       }
 
@@ -528,6 +540,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
     if (notes == null) {
       return;
     }
+    resolveDeferredContent(DeferredContent.NOTES);
 
     String name = notes.getName();
 
@@ -1038,6 +1051,23 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
   }
 
 
+  /**
+   * Drops the deferred child elements of the given kind, because they are
+   * replaced.
+   * 
+   * @param kind
+   *        {@link DeferredContent#NOTES} or {@link DeferredContent#ANNOTATION}
+   */
+  private void discardDeferredContent(String kind) {
+    if ((deferredContent != null) && !JSBML.isReadingInProgress()) {
+      deferredContent.discard(kind);
+      if (deferredContent.isEmpty()) {
+        deferredContent = null;
+      }
+    }
+  }
+
+
   /**
    * Enables the given SBML Level 3 package on this {@link SBMLDocument}.
    * 
@@ -1117,11 +1147,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
           getNamespace() != null ? getNamespace().equals(sbase.getNamespace())
             : sbase.getNamespace() == null;
 
-          if (declaredNamespaces == null) {
-            if (sbase.getDeclaredNamespaces() != null) {
-              return false;
-            }
-          } else if (!declaredNamespaces.equals(sbase.getDeclaredNamespaces())) {
+          if (!getDeclaredNamespaces().equals(sbase.getDeclaredNamespaces())) {
             return false;
           }
 
@@ -1258,6 +1284,14 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
       unregisterChild((SBase) oldValue);
     }
 
+    // keeps the identifier index of the parent list up-to-date
+    if ((parent instanceof ListOf<?>)
+        && (propertyName.equals(TreeNodeChangeEvent.id)
+            || propertyName.equals(TreeNodeChangeEvent.variable)
+            || (propertyName.equals(TreeNodeChangeEvent.name) && (getLevel() == 1)))) {
+      ((ListOf<?>) parent).elementIdChanged(this, oldValue);
+    }
+
     // This case is generally handled properly in the setters or in
     // AbstractSBasePlugin#setExtendedSBase
     // but it would be better and more consistent to handle it there
@@ -1314,6 +1348,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public TreeNode getChildAt(int childIndex) {
+    resolveDeferredContent(null);
     if (childIndex < 0) {
       throw new IndexOutOfBoundsException(format(
         resourceBundle.getString("IndexSurpassesBoundsException"), childIndex,
@@ -1333,7 +1368,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
       pos++;
     }
 
-    if (extensions.size() > 0) {
+    if (extensions != null) {
       for (SBasePlugin sbasePlugin : extensions.values()) {
         int sbasePluginNbChildren = sbasePlugin.getChildCount();
 
@@ -1361,6 +1396,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public int getChildCount() {
+    resolveDeferredContent(null);
     int count = 0;
     if (isSetNotes()) {
       count++;
@@ -1369,8 +1405,10 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
       count++;
     }
 
-    for (SBasePlugin sbasePlugin : extensions.values()) {
-      count += sbasePlugin.getChildCount();
+    if (extensions != null) {
+      for (SBasePlugin sbasePlugin : extensions.values()) {
+        count += sbasePlugin.getChildCount();
+      }
     }
 
     return count;
@@ -1419,25 +1457,33 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
   public Map<String, String> getDeclaredNamespaces() {
     // Need to separate the list of name spaces from the extensions.
     // SBase object directly from the extension need to set their name space.
-
+    if (declaredNamespaces == null) {
+      return Collections.emptyMap();
+    }
     return declaredNamespaces;
   }
 
 
+  /**
+   * Returns the child elements of this element, whose parsing has been
+   * deferred while reading, see
+   * {@link SBMLReader#setContentPolicy(String, SBMLReader.ContentPolicy)}.
+   * They are parsed as soon as they are accessed.
+   * 
+   * @return the deferred child elements or {@code null} if there are none.
+   */
+  public DeferredContent getDeferredContent() {
+    return deferredContent;
+  }
+
+
   /*
    * (non-Javadoc)
    * @see org.sbml.jsbml.SBase#getElementBySId()
    */
   @Override
   public SBase getElementBySId(String id) {
-    @SuppressWarnings("unchecked")
-    List<SBase> foundSBases = (List<SBase>) this.filter(new SIdFilter(id), false, true);
-
-    if (foundSBases != null && foundSBases.size() == 1) {
-      return foundSBases.get(0);
-    }
-
-    return null;
+    return findElement(new SIdFilter(id));
   }
 
   /*
@@ -1446,13 +1492,27 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public SBase getElementByMetaId(String id) {
-    @SuppressWarnings("unchecked")
-    List<SBase> foundSBases = (List<SBase>) this.filter(new MetaIdFilter(id), false, true);
+    return findElement(new MetaIdFilter(id));
+  }
 
-    if (foundSBases != null && foundSBases.size() == 1) {
-      return foundSBases.get(0);
+  /**
+   * Returns the first {@link SBase} in this subtree, in document order, that
+   * is accepted by the given filter.
+   * 
+   * @param filter a filter that only accepts {@link SBase}s.
+   * @return the first accepted {@link SBase} or {@code null}.
+   */
+  private SBase findElement(Filter filter) {
+    TreeNodeIterator iterator = new TreeNodeIterator(this);
+    while (iterator.hasNext()) {
+      TreeNode node = iterator.next();
+      if ((node instanceof ASTNode) || !(node instanceof TreeNodeWithChangeSupport)) {
+        // math does not contain any SBase
+        iterator.skipChildren();
+      } else if (filter.accepts(node)) {
+        return (SBase) node;
+      }
     }
-
     return null;
   }
 
@@ -1472,12 +1532,13 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public SBasePlugin getExtension(String nameOrUri) {
+    resolveDeferredContent(DeferredContent.PACKAGES);
     // use always the package name in the map
     PackageParser packageParser =
         ParserManager.getManager().getPackageParser(nameOrUri);
 
     if (packageParser != null) {
-      return extensions.get(packageParser.getPackageName());
+      return getExtensionPackages().get(packageParser.getPackageName());
     }
 
     throw new IllegalArgumentException(format(
@@ -1491,6 +1552,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public int getExtensionCount() {
+    resolveDeferredContent(DeferredContent.PACKAGES);
 
     if (extensions != null) {
       return extensions.size();
@@ -1506,6 +1568,10 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public Map<String, SBasePlugin> getExtensionPackages() {
+    resolveDeferredContent(DeferredContent.PACKAGES);
+    if (extensions == null) {
+      return Collections.emptyMap();
+    }
     return extensions;
   }
 
@@ -1646,6 +1712,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public XMLNode getNotes() {
+    resolveDeferredContent(DeferredContent.NOTES);
     return notesXMLNode;
   }
 
@@ -1656,6 +1723,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public String getNotesString() throws XMLStreamException {
+    resolveDeferredContent(DeferredContent.NOTES);
     return notesXMLNode != null ? notesXMLNode.toXMLString() : "";
   }
 
@@ -1729,13 +1797,14 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public SBasePlugin getPlugin(String nameOrUri) {
+    resolveDeferredContent(DeferredContent.PACKAGES);
 
     // use always the package name in the map
     PackageParser packageParser =
         ParserManager.getManager().getPackageParser(nameOrUri);
 
     if (packageParser != null) {
-      SBasePlugin plugin = extensions.get(packageParser.getPackageName());
+      SBasePlugin plugin = getExtensionPackages().get(packageParser.getPackageName());
       if (plugin != null) {
         return plugin;
       } else {
@@ -1801,6 +1870,46 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
     return isSetVersion() ? lv.getV().intValue() : -1;
   }
 
+  /**
+   * Parses the deferred child elements of the given kind, unless a document
+   * is currently read by this thread.
+   * 
+   * @param kind
+   *        {@link DeferredContent#NOTES}, {@link DeferredContent#ANNOTATION},
+   *        {@link DeferredContent#PACKAGES}, or {@code null} for all deferred
+   *        child elements.
+   */
+  private void resolveDeferredContent(String kind) {
+    if ((deferredContent != null) && !JSBML.isReadingInProgress()) {
+      DeferredContent content = deferredContent;
+      content.resolve(this, kind);
+      if (content.isEmpty() && (deferredContent == content)) {
+        deferredContent = null;
+      }
+    }
+  }
+
+
+  /*
+   * (non-Javadoc)
+   * @see org.sbml.jsbml.AbstractTreeNode#resetHashCode()
+   */
+  @Override
+  protected void resetHashCode() {
+    super.resetHashCode();
+    /*
+     * The children of an SBasePlugin have the extended SBase as parent,
+     * hence the plugins are not visited when walking up the parent chain.
+     */
+    if (extensions != null) {
+      for (SBasePlugin sbasePlugin : extensions.values()) {
+        if (sbasePlugin instanceof AbstractTreeNode) {
+          ((AbstractTreeNode) sbasePlugin).resetHashCode();
+        }
+      }
+    }
+  }
+
   /*
    * (non-Javadoc)
    * @see org.sbml.jsbml.AbstractTreeNode#hashCode()
@@ -1821,12 +1930,12 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
     if (isSetSBOTerm()) {
       hashCode += prime * getSBOTerm();
     }
-    if (elementNamespace != null) {
-      hashCode = prime * hashCode + elementNamespace.hashCode();
-    }
-    if (declaredNamespaces != null) {
-      hashCode = prime * hashCode + declaredNamespaces.hashCode();
+    // the same namespace as in equals, which is also the one of a clone
+    String namespace = getNamespace();
+    if (namespace != null) {
+      hashCode = prime * hashCode + namespace.hashCode();
     }
+    hashCode = prime * hashCode + getDeclaredNamespaces().hashCode();
 
     // Notes, Annotation and extension SBasePlugins are taken into account in
     // AbstractTreeNode.hashCode()
@@ -1893,7 +2002,8 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public boolean isExtendedByOtherPackages() {
-    return !extensions.isEmpty();
+    resolveDeferredContent(DeferredContent.PACKAGES);
+    return (extensions != null) && !extensions.isEmpty();
   }
 
 
@@ -1962,6 +2072,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public boolean isSetAnnotation() {
+    resolveDeferredContent(DeferredContent.ANNOTATION);
     return (annotation != null) && annotation.isSetAnnotation();
   }
 
@@ -2015,6 +2126,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public boolean isSetNotes() {
+    resolveDeferredContent(DeferredContent.NOTES);
     return notesXMLNode != null;
   }
 
@@ -2045,13 +2157,14 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public boolean isSetPlugin(String nameOrUri) {
+    resolveDeferredContent(DeferredContent.PACKAGES);
 
     // use always the package name in the map
     PackageParser packageParser =
         ParserManager.getManager().getPackageParser(nameOrUri);
 
     if (packageParser != null) {
-      return extensions.get(packageParser.getPackageName()) != null;
+      return getExtensionPackages().get(packageParser.getPackageName()) != null;
     }
 
     throw new IllegalArgumentException(format(
@@ -2327,7 +2440,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
       prefix = "xmlns:" + prefix;
     }
     
-    String removedNamespace = declaredNamespaces.remove(prefix);
+    String removedNamespace = getDeclaredNamespaces().remove(prefix);
     
     if (removedNamespace != null) {
       firePropertyChange(TreeNodeChangeEvent.addDeclaredNamespace, removedNamespace, null);
@@ -2347,7 +2460,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
     
     String prefixToRemove = null;
     
-    for (String prefix : declaredNamespaces.keySet()) {
+    for (String prefix : getDeclaredNamespaces().keySet()) {
       String namespaceForPrefix = declaredNamespaces.get(prefix);
       
       if (namespace.equals(namespaceForPrefix)) {
@@ -2452,6 +2565,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public void setAnnotation(Annotation annotation) {
+    discardDeferredContent(DeferredContent.ANNOTATION);
     Annotation oldAnnotation = this.annotation;
     this.annotation = annotation;
     this.annotation.parent = this;
@@ -2492,6 +2606,18 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
   }
 
 
+  /**
+   * Sets the child elements of this element, whose parsing has been deferred
+   * while reading. This method is called by the {@link SBMLReader}.
+   * 
+   * @param deferredContent
+   *        the deferred child elements or {@code null}.
+   */
+  public void setDeferredContent(DeferredContent deferredContent) {
+    this.deferredContent = deferredContent;
+  }
+
+
   /*
    * (non-Javadoc)
    * @see org.sbml.jsbml.SBase#setHistory(org.sbml.jsbml.History)
@@ -2713,6 +2839,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public void setNotes(XMLNode notes) {
+    discardDeferredContent(DeferredContent.NOTES);
     XMLNode oldNotes = notesXMLNode;
     notesXMLNode = notes;
     if (notesXMLNode != null) {
@@ -3007,6 +3134,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public void unsetAnnotation() {
+    discardDeferredContent(DeferredContent.ANNOTATION);
     if (isSetAnnotation()) {
       Annotation oldAnnotation = annotation;
       annotation = null;
@@ -3030,6 +3158,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
 
   @Override
   public void unsetExtension(String nameOrUri) {
+    resolveDeferredContent(DeferredContent.PACKAGES);
 
     // use always the package name in the map
     PackageParser packageParser =
@@ -3038,7 +3167,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
     if (packageParser != null) {
 
       SBasePlugin sbasePlugin =
-          extensions.remove(packageParser.getPackageName());
+          getExtensionPackages().remove(packageParser.getPackageName());
       firePropertyChange(TreeNodeChangeEvent.extension, sbasePlugin, null);
       return;
     }
@@ -3091,6 +3220,7 @@ public abstract class AbstractSBase extends AbstractTreeNode implements SBase {
    */
   @Override
   public void unsetNotes() {
+    discardDeferredContent(DeferredContent.NOTES);
     if (isSetNotes()) {
       XMLNode oldNotes = notesXMLNode;
       notesXMLNode = null;
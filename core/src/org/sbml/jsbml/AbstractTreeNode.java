@@ -27,6 +27,7 @@ import java.lang.reflect.Method;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
@@ -40,9 +41,11 @@ import java.util.TreeMap;
 import javax.swing.tree.TreeNode;
 
 import org.apache.log4j.Logger;
+import org.sbml.jsbml.ext.SBasePlugin;
 import org.sbml.jsbml.util.ResourceManager;
 import org.sbml.jsbml.util.TreeNodeChangeEvent;
 import org.sbml.jsbml.util.TreeNodeChangeListener;
+import org.sbml.jsbml.util.TreeNodeIterator;
 import org.sbml.jsbml.util.TreeNodeRemovedEvent;
 import org.sbml.jsbml.util.TreeNodeWithChangeSupport;
 import org.sbml.jsbml.util.filters.Filter;
@@ -97,7 +100,8 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
   }
 
   /**
-   * {@link List} of listeners for this component
+   * {@link List} of listeners for this component, or {@code null} as long as
+   * no listener has been added.
    */
   protected transient List<TreeNodeChangeListener> listOfListeners;
 
@@ -116,13 +120,22 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
   private Map<Object, Object> userObjects;
 
   /**
-   * Creates an empty {@link AbstractTreeNode} without child nodes and an
-   * empty list of {@link TreeNodeChangeListener}s. The pointer to the parent
+   * Memorized result of {@link #hashCode()}, i.e., the hash code computed
+   * from the class name and all child nodes, or zero if it has to be
+   * (re-)computed. Whenever this node or one of its descendants changes, this
+   * value is reset for this node and all its ancestors, see
+   * {@link #invalidateHashCode()}.
+   */
+  private transient int hashCodeCache;
+
+  /**
+   * Creates an empty {@link AbstractTreeNode} without child nodes and
+   * without any {@link TreeNodeChangeListener}s. The pointer to the parent
    * of this node is set to {@code null}.
    */
   public AbstractTreeNode() {
     super();
-    listOfListeners = new ArrayList<TreeNodeChangeListener>();
+    listOfListeners = null;
     parent = null;
   }
 
@@ -196,7 +209,13 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
   @Override
   public boolean addAllChangeListeners(
     Collection<TreeNodeChangeListener> listeners, boolean recursive) {
-    boolean success = listOfListeners.addAll(listeners);
+    boolean success = false;
+    if (!listeners.isEmpty()) {
+      if (listOfListeners == null) {
+        listOfListeners = new ArrayList<TreeNodeChangeListener>(listeners.size());
+      }
+      success = listOfListeners.addAll(listeners);
+    }
     if (recursive) {
       Enumeration<TreeNode> children = children();
       while (children.hasMoreElements()) {
@@ -223,6 +242,9 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
    */
   @Override
   public void addTreeNodeChangeListener(TreeNodeChangeListener listener, boolean recursive) {
+    if (listOfListeners == null) {
+      listOfListeners = new ArrayList<TreeNodeChangeListener>(1);
+    }
     if (!listOfListeners.contains(listener)) {
       listOfListeners.add(listener);
     }
@@ -359,33 +381,30 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
   @Override
   public List<? extends TreeNode> filter(Filter filter, boolean retainInternalNodes, boolean prune) {
     List<TreeNode> list = new ArrayList<TreeNode>();
-    boolean accepts = filter.accepts(this);
-    if (accepts) {
-      list.add(this);
-      if (prune) {
-        return list;
+    TreeNodeIterator iterator = new TreeNodeIterator(this);
+    // the number of nodes on the path to the current node that are already in the list
+    int retained = 0;
+    while (iterator.hasNext()) {
+      TreeNode node = iterator.next();
+      if (!(node instanceof TreeNodeWithChangeSupport)) {
+        iterator.skipChildren();
+        continue;
       }
-    }
-
-    List<? extends TreeNode> childList;
-    TreeNode child;
-    for (int i = 0; i < getChildCount(); i++) {
-      child = getChildAt(i);
-      if (child instanceof TreeNodeWithChangeSupport) {
-        childList = ((TreeNodeWithChangeSupport) child).filter(filter, retainInternalNodes, prune);
-        if (childList.size() > 0) {
-          // Somewhere in the subtree rooted at this child is an interesting node.
-          if (!accepts && retainInternalNodes) {
-            list.add(this);
-            // prevent adding the current node more often than once:
-            accepts = true;
-          }
-          list.addAll(childList);
-          if (prune) {
-            // Since we found at least one hit, we are done.
-            return list;
+      int depth = iterator.getDepth();
+      retained = Math.min(retained, depth);
+      if (filter.accepts(node)) {
+        if (retainInternalNodes) {
+          // Somewhere in the subtree rooted at these nodes is an interesting node.
+          for (int i = retained; i < depth; i++) {
+            list.add(iterator.getPathNode(i));
           }
         }
+        list.add(node);
+        retained = depth + 1;
+        if (prune) {
+          // Since we found at least one hit, we are done.
+          break;
+        }
       }
     }
     return list;
@@ -396,7 +415,8 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
    */
   @Override
   public void fireNodeAddedEvent() {
-    for (int i = listOfListeners.size() - 1; i >= 0; i--) {
+    invalidateHashCode();
+    for (int i = getTreeNodeChangeListenerCount() - 1; i >= 0; i--) {
       listOfListeners.get(i).nodeAdded(this);
     }
   }
@@ -407,6 +427,7 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
   @Override
   public void fireNodeRemovedEvent() {
     TreeNode previousParent = getParent();
+    invalidateHashCode();
     parent = null;
 
     if (getTreeNodeChangeListenerCount() > 0) {
@@ -431,7 +452,11 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
     // TODO - if the property is of type TreeNode, we should set the parent of the new value
     // and unset the parent of the oldValue ??
 
-    if (listOfListeners.size() > 0) {
+    if (!propertyName.equals(TreeNodeChangeEvent.userObject)) {
+      invalidateHashCode();
+    }
+
+    if (getTreeNodeChangeListenerCount() > 0) {
       short changeType = -1; // no property change at all
       if ((oldValue == null) && (newValue != null)) {
         changeType = 0; // element added
@@ -491,6 +516,9 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
    */
   @Override
   public List<TreeNodeChangeListener> getListOfTreeNodeChangeListeners() {
+    if (listOfListeners == null) {
+      return Collections.emptyList();
+    }
     return listOfListeners;
   }
 
@@ -544,7 +572,7 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
   @Override
   public Object getUserObject(Object key) {
     if (userObjects == null) {
-      userObjects = new HashMap<Object, Object>();
+      return null;
     }
     return userObjects.get(key);
   }
@@ -554,6 +582,9 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
    */
   @Override
   public int hashCode() {
+    if (hashCodeCache != 0) {
+      return hashCodeCache;
+    }
     // A constant and arbitrary, sufficiently large prime number:
     final int prime = 769;
     /*
@@ -575,10 +606,60 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
       child = getChildAt(i);
       hashCode = prime * hashCode + (child == null ? 0 : child.hashCode());
     }
+    // zero marks an invalid cache, hence it cannot be used as hash code.
+    if (hashCode == 0) {
+      hashCode = prime;
+    }
+    hashCodeCache = hashCode;
 
     return hashCode;
   }
 
+  /**
+   * Discards the memorized hash code of this node and of all its ancestors,
+   * so that it will be computed again on the next call of {@link #hashCode()}.
+   * This method is called whenever this node fires an event, i.e., when one
+   * of its properties or its children change.
+   * 
+   * <p>Ancestors are only visited as long as they have a memorized hash code,
+   * because the hash code of a node cannot be memorized without computing the
+   * hash codes of all its children first.
+   */
+  protected void invalidateHashCode() {
+    resetHashCode();
+    AbstractTreeNode ancestor = getHashCodeParent(this);
+    while (ancestor != null) {
+      boolean cached = ancestor.hashCodeCache != 0;
+      ancestor.resetHashCode();
+      if (!cached) {
+        break;
+      }
+      ancestor = getHashCodeParent(ancestor);
+    }
+  }
+
+  /**
+   * Returns the node whose hash code depends on the hash code of the given
+   * node. This is the parent, except for {@link SBasePlugin}s, which are
+   * children of the {@link SBase} they extend.
+   * 
+   * @param node a node
+   * @return the parent of the given node in the tree or {@code null}.
+   */
+  private static AbstractTreeNode getHashCodeParent(AbstractTreeNode node) {
+    TreeNode parent = (node instanceof SBasePlugin)
+        ? ((SBasePlugin) node).getExtendedSBase() : node.parent;
+    return (parent instanceof AbstractTreeNode) ? (AbstractTreeNode) parent : null;
+  }
+
+  /**
+   * Discards the memorized hash code of this node only, see
+   * {@link #invalidateHashCode()}.
+   */
+  protected void resetHashCode() {
+    hashCodeCache = 0;
+  }
+
   /* (non-Javadoc)
    * @see javax.swing.tree.TreeNode#isLeaf()
    */
@@ -603,8 +684,12 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
    * for example, for the purpose of reading a file or doing validation.
    * 
    * @return true if JSBML is in the process of reading a model
+   * @see JSBML#isReadingInProgress()
    */
   protected boolean isInvalidSBMLAllowed() {
+    if (JSBML.isReadingInProgress()) {
+      return true;
+    }
     if (isSetUserObjects()
         && userObjectKeySet().contains(JSBML.ALLOW_INVALID_SBML)) {
       return true;
@@ -690,7 +775,10 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
    */
   @Override
   public void removeAllTreeNodeChangeListeners() {
-    listOfListeners.clear();
+    // Cleared in place because callers may still hold the list.
+    if (listOfListeners != null) {
+      listOfListeners.clear();
+    }
   }
 
   /**
@@ -788,7 +876,9 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
    */
   @Override
   public void removeTreeNodeChangeListener(TreeNodeChangeListener listener, boolean recursive) {
-    listOfListeners.remove(listener);
+    if (listOfListeners != null) {
+      listOfListeners.remove(listener);
+    }
     if (recursive) {
       Enumeration<TreeNode> children = children();
       while (children.hasMoreElements()) {
@@ -936,6 +1026,9 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
    */
   @Override
   public Set<Object> userObjectKeySet() {
+    if (userObjects == null) {
+      return Collections.emptySet();
+    }
     return userObjects.keySet();
   }
 
@@ -950,7 +1043,7 @@ public abstract class AbstractTreeNode implements TreeNodeWithChangeSupport {
   private void readObject(java.io.ObjectInputStream in)
       throws IOException, ClassNotFoundException {
     in.defaultReadObject();
-    listOfListeners = new ArrayList<TreeNodeChangeListener>();
+    listOfListeners = null;
   }
 
 }
@@ -280,6 +280,7 @@ public class Annotation extends AnnotationElement {
     history = new History();
     history.parent = this;
     history.addAllChangeListeners(getListOfTreeNodeChangeListeners());
+    invalidateHashCode();
 
     return history;
   }
@@ -0,0 +1,169 @@
+/*
+ *
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml;
+
+import java.beans.PropertyChangeEvent;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.swing.tree.TreeNode;
+
+import org.sbml.jsbml.util.TreeNodeChangeEvent;
+import org.sbml.jsbml.util.TreeNodeChangeListener;
+import org.sbml.jsbml.util.TreeNodeRemovedEvent;
+import org.sbml.jsbml.xml.XMLToken;
+
+/**
+ * Memorizes the derived units of the {@link MathContainer}s of one
+ * {@link Model}, see {@link AbstractMathContainer#getDerivedUnitDefinition()}.
+ * 
+ * <p>The cache listens to all elements of the model. A change of the math of
+ * a container discards the unit of this container. A change of the math of a
+ * {@link FunctionDefinition} or a {@link KineticLaw}, which may be used by
+ * the math of other containers, and any other change that can influence
+ * units, e.g., of the units of a variable, of a {@link UnitDefinition} or the
+ * addition or removal of an element, discards all units. This includes
+ * changes of values, because the unit of, e.g., {@code pow(x, p)} depends on
+ * the value of {@code p}. Changes of names, notes and annotations keep the
+ * cache.</p>
+ * 
+ * <p>All methods are synchronized, so that the units of the same model can
+ * be derived by several threads, e.g., during a parallel validation.</p>
+ * 
+ * @since 1.6
+ */
+class DerivedUnitCache implements TreeNodeChangeListener {
+
+  /**
+   * The properties of elements other than {@link ASTNode}s that do not
+   * influence any unit.
+   */
+  private static final Set<String> ignoredProperties = new HashSet<String>(Arrays.asList(
+    TreeNodeChangeEvent.name, TreeNodeChangeEvent.metaId, TreeNodeChangeEvent.sboTerm,
+    TreeNodeChangeEvent.notes, TreeNodeChangeEvent.annotation, TreeNodeChangeEvent.setAnnotation,
+    TreeNodeChangeEvent.addCVTerm, TreeNodeChangeEvent.removeCVTerm, TreeNodeChangeEvent.unsetCVTerms,
+    TreeNodeChangeEvent.history, TreeNodeChangeEvent.message, TreeNodeChangeEvent.userObject,
+    TreeNodeChangeEvent.constant, TreeNodeChangeEvent.boundaryCondition,
+    TreeNodeChangeEvent.charge, TreeNodeChangeEvent.fast, TreeNodeChangeEvent.reversible,
+    TreeNodeChangeEvent.persistent, TreeNodeChangeEvent.useValuesFromTriggerTime));
+
+  /**
+   * The derived unit of each {@link MathContainer}.
+   */
+  private final Map<MathContainer, UnitDefinition> units = new IdentityHashMap<MathContainer, UnitDefinition>();
+
+  /**
+   * Creates a cache and registers it at all elements of the given model.
+   * 
+   * @param model
+   */
+  DerivedUnitCache(Model model) {
+    model.addTreeNodeChangeListener(this, true);
+  }
+
+  /**
+   * @param container
+   * @return the memorized unit of the given container or {@code null}.
+   */
+  synchronized UnitDefinition get(MathContainer container) {
+    return units.get(container);
+  }
+
+  /**
+   * Memorizes the unit of the given container.
+   * 
+   * @param container
+   * @param unit
+   */
+  synchronized void put(MathContainer container, UnitDefinition unit) {
+    units.put(container, unit);
+  }
+
+  /**
+   * Discards the unit of the given container, or all units if other
+   * containers may depend on it or if the container is unknown.
+   * 
+   * @param container
+   */
+  private void discard(MathContainer container) {
+    if ((container == null) || (container instanceof FunctionDefinition)
+        || (container instanceof KineticLaw)) {
+      units.clear();
+    } else {
+      units.remove(container);
+    }
+  }
+
+  /**
+   * @param node
+   * @return {@code true} if the given node belongs to notes or annotations.
+   */
+  private static boolean isIgnored(Object node) {
+    return (node instanceof XMLToken) || (node instanceof Annotation)
+        || (node instanceof CVTerm) || (node instanceof History)
+        || (node instanceof Creator);
+  }
+
+  /* (non-Javadoc)
+   * @see org.sbml.jsbml.util.TreeNodeChangeListener#nodeAdded(javax.swing.tree.TreeNode)
+   */
+  @Override
+  public synchronized void nodeAdded(TreeNode node) {
+    if (!isIgnored(node) && !units.isEmpty()) {
+      if (node instanceof ASTNode) {
+        discard(((ASTNode) node).getParentSBMLObject());
+      } else {
+        units.clear();
+      }
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.sbml.jsbml.util.TreeNodeChangeListener#nodeRemoved(org.sbml.jsbml.util.TreeNodeRemovedEvent)
+   */
+  @Override
+  public void nodeRemoved(TreeNodeRemovedEvent event) {
+    nodeAdded(event.getSource());
+  }
+
+  /* (non-Javadoc)
+   * @see java.beans.PropertyChangeListener#propertyChange(java.beans.PropertyChangeEvent)
+   */
+  @Override
+  public synchronized void propertyChange(PropertyChangeEvent event) {
+    Object source = event.getSource();
+    if (units.isEmpty() || isIgnored(source)) {
+      return;
+    }
+    if (source instanceof ASTNode) {
+      discard(((ASTNode) source).getParentSBMLObject());
+    } else if ((source instanceof MathContainer)
+        && TreeNodeChangeEvent.math.equals(event.getPropertyName())) {
+      discard((MathContainer) source);
+    } else if (!ignoredProperties.contains(event.getPropertyName())) {
+      units.clear();
+    }
+  }
+
+}
@@ -0,0 +1,127 @@
+/*
+ *
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.sbml.jsbml.text.parser.FormulaParserLL3.LOG_BEHAVIOR;
+
+/**
+ * A bounded cache of the {@link ASTNode}s created by
+ * {@link ASTNode#parseFormula(String)}, which evicts the least recently used
+ * formula when it is full.
+ * 
+ * <p>The cached {@link ASTNode}s serve as templates and are never handed out:
+ * each hit returns a clone. Because the {@link LOG_BEHAVIOR} of the parser is
+ * a global setting that changes the result of parsing, the cache is emptied
+ * whenever it is looked up with another {@link LOG_BEHAVIOR}.</p>
+ * 
+ * @since 1.6
+ * @see ASTNode#setFormulaCacheSize(int)
+ */
+class FormulaCache {
+
+  /**
+   * The maximal number of formulas in this cache.
+   */
+  private final int capacity;
+
+  /**
+   * The parsed formulas, ordered from the least to the most recently used.
+   */
+  private final Map<String, ASTNode> templates;
+
+  /**
+   * The {@link LOG_BEHAVIOR} that was used to parse the cached formulas.
+   */
+  private LOG_BEHAVIOR logBehavior;
+
+  /**
+   * @param capacity
+   *        the maximal number of formulas in this cache.
+   */
+  FormulaCache(final int capacity) {
+    this.capacity = capacity;
+    templates = new LinkedHashMap<String, ASTNode>(16, 0.75f, true) {
+
+      /**
+       * Generated serial version identifier.
+       */
+      private static final long serialVersionUID = -5208587335651012562L;
+
+      /* (non-Javadoc)
+       * @see java.util.LinkedHashMap#removeEldestEntry(java.util.Map.Entry)
+       */
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, ASTNode> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  /**
+   * @return the maximal number of formulas in this cache.
+   */
+  int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * @param formula
+   * @param logBehavior
+   *        the current {@link LOG_BEHAVIOR} of the parser.
+   * @return a copy of the cached {@link ASTNode} for the given formula or
+   *         {@code null}.
+   */
+  ASTNode get(String formula, LOG_BEHAVIOR logBehavior) {
+    ASTNode template;
+    synchronized (this) {
+      if (this.logBehavior != logBehavior) {
+        templates.clear();
+        this.logBehavior = logBehavior;
+        return null;
+      }
+      template = templates.get(formula);
+    }
+    // templates are never changed, hence they can be copied concurrently.
+    return (template != null) ? template.clone() : null;
+  }
+
+  /**
+   * Memorizes a copy of the given {@link ASTNode}.
+   * 
+   * @param formula
+   * @param logBehavior
+   *        the {@link LOG_BEHAVIOR} that was used to parse the formula.
+   * @param node
+   *        the result of parsing the formula.
+   */
+  void put(String formula, LOG_BEHAVIOR logBehavior, ASTNode node) {
+    ASTNode template = node.clone();
+    synchronized (this) {
+      if (this.logBehavior == logBehavior) {
+        templates.put(formula, template);
+      }
+    }
+  }
+
+}
@@ -179,6 +179,21 @@ public class JSBML {
    */
   public static final transient String CHILD_ELEMENT_NAMES = "jsbml.child.elements.names";
 
+  /**
+   * Counts, for each thread, how many XML documents are currently being read.
+   * While this number is positive, all {@link AbstractTreeNode}s behave as if
+   * {@link #READING_IN_PROGRESS} were set as a user object.
+   */
+  private static final ThreadLocal<int[]> readingDepth = new ThreadLocal<int[]>() {
+
+    /* (non-Javadoc)
+     * @see java.lang.ThreadLocal#initialValue()
+     */
+    @Override
+    protected int[] initialValue() {
+      return new int[1];
+    }
+  };
 
   /**
    * Adds the given {@link UnitDefinition} to the given model or returns the
@@ -281,6 +296,19 @@ public class JSBML {
     return number.toString();
   }
 
+  /**
+   * Returns {@code true} if the current thread is in the process of reading
+   * an XML document, i.e., between calls of {@link #startReading()} and
+   * {@link #stopReading()}.
+   * 
+   * @return {@code true} if the current thread is reading an XML document.
+   * @see #READING_IN_PROGRESS
+   * @since 1.6
+   */
+  public static boolean isReadingInProgress() {
+    return readingDepth.get()[0] > 0;
+  }
+
   /**
    * Loads {@link Properties} from a configuration file with the given path
    * assuming that all values represent class names.
@@ -509,4 +537,33 @@ public class JSBML {
     return null;
   }
 
+  /**
+   * Marks the current thread as reading an XML document. Until the matching
+   * call of {@link #stopReading()}, the getters and setters of all elements
+   * accept the invalid values that are found in the document, as if
+   * {@link #READING_IN_PROGRESS} were set on each of them. Calls can be
+   * nested, e.g., when a reader parses some MathML while reading a document.
+   * 
+   * @see #stopReading()
+   * @see #isReadingInProgress()
+   * @since 1.6
+   */
+  public static void startReading() {
+    readingDepth.get()[0]++;
+  }
+
+  /**
+   * Ends the reading that has been started with the last call of
+   * {@link #startReading()} on the current thread.
+   * 
+   * @see #startReading()
+   * @since 1.6
+   */
+  public static void stopReading() {
+    int[] depth = readingDepth.get();
+    if (depth[0] > 0) {
+      depth[0]--;
+    }
+  }
+
 }
@@ -20,11 +20,17 @@
 package org.sbml.jsbml;
 
 import java.text.MessageFormat;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
 
 import javax.swing.tree.TreeNode;
 
@@ -244,6 +250,180 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
     }
   }
 
+  /**
+   * A {@link ListIterator} over the elements of this list that discards the
+   * {@link ListOf#idIndex} whenever it modifies the list.
+   * 
+   * @since 1.6
+   */
+  private class IdIndexedListIterator implements ListIterator<T> {
+
+    /**
+     * The iterator of the underlying list.
+     */
+    private final ListIterator<T> delegate;
+
+    /**
+     * @param delegate the iterator of the underlying list
+     */
+    IdIndexedListIterator(ListIterator<T> delegate) {
+      this.delegate = delegate;
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.ListIterator#add(java.lang.Object)
+     */
+    @Override
+    public void add(T e) {
+      delegate.add(e);
+      invalidateIdIndex();
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.ListIterator#hasNext()
+     */
+    @Override
+    public boolean hasNext() {
+      return delegate.hasNext();
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.ListIterator#hasPrevious()
+     */
+    @Override
+    public boolean hasPrevious() {
+      return delegate.hasPrevious();
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.ListIterator#next()
+     */
+    @Override
+    public T next() {
+      return delegate.next();
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.ListIterator#nextIndex()
+     */
+    @Override
+    public int nextIndex() {
+      return delegate.nextIndex();
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.ListIterator#previous()
+     */
+    @Override
+    public T previous() {
+      return delegate.previous();
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.ListIterator#previousIndex()
+     */
+    @Override
+    public int previousIndex() {
+      return delegate.previousIndex();
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.ListIterator#remove()
+     */
+    @Override
+    public void remove() {
+      delegate.remove();
+      invalidateIdIndex();
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.ListIterator#set(java.lang.Object)
+     */
+    @Override
+    public void set(T e) {
+      delegate.set(e);
+      invalidateIdIndex();
+    }
+  }
+
+  /**
+   * A view of a range of this list that discards the {@link ListOf#idIndex}
+   * whenever it modifies the list.
+   * 
+   * @since 1.6
+   */
+  private class IdIndexedSubList extends AbstractList<T> {
+
+    /**
+     * The view of the underlying list.
+     */
+    private final List<T> delegate;
+
+    /**
+     * @param delegate the view of the underlying list
+     */
+    IdIndexedSubList(List<T> delegate) {
+      this.delegate = delegate;
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.AbstractList#add(int, java.lang.Object)
+     */
+    @Override
+    public void add(int index, T element) {
+      delegate.add(index, element);
+      modCount++;
+      invalidateIdIndex();
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.AbstractList#get(int)
+     */
+    @Override
+    public T get(int index) {
+      return delegate.get(index);
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.AbstractList#remove(int)
+     */
+    @Override
+    public T remove(int index) {
+      T element = delegate.remove(index);
+      modCount++;
+      invalidateIdIndex();
+      return element;
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.AbstractList#removeRange(int, int)
+     */
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+      delegate.subList(fromIndex, toIndex).clear();
+      modCount++;
+      invalidateIdIndex();
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.AbstractList#set(int, java.lang.Object)
+     */
+    @Override
+    public T set(int index, T element) {
+      T previous = delegate.set(index, element);
+      invalidateIdIndex();
+      return previous;
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.AbstractCollection#size()
+     */
+    @Override
+    public int size() {
+      return delegate.size();
+    }
+  }
+
   /**
    * Switches the behavior of the {@link #toString()} method from displaying
    * the {@link Type} (default) to the complete content of all instances of
@@ -350,7 +530,30 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
    */
   protected String otherListName = null;
 
-    
+  /**
+   * Number of elements from which on {@link #get(String)} and
+   * {@link #remove(String)} make use of the {@link #idIndex} instead of a
+   * linear search over the list.
+   */
+  private static final int ID_INDEX_THRESHOLD = 16;
+
+  /**
+   * Lazily built index from the identifiers of the elements of this list (and
+   * the variables of {@link ExplicitRule}s) to the first element in list order
+   * that carries this identifier. It is {@code null} as long as it has not
+   * been built or after it has been invalidated. The index is only assigned
+   * once it is complete, so that threads that concurrently read this list
+   * never see a partially built index.
+   */
+  private transient volatile Map<String, T> idIndex;
+
+  /**
+   * Memorizes if two elements of this list have been found to share the same
+   * key in the {@link #idIndex}. In that case, the index can only be updated
+   * by rebuilding it completely.
+   */
+  private transient boolean idIndexConflict;
+
   /**
    * Creates a ListOf instance. By default, the list containing the SBase
    * elements is empty.
@@ -428,6 +631,9 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
   public void add(int index, T element) {
     registerChild(element);
     listOf.add(index, element);
+    indexElement(element, false);
+    // the element is registered before it is part of the list
+    invalidateHashCode();
   }
 
   /* (non-Javadoc) @see java.util.List#add(java.lang.Object)
@@ -442,6 +648,7 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
     try {
       if (listOf.add(element)) {
         if (registerChild(element)) {
+          indexElement(element, true);
           return true;
         }
         listOf.remove(listOf.size() - 1);
@@ -454,6 +661,7 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
       }
       // using the position when removing to be sure to delete the added element (and it is more efficient)
       listOf.remove(listOf.size() - 1);
+      invalidateIdIndex();
       throw exc;
     }
   }
@@ -467,11 +675,13 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
       for (T element : c) {
         try {
           registerChild(element);
+          indexElement(element, true);
         } catch (RuntimeException exc) {
           logger.debug(MessageFormat.format(
             "Reverting change: removing all elements from collection {0} from internal list",
             c));
           listOf.removeAll(c);
+          invalidateIdIndex();
           throw exc;
         }
       }
@@ -489,11 +699,13 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
       for (T element : collection) {
         try {
           registerChild(element);
+          indexElement(element, false);
         } catch (RuntimeException exc) {
           logger.debug(MessageFormat.format(
             "Reverting change: removing all elements from collection {0} from internal list",
             collection));
           listOf.removeAll(collection);
+          invalidateIdIndex();
           throw exc;
         }
       }
@@ -529,6 +741,8 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
       ((TreeNodeWithChangeSupport) element).fireNodeRemovedEvent();
     }
     listOf.clear();
+    invalidateIdIndex();
+    invalidateHashCode();
   }
 
   /* (non-Javadoc)
@@ -644,6 +858,10 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
    */
   public T get(String id) {
 
+    if ((id != null) && (id.length() > 0) && (listOf.size() >= ID_INDEX_THRESHOLD)) {
+      return getIdIndex().get(id);
+    }
+
     T foundElement = null;
 
     for (T element : listOf) {
@@ -755,6 +973,171 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
     return listType;
   }
 
+  /**
+   * Returns the index from identifiers to elements of this list, building it
+   * if necessary. When several elements share the same key, the first one in
+   * list order is kept, exactly as a linear search would find it.
+   * 
+   * @return the index from identifiers to elements of this list.
+   */
+  private Map<String, T> getIdIndex() {
+    Map<String, T> index = idIndex;
+    if (index == null) {
+      index = new HashMap<String, T>(2 * listOf.size());
+      boolean conflict = false;
+      for (T element : listOf) {
+        if (element == null) {
+          continue;
+        }
+        if (element.isSetId()) {
+          conflict |= putFirst(index, element.getId(), element);
+        }
+        if ((element instanceof ExplicitRule) && ((ExplicitRule) element).isSetVariable()) {
+          conflict |= putFirst(index, ((ExplicitRule) element).getVariable(), element);
+        }
+      }
+      idIndexConflict = conflict;
+      idIndex = index;
+    }
+    return index;
+  }
+
+  /**
+   * Puts the given key into the given index unless it is already present.
+   * 
+   * @param index the index to be built
+   * @param key an identifier
+   * @param element the element that carries the identifier
+   * @return {@code true} if the key already belongs to another element.
+   */
+  private static <T> boolean putFirst(Map<String, T> index, String key, T element) {
+    T previous = index.get(key);
+    if (previous == null) {
+      index.put(key, element);
+      return false;
+    }
+    return previous != element;
+  }
+
+  /**
+   * Adds the keys of the given element to the {@link #idIndex} if the index
+   * has already been built.
+   * 
+   * @param element an element of this list
+   * @param appended {@code true} if the element is known to be the last one
+   *        in this list, in which case an element that already carries one of
+   *        its keys takes precedence. Otherwise, such a conflict invalidates
+   *        the index, because the position of the element decides which one
+   *        has to be found.
+   */
+  private void indexElement(T element, boolean appended) {
+    if ((idIndex == null) || (element == null)) {
+      return;
+    }
+    if (element.isSetId()) {
+      indexKey(element.getId(), element, appended);
+    }
+    if ((idIndex != null) && (element instanceof ExplicitRule)
+        && ((ExplicitRule) element).isSetVariable()) {
+      indexKey(((ExplicitRule) element).getVariable(), element, appended);
+    }
+  }
+
+  /**
+   * Puts the given key into the {@link #idIndex}.
+   * 
+   * @param key an identifier
+   * @param element the element that carries the identifier
+   * @param appended see {@link #indexElement(SBase, boolean)}
+   */
+  private void indexKey(String key, T element, boolean appended) {
+    T previous = idIndex.get(key);
+    if (previous == null) {
+      idIndex.put(key, element);
+    } else if (previous != element) {
+      if (appended) {
+        idIndexConflict = true;
+      } else {
+        invalidateIdIndex();
+      }
+    }
+  }
+
+  /**
+   * Discards the {@link #idIndex} so that it will be rebuilt on the next
+   * access.
+   */
+  private void invalidateIdIndex() {
+    idIndex = null;
+    idIndexConflict = false;
+  }
+
+  /**
+   * Removes the given key from the {@link #idIndex} if it points to the given
+   * element.
+   * 
+   * @param key an identifier the element was indexed with
+   * @param element the element
+   * @return {@code true} if the element was indexed under the given key.
+   */
+  private boolean unindexKey(Object key, SBase element) {
+    if ((idIndex == null) || !(key instanceof String) || (idIndex.get(key) != element)) {
+      return false;
+    }
+    if (idIndexConflict) {
+      // another element might carry the same key and has to be found now.
+      invalidateIdIndex();
+    } else {
+      idIndex.remove(key);
+    }
+    return true;
+  }
+
+  /**
+   * Informs this list that the identifier (or the variable in case of an
+   * {@link ExplicitRule}) of one of its elements has been changed, so that
+   * the index used by {@link #get(String)} stays up-to-date.
+   * 
+   * <p>This an internal method that is called from
+   * {@link AbstractSBase#firePropertyChange(String, Object, Object)}.
+   * 
+   * @param element the element whose identifier changed
+   * @param oldValue the previous value of the identifier
+   */
+  @SuppressWarnings("unchecked")
+  void elementIdChanged(SBase element, Object oldValue) {
+    if (idIndex == null) {
+      return;
+    }
+    if (unindexKey(oldValue, element)) {
+      indexElement((T) element, false);
+    } else if ((element.isSetId() && (idIndex.get(element.getId()) != element))
+        || ((element instanceof ExplicitRule) && ((ExplicitRule) element).isSetVariable()
+            && (idIndex.get(((ExplicitRule) element).getVariable()) != element))) {
+      /*
+       * We cannot tell in constant time if the element belongs to this list
+       * (and not to a plugin of it), hence the index is rebuilt when needed.
+       */
+      invalidateIdIndex();
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.sbml.jsbml.AbstractSBase#unregisterChild(org.sbml.jsbml.SBase)
+   */
+  @Override
+  public void unregisterChild(SBase sbase) {
+    super.unregisterChild(sbase);
+    if ((idIndex != null) && (sbase != null)) {
+      if (sbase.isSetId()) {
+        unindexKey(sbase.getId(), sbase);
+      }
+      if ((sbase instanceof ExplicitRule) && ((ExplicitRule) sbase).isSetVariable()) {
+        unindexKey(((ExplicitRule) sbase).getVariable(), sbase);
+      }
+    }
+  }
+
   /* (non-Javadoc)
    * @see java.util.List#indexOf(java.lang.Object)
    */
@@ -776,7 +1159,7 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
    */
   @Override
   public Iterator<T> iterator() {
-    return listOf.iterator();
+    return new IdIndexedListIterator(listOf.listIterator());
   }
 
   /* (non-Javadoc)
@@ -792,7 +1175,7 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
    */
   @Override
   public ListIterator<T> listIterator() {
-    return listOf.listIterator();
+    return new IdIndexedListIterator(listOf.listIterator());
   }
 
   /* (non-Javadoc)
@@ -800,7 +1183,7 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
    */
   @Override
   public ListIterator<T> listIterator(int index) {
-    return listOf.listIterator(index);
+    return new IdIndexedListIterator(listOf.listIterator(index));
   }
 
   /* (non-Javadoc)
@@ -814,13 +1197,40 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
   }
 
   /**
-   * Removes a {@link SBase} according to its unique id.
+   * Returns the position of the given object in this list, comparing the
+   * elements by identity and not by {@link #equals(Object)}, which would
+   * compare the whole subtrees of the elements.
+   * 
+   * @param o the object to search for
+   * @return the position of the given object or -1 if it is not an element
+   *         of this list.
+   */
+  private int identityIndexOf(Object o) {
+    if (o == null) {
+      return -1;
+    }
+    for (int i = 0; i < listOf.size(); i++) {
+      if (listOf.get(i) == o) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Removes a {@link SBase} from this list. The element is first searched by
+   * identity, then by equality and finally according to its unique id.
    * 
    * @param nsb
    *            the object to be removed.
    * @return success or failure.
    */
   public boolean remove(SBase nsb) {
+    int position = identityIndexOf(nsb);
+    if (position >= 0) {
+      remove(position);
+      return true;
+    }
     if (!listOf.remove(nsb)) {
       if (nsb.isSetId()) {
         int pos = -1;
@@ -853,6 +1263,11 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
       return false;
     }
     SBase sbase = (SBase) o;
+    int position = identityIndexOf(sbase);
+    if (position >= 0) {
+      remove(position);
+      return true;
+    }
     if (listOf.remove(sbase)) {
       ((TreeNodeWithChangeSupport) o).fireNodeRemovedEvent();
       return true;
@@ -870,6 +1285,21 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
   @SuppressWarnings("unchecked")
   public T remove(String removeId) {
     if (removeId != null && removeId.trim().length() > 0) {
+      if (listOf.size() >= ID_INDEX_THRESHOLD) {
+        T candidate = getIdIndex().get(removeId);
+        if (candidate == null) {
+          return null;
+        }
+        if ((candidate instanceof NamedSBase) && candidate.isSetId()
+            && candidate.getId().equals(removeId)) {
+          int pos = identityIndexOf(candidate);
+          if (pos >= 0) {
+            remove(pos);
+            return candidate;
+          }
+        }
+        // the index is not conclusive, e.g., because a rule variable shares the id
+      }
       int pos = -1;
       SBase sbase = null;
       for (int i = 0; i < size() && pos < 0; i++) {
@@ -892,19 +1322,31 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
     return null;
   }
 
-  /* (non-Javadoc)
+  /**
+   * Removes all elements from this list in a single pass. The elements of the
+   * given collection are matched by identity. Elements of the collection that
+   * are not contained in this list are afterwards removed one by one using
+   * {@link #remove(Object)}, which falls back to {@link #equals(Object)}.
+   * 
+   * @param c the elements to remove
+   * @return {@code true} if this list changed as a result of the call
    * @see java.util.List#removeAll(java.util.Collection)
    */
   @Override
   public boolean removeAll(Collection<?> c) {
-    boolean success = listOf.removeAll(c);
-    if (success) { // TODO: a success does not mean that all elements from c have been removed from the listOf
-      for (Iterator<?> i = c.iterator(); i.hasNext();) {
-        SBase element = (SBase) i.next();
-        element.fireNodeRemovedEvent();
+    Set<Object> toRemove = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+    toRemove.addAll(c);
+    List<T> removed = compact(toRemove, false);
+    boolean modified = !removed.isEmpty();
+    if (removed.size() < toRemove.size()) {
+      for (T element : removed) {
+        toRemove.remove(element);
+      }
+      for (Object o : toRemove) {
+        modified |= remove(o);
       }
     }
-    return success;
+    return modified;
   }
 
   /**
@@ -933,20 +1375,62 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
     return null;
   }
 
-  /* (non-Javadoc)
+  /**
+   * Removes all elements from this list that are not contained in the given
+   * collection. The elements are matched by identity and removed in a single
+   * pass over this list. Elements of this list that are not contained in the
+   * given collection by identity are looked up with
+   * {@link Collection#contains(Object)}, which falls back to
+   * {@link #equals(Object)}.
+   * 
+   * @param c the elements to retain
+   * @return {@code true} if this list changed as a result of the call
    * @see java.util.List#retainAll(java.util.Collection)
    */
   @Override
   public boolean retainAll(Collection<?> c) {
-    boolean modified = false;
+    Set<Object> toRetain = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+    toRetain.addAll(c);
     for (T element : listOf) {
-      if (!c.contains(element)) {
-        listOf.remove(element);
+      if (!toRetain.contains(element) && c.contains(element)) {
+        toRetain.add(element);
+      }
+    }
+    return !compact(toRetain, true).isEmpty();
+  }
+
+  /**
+   * Removes in one pass all elements of this list whose membership in the given
+   * set equals {@code retain == false} and notifies the listeners once per
+   * removed element, after the list has been compacted.
+   * 
+   * @param elements a set of elements compared by identity
+   * @param retain if {@code true}, the given elements are kept and all others
+   *        removed, otherwise the given elements are removed.
+   * @return the removed elements in their former order.
+   */
+  private List<T> compact(Set<Object> elements, boolean retain) {
+    List<T> removed = new ArrayList<T>();
+    int size = listOf.size();
+    int pos = 0;
+    for (int i = 0; i < size; i++) {
+      T element = listOf.get(i);
+      if (elements.contains(element) == retain) {
+        if (pos != i) {
+          listOf.set(pos, element);
+        }
+        pos++;
+      } else {
+        removed.add(element);
+      }
+    }
+    if (!removed.isEmpty()) {
+      listOf.subList(pos, size).clear();
+      for (T element : removed) {
         ((TreeNodeWithChangeSupport) element).fireNodeRemovedEvent();
-        modified = true;
       }
     }
-    return modified;
+    return removed;
   }
 
   /* (non-Javadoc)
@@ -966,8 +1450,10 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
         "Reverting change: removing element {0} from internal list",
         element));
       listOf.remove(index);
+      invalidateIdIndex();
       throw exc;
     }
+    indexElement(element, false);
     return prevElem;
   }
 
@@ -1041,7 +1527,7 @@ public class ListOf<T extends SBase> extends AbstractSBase implements List<T>, U
    */
   @Override
   public List<T> subList(int fromIndex, int toIndex) {
-    return listOf.subList(fromIndex, toIndex);
+    return new IdIndexedSubList(listOf.subList(fromIndex, toIndex));
   }
 
   /* (non-Javadoc)
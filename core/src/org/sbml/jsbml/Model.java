@@ -38,7 +38,6 @@ import org.sbml.jsbml.util.IdManager;
 import org.sbml.jsbml.util.TreeNodeChangeEvent;
 import org.sbml.jsbml.util.filters.AssignmentVariableFilter;
 import org.sbml.jsbml.util.filters.BoundaryConditionFilter;
-import org.sbml.jsbml.util.filters.IdenticalUnitDefinitionFilter;
 
 /**
  * <p>
@@ -193,6 +192,18 @@ implements UniqueNamedSBase, IdManager {
    */
   private String                        volumeUnitsID;
 
+  /**
+   * Memorizes the derived units of the {@link MathContainer}s in this model.
+   * It is created on demand and never copied.
+   */
+  private transient volatile DerivedUnitCache derivedUnitCache;
+
+  /**
+   * Indexes the {@link UnitDefinition}s of this model by their canonical
+   * signature. It is created on demand and never copied.
+   */
+  private transient volatile UnitDefinitionIndex unitDefinitionIndex;
+
 
   /**
    * Creates a Model instance. By default, all the listOfxxx and xxxUnitsID are
@@ -1540,6 +1551,67 @@ implements UniqueNamedSBase, IdManager {
   }
 
 
+  /**
+   * Returns the cache of the derived units of the {@link MathContainer}s in
+   * this model, see {@link AbstractMathContainer#getDerivedUnitDefinition()}.
+   * 
+   * @return the cache, which is created and registered as listener at all
+   *         elements of this model on the first call.
+   */
+  DerivedUnitCache getDerivedUnitCache() {
+    DerivedUnitCache cache = derivedUnitCache;
+    if (cache == null) {
+      synchronized (this) {
+        cache = derivedUnitCache;
+        if (cache == null) {
+          cache = new DerivedUnitCache(this);
+          derivedUnitCache = cache;
+        }
+      }
+    }
+    return cache;
+  }
+
+
+  /**
+   * Returns the index of the {@link UnitDefinition}s of this model, see
+   * {@link #findIdentical(UnitDefinition)}.
+   * 
+   * @return the index, which is created on the first call.
+   */
+  private UnitDefinitionIndex getUnitDefinitionIndex() {
+    UnitDefinitionIndex index = unitDefinitionIndex;
+    if (index == null) {
+      synchronized (this) {
+        index = unitDefinitionIndex;
+        if (index == null) {
+          index = new UnitDefinitionIndex(this);
+          unitDefinitionIndex = index;
+        }
+      }
+    }
+    return index;
+  }
+
+
+  /**
+   * Creates the cache of the derived units and the index of the
+   * {@link UnitDefinition}s of this model, which register themselves as
+   * listeners at the elements of this model, if they do not exist yet.
+   * 
+   * <p>This an internal method that should not be used outside of the main
+   * jsbml code. It is called before the units of this model are checked by
+   * several threads, so that the elements of this model are not modified
+   * during the validation.</p>
+   * 
+   * @since 1.6
+   */
+  public void initUnitCaches() {
+    getDerivedUnitCache();
+    getUnitDefinitionIndex().update();
+  }
+
+
   /**
    * Searches the first {@link UnitDefinition} within this {@link Model}'s
    * {@link #listOfUnitDefinitions} that
@@ -1557,8 +1629,7 @@ implements UniqueNamedSBase, IdManager {
    *         {@code null} if no such element can be found.
    */
   public UnitDefinition findIdentical(UnitDefinition unitDefinition) {
-    return getListOfUnitDefinitions().firstHit(
-      new IdenticalUnitDefinitionFilter(unitDefinition));
+    return getUnitDefinitionIndex().findIdentical(unitDefinition);
   }
 
 
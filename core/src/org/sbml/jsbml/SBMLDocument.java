@@ -121,6 +121,11 @@ public class SBMLDocument extends AbstractSBase {
   private Map<String, Boolean>          checkConsistencyParameters =
       new HashMap<String, Boolean>();
 
+  /**
+   * The number of threads used by {@link #checkConsistencyOffline()}.
+   */
+  private int                           offlineValidationThreadCount = 1;
+
   /**
    * Memorizes all {@link SBMLError} when parsing the file containing this
    * document.
@@ -347,6 +352,7 @@ public class SBMLDocument extends AbstractSBase {
    */
   public int checkConsistencyOffline() {
     LoggingValidationContext ctx = new LoggingValidationContext(getLevel(), getVersion());
+    ctx.setThreadCount(offlineValidationThreadCount);
 
     // By default disable the unit consistency category, enable all the rest
     List<CHECK_CATEGORY> checks = new ArrayList<CHECK_CATEGORY>();
@@ -1072,6 +1078,17 @@ public class SBMLDocument extends AbstractSBase {
   }
 
 
+  /**
+   * Returns the number of threads used by {@link #checkConsistencyOffline()}.
+   * 
+   * @return the number of threads used by {@link #checkConsistencyOffline()}.
+   * @see #setOfflineValidationThreadCount(int)
+   */
+  public int getOfflineValidationThreadCount() {
+    return offlineValidationThreadCount;
+  }
+
+
   /**
    * Returns the required attribute of the given package extension.
    * 
@@ -1649,6 +1666,27 @@ public class SBMLDocument extends AbstractSBase {
   }
 
 
+  /**
+   * Sets the number of threads that {@link #checkConsistencyOffline()} uses
+   * to validate this document. With more than one thread, the parts of the
+   * document are validated concurrently, see
+   * {@link LoggingValidationContext#setThreadCount(int)}. This document must
+   * not be modified during the validation.
+   * 
+   * @param threadCount
+   *        the number of threads, 1 to validate in the calling thread
+   *        (default).
+   * @throws IllegalArgumentException
+   *         if the number is smaller than 1.
+   */
+  public void setOfflineValidationThreadCount(int threadCount) {
+    if (threadCount < 1) {
+      throw new IllegalArgumentException("The number of threads must be positive.");
+    }
+    offlineValidationThreadCount = threadCount;
+  }
+
+
   /**
    * <p>
    * Sets the SBML Level and Version of this {@link SBMLDocument} instance,
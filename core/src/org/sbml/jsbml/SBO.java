@@ -20,8 +20,11 @@
 package org.sbml.jsbml;
 
 import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.text.MessageFormat;
 import java.util.HashSet;
 import java.util.NoSuchElementException;
 import java.util.Properties;
@@ -30,6 +33,8 @@ import java.util.Set;
 import org.apache.log4j.Logger;
 import org.biojava.nbio.ontology.Ontology;
 import org.biojava.nbio.ontology.io.OboParser;
+import org.sbml.jsbml.ontology.AncestorIndex;
+import org.sbml.jsbml.ontology.OntologySnapshot;
 import org.sbml.jsbml.ontology.Term;
 import org.sbml.jsbml.ontology.Triple;
 import org.sbml.jsbml.resources.Resource;
@@ -48,6 +53,13 @@ import org.sbml.jsbml.util.StringTools;
  * {@link Ontology} from BioJava, which is used in this class, can also be
  * obtained using the method {@link #getOntology()}.
  * 
+ * <p>The ontology is loaded lazily. The term hierarchy, which is needed for
+ * methods such as {@link #isChildOf(int, int)}, and the aliases are read from
+ * a precompiled {@link OntologySnapshot}, whereas the OBO file is only parsed
+ * when the BioJava {@link Ontology} or one of its {@link Term}s is requested,
+ * or when the system property {@link #ONTOLOGY_FILE_PROPERTY} points to a
+ * custom OBO file.
+ * 
  * <p>
  * The values of 'id' attributes on SBML components allow the components to
  * be cross-referenced within a model. The values of 'name' attributes on
@@ -198,9 +210,59 @@ import org.sbml.jsbml.util.StringTools;
 public class SBO {
 
   /**
+   * Lazily parses the OBO file of the SBO, which is only required when the
+   * BioJava {@link Ontology} or its {@link Term}s are accessed.
+   */
+  private static class OntologyHolder {
+
+    /**
+     * 
+     */
+    private static final Ontology sbo = parseOntology();
+
+    /**
+     * 
+     */
+    private static final Set<Term> terms = new HashSet<Term>();
+
+  }
+
+  /**
+   * Lazily loads the {@link OntologySnapshot} of the SBO, which provides the
+   * term hierarchy and the aliases.
+   */
+  private static class SnapshotHolder {
+
+    /**
+     * 
+     */
+    private static final OntologySnapshot snapshot = loadSnapshot();
+
+    /**
+     * 
+     */
+    private static final Properties alias2sbo = snapshot.getAliases();
+
+    /**
+     * 
+     */
+    private static final Properties sbo2alias = new Properties();
+
+    static {
+      for (Object key : alias2sbo.keySet()) {
+        sbo2alias.put(alias2sbo.get(key), key);
+      }
+    }
+
+  }
+
+  /**
+   * The name of a system property that can be set to the location of an OBO
+   * file, which is then used instead of the SBO that comes with JSBML.
    * 
+   * @since 1.6
    */
-  private static Properties alias2sbo;
+  public static final String ONTOLOGY_FILE_PROPERTY = "org.sbml.jsbml.sbo.file";
 
   /**
    * the prefix of all SBO ids.
@@ -208,39 +270,77 @@ public class SBO {
   private static final String prefix = "SBO:";
 
   /**
-   * 
+   * The location of the resources of this class.
    */
-  private static Ontology sbo;
+  private static final String RESOURCE_PATH = "org/sbml/jsbml/resources/cfg/";
 
   /**
-   * 
+   * The binary snapshot of the SBO, which is created from the OBO file during
+   * the build, see {@link OntologySnapshot#main(String[])}.
    */
-  private static Properties sbo2alias;
+  private static final String SNAPSHOT_RESOURCE = RESOURCE_PATH + "SBO_OBO.bin";
 
   /**
+   * Loads the snapshot of the SBO from the precompiled binary resource. Only
+   * if a custom ontology file has been set or the resource is not available,
+   * the OBO file is parsed.
    * 
+   * @return the snapshot of the SBO
    */
-  private static Set<Term> terms;
+  private static OntologySnapshot loadSnapshot() {
+    if (System.getProperty(ONTOLOGY_FILE_PROPERTY) == null) {
+      InputStream is = Resource.getInstance().getStreamFromResourceLocation(SNAPSHOT_RESOURCE);
+      if (is != null) {
+        try {
+          return OntologySnapshot.read(is);
+        } catch (IOException exc) {
+          Logger.getLogger(SBO.class).warn(MessageFormat.format(
+            "Could not read {0}, parsing the SBO instead: {1}",
+            SNAPSHOT_RESOURCE, exc.getLocalizedMessage()));
+        } finally {
+          try {
+            is.close();
+          } catch (IOException exc) {
+            // ignore
+          }
+        }
+      }
+    }
+    Ontology ontology = getOntology();
+    if (ontology == null) {
+      throw new IllegalStateException("The SBO could not be loaded.");
+    }
+    Properties aliases = null;
+    try {
+      aliases = Resource.readProperties(RESOURCE_PATH + "Alias2SBO.cfg");
+    } catch (IOException exc) {
+      Logger.getLogger(SBO.class).error(exc.getLocalizedMessage(), exc);
+    }
+    return new OntologySnapshot(ontology, prefix, aliases);
+  }
 
-  static {
+  /**
+   * Parses the OBO file of the SBO, or the file given by the system property
+   * {@link #ONTOLOGY_FILE_PROPERTY}.
+   * 
+   * @return the SBO or {@code null} if the file could not be parsed.
+   */
+  private static Ontology parseOntology() {
     OboParser parser = new OboParser();
+    String file = System.getProperty(ONTOLOGY_FILE_PROPERTY);
     try {
-      String path = "org/sbml/jsbml/resources/cfg/";
-      InputStream is = Resource.getInstance()
-          .getStreamFromResourceLocation(path + "SBO_OBO.obo");
-      sbo = parser.parseOBO(
-        new BufferedReader(new InputStreamReader(is)), "SBO",
-          "Systems Biology Ontology");
-      alias2sbo = Resource.readProperties(path + "Alias2SBO.cfg");
-      sbo2alias = new Properties();
-      for (Object key : alias2sbo.keySet()) {
-        sbo2alias.put(alias2sbo.get(key), key);
+      InputStream is = (file != null) ? new FileInputStream(file)
+        : Resource.getInstance().getStreamFromResourceLocation(RESOURCE_PATH + "SBO_OBO.obo");
+      BufferedReader reader = new BufferedReader(new InputStreamReader(is));
+      try {
+        return parser.parseOBO(reader, "SBO", "Systems Biology Ontology");
+      } finally {
+        reader.close();
       }
-      // convert between BioJava's Terms and our Terms.
-      terms = new HashSet<Term>();
     } catch (Throwable e) {
       e.printStackTrace();
     }
+    return null;
   }
 
   /**
@@ -292,7 +392,7 @@ public class SBO {
    * @return an SBO id corresponding to the given alias.
    */
   public static int convertAlias2SBO(String alias) {
-    Object value = alias2sbo.get(alias);
+    Object value = SnapshotHolder.alias2sbo.get(alias);
     return value != null ? Integer.parseInt(value.toString()) : -1;
   }
 
@@ -303,7 +403,7 @@ public class SBO {
    * @return an alias corresponding to the given SBO id.
    */
   public static String convertSBO2Alias(int sboterm) {
-    Object value = sbo2alias.get(Integer.toString(sboterm));
+    Object value = SnapshotHolder.sbo2alias.get(Integer.toString(sboterm));
     return value != null ? value.toString() : "";
   }
 
@@ -921,12 +1021,23 @@ public class SBO {
     return 462;
   }
 
+  /**
+   * Grants access to the precomputed transitive closure of all relations
+   * within the SBO, which is used by {@link #isChildOf(int, int)}.
+   * 
+   * @return the ancestor index of the SBO.
+   * @since 1.6
+   */
+  public static AncestorIndex getAncestorIndex() {
+    return SnapshotHolder.snapshot.getAncestorIndex();
+  }
+
   /**
    * Grants access to the underlying {@link Ontology} form BioJava.
    * @return
    */
   public static Ontology getOntology() {
-    return sbo;
+    return OntologyHolder.sbo;
   }
 
   /**
@@ -1262,7 +1373,7 @@ public class SBO {
    * @throws NoSuchElementException if the id is not found or {@code null}.
    */
   public static Term getTerm(String sboTerm) {
-    return new Term(sbo.getTerm(sboTerm));
+    return new Term(getOntology().getTerm(sboTerm));
   }
 
   /**
@@ -1276,8 +1387,9 @@ public class SBO {
    * @return the set of terms of the SBO Ontology.
    */
   public static Set<Term> getTerms() {
-    if (terms.size() < sbo.getTerms().size()) {
-      for (org.biojava.nbio.ontology.Term term : sbo.getTerms()) {
+    Set<Term> terms = OntologyHolder.terms;
+    if (terms.size() < getOntology().getTerms().size()) {
+      for (org.biojava.nbio.ontology.Term term : getOntology().getTerms()) {
 
         if (term instanceof org.biojava.nbio.ontology.Triple) {
           // does nothing
@@ -1424,7 +1536,7 @@ public class SBO {
    */
   public static Set<Triple> getTriples(Term subject, Term predicate, Term object) {
     Set<Triple> triples = new HashSet<Triple>();
-    for (org.biojava.nbio.ontology.Triple triple : sbo.getTriples(
+    for (org.biojava.nbio.ontology.Triple triple : getOntology().getTriples(
       subject != null ? subject.getTerm() : null,
         object != null ? object.getTerm() : null,
           predicate != null ? predicate.getTerm() : null)) {
@@ -1497,8 +1609,11 @@ public class SBO {
    * @see #hasTerm(int)
    */
   public boolean hasTerm(String sboTerm) {
+    if ((sboTerm != null) && sboTerm.startsWith(prefix) && checkTerm(sboTerm)) {
+      return SnapshotHolder.snapshot.contains(stringToInt(sboTerm));
+    }
     try {
-      return sbo.getTerm(sboTerm) != null;
+      return getOntology().getTerm(sboTerm) != null;
     } catch (NoSuchElementException exc) {
       return false;
     }
@@ -1584,36 +1699,17 @@ public class SBO {
     if (!checkTerm(sboTerm)) {
       return false;
     }
-    return (sboTerm == parent) || isChildOf(
-      new Term(sbo.getTerm(intToString(sboTerm))),
-      new Term(sbo.getTerm(intToString(parent))));
-  }
-
-  /**
-   * Traverses the systems biology ontology starting at {@link Term} subject until
-   * either the root (SBO:0000000) or the {@link Term} object is reached.
-   * 
-   * @param subject
-   *            Child
-   * @param object
-   *            Parent
-   * @return {@code true} if subject is a child of object.
-   */
-  private static boolean isChildOf(Term subject, Term object) {
-    if (subject.equals(object)) {
+    if (sboTerm == parent) {
       return true;
     }
-    Set<org.biojava.nbio.ontology.Triple> relations = sbo.getTriples(
-      subject != null ? subject.getTerm() : null, null, null);
-    for (org.biojava.nbio.ontology.Triple triple : relations) {
-      if (triple.getObject().equals(object.getTerm())) {
-        return true;
-      }
-      if (isChildOf(new Term(triple.getObject()), object)) {
-        return true;
+    AncestorIndex ancestorIndex = getAncestorIndex();
+    for (int term : new int[] {sboTerm, parent}) {
+      if (!ancestorIndex.contains(term)) {
+        throw new NoSuchElementException(MessageFormat.format(
+          "Ontology SBO does not contain term {0}", intToString(term)));
       }
     }
-    return false;
+    return ancestorIndex.isChildOf(sboTerm, parent);
   }
 
   /**
@@ -1956,7 +2052,11 @@ public class SBO {
    * @return {@code true} if the term is-an obsolete term, {@code false} otherwise
    */
   public static boolean isObsolete(int sboTerm) {
-    return getTerm(intToString(sboTerm)).isObsolete();
+    if (!SnapshotHolder.snapshot.contains(sboTerm)) {
+      throw new NoSuchElementException(MessageFormat.format(
+        "Ontology SBO does not contain term {0}", intToString(sboTerm)));
+    }
+    return SnapshotHolder.snapshot.isObsolete(sboTerm);
   }
 
   /**
@@ -643,7 +643,7 @@ public class Species extends Symbol implements CompartmentalizedSBase {
   public int hashCode() {
     final int prime = 997;
     int hashCode = super.hashCode();
-    hashCode += prime * Boolean.valueOf(amount).hashCode();
+    hashCode += prime * Boolean.valueOf(isSetInitialAmount()).hashCode();
     if (isSetBoundaryCondition()) {
       hashCode += prime * boundaryCondition.hashCode();
     }
@@ -0,0 +1,290 @@
+/*
+ *
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml;
+
+import java.beans.PropertyChangeEvent;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.swing.tree.TreeNode;
+
+import org.sbml.jsbml.Unit.Kind;
+import org.sbml.jsbml.util.TreeNodeChangeListener;
+import org.sbml.jsbml.util.TreeNodeRemovedEvent;
+import org.sbml.jsbml.util.filters.IdenticalUnitDefinitionFilter;
+
+/**
+ * Indexes the {@link UnitDefinition}s of one {@link Model} by a canonical
+ * signature, see {@link Model#findIdentical(UnitDefinition)}.
+ * 
+ * <p>The signature of a {@link UnitDefinition} is the sequence of the kinds
+ * of its simplified {@link Unit}s, where {@link Kind#METER} and
+ * {@link Kind#LITER} are normalized to {@link Kind#METRE} and
+ * {@link Kind#LITRE}. Two {@link UnitDefinition}s can only satisfy
+ * {@link UnitDefinition#areIdentical(UnitDefinition, UnitDefinition)} if
+ * their signatures are equal, hence only the few definitions with the same
+ * signature need to be compared, and their simplified forms are kept so that
+ * they do not need to be cloned and simplified again. Exponents, scales and
+ * multipliers are deliberately not part of the signature, because
+ * {@link Unit#areEquivalent(Unit, Unit)} compares exponents with a
+ * tolerance.</p>
+ * 
+ * <p>The index listens to the list of unit definitions and updates the
+ * entries of changed, added or removed definitions on the next lookup.
+ * Lookups are synchronized, so that several threads can use the index of
+ * the same model.</p>
+ * 
+ * @since 1.6
+ */
+class UnitDefinitionIndex implements TreeNodeChangeListener {
+
+  /**
+   * The model whose unit definitions are indexed.
+   */
+  private final Model model;
+
+  /**
+   * The indexed list, which may be replaced in the {@link Model}.
+   */
+  private ListOf<UnitDefinition> listOfUnitDefinitions;
+
+  /**
+   * Whether the index must be rebuilt on the next lookup.
+   */
+  private boolean outdated;
+
+  /**
+   * The simplified copies of the indexed definitions for each signature.
+   */
+  private final Map<String, Map<UnitDefinition, UnitDefinition>> index = new HashMap<String, Map<UnitDefinition, UnitDefinition>>();
+
+  /**
+   * The signature under which each definition is indexed.
+   */
+  private final Map<UnitDefinition, String> signatures = new IdentityHashMap<UnitDefinition, String>();
+
+  /**
+   * The definitions that changed since the last lookup.
+   */
+  private final Set<UnitDefinition> changed = Collections.newSetFromMap(new IdentityHashMap<UnitDefinition, Boolean>());
+
+  /**
+   * @param model
+   */
+  UnitDefinitionIndex(Model model) {
+    this.model = model;
+  }
+
+  /**
+   * @param unitDefinition
+   * @return the first {@link UnitDefinition} in the model that is identical
+   *         to the given one or {@code null}.
+   */
+  UnitDefinition findIdentical(UnitDefinition unitDefinition) {
+    UnitDefinition simplified = unitDefinition.clone().simplify();
+    String signature = signature(simplified);
+    synchronized (this) {
+      return findIdentical(unitDefinition, simplified, signature);
+    }
+  }
+
+  /**
+   * @param unitDefinition
+   * @param simplified
+   *        the simplified copy of the given {@link UnitDefinition}
+   * @param signature
+   *        the signature of the given {@link UnitDefinition}
+   * @return the first {@link UnitDefinition} in the model that is identical
+   *         to the given one or {@code null}.
+   */
+  private UnitDefinition findIdentical(UnitDefinition unitDefinition,
+    UnitDefinition simplified, String signature) {
+    update();
+    Map<UnitDefinition, UnitDefinition> candidates = index.get(signature);
+    if (candidates == null) {
+      return null;
+    }
+    UnitDefinition hit = null;
+    for (Map.Entry<UnitDefinition, UnitDefinition> entry : candidates.entrySet()) {
+      if (areIdentical(simplified, entry.getValue())) {
+        if (hit != null) {
+          // several identical definitions: the first one in the list wins.
+          return listOfUnitDefinitions.firstHit(new IdenticalUnitDefinitionFilter(unitDefinition));
+        }
+        hit = entry.getKey();
+      }
+    }
+    return hit;
+  }
+
+  /**
+   * Brings the index up to date with the list of unit definitions. A model
+   * without a list of unit definitions is not given one.
+   */
+  synchronized void update() {
+    ListOf<UnitDefinition> current = model.isSetListOfUnitDefinitions()
+        ? model.getListOfUnitDefinitions() : null;
+    if (outdated || (listOfUnitDefinitions != current)) {
+      if (listOfUnitDefinitions != null) {
+        listOfUnitDefinitions.removeTreeNodeChangeListener(this, true);
+      }
+      listOfUnitDefinitions = current;
+      outdated = false;
+      index.clear();
+      signatures.clear();
+      changed.clear();
+      if (current != null) {
+        current.addTreeNodeChangeListener(this, true);
+        for (UnitDefinition ud : current) {
+          add(ud);
+        }
+      }
+    }
+    for (UnitDefinition ud : changed) {
+      remove(ud);
+      if (ud.getParent() == listOfUnitDefinitions) {
+        add(ud);
+      }
+    }
+    changed.clear();
+  }
+
+  /**
+   * @param ud
+   */
+  private void add(UnitDefinition ud) {
+    UnitDefinition simplified = ud.clone().simplify();
+    String signature = signature(simplified);
+    Map<UnitDefinition, UnitDefinition> candidates = index.get(signature);
+    if (candidates == null) {
+      candidates = new IdentityHashMap<UnitDefinition, UnitDefinition>(2);
+      index.put(signature, candidates);
+    }
+    candidates.put(ud, simplified);
+    signatures.put(ud, signature);
+  }
+
+  /**
+   * @param ud
+   */
+  private void remove(UnitDefinition ud) {
+    String signature = signatures.remove(ud);
+    if (signature != null) {
+      Map<UnitDefinition, UnitDefinition> candidates = index.get(signature);
+      candidates.remove(ud);
+      if (candidates.isEmpty()) {
+        index.remove(signature);
+      }
+    }
+  }
+
+  /**
+   * Compares two simplified {@link UnitDefinition}s like
+   * {@link UnitDefinition#areIdentical(UnitDefinition, UnitDefinition)}.
+   * 
+   * @param ud1
+   * @param ud2
+   * @return
+   */
+  private static boolean areIdentical(UnitDefinition ud1, UnitDefinition ud2) {
+    if (ud1.getUnitCount() != ud2.getUnitCount()) {
+      return false;
+    }
+    for (int i = 0; i < ud1.getUnitCount(); i++) {
+      if (!Unit.areIdentical(ud1.getUnit(i), ud2.getUnit(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @param simplified
+   *        a simplified {@link UnitDefinition}
+   * @return the canonical signature of the given {@link UnitDefinition}.
+   */
+  static String signature(UnitDefinition simplified) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < simplified.getUnitCount(); i++) {
+      Kind kind = simplified.getUnit(i).getKind();
+      if (Kind.areEquivalent(kind, Kind.METRE)) {
+        kind = Kind.METRE;
+      } else if (Kind.areEquivalent(kind, Kind.LITRE)) {
+        kind = Kind.LITRE;
+      }
+      sb.append(kind.ordinal()).append(' ');
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Marks the {@link UnitDefinition} the given node belongs to as changed or
+   * the whole index as outdated if it is not part of any definition.
+   * 
+   * @param node
+   */
+  private synchronized void changed(Object node) {
+    TreeNode n = (node instanceof TreeNode) ? (TreeNode) node : null;
+    while ((n != null) && !(n instanceof UnitDefinition)) {
+      n = n.getParent();
+    }
+    if (n != null) {
+      changed.add((UnitDefinition) n);
+    } else {
+      // e.g., the list itself: rebuild on the next lookup.
+      outdated = true;
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.sbml.jsbml.util.TreeNodeChangeListener#nodeAdded(javax.swing.tree.TreeNode)
+   */
+  @Override
+  public void nodeAdded(TreeNode node) {
+    changed(node);
+  }
+
+  /* (non-Javadoc)
+   * @see org.sbml.jsbml.util.TreeNodeChangeListener#nodeRemoved(org.sbml.jsbml.util.TreeNodeRemovedEvent)
+   */
+  @Override
+  public void nodeRemoved(TreeNodeRemovedEvent event) {
+    TreeNode node = event.getSource();
+    if ((node instanceof UnitDefinition) || (node.getParent() != null)) {
+      changed(node);
+    } else {
+      // a unit or list of units was detached: look at its former parent.
+      changed(event.getPreviousParent());
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see java.beans.PropertyChangeListener#propertyChange(java.beans.PropertyChangeEvent)
+   */
+  @Override
+  public void propertyChange(PropertyChangeEvent event) {
+    changed(event.getSource());
+  }
+
+}
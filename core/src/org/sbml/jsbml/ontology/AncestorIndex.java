@@ -0,0 +1,327 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.ontology;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.biojava.nbio.ontology.Ontology;
+
+/**
+ * A precomputed transitive closure of the relations of an ontology whose term
+ * identifiers consist of a prefix followed by a number, such as
+ * {@code SBO:0000179}. Terms are addressed by their number only.
+ *
+ * <p>The ancestors of every term are stored as a bit set over a dense
+ * numbering of all terms, hence {@link #isChildOf(int, int)} only needs two
+ * array lookups and does not allocate any objects. The index is immutable
+ * once it has been created and can therefore be shared between threads.
+ *
+ * @since 1.6
+ * @see org.sbml.jsbml.SBO#getAncestorIndex()
+ */
+public class AncestorIndex implements Serializable {
+
+  /**
+   * Generated serial version identifier.
+   */
+  private static final long serialVersionUID = -1622766017059981536L;
+
+  /**
+   * For each dense term index, the bits of the dense indices of all its
+   * ancestors, including the term itself.
+   */
+  private final long[][] ancestors;
+
+  /**
+   * The term numbers in ascending order, i.e., the dense index of a term is its
+   * position in this array.
+   */
+  private final int[] numbers;
+
+  /**
+   * Maps term numbers to dense indices (or -1). Only used if the term numbers
+   * are not too sparse, otherwise, a binary search in {@link #numbers} is
+   * performed.
+   */
+  private final int[] numberToIndex;
+
+  /**
+   * Creates the index from all the triples of the given ontology. Every triple
+   * of the ontology relates its subject to a parent, independent of its
+   * predicate. Terms whose identifier does not start with the given prefix are
+   * ignored.
+   *
+   * @param ontology the ontology, whose terms and triples are to be indexed.
+   * @param prefix the prefix of all term identifiers, e.g., {@code "SBO:"}.
+   */
+  public AncestorIndex(Ontology ontology, String prefix) {
+    this(parseTerms(ontology, prefix), parseRelations(ontology, prefix));
+  }
+
+  /**
+   * Creates the index for the given terms and their direct relations.
+   * Relations that refer to unknown terms are ignored.
+   *
+   * @param terms the numbers of all terms
+   * @param relations pairs of term numbers, where the first term is a direct
+   *        child of the second term.
+   */
+  public AncestorIndex(int[] terms, int[][] relations) {
+    numbers = terms.clone();
+    Arrays.sort(numbers);
+    numberToIndex = createNumberTable(numbers);
+
+    // the direct parents of each term as dense indices
+    Map<Integer, List<Integer>> parents = new HashMap<Integer, List<Integer>>();
+    for (int[] relation : relations) {
+      int child = indexOf(relation[0]);
+      int parent = indexOf(relation[1]);
+      if ((child >= 0) && (parent >= 0)) {
+        List<Integer> list = parents.get(child);
+        if (list == null) {
+          list = new ArrayList<Integer>();
+          parents.put(child, list);
+        }
+        list.add(parent);
+      }
+    }
+    ancestors = new long[numbers.length][];
+    boolean[] visiting = new boolean[numbers.length];
+    for (int i = 0; i < numbers.length; i++) {
+      computeAncestors(i, parents, visiting);
+    }
+  }
+
+  /**
+   * Recursively computes the ancestors of the term with the given dense
+   * index.
+   *
+   * @param index the dense index of a term
+   * @param parents the direct parents of all terms
+   * @param visiting marks the terms on the current path to detect cycles
+   * @return the ancestor bits of the term
+   */
+  private long[] computeAncestors(int index, Map<Integer, List<Integer>> parents,
+    boolean[] visiting) {
+    if (ancestors[index] != null) {
+      return ancestors[index];
+    }
+    long[] bits = new long[(numbers.length + 63) >>> 6];
+    bits[index >>> 6] |= 1L << index;
+    visiting[index] = true;
+    List<Integer> list = parents.get(index);
+    if (list != null) {
+      for (int parent : list) {
+        if (!visiting[parent]) {
+          long[] parentBits = computeAncestors(parent, parents, visiting);
+          for (int i = 0; i < bits.length; i++) {
+            bits[i] |= parentBits[i];
+          }
+        }
+      }
+    }
+    visiting[index] = false;
+    ancestors[index] = bits;
+    return bits;
+  }
+
+  /**
+   * Creates a table that maps term numbers directly to dense indices, unless
+   * the numbers are too sparse.
+   *
+   * @param numbers the term numbers in ascending order
+   * @return the table or {@code null}
+   */
+  private static int[] createNumberTable(int[] numbers) {
+    if ((numbers.length == 0) || (numbers[numbers.length - 1] > 16 * numbers.length + 1024)) {
+      return null;
+    }
+    int[] table = new int[numbers[numbers.length - 1] + 1];
+    Arrays.fill(table, -1);
+    for (int i = 0; i < numbers.length; i++) {
+      table[numbers[i]] = i;
+    }
+    return table;
+  }
+
+  /**
+   * Extracts the number from a term identifier.
+   *
+   * @param id a term identifier, e.g., {@code "SBO:0000179"}
+   * @param prefix the expected prefix
+   * @return the number of the term or -1 if the identifier does not have the
+   *         expected format.
+   */
+  static int parseNumber(String id, String prefix) {
+    if ((id == null) || !id.startsWith(prefix) || (id.length() == prefix.length())) {
+      return -1;
+    }
+    try {
+      return Integer.parseInt(id.substring(prefix.length()));
+    } catch (NumberFormatException exc) {
+      return -1;
+    }
+  }
+
+  /**
+   * Collects the subject and object numbers of all triples of the given
+   * ontology.
+   *
+   * @param ontology an ontology
+   * @param prefix the prefix of all term identifiers
+   * @return pairs of term numbers, where the first term is a direct child of
+   *         the second term.
+   */
+  static int[][] parseRelations(Ontology ontology, String prefix) {
+    List<int[]> relations = new ArrayList<int[]>();
+    for (org.biojava.nbio.ontology.Term term : ontology.getTerms()) {
+      if (term instanceof org.biojava.nbio.ontology.Triple) {
+        org.biojava.nbio.ontology.Triple triple = (org.biojava.nbio.ontology.Triple) term;
+        int subject = parseNumber(triple.getSubject().getName(), prefix);
+        int object = parseNumber(triple.getObject().getName(), prefix);
+        if ((subject >= 0) && (object >= 0)) {
+          relations.add(new int[] {subject, object});
+        }
+      }
+    }
+    return relations.toArray(new int[relations.size()][]);
+  }
+
+  /**
+   * Collects the numbers of all terms of the given ontology, which are not
+   * triples.
+   *
+   * @param ontology an ontology
+   * @param prefix the prefix of all term identifiers
+   * @return the numbers of all terms
+   */
+  static int[] parseTerms(Ontology ontology, String prefix) {
+    List<Integer> termNumbers = new ArrayList<Integer>();
+    for (org.biojava.nbio.ontology.Term term : ontology.getTerms()) {
+      if (!(term instanceof org.biojava.nbio.ontology.Triple)) {
+        int number = parseNumber(term.getName(), prefix);
+        if (number >= 0) {
+          termNumbers.add(number);
+        }
+      }
+    }
+    int[] terms = new int[termNumbers.size()];
+    for (int i = 0; i < terms.length; i++) {
+      terms[i] = termNumbers.get(i);
+    }
+    return terms;
+  }
+
+  /**
+   * Returns {@code true} if a term with the given number is part of this
+   * index.
+   *
+   * @param term the number of a term
+   * @return {@code true} if a term with the given number is part of this
+   *         index.
+   */
+  public boolean contains(int term) {
+    return indexOf(term) >= 0;
+  }
+
+  /**
+   * Returns the numbers of all ancestors of the given term in ascending order,
+   * excluding the term itself.
+   *
+   * @param term the number of a term
+   * @return the numbers of all ancestors of the given term or an empty array
+   *         if the term is not part of this index.
+   */
+  public int[] getAncestors(int term) {
+    int index = indexOf(term);
+    if (index < 0) {
+      return new int[0];
+    }
+    long[] bits = ancestors[index];
+    int count = -1;
+    for (long word : bits) {
+      count += Long.bitCount(word);
+    }
+    int[] result = new int[count];
+    int pos = 0;
+    for (int i = 0; i < numbers.length; i++) {
+      if ((i != index) && ((bits[i >>> 6] & (1L << i)) != 0)) {
+        result[pos++] = numbers[i];
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the number of terms in this index.
+   *
+   * @return the number of terms in this index.
+   */
+  public int getTermCount() {
+    return numbers.length;
+  }
+
+  /**
+   * Returns the numbers of all terms in this index in ascending order.
+   *
+   * @return a copy of the numbers of all terms in this index.
+   */
+  public int[] getTerms() {
+    return numbers.clone();
+  }
+
+  /**
+   * Returns the dense index of the given term.
+   *
+   * @param term the number of a term
+   * @return the position of the given term in {@link #numbers} or a negative
+   *         value if the term is not part of this index.
+   */
+  private int indexOf(int term) {
+    if (numberToIndex != null) {
+      return ((term >= 0) && (term < numberToIndex.length)) ? numberToIndex[term] : -1;
+    }
+    return Arrays.binarySearch(numbers, term);
+  }
+
+  /**
+   * Checks whether the given term is the given parent or one of its
+   * descendants.
+   *
+   * @param term the number of a term
+   * @param parent the number of a potential ancestor
+   * @return {@code true} if both terms are part of this index and the parent
+   *         is an ancestor of the term or the term itself.
+   */
+  public boolean isChildOf(int term, int parent) {
+    int child = indexOf(term);
+    int ancestor = indexOf(parent);
+    if ((child < 0) || (ancestor < 0)) {
+      return false;
+    }
+    return (ancestors[child][ancestor >>> 6] & (1L << ancestor)) != 0;
+  }
+
+}
@@ -0,0 +1,349 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.ontology;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Properties;
+
+import org.biojava.nbio.ontology.Ontology;
+import org.biojava.nbio.ontology.io.OboParser;
+
+/**
+ * A compact, read-only excerpt of an ontology such as the SBO, which contains
+ * the numbers, names and obsolete flags of all terms, the direct relations
+ * between the terms, and the aliases of some terms.
+ *
+ * <p>Reading a snapshot in its binary form, see {@link #write(OutputStream)}
+ * and {@link #read(InputStream)}, is much faster than parsing the
+ * corresponding OBO file. The snapshot of the SBO that is shipped with JSBML
+ * is created during the build by the {@link #main(String[])} method of this
+ * class.
+ *
+ * @since 1.6
+ * @see org.sbml.jsbml.SBO
+ */
+public class OntologySnapshot implements Serializable {
+
+  /**
+   * Identifies the binary format of a snapshot ("JSBO").
+   */
+  private static final int MAGIC_NUMBER = 0x4A53424F;
+
+  /**
+   * Generated serial version identifier.
+   */
+  private static final long serialVersionUID = 2994155836052452283L;
+
+  /**
+   * The version of the binary format.
+   */
+  private static final int VERSION = 1;
+
+  /**
+   * Maps aliases to term numbers.
+   */
+  private final Properties aliases;
+
+  /**
+   * The transitive closure of {@link #relations}.
+   */
+  private final AncestorIndex ancestorIndex;
+
+  /**
+   * The names of the terms in the order of {@link #terms}.
+   */
+  private final String[] names;
+
+  /**
+   * Flags the obsolete terms in the order of {@link #terms}.
+   */
+  private final boolean[] obsolete;
+
+  /**
+   * The prefix of all term identifiers, e.g., {@code "SBO:"}.
+   */
+  private final String prefix;
+
+  /**
+   * Pairs of term numbers, where the first term is a direct child of the
+   * second term.
+   */
+  private final int[][] relations;
+
+  /**
+   * The numbers of all terms in ascending order.
+   */
+  private final int[] terms;
+
+  /**
+   * Creates a snapshot of the given ontology.
+   *
+   * @param ontology the ontology
+   * @param prefix the prefix of all term identifiers, e.g., {@code "SBO:"}.
+   *        Terms with other identifiers are ignored.
+   * @param aliases maps aliases to term numbers, can be {@code null}.
+   */
+  public OntologySnapshot(Ontology ontology, String prefix, Properties aliases) {
+    this.prefix = prefix;
+    terms = AncestorIndex.parseTerms(ontology, prefix);
+    Arrays.sort(terms);
+    names = new String[terms.length];
+    obsolete = new boolean[terms.length];
+    for (org.biojava.nbio.ontology.Term term : ontology.getTerms()) {
+      if (!(term instanceof org.biojava.nbio.ontology.Triple)) {
+        int index = Arrays.binarySearch(terms, AncestorIndex.parseNumber(term.getName(), prefix));
+        if (index >= 0) {
+          Term wrapper = new Term(term);
+          names[index] = wrapper.getName();
+          obsolete[index] = wrapper.isObsolete();
+        }
+      }
+    }
+    relations = AncestorIndex.parseRelations(ontology, prefix);
+    ancestorIndex = new AncestorIndex(terms, relations);
+    this.aliases = new Properties();
+    if (aliases != null) {
+      this.aliases.putAll(aliases);
+    }
+  }
+
+  /**
+   * Creates a snapshot from its components.
+   *
+   * @param prefix
+   * @param terms
+   * @param names
+   * @param obsolete
+   * @param relations
+   * @param aliases
+   */
+  private OntologySnapshot(String prefix, int[] terms, String[] names,
+    boolean[] obsolete, int[][] relations, Properties aliases) {
+    this.prefix = prefix;
+    this.terms = terms;
+    this.names = names;
+    this.obsolete = obsolete;
+    this.relations = relations;
+    this.aliases = aliases;
+    ancestorIndex = new AncestorIndex(terms, relations);
+  }
+
+  /**
+   * Reads a snapshot in the binary format that is created by
+   * {@link #write(OutputStream)}. The given stream is not closed.
+   *
+   * @param stream the binary snapshot
+   * @return the snapshot
+   * @throws IOException if the stream cannot be read or does not contain a
+   *         snapshot in a supported format.
+   */
+  public static OntologySnapshot read(InputStream stream) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+    if (in.readInt() != MAGIC_NUMBER) {
+      throw new IOException("The stream does not contain an ontology snapshot.");
+    }
+    int version = in.readInt();
+    if (version != VERSION) {
+      throw new IOException(MessageFormat.format(
+        "Unsupported version {0,number,integer} of the ontology snapshot format.",
+        version));
+    }
+    String prefix = in.readUTF();
+    int[] terms = new int[in.readInt()];
+    String[] names = new String[terms.length];
+    boolean[] obsolete = new boolean[terms.length];
+    for (int i = 0; i < terms.length; i++) {
+      terms[i] = in.readInt();
+      names[i] = in.readBoolean() ? in.readUTF() : null;
+      obsolete[i] = in.readBoolean();
+    }
+    int[][] relations = new int[in.readInt()][];
+    for (int i = 0; i < relations.length; i++) {
+      relations[i] = new int[] {in.readInt(), in.readInt()};
+    }
+    Properties aliases = new Properties();
+    for (int i = in.readInt(); i > 0; i--) {
+      aliases.put(in.readUTF(), in.readUTF());
+    }
+    return new OntologySnapshot(prefix, terms, names, obsolete, relations, aliases);
+  }
+
+  /**
+   * Writes this snapshot in a compact binary format. The given stream is
+   * flushed but not closed.
+   *
+   * @param stream the destination
+   * @throws IOException if writing fails
+   */
+  public void write(OutputStream stream) throws IOException {
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+    out.writeInt(MAGIC_NUMBER);
+    out.writeInt(VERSION);
+    out.writeUTF(prefix);
+    out.writeInt(terms.length);
+    for (int i = 0; i < terms.length; i++) {
+      out.writeInt(terms[i]);
+      out.writeBoolean(names[i] != null);
+      if (names[i] != null) {
+        out.writeUTF(names[i]);
+      }
+      out.writeBoolean(obsolete[i]);
+    }
+    out.writeInt(relations.length);
+    for (int[] relation : relations) {
+      out.writeInt(relation[0]);
+      out.writeInt(relation[1]);
+    }
+    out.writeInt(aliases.size());
+    for (Map.Entry<Object, Object> entry : aliases.entrySet()) {
+      out.writeUTF(entry.getKey().toString());
+      out.writeUTF(entry.getValue().toString());
+    }
+    out.flush();
+  }
+
+  /**
+   * Checks whether this snapshot contains a term with the given number.
+   *
+   * @param term the number of a term
+   * @return {@code true} if this snapshot contains a term with the given
+   *         number.
+   */
+  public boolean contains(int term) {
+    return Arrays.binarySearch(terms, term) >= 0;
+  }
+
+  /**
+   * Returns the aliases of the terms of this ontology.
+   *
+   * @return a copy of the mapping between aliases and term numbers.
+   */
+  public Properties getAliases() {
+    Properties copy = new Properties();
+    copy.putAll(aliases);
+    return copy;
+  }
+
+  /**
+   * Returns the transitive closure of the relations between the terms.
+   *
+   * @return the transitive closure of the relations between the terms.
+   */
+  public AncestorIndex getAncestorIndex() {
+    return ancestorIndex;
+  }
+
+  /**
+   * Returns the name of the given term.
+   *
+   * @param term the number of a term
+   * @return the name of the given term or {@code null} if there is no such
+   *         term or the term has no name.
+   */
+  public String getName(int term) {
+    int index = Arrays.binarySearch(terms, term);
+    return index >= 0 ? names[index] : null;
+  }
+
+  /**
+   * Returns the prefix of all term identifiers.
+   *
+   * @return the prefix of all term identifiers, e.g., {@code "SBO:"}.
+   */
+  public String getPrefix() {
+    return prefix;
+  }
+
+  /**
+   * Checks whether the given term is marked as obsolete.
+   *
+   * @param term the number of a term
+   * @return {@code true} if this snapshot contains the given term and this
+   *         term is obsolete.
+   */
+  public boolean isObsolete(int term) {
+    int index = Arrays.binarySearch(terms, term);
+    return (index >= 0) && obsolete[index];
+  }
+
+  /**
+   * Creates the binary snapshot of an ontology. This method is called during
+   * the build to create the snapshot of the SBO that is shipped with JSBML.
+   *
+   * @param args the OBO file, the prefix of the term identifiers, the
+   *        properties file with the aliases (or {@code "-"} if there are
+   *        none), and the output file.
+   * @throws IOException if one of the files cannot be read or written.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 4) {
+      System.err.printf("Usage: java %s <obo file> <prefix> <alias file|-> <output file>%n",
+        OntologySnapshot.class.getName());
+      System.exit(1);
+    }
+    OboParser parser = new OboParser();
+    Ontology ontology;
+    BufferedReader reader = new BufferedReader(new InputStreamReader(
+      new FileInputStream(args[0]), "UTF-8"));
+    try {
+      ontology = parser.parseOBO(reader, args[1].replace(":", ""), args[0]);
+    } catch (java.text.ParseException exc) {
+      throw new IOException(exc);
+    } finally {
+      reader.close();
+    }
+    Properties aliases = new Properties();
+    if (!args[2].equals("-")) {
+      InputStream in = new FileInputStream(args[2]);
+      try {
+        aliases.load(in);
+      } finally {
+        in.close();
+      }
+    }
+    OntologySnapshot snapshot = new OntologySnapshot(ontology, args[1], aliases);
+    File file = new File(args[3]);
+    if (file.getParentFile() != null) {
+      file.getParentFile().mkdirs();
+    }
+    OutputStream out = new FileOutputStream(file);
+    try {
+      snapshot.write(out);
+    } finally {
+      out.close();
+    }
+  }
+
+}
@@ -92,7 +92,7 @@ public class ResourceManager {
    *            Note that validation of {@code control} is performed as
    *            needed.
    */
-  public static ResourceBundle getBundle(String baseName, Locale locale) {
+  public static synchronized ResourceBundle getBundle(String baseName, Locale locale) {
     if (loaded == null) {
       loaded = new HashMap<String, Map<Locale, ResourceBundle>>();
     }
@@ -65,6 +65,59 @@ public class StringTools {
    */
   public static final String underscore = Character.valueOf('_').toString();
 
+  /**
+   * The number formats of one {@link Locale}, see
+   * {@link StringTools#toString(Locale, double)}. Creating the formats and
+   * their symbols is much more expensive than formatting a number.
+   * 
+   * @since 1.6
+   */
+  private static class NumberFormats {
+
+    /**
+     * 
+     */
+    private final DecimalFormat decimal;
+    /**
+     * Whether integers look the same as in {@link Integer#toString(int)}.
+     */
+    private final boolean hasLatinDigits;
+    /**
+     * 
+     */
+    private final Locale locale;
+    /**
+     * 
+     */
+    private final DecimalFormat scientific;
+
+    /**
+     * @param locale
+     */
+    private NumberFormats(Locale locale) {
+      this.locale = locale;
+      DecimalFormatSymbols symbols = new DecimalFormatSymbols(locale);
+      decimal = new DecimalFormat(DECIMAL_FORMAT, symbols);
+      scientific = new DecimalFormat(SCIENTIFIC_FORMAT, symbols);
+      hasLatinDigits = symbols.getZeroDigit() == '0';
+    }
+
+  }
+
+  /**
+   * The number formats of the current thread, because {@link DecimalFormat} is
+   * not thread-safe.
+   */
+  private static final ThreadLocal<NumberFormats> numberFormats = new ThreadLocal<NumberFormats>() {
+    /* (non-Javadoc)
+     * @see java.lang.ThreadLocal#initialValue()
+     */
+    @Override
+    protected NumberFormats initialValue() {
+      return new NumberFormats(Locale.ENGLISH);
+    }
+  };
+
   /**
    * Takes the given StringBuffer as input and appends every further Object to it.
    * 
@@ -604,17 +657,24 @@ public class StringTools {
       return value < 0 ? '-' + infinity : infinity;
     }
 
+    NumberFormats formats = numberFormats.get();
+    if (!locale.equals(formats.locale)) {
+      formats = new NumberFormats(locale);
+      numberFormats.set(formats);
+    }
+
     if (((int) value) - value == 0) {
+      if (formats.hasLatinDigits) {
+        return Integer.toString((int) value);
+      }
       return String.format(locale, "%d", Integer.valueOf((int) value));
     }
 
     if ((Math.abs(value) < 1E-4) || (1E4 < Math.abs(value))) {
-      DecimalFormat df = new DecimalFormat(SCIENTIFIC_FORMAT, new DecimalFormatSymbols(locale));
-      return df.format(value);
+      return formats.scientific.format(value);
     }
 
-    DecimalFormat df = new DecimalFormat(DECIMAL_FORMAT, new DecimalFormatSymbols(locale));
-    return df.format(value);
+    return formats.decimal.format(value);
   }
 
   /**
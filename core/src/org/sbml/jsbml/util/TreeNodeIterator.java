@@ -0,0 +1,217 @@
+/*
+ *
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.util;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.swing.tree.TreeNode;
+
+/**
+ * Iterates over a tree in document order, i.e., depth first and pre-order,
+ * starting with the root of the tree.
+ * 
+ * <p>In contrast to {@link TreeNodeWithChangeSupport#filter(org.sbml.jsbml.util.filters.Filter)},
+ * this iterator does not create any lists. It only keeps the path from the root
+ * to the current node, hence each step only needs one call of
+ * {@link TreeNode#getChildAt(int)}. The children of the node that has been
+ * returned last are only entered when the next node is requested, so that
+ * {@link #skipChildren()} can prune the traversal. To stop the traversal early,
+ * simply stop calling {@link #next()}.
+ * 
+ * <p>Changes of the tree during the traversal are only taken into account for
+ * the children of the node that has been returned last. The number of children
+ * of all other nodes on the current path is fixed when these nodes are entered.
+ * 
+ * @since 1.6
+ */
+public class TreeNodeIterator implements Iterator<TreeNode> {
+
+  /**
+   * The number of children of each node on {@link #path}.
+   */
+  private int[] childCounts;
+
+  /**
+   * The node that has been returned last by {@link #next()}.
+   */
+  private TreeNode current;
+
+  /**
+   * The depth of {@link #current} below the root.
+   */
+  private int currentDepth;
+
+  /**
+   * Whether the children of {@link #current} have been put on the
+   * {@link #path} already.
+   */
+  private boolean entered;
+
+  /**
+   * The index of the next child of each node on {@link #path}.
+   */
+  private int[] indices;
+
+  /**
+   * The nodes, whose children are currently being iterated.
+   */
+  private TreeNode[] path;
+
+  /**
+   * The root of the tree, as long as it has not been returned.
+   */
+  private TreeNode root;
+
+  /**
+   * The number of nodes on {@link #path}.
+   */
+  private int size;
+
+  /**
+   * Whether the children of {@link #current} should be skipped.
+   */
+  private boolean skip;
+
+  /**
+   * Creates an iterator over the given node and all its descendants.
+   * 
+   * @param root the root of the tree to be traversed, can be {@code null}.
+   */
+  public TreeNodeIterator(TreeNode root) {
+    this.root = root;
+    path = new TreeNode[16];
+    indices = new int[path.length];
+    childCounts = new int[path.length];
+  }
+
+  /**
+   * Puts the children of {@link #current} on the {@link #path}, unless they
+   * are to be skipped or have been entered already.
+   */
+  private void enter() {
+    if ((current == null) || entered || skip) {
+      return;
+    }
+    entered = true;
+    int childCount = current.getChildCount();
+    if (childCount > 0) {
+      if (size == path.length) {
+        path = Arrays.copyOf(path, 2 * size);
+        indices = Arrays.copyOf(indices, path.length);
+        childCounts = Arrays.copyOf(childCounts, path.length);
+      }
+      path[size] = current;
+      indices[size] = 0;
+      childCounts[size] = childCount;
+      size++;
+    }
+  }
+
+  /**
+   * Returns the depth of the node that has been returned last by
+   * {@link #next()}, where the root has depth zero.
+   * 
+   * @return the depth of the current node.
+   */
+  public int getDepth() {
+    return currentDepth;
+  }
+
+  /**
+   * Returns an ancestor of the node that has been returned last by
+   * {@link #next()}.
+   * 
+   * @param depth the depth of the ancestor, must be between zero (the root)
+   *        and {@link #getDepth()} (the current node itself).
+   * @return the ancestor of the current node at the given depth.
+   */
+  public TreeNode getPathNode(int depth) {
+    if ((depth < 0) || (depth > currentDepth)) {
+      throw new IndexOutOfBoundsException(Integer.toString(depth));
+    }
+    return depth == currentDepth ? current : path[depth];
+  }
+
+  /* (non-Javadoc)
+   * @see java.util.Iterator#hasNext()
+   */
+  @Override
+  public boolean hasNext() {
+    if (root != null) {
+      return true;
+    }
+    enter();
+    for (int i = size - 1; i >= 0; i--) {
+      if (indices[i] < childCounts[i]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /* (non-Javadoc)
+   * @see java.util.Iterator#next()
+   */
+  @Override
+  public TreeNode next() {
+    if (root != null) {
+      current = root;
+      root = null;
+      currentDepth = 0;
+    } else {
+      enter();
+      while ((size > 0) && (indices[size - 1] >= childCounts[size - 1])) {
+        path[--size] = null;
+      }
+      if (size == 0) {
+        current = null;
+        throw new NoSuchElementException();
+      }
+      current = path[size - 1].getChildAt(indices[size - 1]++);
+      currentDepth = size;
+    }
+    entered = false;
+    skip = false;
+    return current;
+  }
+
+  /* (non-Javadoc)
+   * @see java.util.Iterator#remove()
+   */
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Excludes the descendants of the node that has been returned last by
+   * {@link #next()} from the traversal.
+   */
+  public void skipChildren() {
+    if (entered && (size > 0) && (path[size - 1] == current)) {
+      path[--size] = null;
+    }
+    skip = true;
+  }
+
+}
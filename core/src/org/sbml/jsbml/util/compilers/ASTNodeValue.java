@@ -35,7 +35,8 @@ import org.w3c.dom.Node;
  * elements of this class as arguments and performs its operations on it. Hence,
  * this class represents the union of all possible types to which an abstract
  * syntax tree can be evaluated, i.e., {@link Boolean},
- * {@link CallableSBase}, {@link Number}, or {@link String}. This
+ * {@link CallableSBase}, {@link Number}, {@link String}, or
+ * {@link FormulaText}. This
  * class does not define what to do with these values or how to perform any
  * operations on it. It is just the container of a value. The type of this value
  * tells the {@link ASTNodeCompiler} which operation was performed to obtain the
@@ -156,6 +157,16 @@ public class ASTNodeValue {
     setValue(value);
   }
 
+  /**
+   * 
+   * @param value
+   * @param compiler
+   */
+  public ASTNodeValue(FormulaText value, ASTNodeCompiler compiler) {
+    this(compiler);
+    setValue(value);
+  }
+
   /**
    * 
    * @param node
@@ -320,7 +331,8 @@ public class ASTNodeValue {
    * @return
    */
   public boolean isString() {
-    return (value != null) && (value instanceof String);
+    return (value != null)
+        && ((value instanceof String) || (value instanceof FormulaText));
   }
 
   /**
@@ -456,6 +468,14 @@ public class ASTNodeValue {
     this.value = value;
   }
 
+  /**
+   * 
+   * @param value
+   */
+  public void setValue(FormulaText value) {
+    this.value = value;
+  }
+
   /**
    * 
    * @param value
@@ -0,0 +1,52 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.util.compilers;
+
+import org.sbml.jsbml.ASTNode;
+
+/**
+ * A mathematical expression that has been compiled by the
+ * {@link NumericCompiler} for the fast numerical evaluation. Instances do not
+ * allocate any objects during the evaluation and are immutable, i.e., they
+ * can be evaluated concurrently by several threads.
+ * 
+ * <p>Boolean values are represented by {@code 1d} ({@code true}) and
+ * {@code 0d} ({@code false}); any value other than {@code 0d} is considered
+ * {@code true} when used as a condition.
+ * 
+ * @since 1.6
+ * @see NumericCompiler#compile(ASTNode)
+ */
+public interface CompiledMath {
+
+  /**
+   * Evaluates this expression.
+   * 
+   * @param state
+   *        the current values of all variables of the model, where the
+   *        position of each variable is given by the slots of the
+   *        {@link NumericCompiler} that created this expression.
+   * @param t
+   *        the current simulation time.
+   * @return the value of this expression.
+   */
+  public double eval(double[] state, double t);
+
+}
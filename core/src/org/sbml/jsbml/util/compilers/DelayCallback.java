@@ -0,0 +1,54 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.util.compilers;
+
+import org.sbml.jsbml.ASTNode;
+
+/**
+ * Computes the value of an expression at an earlier point in time, which is
+ * required to evaluate the {@code delay} function. Only a simulator that keeps
+ * track of the history of all variables can implement this interface.
+ * 
+ * @since 1.6
+ * @see NumericCompiler#setDelayCallback(DelayCallback)
+ */
+public interface DelayCallback {
+
+  /**
+   * Returns the value of the given expression at time {@code t - delay}.
+   * 
+   * @param expression
+   *        the first argument of the {@code delay} function, usually the name
+   *        of a variable.
+   * @param compiledExpression
+   *        the compiled form of {@code expression}, which can be evaluated for
+   *        a past state of the model.
+   * @param delay
+   *        the value of the second argument of the {@code delay} function.
+   * @param state
+   *        the current values of all variables of the model.
+   * @param t
+   *        the current simulation time.
+   * @return the value of the given expression at time {@code t - delay}.
+   */
+  public double delay(ASTNode expression, CompiledMath compiledExpression,
+    double delay, double[] state, double t);
+
+}
@@ -105,6 +105,27 @@ public class FormulaCompiler extends StringTools implements ASTNodeCompiler {
     return equation;
   }
 
+  /**
+   * Links the given non-empty elements with a mathematical operator, like
+   * {@link #arith(char, Object...)}, but without copying them.
+   *
+   * @param operator
+   * @param elements
+   * @return
+   */
+  private static FormulaText join(char operator, CharSequence... elements) {
+    List<Object> parts = new ArrayList<Object>(2 * elements.length);
+    for (CharSequence element : elements) {
+      if (element.length() > 0) {
+        if (!parts.isEmpty()) {
+          parts.add(Character.valueOf(operator));
+        }
+        parts.add(element);
+      }
+    }
+    return new FormulaText(parts.toArray());
+  }
+
   /**
    *
    * @param sb
@@ -455,20 +476,20 @@ public class FormulaCompiler extends StringTools implements ASTNodeCompiler {
    * @return
    * @throws SBMLException
    */
-  protected String checkBrackets(ASTNode node) throws SBMLException {
-    String term = node.compile(this).toString();
+  protected FormulaText checkBrackets(ASTNode node) throws SBMLException {
+    ASTNodeValue term = node.compile(this);
 
     if (node.isSum() || node.isDifference() || node.isUMinus() 
         || node.isRelational() || node.isLogical()) 
     {
-      term = brackets(term).toString();
+      return new FormulaText('(', term, ')');
     } else if (node.isReal()) {
       if (node.getReal() < 0d) {
-        term = brackets(term).toString();
+        return new FormulaText('(', term, ')');
       }
     }
 
-    return term;
+    return new FormulaText(term);
   }
 
   /**
@@ -478,20 +499,20 @@ public class FormulaCompiler extends StringTools implements ASTNodeCompiler {
    * @return
    * @throws SBMLException
    */
-  protected String checkDenominatorBrackets(ASTNode node) throws SBMLException {
+  protected FormulaText checkDenominatorBrackets(ASTNode node) throws SBMLException {
     if ((node.getType() == Type.POWER) && (node.getChildCount() > 1)
         && node.getRightChild().toString().equals("1")) {
       return checkDenominatorBrackets(node.getLeftChild());
     }
-    String term = node.compile(this).toString();
+    ASTNodeValue term = node.compile(this);
     
     if (node.isSum() || node.isDifference() || node.isUMinus()
         || (node.getType() == Type.TIMES) || node.getType() == Type.DIVIDE
         || node.isRelational() || node.isLogical())
     {
-      term = brackets(term).toString();
+      return new FormulaText('(', term, ')');
     }
-    return term;
+    return new FormulaText(term);
   }
 
   /**
@@ -499,22 +520,22 @@ public class FormulaCompiler extends StringTools implements ASTNodeCompiler {
    * or a function (meaning the method {@link ASTNode#isFunction()} returns true).
    *
    * @param node the {@link ASTNode} to compile to String
-   * @return a String representing the given ASTNode
+   * @return the formula representing the given ASTNode
    * @throws SBMLException - if any error occurs while going through the ASTNode
    */
-  protected String checkArgumentBrackets(ASTNode node) throws SBMLException {
+  protected FormulaText checkArgumentBrackets(ASTNode node) throws SBMLException {
 
-    String term = node.compile(this).toString();
+    ASTNodeValue term = node.compile(this);
 
     if ((node.isNumber() || node.isString() || node.isFunction()) 
         && (! (node.getType() == ASTNode.Type.FUNCTION_POWER || node.getType() == ASTNode.Type.FUNCTION_REM)))
     {
-      return term;
+      return new FormulaText(term);
     }
 
     // for node.isRelational() and node.isLogical(), we want to put brackets 
     
-    return term = brackets(term).toString();
+    return new FormulaText('(', term, ')');
   }
 
   /* (non-Javadoc)
@@ -626,8 +647,8 @@ public class FormulaCompiler extends StringTools implements ASTNodeCompiler {
   @Override
   public ASTNodeValue delay(String delayName, ASTNode x, ASTNode y,
     String timeUnits) throws SBMLException {
-    return new ASTNodeValue(concat("delay(", x.compile(this), ", ",
-      y.compile(this), ")").toString(), this);
+    return new ASTNodeValue(new FormulaText("delay(", x.compile(this), ", ",
+      y.compile(this), ")"), this);
   }
 
   /* (non-Javadoc)
@@ -671,9 +692,9 @@ public class FormulaCompiler extends StringTools implements ASTNodeCompiler {
   public ASTNodeValue frac(ASTNode numerator, ASTNode denominator)
       throws SBMLException {
     return new ASTNodeValue(
-      concat(checkBrackets(numerator),
+      new FormulaText(checkBrackets(numerator),
         Character.valueOf('/'),
-        checkDenominatorBrackets(denominator)).toString(),
+        checkDenominatorBrackets(denominator)),
         this);
   }
 
@@ -712,7 +733,7 @@ public class FormulaCompiler extends StringTools implements ASTNodeCompiler {
     for (ASTNode node : nodes) {
       l.add(node);
     }
-    return new ASTNodeValue(concat(name, brackets(lambdaBody(l))).toString(), this);
+    return new ASTNodeValue(new FormulaText(name, '(', lambdaBody(l), ')'), this);
   }
 
   @Override
@@ -733,7 +754,7 @@ public class FormulaCompiler extends StringTools implements ASTNodeCompiler {
       l.add(node);
     }
     
-    return new ASTNodeValue(concat(name, brackets(lambdaBody(l))).toString(), this);  
+    return new ASTNodeValue(new FormulaText(name, '(', lambdaBody(l), ')'), this);  
   }
 
   /**
@@ -749,10 +770,10 @@ public class FormulaCompiler extends StringTools implements ASTNodeCompiler {
      throws SBMLException 
  {
    if (node.isName() || node.isNumber()) {
-     return new ASTNodeValue(concat(name, node.compile(this)).toString(), this);
+     return new ASTNodeValue(new FormulaText(name, node.compile(this)), this);
    }
    
-   return new ASTNodeValue(concat(name, brackets(node.compile(this))).toString(), this);
+   return new ASTNodeValue(new FormulaText(name, '(', node.compile(this), ')'), this);
  }
 
   /**
@@ -766,8 +787,8 @@ public class FormulaCompiler extends StringTools implements ASTNodeCompiler {
   public ASTNodeValue function(String name, List<ASTNode> nodes)
       throws SBMLException
   {
-    return new ASTNodeValue(concat(name, brackets(lambdaBody(nodes)))
-      .toString(), this);
+    return new ASTNodeValue(new FormulaText(name, '(', lambdaBody(nodes), ')'),
+      this);
   }
 
   /* (non-Javadoc)
@@ -847,8 +868,8 @@ public class FormulaCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue lambda(List<ASTNode> nodes) throws SBMLException {
-    return new ASTNodeValue(StringTools.concat("lambda",
-      brackets(lambdaBody(nodes))).toString(), this);
+    return new ASTNodeValue(new FormulaText("lambda", '(', lambdaBody(nodes),
+      ')'), this);
   }
 
   /**
@@ -860,15 +881,15 @@ public class FormulaCompiler extends StringTools implements ASTNodeCompiler {
    * @return
    * @throws SBMLException
    */
-  protected String lambdaBody(List<ASTNode> nodes) throws SBMLException {
-    StringBuffer lambda = new StringBuffer();
+  protected FormulaText lambdaBody(List<ASTNode> nodes) throws SBMLException {
+    List<Object> lambda = new ArrayList<Object>(2 * nodes.size());
     for (int i = 0; i < nodes.size(); i++) {
       if (i > 0) {
-        lambda.append(", ");
+        lambda.add(", ");
       }
-      lambda.append(nodes.get(i).compile(this));
+      lambda.add(nodes.get(i).compile(this));
     }
-    return lambda.toString();
+    return new FormulaText(lambda.toArray());
   }
 
   /* (non-Javadoc)
@@ -912,28 +933,28 @@ public class FormulaCompiler extends StringTools implements ASTNodeCompiler {
    */
   protected ASTNodeValue logicalOperation(String operator, List<ASTNode> nodes)
       throws SBMLException {
-    StringBuffer value = new StringBuffer();
+    List<Object> value = new ArrayList<Object>();
     boolean first = true;
     
     if ((nodes != null) && (nodes.size() >= 2)) {
       for (ASTNode node : nodes) {
         if (!first) {
-          value.append(operator);
+          value.add(String.valueOf(operator));
         } else {
           first = false;
         }
         if (node.getChildCount() > 0) {
-          append(value, Character.valueOf('('), node.compile(this)
-            .toString(), Character.valueOf(')'));
+          value.add(new FormulaText(Character.valueOf('('), node.compile(this),
+            Character.valueOf(')')));
         } else {
-          value.append(node.compile(this).toString());
+          value.add(node.compile(this));
         }
       }
     } else {
       return logicalOperationFunction(operator, nodes);
     }
     
-    return new ASTNodeValue(value.toString(), this);
+    return new ASTNodeValue(new FormulaText(value.toArray()), this);
   }
   
   
@@ -965,17 +986,15 @@ public class FormulaCompiler extends StringTools implements ASTNodeCompiler {
       return new ASTNodeValue("", this);
     }
 
-    StringBuffer minus = new StringBuffer();
+    Object minus[] = new Object[2 * nodes.size() - 1];
 
-    minus.append(checkBrackets(nodes.get(0)));
+    minus[0] = checkBrackets(nodes.get(0));
 
     for (int i = 1; i < nodes.size(); i++) {
-      if (i > 0) {
-        minus.append('-');
-      }
-      minus.append(checkBrackets(nodes.get(i)));
+      minus[2 * i - 1] = Character.valueOf('-');
+      minus[2 * i] = checkBrackets(nodes.get(i));
     }
-    return new ASTNodeValue(minus.toString(), this);
+    return new ASTNodeValue(new FormulaText(minus), this);
 
   }
 
@@ -1011,33 +1030,53 @@ public class FormulaCompiler extends StringTools implements ASTNodeCompiler {
     return function("piecewise", nodes);
   }
 
+  /**
+   * Returns the formula of a sum within a sum, which is the one of
+   * {@link ASTNode#toString()}.
+   *
+   * @param node
+   * @return
+   */
+  private Object nestedSum(ASTNode node) {
+    if (getClass() == FormulaCompilerLibSBML.class) {
+      // ASTNode#toString() uses the same compiler, so that the formula
+      // does not need to be copied.
+      try {
+        return node.compile(this);
+      } catch (Exception exc) {
+        // ASTNode#toString() handles the problem
+      }
+    }
+    return node.toString();
+  }
+
   /* (non-Javadoc)
    * @see org.sbml.jsbml.util.compilers.ASTNodeCompiler#plus(java.util.List)
    */
   @Override
   public ASTNodeValue plus(List<ASTNode> nodes) throws SBMLException {
-    StringBuffer plus = new StringBuffer();
     if (nodes.size() == 0) {
       return new ASTNodeValue("", this);
     }
+    Object plus[] = new Object[2 * nodes.size() - 1];
 
     if (nodes.get(0).isSum()) {
-      plus.append(nodes.get(0));
+      plus[0] = nestedSum(nodes.get(0));
     } else {
-      plus.append(checkBrackets(nodes.get(0)));
+      plus[0] = checkBrackets(nodes.get(0));
     }
     
 
     for (int i = 1; i < nodes.size(); i++) {
-      plus.append('+');
+      plus[2 * i - 1] = Character.valueOf('+');
 
       if (nodes.get(i).isSum()) {
-        plus.append(nodes.get(i));
+        plus[2 * i] = nestedSum(nodes.get(i));
       } else {
-        plus.append(checkBrackets(nodes.get(i)));
+        plus[2 * i] = checkBrackets(nodes.get(i));
       }
     }
-    return new ASTNodeValue(plus.toString(), this);
+    return new ASTNodeValue(new FormulaText(plus), this);
 
   }
 
@@ -1046,7 +1085,7 @@ public class FormulaCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue pow(ASTNode left, ASTNode right) throws SBMLException {
-    return new ASTNodeValue(arith('^', checkArgumentBrackets(left), checkArgumentBrackets(right)).toString(), this);
+    return new ASTNodeValue(join('^', checkArgumentBrackets(left), checkArgumentBrackets(right)), this);
   }
 
   /**
@@ -1057,12 +1096,12 @@ public class FormulaCompiler extends StringTools implements ASTNodeCompiler {
    * @return
    * @throws SBMLException
    */
-  protected String relation(ASTNode left, String symbol, ASTNode right)
+  protected FormulaText relation(ASTNode left, String symbol, ASTNode right)
       throws SBMLException {
 
-    return (new StringBuffer().append(checkArgumentBrackets(left))
-      .append(FORMULA_ARGUMENT_SEPARATOR).append(symbol).append(FORMULA_ARGUMENT_SEPARATOR)
-      .append(checkArgumentBrackets(right))).toString();
+    String separator = String.valueOf(FORMULA_ARGUMENT_SEPARATOR);
+    return new FormulaText(checkArgumentBrackets(left), separator,
+      String.valueOf(symbol), separator, checkArgumentBrackets(right));
   }
 
   /* (non-Javadoc)
@@ -1075,9 +1114,9 @@ public class FormulaCompiler extends StringTools implements ASTNodeCompiler {
     // Writing the root function as '(radiant)^(1/(rootExponent))'
     // TODO: need to reduce the number of parenthesis when possible
 
-    return new ASTNodeValue(StringTools.concat(Character.valueOf('('),
+    return new ASTNodeValue(new FormulaText(Character.valueOf('('),
       radiant.compile(this), Character.valueOf(')'), "^", "(1/(",
-      rootExponent.compile(this), "))").toString(), this);
+      rootExponent.compile(this), "))"), this);
   }
 
   /* (non-Javadoc)
@@ -1088,9 +1127,9 @@ public class FormulaCompiler extends StringTools implements ASTNodeCompiler {
       throws SBMLException {
     // Writing the root function as '(radiant)^(1/rootExponent)'
 
-    return new ASTNodeValue(StringTools.concat(Character.valueOf('('),
+    return new ASTNodeValue(new FormulaText(Character.valueOf('('),
       radiant.compile(this), Character.valueOf(')'), "^", "(1/",
-      rootExponent, ")").toString(), this);
+      rootExponent, ")"), this);
   }
 
   /* (non-Javadoc)
@@ -1130,8 +1169,8 @@ public class FormulaCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue sqrt(ASTNode node) throws SBMLException {
-    return new ASTNodeValue(StringTools.concat(Character.valueOf('('),
-      node.compile(this), Character.valueOf(')'), "^", "(0.5)").toString(), this);
+    return new ASTNodeValue(new FormulaText(Character.valueOf('('),
+      node.compile(this), Character.valueOf(')'), "^", "(0.5)"), this);
   }
 
   /* (non-Javadoc)
@@ -1163,12 +1202,12 @@ public class FormulaCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue times(List<ASTNode> nodes) throws SBMLException {
-    Object n[] = new ASTNodeValue[nodes.size()];
+    CharSequence n[] = new CharSequence[nodes.size()];
     for (int i = 0; i < nodes.size(); i++) {
       ASTNode ast = nodes.get(i);
-      n[i] = new ASTNodeValue(checkBrackets(ast).toString(), this);
+      n[i] = checkBrackets(ast);
     }
-    return new ASTNodeValue(times(n).toString(), this);
+    return new ASTNodeValue(join('*', n), this);
   }
 
   /* (non-Javadoc)
@@ -1176,8 +1215,8 @@ public class FormulaCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue uMinus(ASTNode node) throws SBMLException {
-    return new ASTNodeValue(concat(Character.valueOf('-'),
-      checkBrackets(node)).toString(), this);
+    return new ASTNodeValue(new FormulaText(Character.valueOf('-'),
+      checkBrackets(node)), this);
   }
 
   /* (non-Javadoc)
@@ -1202,13 +1241,19 @@ public class FormulaCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue selector(List<ASTNode> nodes) throws SBMLException {
-    Object n[] = new ASTNodeValue[nodes.size()];
+    List<Object> selector = new ArrayList<Object>();
     for (int i = 0; i < nodes.size(); i++) {
-      ASTNode ast = nodes.get(i);
-      n[i] = ast.compile(this);
+      FormulaText index = new FormulaText(nodes.get(i).compile(this));
+      if (index.length() > 0) {
+        if (selector.isEmpty()) {
+          selector.add(index);
+        } else {
+          selector.add(new FormulaText("[", index, "]"));
+        }
+      }
     }
 
-    return new ASTNodeValue(selector(n).toString(), this);
+    return new ASTNodeValue(new FormulaText(selector.toArray()), this);
   }
 
   /* (non-Javadoc)
@@ -1216,13 +1261,13 @@ public class FormulaCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue vector(List<ASTNode> nodes) throws SBMLException {
-    Object n[] = new ASTNodeValue[nodes.size()];
+    CharSequence n[] = new CharSequence[nodes.size()];
     for (int i = 0; i < nodes.size(); i++) {
       ASTNode ast = nodes.get(i);
-      n[i] = ast.compile(this);
+      n[i] = new FormulaText(ast.compile(this));
     }
 
-    return new ASTNodeValue(vector(n).toString(), this);
+    return new ASTNodeValue(new FormulaText("{", join(',', n), "}"), this);
   }
 
   @Override
@@ -0,0 +1,209 @@
+/*
+ *
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.util.compilers;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+import org.sbml.jsbml.ASTNode;
+
+/**
+ * A formula that is composed of other formulas without copying them.
+ * 
+ * <p>The {@link FormulaCompiler} and the {@link LaTeXCompiler} return their
+ * results as {@link ASTNodeValue}s that contain a {@link FormulaText}. The
+ * formula of an {@link ASTNode} then only links the formulas of its children
+ * together with operators and brackets, instead of copying them into a new
+ * {@link String} on each level of the tree. The characters of the whole
+ * formula are copied only once, when it is written into an {@link Appendable}
+ * with {@link #appendTo(Appendable)} or converted into a {@link String}.</p>
+ * 
+ * @since 1.6
+ */
+public final class FormulaText implements CharSequence {
+
+  /**
+   * The non-empty parts of this formula, each of which is either a
+   * {@link String} or another {@link FormulaText}.
+   */
+  private final CharSequence[] parts;
+
+  /**
+   * The number of characters of this formula.
+   */
+  private final int length;
+
+  /**
+   * This formula as {@link String}, once it has been created.
+   */
+  private String text;
+
+  /**
+   * Creates a formula that consists of the given parts in the given order.
+   * Each part contributes the same characters as it would to
+   * {@link org.sbml.jsbml.util.StringTools#concat(Object...)}, i.e., the
+   * {@link String} representation of the part, where {@code null} parts are
+   * skipped. {@link ASTNodeValue}s and {@link FormulaText}s are linked, not
+   * copied.
+   * 
+   * @param parts
+   */
+  public FormulaText(Object... parts) {
+    CharSequence[] list = new CharSequence[parts.length];
+    int count = 0, length = 0;
+    for (Object part : parts) {
+      CharSequence text = valueOf(part);
+      if (text.length() > 0) {
+        list[count++] = text;
+        length += text.length();
+      }
+    }
+    this.parts = (count < list.length) ? Arrays.copyOf(list, count) : list;
+    this.length = length;
+  }
+
+  /**
+   * @param part
+   * @return the given part as {@link FormulaText} if it is one or if it is an
+   *         {@link ASTNodeValue} without units that contains one, or its
+   *         {@link String} representation otherwise.
+   */
+  private static CharSequence valueOf(Object part) {
+    if (part == null) {
+      return "";
+    } else if (part instanceof FormulaText) {
+      return (FormulaText) part;
+    } else if (part instanceof ASTNodeValue) {
+      ASTNodeValue value = (ASTNodeValue) part;
+      if ((value.getValue() instanceof FormulaText) && !value.isSetUnit()) {
+        return (FormulaText) value.getValue();
+      }
+    }
+    return part.toString();
+  }
+
+  /**
+   * Appends this formula to the given {@link Appendable}, walking through its
+   * parts only once.
+   * 
+   * @param out
+   * @return the given {@link Appendable}
+   * @throws IOException
+   *             if the given {@link Appendable} cannot be written.
+   */
+  public <A extends Appendable> A appendTo(A out) throws IOException {
+    // an explicit stack, because the nesting grows with the depth of the tree
+    Deque<CharSequence> stack = new ArrayDeque<CharSequence>();
+    stack.push(this);
+    while (!stack.isEmpty()) {
+      CharSequence part = stack.pop();
+      if (part instanceof FormulaText) {
+        FormulaText formula = (FormulaText) part;
+        if (formula.text != null) {
+          out.append(formula.text);
+        } else {
+          for (int i = formula.parts.length - 1; i >= 0; i--) {
+            stack.push(formula.parts[i]);
+          }
+        }
+      } else {
+        out.append(part);
+      }
+    }
+    return out;
+  }
+
+  /**
+   * Appends this formula to the given {@link StringBuilder}.
+   * 
+   * @param out
+   * @return the given {@link StringBuilder}
+   * @see #appendTo(Appendable)
+   */
+  public StringBuilder appendTo(StringBuilder out) {
+    try {
+      appendTo((Appendable) out);
+    } catch (IOException exc) {
+      // a StringBuilder does not throw any IOException
+      throw new IllegalStateException(exc);
+    }
+    return out;
+  }
+
+  /**
+   * Appends the formula of the given value to the given {@link Appendable}
+   * without creating a {@link String} for it if the value contains a
+   * {@link FormulaText}.
+   * 
+   * @param value
+   * @param out
+   * @return the given {@link Appendable}
+   * @throws IOException
+   *             if the given {@link Appendable} cannot be written.
+   */
+  public static <A extends Appendable> A appendTo(ASTNodeValue value, A out)
+      throws IOException {
+    CharSequence text = valueOf(value);
+    if (text instanceof FormulaText) {
+      return ((FormulaText) text).appendTo(out);
+    }
+    out.append(text);
+    return out;
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.CharSequence#charAt(int)
+   */
+  @Override
+  public char charAt(int index) {
+    return toString().charAt(index);
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.CharSequence#length()
+   */
+  @Override
+  public int length() {
+    return length;
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.CharSequence#subSequence(int, int)
+   */
+  @Override
+  public CharSequence subSequence(int start, int end) {
+    return toString().subSequence(start, end);
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    if (text == null) {
+      text = appendTo(new StringBuilder(length)).toString();
+    }
+    return text;
+  }
+
+}
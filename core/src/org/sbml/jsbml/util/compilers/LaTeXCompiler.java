@@ -336,10 +336,8 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue abs(ASTNode value) throws SBMLException {
-    StringBuffer abs = new StringBuffer("\\left\\lvert");
-    abs.append(value.compile(this).toString());
-    abs.append("\\right\\rvert");
-    return new ASTNodeValue(abs.toString(), this);
+    return new ASTNodeValue(new FormulaText("\\left\\lvert",
+      value.compile(this), "\\right\\rvert"), this);
   }
 
   /* (non-Javadoc)
@@ -355,8 +353,8 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue arccos(ASTNode value) throws SBMLException {
-    return new ASTNodeValue(command("arccos", value.compile(this))
-      .toString(), this);
+    return new ASTNodeValue(new FormulaText("\\arccos{", value.compile(this),
+      '}'), this);
   }
 
   /* (non-Javadoc)
@@ -364,7 +362,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue arccosh(ASTNode value) throws SBMLException {
-    return new ASTNodeValue(function("arccosh", value).toString(), this);
+    return new ASTNodeValue(function("arccosh", value), this);
   }
 
   /* (non-Javadoc)
@@ -372,7 +370,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue arccot(ASTNode value) throws SBMLException {
-    return new ASTNodeValue(function("arcot", value).toString(), this);
+    return new ASTNodeValue(function("arcot", value), this);
   }
 
   /* (non-Javadoc)
@@ -380,7 +378,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue arccoth(ASTNode value) throws SBMLException {
-    return new ASTNodeValue(function("arccoth", value).toString(), this);
+    return new ASTNodeValue(function("arccoth", value), this);
   }
 
   /* (non-Javadoc)
@@ -388,7 +386,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue arccsc(ASTNode value) throws SBMLException {
-    return new ASTNodeValue(function("arccsc", value).toString(), this);
+    return new ASTNodeValue(function("arccsc", value), this);
   }
 
   /* (non-Javadoc)
@@ -396,7 +394,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue arccsch(ASTNode value) throws SBMLException {
-    return new ASTNodeValue(function("arccsch", value).toString(), this);
+    return new ASTNodeValue(function("arccsch", value), this);
   }
 
   /* (non-Javadoc)
@@ -404,7 +402,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue arcsec(ASTNode value) throws SBMLException {
-    return new ASTNodeValue(function("arcsec", value).toString(), this);
+    return new ASTNodeValue(function("arcsec", value), this);
   }
 
   /* (non-Javadoc)
@@ -412,7 +410,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue arcsech(ASTNode value) throws SBMLException {
-    return new ASTNodeValue(function("arcsech", value).toString(), this);
+    return new ASTNodeValue(function("arcsech", value), this);
   }
 
   /* (non-Javadoc)
@@ -420,7 +418,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue arcsin(ASTNode value) throws SBMLException {
-    return new ASTNodeValue(function("arcsin", value).toString(), this);
+    return new ASTNodeValue(function("arcsin", value), this);
   }
 
   /* (non-Javadoc)
@@ -428,7 +426,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue arcsinh(ASTNode value) throws SBMLException {
-    return new ASTNodeValue(function("arcsinh", value).toString(), this);
+    return new ASTNodeValue(function("arcsinh", value), this);
   }
 
   /* (non-Javadoc)
@@ -436,7 +434,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue arctan(ASTNode value) throws SBMLException {
-    return new ASTNodeValue(function("arctan", value).toString(), this);
+    return new ASTNodeValue(function("arctan", value), this);
   }
 
   /* (non-Javadoc)
@@ -444,7 +442,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue arctanh(ASTNode value) throws SBMLException {
-    return new ASTNodeValue(function("\\arctanh", value).toString(), this);
+    return new ASTNodeValue(function("\\arctanh", value), this);
   }
 
   /**
@@ -469,18 +467,18 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    * @return
    * @throws SBMLException
    */
-  private String checkBrackets(ASTNode node) throws SBMLException {
-    String term = node.compile(this).toString();
+  private FormulaText checkBrackets(ASTNode node) throws SBMLException {
+    ASTNodeValue term = node.compile(this);
     // TODO: This should be smarter
     if (node.isSum() || node.isDifference() || node.isUMinus()) {
-      term = brackets(term).toString();
+      return new FormulaText(leftBrace, term, rightBrace);
     } else if (node.isReal()) {
       if (node.getReal() < 0d) {
-        term = brackets(term).toString();
+        return new FormulaText(leftBrace, term, rightBrace);
       }
     }
 
-    return term;
+    return new FormulaText(term);
   }
 
   /* (non-Javadoc)
@@ -488,10 +486,8 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue ceiling(ASTNode value) throws SBMLException {
-    StringBuffer ceiling = new StringBuffer("\\left\\lceil ");
-    ceiling.append(value.compile(this).toString());
-    ceiling.append("\\right\\rceil ");
-    return new ASTNodeValue(ceiling.toString(), this);
+    return new ASTNodeValue(new FormulaText("\\left\\lceil ",
+      value.compile(this), "\\right\\rceil "), this);
   }
 
   /**
@@ -608,7 +604,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue cos(ASTNode node) throws SBMLException {
-    return new ASTNodeValue(function("\\cos", node).toString(), this);
+    return new ASTNodeValue(function("\\cos", node), this);
   }
 
   /* (non-Javadoc)
@@ -616,7 +612,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue cosh(ASTNode node) throws SBMLException {
-    return new ASTNodeValue(function("\\cosh", node).toString(), this);
+    return new ASTNodeValue(function("\\cosh", node), this);
   }
 
   /* (non-Javadoc)
@@ -624,7 +620,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue cot(ASTNode node) throws SBMLException {
-    return new ASTNodeValue(function("\\cot", node).toString(), this);
+    return new ASTNodeValue(function("\\cot", node), this);
   }
 
   /* (non-Javadoc)
@@ -632,7 +628,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue coth(ASTNode node) throws SBMLException {
-    return new ASTNodeValue(function("\\coth", node).toString(), this);
+    return new ASTNodeValue(function("\\coth", node), this);
   }
 
   /* (non-Javadoc)
@@ -640,7 +636,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue csc(ASTNode node) throws SBMLException {
-    return new ASTNodeValue(function("\\csc", node).toString(), this);
+    return new ASTNodeValue(function("\\csc", node), this);
   }
 
   /* (non-Javadoc)
@@ -648,7 +644,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue csch(ASTNode node) throws SBMLException {
-    return new ASTNodeValue(function("csch", node).toString(), this);
+    return new ASTNodeValue(function("csch", node), this);
   }
 
   /* (non-Javadoc)
@@ -658,10 +654,9 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
   public ASTNodeValue delay(String delayName, ASTNode x, ASTNode delay,
     String timeUnits) throws SBMLException {
     // TODO: deal with units.
-    return new ASTNodeValue(concat(
-      mathrm(maskSpecialChars(delayName)),
-      brackets(concat(x.compile(this).toString(), ", ", delay
-        .compile(this).toString()))).toString(), this);
+    return new ASTNodeValue(new FormulaText(
+      mathrm(maskSpecialChars(delayName)), leftBrace, x.compile(this), ", ",
+      delay.compile(this), rightBrace), this);
   }
 
   /**
@@ -689,7 +684,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue eq(ASTNode left, ASTNode right) throws SBMLException {
-    return new ASTNodeValue(relation(left, " = ", right).toString(), this);
+    return new ASTNodeValue(relation(left, " = ", right), this);
   }
 
   /* (non-Javadoc)
@@ -697,7 +692,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue exp(ASTNode node) throws SBMLException {
-    return new ASTNodeValue(function("\\exp", node).toString(), this);
+    return new ASTNodeValue(function("\\exp", node), this);
   }
 
   /* (non-Javadoc)
@@ -705,14 +700,11 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue factorial(ASTNode node) throws SBMLException {
-    StringBuilder value;
     if (!node.isUnary()) {
-      value = brackets(node.compile(this).toString());
-    } else {
-      value = new StringBuilder(node.compile(this).toString());
+      return new ASTNodeValue(new FormulaText(leftBrace, node.compile(this),
+        rightBrace, '!'), this);
     }
-    value.append('!');
-    return new ASTNodeValue(value.toString(), this);
+    return new ASTNodeValue(new FormulaText(node.compile(this), '!'), this);
   }
 
   /* (non-Javadoc)
@@ -720,10 +712,8 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue floor(ASTNode value) throws SBMLException {
-    StringBuilder floor = new StringBuilder("\\left\\lfloor ");
-    floor.append(value.compile(this).toString());
-    floor.append("\\right\\rfloor ");
-    return new ASTNodeValue(floor.toString(), this);
+    return new ASTNodeValue(new FormulaText("\\left\\lfloor ",
+      value.compile(this), "\\right\\rfloor "), this);
   }
 
   /**
@@ -760,8 +750,8 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
   @Override
   public ASTNodeValue frac(ASTNode numerator, ASTNode denominator)
       throws SBMLException {
-    return new ASTNodeValue(command("frac", numerator.compile(this),
-      denominator.compile(this)).toString(), this);
+    return new ASTNodeValue(new FormulaText("\\frac{", numerator.compile(this),
+      "}{", denominator.compile(this), '}'), this);
   }
 
   /* (non-Javadoc)
@@ -789,39 +779,38 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
   @Override
   public ASTNodeValue function(FunctionDefinition fun, List<ASTNode> args)
       throws SBMLException {
-    StringBuffer value = new StringBuffer();
+    List<Object> value = new ArrayList<Object>();
     int length;
     if (fun != null) {
-      value.append(mathtt(LaTeXCompiler.maskSpecialChars(
+      value.add(mathtt(LaTeXCompiler.maskSpecialChars(
         fun.isSetName() && printNameIfAvailable ? fun.getName() : fun.getId())));
       length = args.size();
     } else if (args.size() == 1) {
       length = 0;
-      value.append("\\lambda");
-      value.append(brackets(null));
+      value.add("\\lambda");
+      value.add(brackets(null));
     } else {
-      value.append("\\lambda");
+      value.add("\\lambda");
       length = args.size() - 1;
     }
-    StringBuilder argList = new StringBuilder();
-
-    for (int i = 0; i < length; i++) {
-      if (i > 0) {
-        argList.append(", ");
-      }
-      argList.append(args.get(i).compile(this));
-    }
 
     if (length > 0) {
-      value.append(brackets(argList));
+      value.add(leftBrace);
+      for (int i = 0; i < length; i++) {
+        if (i > 0) {
+          value.add(", ");
+        }
+        value.add(args.get(i).compile(this));
+      }
+      value.add(rightBrace);
     }
 
     if ((0 <= length) && (length < args.size())) {
-      value.append(" = ");
-      value.append(args.get(args.size() - 1).compile(this));
+      value.add(" = ");
+      value.add(args.get(args.size() - 1).compile(this));
     }
 
-    return new ASTNodeValue(value.toString(), this);
+    return new ASTNodeValue(new FormulaText(value.toArray()), this);
   }
 
   /* (non-Javadoc)
@@ -831,25 +820,23 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
   public ASTNodeValue function(String functionDefinitionName,
     List<ASTNode> args) throws SBMLException
   {
-    StringBuffer value = new StringBuffer();
+    List<Object> value = new ArrayList<Object>();
     int length = args.size();
 
-    value.append(mathtt(LaTeXCompiler.maskSpecialChars(functionDefinitionName)));
-
-    StringBuilder argList = new StringBuilder();
-
-    for (int i = 0; i < length; i++) {
-      if (i > 0) {
-        argList.append(", ");
-      }
-      argList.append(args.get(i).compile(this));
-    }
+    value.add(mathtt(LaTeXCompiler.maskSpecialChars(functionDefinitionName)));
 
     if (length > 0) {
-      value.append(brackets(argList));
+      value.add(leftBrace);
+      for (int i = 0; i < length; i++) {
+        if (i > 0) {
+          value.add(", ");
+        }
+        value.add(args.get(i).compile(this));
+      }
+      value.add(rightBrace);
     }
 
-    return new ASTNodeValue(value.toString(), this);
+    return new ASTNodeValue(new FormulaText(value.toArray()), this);
   }
 
 
@@ -861,10 +848,10 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    * @return
    * @throws SBMLException
    */
-  private StringBuilder function(String func, ASTNode value)
+  private FormulaText function(String func, ASTNode value)
       throws SBMLException {
-    return function(func, value.isUnary() ? value.compile(this).toString()
-      : brackets(value.compile(this)).toString());
+    return function(func, value.isUnary() ? new FormulaText(value.compile(this))
+      : new FormulaText(leftBrace, value.compile(this), rightBrace));
   }
 
   /**
@@ -874,17 +861,11 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    * @param value
    * @return
    */
-  private StringBuilder function(String func, Object value) {
-    boolean command = func.startsWith("\\");
-    StringBuilder fun = command ? new StringBuilder(func) : mathrm(func);
-    if (command) {
-      fun.append('{');
+  private FormulaText function(String func, FormulaText value) {
+    if (func.startsWith("\\")) {
+      return new FormulaText(func, '{', value, '}');
     }
-    fun.append(value);
-    if (command) {
-      fun.append('}');
-    }
-    return fun;
+    return new FormulaText(mathrm(func), value);
   }
 
   @Override
@@ -907,7 +888,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue geq(ASTNode left, ASTNode right) throws SBMLException {
-    return new ASTNodeValue(relation(left, " \\geq ", right).toString(),
+    return new ASTNodeValue(relation(left, " \\geq ", right),
       this);
   }
 
@@ -997,7 +978,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue gt(ASTNode left, ASTNode right) throws SBMLException {
-    return new ASTNodeValue(relation(left, " > ", right).toString(), this);
+    return new ASTNodeValue(relation(left, " > ", right), this);
   }
 
   /**
@@ -1058,7 +1039,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue leq(ASTNode left, ASTNode right) throws SBMLException {
-    return new ASTNodeValue(relation(left, " \\leq ", right).toString(),
+    return new ASTNodeValue(relation(left, " \\leq ", right),
       this);
   }
 
@@ -1067,7 +1048,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue ln(ASTNode node) throws SBMLException {
-    return new ASTNodeValue(function("\\ln", node).toString(), this);
+    return new ASTNodeValue(function("\\ln", node), this);
   }
 
   /* (non-Javadoc)
@@ -1083,13 +1064,13 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue log(ASTNode base, ASTNode value) throws SBMLException {
-    StringBuilder v = new StringBuilder("\\log");
+    FormulaText v = new FormulaText("\\log");
     if (base != null) {
-      StringTools.append(v, "_{", base.compile(this), "}");
+      v = new FormulaText(v, "_{", base.compile(this), "}");
     }
-    StringTools.append(v, "{", value.isUnary() ? value.compile(this)
-      : brackets(value.compile(this)), "}");
-    return new ASTNodeValue(v.toString(), this);
+    return new ASTNodeValue(new FormulaText(v, "{", value.isUnary()
+      ? value.compile(this) : new FormulaText(leftBrace, value.compile(this),
+        rightBrace), "}"), this);
   }
 
   /**
@@ -1101,22 +1082,22 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   private ASTNodeValue logicalOperation(String symbol, List<ASTNode> values)
       throws SBMLException {
-    StringBuffer value = new StringBuffer();
+    List<Object> value = new ArrayList<Object>();
     int i = 0;
     for (ASTNode v : values) {
       if (v.getChildCount() > 0) {
-        value.append(leftBrace);
+        value.add(leftBrace);
       }
-      value.append(v.compile(this).toString());
+      value.add(v.compile(this));
       if (v.getChildCount() > 0) {
-        value.append(rightBrace);
+        value.add(rightBrace);
       }
       if (i < values.size() - 1) {
-        value.append(symbol);
+        value.add(String.valueOf(symbol));
       }
       i++;
     }
-    return new ASTNodeValue(value.toString(), this);
+    return new ASTNodeValue(new FormulaText(value.toArray()), this);
   }
 
   /**
@@ -1161,7 +1142,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue lt(ASTNode left, ASTNode right) throws SBMLException {
-    return new ASTNodeValue(relation(left, " < ", right).toString(), this);
+    return new ASTNodeValue(relation(left, " < ", right), this);
   }
 
   /**
@@ -1245,14 +1226,14 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
     if (nodes.size() == 0) {
       return new ASTNodeValue("", this);
     }
-    StringBuilder value = new StringBuilder();
-    value.append(nodes.get(0).compile(this).toString());
+    Object value[] = new Object[2 * nodes.size() - 1];
+    value[0] = nodes.get(0).compile(this);
     for (int i = 1; i < nodes.size(); i++) {
-      value.append('-');
-      value.append(checkBrackets(nodes.get(i)));
+      value[2 * i - 1] = Character.valueOf('-');
+      value[2 * i] = checkBrackets(nodes.get(i));
 
     }
-    return new ASTNodeValue(value.toString(), this);
+    return new ASTNodeValue(new FormulaText(value), this);
   }
 
   /* (non-Javadoc)
@@ -1260,8 +1241,8 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue neq(ASTNode left, ASTNode right) throws SBMLException {
-    return new ASTNodeValue(concat(left, " \\neq ", right.compile(this))
-      .toString(), this);
+    return new ASTNodeValue(new FormulaText(left, " \\neq ",
+      right.compile(this)), this);
   }
 
   /* (non-Javadoc)
@@ -1269,10 +1250,10 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue not(ASTNode node) throws SBMLException {
-    return new ASTNodeValue(concat(
+    return new ASTNodeValue(new FormulaText(
       "\\neg ",
       (node.getChildCount() == 0) ? node.compile(this)
-        : brackets(node.compile(this))).toString(), this);
+        : new FormulaText(leftBrace, node.compile(this), rightBrace)), this);
   }
 
   /* (non-Javadoc)
@@ -1288,19 +1269,20 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue piecewise(List<ASTNode> nodes) throws SBMLException {
-    StringBuilder v = new StringBuilder("\\begin{dcases}");
-    v.append(newLine());
+    List<Object> v = new ArrayList<Object>();
+    v.add("\\begin{dcases}");
+    v.add(newLine());
     for (int i = 0; i < nodes.size() - 1; i++) {
-      v.append(nodes.get(i).compile(this));
-      v.append(((i % 2) == 0) ? " & \\text{if\\ } " : lineBreak);
+      v.add(nodes.get(i).compile(this));
+      v.add(((i % 2) == 0) ? " & \\text{if\\ } " : lineBreak);
     }
-    v.append(nodes.get(nodes.size() - 1).compile(this));
+    v.add(nodes.get(nodes.size() - 1).compile(this));
     if ((nodes.size() % 2) == 1) {
-      v.append(" & \\text{otherwise}");
-      v.append(newLine());
+      v.add(" & \\text{otherwise}");
+      v.add(newLine());
     }
-    v.append("\\end{dcases}");
-    return new ASTNodeValue(v.toString(), this);
+    v.add("\\end{dcases}");
+    return new ASTNodeValue(new FormulaText(v.toArray()), this);
   }
 
   /* (non-Javadoc)
@@ -1309,17 +1291,17 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
   @Override
   public ASTNodeValue plus(List<ASTNode> nodes) throws SBMLException {
     if (nodes.size() > 0) {
-      StringBuilder value = new StringBuilder();
+      Object value[] = new Object[2 * nodes.size() - 1];
 
-      value.append(nodes.get(0).compile(this));
+      value[0] = nodes.get(0).compile(this);
 
       for (int i = 1; i < nodes.size(); i++) {
 
-        value.append('+');
-        value.append(checkBrackets(nodes.get(i)));
+        value[2 * i - 1] = Character.valueOf('+');
+        value[2 * i] = checkBrackets(nodes.get(i));
 
       }
-      return new ASTNodeValue(value.toString(), this);
+      return new ASTNodeValue(new FormulaText(value), this);
     }
     return new ASTNodeValue(this);
   }
@@ -1330,19 +1312,15 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
   @Override
   public ASTNodeValue pow(ASTNode base, ASTNode exponent)
       throws SBMLException {
-    StringBuilder value = new StringBuilder();
-    value.append(base.compile(this));
-    String exp = exponent.compile(this).toString();
-    if (!exp.equals("1")) {
+    FormulaText value = new FormulaText(base.compile(this));
+    FormulaText exp = new FormulaText(exponent.compile(this));
+    if ((exp.length() != 1) || (exp.charAt(0) != '1')) {
       if (!(base.getChildCount() < 2)) {
-        value = brackets(value);
+        value = new FormulaText(leftBrace, value, rightBrace);
       }
-      value.append('^');
-      value.append('{');
-      value.append(exp);
-      value.append('}');
+      value = new FormulaText(value, '^', '{', exp, '}');
     }
-    return new ASTNodeValue(value.toString(), this);
+    return new ASTNodeValue(value, this);
   }
 
   /**
@@ -1354,16 +1332,14 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    * @return
    * @throws SBMLException
    */
-  private StringBuilder relation(ASTNode left, String relationSymbol,
+  private FormulaText relation(ASTNode left, String relationSymbol,
     ASTNode right) throws SBMLException {
-    StringBuilder value = new StringBuilder();
-
-    value.append(((left.isRelational()) ? brackets(left.compile(this))
-      : left.compile(this).toString()));
-    value.append(relationSymbol);
-    value.append(((right.isRelational()) ? brackets(right.compile(this))
-      : right.compile(this).toString()));
-    return value;
+    return new FormulaText((left.isRelational())
+      ? new FormulaText(leftBrace, left.compile(this), rightBrace)
+        : new FormulaText(left.compile(this)), relationSymbol,
+        (right.isRelational())
+        ? new FormulaText(leftBrace, right.compile(this), rightBrace)
+          : new FormulaText(right.compile(this)));
   }
 
   /* (non-Javadoc)
@@ -1375,8 +1351,8 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
     if (rootExponent.isNumber() && (rootExponent.getReal() == 2d)) {
       return sqrt(value);
     }
-    return new ASTNodeValue(concat("\\sqrt[", rootExponent, "]{",
-      value.compile(this), Character.valueOf('}')).toString(), this);
+    return new ASTNodeValue(new FormulaText("\\sqrt[", rootExponent, "]{",
+      value.compile(this), Character.valueOf('}')), this);
   }
 
   /* (non-Javadoc)
@@ -1388,8 +1364,8 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
     if (rootExponent == 2d) {
       return sqrt(radiant);
     }
-    return new ASTNodeValue(concat("\\sqrt[", rootExponent, "]{",
-      radiant.compile(this), Character.valueOf('}')).toString(), this);
+    return new ASTNodeValue(new FormulaText("\\sqrt[", rootExponent, "]{",
+      radiant.compile(this), Character.valueOf('}')), this);
   }
 
   /* (non-Javadoc)
@@ -1397,7 +1373,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue sec(ASTNode node) throws SBMLException {
-    return new ASTNodeValue(function("\\sec", node).toString(), this);
+    return new ASTNodeValue(function("\\sec", node), this);
   }
 
   /* (non-Javadoc)
@@ -1405,7 +1381,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue sech(ASTNode node) throws SBMLException {
-    return new ASTNodeValue(function("sech", node).toString(), this);
+    return new ASTNodeValue(function("sech", node), this);
   }
 
   /**
@@ -1431,7 +1407,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue sin(ASTNode node) throws SBMLException {
-    return new ASTNodeValue(function("\\sin", node).toString(), this);
+    return new ASTNodeValue(function("\\sin", node), this);
   }
 
   /* (non-Javadoc)
@@ -1439,7 +1415,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue sinh(ASTNode node) throws SBMLException {
-    return new ASTNodeValue(function("\\sinh", node).toString(), this);
+    return new ASTNodeValue(function("\\sinh", node), this);
   }
 
   /* (non-Javadoc)
@@ -1448,7 +1424,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
   @Override
   public ASTNodeValue sqrt(ASTNode value) throws SBMLException {
     return new ASTNodeValue(
-      command("sqrt", value.compile(this)).toString(), this);
+      new FormulaText("\\sqrt{", value.compile(this), '}'), this);
   }
 
   /**
@@ -1484,7 +1460,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue tan(ASTNode node) throws SBMLException {
-    return new ASTNodeValue(function("\\tan", node).toString(), this);
+    return new ASTNodeValue(function("\\tan", node), this);
   }
 
   /* (non-Javadoc)
@@ -1492,7 +1468,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
    */
   @Override
   public ASTNodeValue tanh(ASTNode node) throws SBMLException {
-    return new ASTNodeValue(function("\\tanh", node).toString(), this);
+    return new ASTNodeValue(function("\\tanh", node), this);
   }
 
   /**
@@ -1535,16 +1511,15 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
     if (values.size() == 0) {
       return new ASTNodeValue("", this);
     }
-    StringBuilder v = new StringBuilder(checkBrackets(values.get(0)));
+    Object v[] = new Object[2 * values.size() - 1];
+    v[0] = checkBrackets(values.get(0));
 
     for (int i = 1; i < values.size(); i++) {
-      v.append("\\cdot");
-
-      v.append(' ');
-      v.append(checkBrackets(values.get(i)).toString());
+      v[2 * i - 1] = "\\cdot ";
+      v[2 * i] = checkBrackets(values.get(i));
 
     }
-    return new ASTNodeValue(v.toString(), this);
+    return new ASTNodeValue(new FormulaText(v), this);
   }
 
   /* (non-Javadoc)
@@ -1553,10 +1528,7 @@ public class LaTeXCompiler extends StringTools implements ASTNodeCompiler {
   @Override
   public ASTNodeValue uMinus(ASTNode value) throws SBMLException {
 
-    StringBuffer v = new StringBuffer();
-    v.append('-');
-    v.append(checkBrackets(value).toString());
-    return new ASTNodeValue(v.toString(), this);
+    return new ASTNodeValue(new FormulaText('-', checkBrackets(value)), this);
   }
 
   /* (non-Javadoc)
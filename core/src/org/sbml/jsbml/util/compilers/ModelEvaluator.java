@@ -0,0 +1,599 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.util.compilers;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.AssignmentRule;
+import org.sbml.jsbml.Compartment;
+import org.sbml.jsbml.InitialAssignment;
+import org.sbml.jsbml.KineticLaw;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.Parameter;
+import org.sbml.jsbml.RateRule;
+import org.sbml.jsbml.Reaction;
+import org.sbml.jsbml.Rule;
+import org.sbml.jsbml.SBMLException;
+import org.sbml.jsbml.Species;
+import org.sbml.jsbml.SpeciesReference;
+
+/**
+ * Evaluates the right-hand side of the system of ordinary differential
+ * equations that is defined by the {@link Reaction}s and {@link RateRule}s of
+ * a {@link Model}.
+ * 
+ * <p>All kinetic laws, rules and initial assignments are compiled once by a
+ * {@link NumericCompiler} into a flat program over a state vector, which
+ * contains one slot for every compartment, species, parameter and species
+ * reference with an identifier, see {@link NumericCompiler#createSlots(Model)}.
+ * {@link #computeDerivatives(double[], double, double[])} does not allocate
+ * any objects and can therefore be called in every step of a numerical
+ * integrator.
+ * 
+ * <p>The slot of a species contains its concentration, or its amount if the
+ * species has only substance units, i.e., the value that the identifier of
+ * the species denotes in mathematical expressions. Accordingly, the rates of
+ * reactions are divided by the size of the compartment of a species unless
+ * it has only substance units. If the compartment itself changes due to a
+ * {@link RateRule}, the derivatives of the concentrations of all species in
+ * it are corrected for the dilution, whether or not they take part in a
+ * reaction. Conversion factors of species and of the model are taken into
+ * account. Boundary species, constant species and variables that are
+ * determined by an {@link AssignmentRule} are not changed by reactions.
+ * Algebraic rules, events, and fast reactions are not considered.
+ * 
+ * <p>An instance of this class does not keep any state between two calls and
+ * can therefore be used by several threads at the same time.
+ * 
+ * @since 1.6
+ */
+public class ModelEvaluator {
+
+  /**
+   * The compiled math of all assignment rules in topological order.
+   */
+  private final CompiledMath[] assignments;
+
+  /**
+   * The slots of the variables of {@link #assignments}.
+   */
+  private final int[] assignmentSlots;
+
+  /**
+   * The slots of the species, whose concentration changes due to a variable
+   * compartment size, and which therefore require a correction.
+   */
+  private final int[] dilutionSpeciesSlots;
+
+  /**
+   * The slots of the compartments of {@link #dilutionSpeciesSlots}.
+   */
+  private final int[] dilutionCompartmentSlots;
+
+  /**
+   * The slots of all variables that are changed by a reaction or a rate rule.
+   */
+  private final int[] differentialSlots;
+
+  /**
+   * The compiled math of all initial assignments and assignment rules in
+   * topological order.
+   */
+  private final CompiledMath[] initialAssignments;
+
+  /**
+   * The slots of the variables of {@link #initialAssignments}.
+   */
+  private final int[] initialAssignmentSlots;
+
+  /**
+   * The values of all slots before the initial assignments are applied.
+   */
+  private final double[] initialValues;
+
+  /**
+   * The compiled math of all rate rules.
+   */
+  private final CompiledMath[] rateRules;
+
+  /**
+   * The slots of the variables of {@link #rateRules}.
+   */
+  private final int[] rateRuleSlots;
+
+  /**
+   * The compiled kinetic laws of all reactions.
+   */
+  private final CompiledMath[] rates;
+
+  /**
+   * For each reaction, the index of its first term in {@link #termSlots},
+   * followed by the end index of the terms of the last reaction.
+   */
+  private final int[] reactionTermOffsets;
+
+  /**
+   * Maps the identifiers of all variables to their positions in the state.
+   */
+  private final Map<String, Integer> slots;
+
+  /**
+   * The slot of the compartment size, by which the term must be divided, or
+   * -1.
+   */
+  private final int[] termCompartmentSlots;
+
+  /**
+   * The slot of the conversion factor, by which the term must be multiplied,
+   * or -1.
+   */
+  private final int[] termConversionFactorSlots;
+
+  /**
+   * The slot of the species, to which a term of a reaction contributes.
+   */
+  private final int[] termSlots;
+
+  /**
+   * The signed stoichiometry of each term.
+   */
+  private final CompiledMath[] termStoichiometries;
+
+  /**
+   * Compiles the given {@link Model}. Models that contain the {@code delay}
+   * function require the constructor with a {@link DelayCallback}.
+   * 
+   * @param model
+   * @throws SBMLException
+   *         if the math of the model cannot be compiled or the assignment
+   *         rules contain a cycle.
+   */
+  public ModelEvaluator(Model model) throws SBMLException {
+    this(model, null);
+  }
+
+  /**
+   * Compiles the given {@link Model}.
+   * 
+   * @param model
+   * @param delayCallback
+   *        evaluates the {@code delay} function, can be {@code null} if the
+   *        model does not use this function.
+   * @throws SBMLException
+   *         if the math of the model cannot be compiled or the assignment
+   *         rules contain a cycle.
+   */
+  public ModelEvaluator(Model model, DelayCallback delayCallback) throws SBMLException {
+    slots = NumericCompiler.createSlots(model);
+    NumericCompiler compiler = new NumericCompiler(model, slots);
+    compiler.setDelayCallback(delayCallback);
+
+    // rules
+    Map<String, ASTNode> assignmentRules = new LinkedHashMap<String, ASTNode>();
+    List<RateRule> rateRuleList = new ArrayList<RateRule>();
+    for (Rule rule : model.getListOfRules()) {
+      if ((rule instanceof AssignmentRule) && rule.isSetMath()) {
+        assignmentRules.put(((AssignmentRule) rule).getVariable(), rule.getMath());
+      } else if ((rule instanceof RateRule) && rule.isSetMath()) {
+        rateRuleList.add((RateRule) rule);
+      }
+    }
+    List<String> order = sort(assignmentRules);
+    assignments = new CompiledMath[order.size()];
+    assignmentSlots = new int[order.size()];
+    for (int i = 0; i < assignments.length; i++) {
+      assignmentSlots[i] = slot(order.get(i));
+      assignments[i] = compiler.compile(assignmentRules.get(order.get(i)));
+    }
+    rateRules = new CompiledMath[rateRuleList.size()];
+    rateRuleSlots = new int[rateRuleList.size()];
+    Set<Integer> differential = new HashSet<Integer>();
+    Set<String> rateRuleVariables = new HashSet<String>();
+    for (int i = 0; i < rateRules.length; i++) {
+      RateRule rule = rateRuleList.get(i);
+      rateRuleSlots[i] = slot(rule.getVariable());
+      rateRules[i] = compiler.compile(rule.getMath());
+      differential.add(rateRuleSlots[i]);
+      rateRuleVariables.add(rule.getVariable());
+    }
+
+    // reactions
+    List<CompiledMath> rateList = new ArrayList<CompiledMath>();
+    List<Integer> offsets = new ArrayList<Integer>();
+    List<Integer> speciesSlots = new ArrayList<Integer>();
+    List<Integer> compartmentSlots = new ArrayList<Integer>();
+    List<Integer> conversionFactorSlots = new ArrayList<Integer>();
+    List<CompiledMath> stoichiometries = new ArrayList<CompiledMath>();
+    for (Reaction reaction : model.getListOfReactions()) {
+      KineticLaw kineticLaw = reaction.getKineticLaw();
+      if ((kineticLaw == null) || !kineticLaw.isSetMath()) {
+        continue;
+      }
+      rateList.add(compiler.compile(kineticLaw.getMath()));
+      offsets.add(speciesSlots.size());
+      for (int sign = -1; sign <= 1; sign += 2) {
+        for (SpeciesReference specRef : (sign < 0) ? reaction.getListOfReactants() : reaction.getListOfProducts()) {
+          Species species = specRef.getSpeciesInstance();
+          if ((species == null) || species.getBoundaryCondition() || species.isConstant()
+              || assignmentRules.containsKey(species.getId())
+              || rateRuleVariables.contains(species.getId())) {
+            continue;
+          }
+          int speciesSlot = slot(species.getId());
+          speciesSlots.add(speciesSlot);
+          differential.add(speciesSlot);
+          stoichiometries.add(compileStoichiometry(compiler, specRef, sign));
+          Compartment compartment = species.getCompartmentInstance();
+          if (!species.getHasOnlySubstanceUnits() && (compartment != null)) {
+            compartmentSlots.add(slot(compartment.getId()));
+          } else {
+            compartmentSlots.add(-1);
+          }
+          Parameter conversionFactor = species.isSetConversionFactor()
+              ? species.getConversionFactorInstance() : model.getConversionFactorInstance();
+          conversionFactorSlots.add((conversionFactor != null) ? slot(conversionFactor.getId()) : -1);
+        }
+      }
+    }
+    offsets.add(speciesSlots.size());
+    rates = rateList.toArray(new CompiledMath[rateList.size()]);
+    reactionTermOffsets = toIntArray(offsets);
+    termSlots = toIntArray(speciesSlots);
+    termCompartmentSlots = toIntArray(compartmentSlots);
+    termConversionFactorSlots = toIntArray(conversionFactorSlots);
+    termStoichiometries = stoichiometries.toArray(new CompiledMath[stoichiometries.size()]);
+
+    // the concentrations in a compartment with a rate rule change even without reactions
+    List<Integer> dilutionSlots = new ArrayList<Integer>();
+    List<Integer> dilutionCompartments = new ArrayList<Integer>();
+    for (Species species : model.getListOfSpecies()) {
+      if (species.getBoundaryCondition() || species.isConstant()
+          || species.getHasOnlySubstanceUnits()
+          || assignmentRules.containsKey(species.getId())
+          || rateRuleVariables.contains(species.getId())
+          || !rateRuleVariables.contains(species.getCompartment())) {
+        continue;
+      }
+      int speciesSlot = slot(species.getId());
+      dilutionSlots.add(speciesSlot);
+      dilutionCompartments.add(slot(species.getCompartment()));
+      differential.add(speciesSlot);
+    }
+    dilutionSpeciesSlots = toIntArray(dilutionSlots);
+    dilutionCompartmentSlots = toIntArray(dilutionCompartments);
+    differentialSlots = toIntArray(differential);
+    Arrays.sort(differentialSlots);
+
+    // initial values
+    initialValues = new double[slots.size()];
+    for (Compartment compartment : model.getListOfCompartments()) {
+      initialValues[slot(compartment.getId())] = compartment.getSize();
+    }
+    for (Species species : model.getListOfSpecies()) {
+      initialValues[slot(species.getId())] = initialValue(species);
+    }
+    for (Parameter parameter : model.getListOfParameters()) {
+      initialValues[slot(parameter.getId())] = parameter.getValue();
+    }
+    for (Reaction reaction : model.getListOfReactions()) {
+      for (SpeciesReference specRef : reaction.getListOfReactants()) {
+        initStoichiometry(specRef);
+      }
+      for (SpeciesReference specRef : reaction.getListOfProducts()) {
+        initStoichiometry(specRef);
+      }
+    }
+    Map<String, ASTNode> initialMath = new LinkedHashMap<String, ASTNode>(assignmentRules);
+    for (InitialAssignment initialAssignment : model.getListOfInitialAssignments()) {
+      if (initialAssignment.isSetMath()) {
+        initialMath.put(initialAssignment.getVariable(), initialAssignment.getMath());
+      }
+    }
+    for (Species species : model.getListOfSpecies()) {
+      // the value of the species depends on the assigned size of its compartment
+      if (!initialMath.containsKey(species.getId())
+          && initialMath.containsKey(species.getCompartment())) {
+        ASTNode math = initialMath(species);
+        if (math != null) {
+          initialMath.put(species.getId(), math);
+        }
+      }
+    }
+    order = sort(initialMath);
+    initialAssignments = new CompiledMath[order.size()];
+    initialAssignmentSlots = new int[order.size()];
+    for (int i = 0; i < initialAssignments.length; i++) {
+      initialAssignmentSlots[i] = slot(order.get(i));
+      initialAssignments[i] = compiler.compile(initialMath.get(order.get(i)));
+    }
+  }
+
+  /**
+   * Collects the identifiers referenced in the given math.
+   * 
+   * @param math
+   * @param names
+   */
+  private static void collectNames(ASTNode math, Set<String> names) {
+    if ((math.getType() == ASTNode.Type.NAME) || (math.getType() == ASTNode.Type.FUNCTION)) {
+      names.add(math.getName());
+    }
+    for (int i = 0; i < math.getChildCount(); i++) {
+      collectNames(math.getChild(i), names);
+    }
+  }
+
+  /**
+   * Compiles the signed stoichiometry of a species reference.
+   * 
+   * @param compiler
+   * @param specRef
+   * @param sign
+   *        -1 for reactants, 1 for products
+   * @return
+   * @throws SBMLException
+   */
+  @SuppressWarnings("deprecation")
+  private CompiledMath compileStoichiometry(NumericCompiler compiler,
+    SpeciesReference specRef, int sign) throws SBMLException {
+    ASTNode math;
+    if (specRef.isSetStoichiometryMath() && specRef.getStoichiometryMath().isSetMath()) {
+      math = specRef.getStoichiometryMath().getMath().clone();
+    } else if (specRef.isSetId() && !specRef.isConstant()) {
+      math = new ASTNode(specRef.getId());
+    } else {
+      math = new ASTNode(specRef.getStoichiometry());
+    }
+    if (sign < 0) {
+      math = ASTNode.uMinus(math);
+    }
+    return compiler.compile(math);
+  }
+
+  /**
+   * Computes the values of all variables that are defined by assignment rules
+   * and stores them in the given state.
+   * 
+   * @param state
+   *        the values of all slots
+   * @param t
+   *        the current simulation time
+   */
+  public void computeAssignments(double[] state, double t) {
+    for (int i = 0; i < assignments.length; i++) {
+      state[assignmentSlots[i]] = assignments[i].eval(state, t);
+    }
+  }
+
+  /**
+   * Computes the derivatives of all slots with respect to time. The variables
+   * that are defined by assignment rules are updated in the given state
+   * first.
+   * 
+   * @param state
+   *        the values of all slots
+   * @param t
+   *        the current simulation time
+   * @param derivatives
+   *        an array of the same length as the state, in which the
+   *        derivatives are stored. Slots that are not changed by reactions or
+   *        rate rules receive the value 0.
+   */
+  public void computeDerivatives(double[] state, double t, double[] derivatives) {
+    computeAssignments(state, t);
+    Arrays.fill(derivatives, 0d);
+    for (int i = 0; i < rateRules.length; i++) {
+      derivatives[rateRuleSlots[i]] = rateRules[i].eval(state, t);
+    }
+    for (int r = 0; r < rates.length; r++) {
+      double rate = rates[r].eval(state, t);
+      for (int i = reactionTermOffsets[r]; i < reactionTermOffsets[r + 1]; i++) {
+        double change = termStoichiometries[i].eval(state, t) * rate;
+        if (termConversionFactorSlots[i] >= 0) {
+          change *= state[termConversionFactorSlots[i]];
+        }
+        if (termCompartmentSlots[i] >= 0) {
+          change /= state[termCompartmentSlots[i]];
+        }
+        derivatives[termSlots[i]] += change;
+      }
+    }
+    for (int i = 0; i < dilutionSpeciesSlots.length; i++) {
+      int compartment = dilutionCompartmentSlots[i];
+      derivatives[dilutionSpeciesSlots[i]] -= state[dilutionSpeciesSlots[i]]
+          * derivatives[compartment] / state[compartment];
+    }
+  }
+
+  /**
+   * Returns the slots of all variables that are changed by reactions or rate
+   * rules, in ascending order.
+   * 
+   * @return a copy of the slots of all variables that are changed by
+   *         reactions or rate rules.
+   */
+  public int[] getDifferentialSlots() {
+    return differentialSlots.clone();
+  }
+
+  /**
+   * Creates the state at the beginning of a simulation, i.e., the initial
+   * values of all elements with the initial assignments and assignment rules
+   * applied. The initial amounts and concentrations of species are converted
+   * with the size of their compartments after the initial assignments to
+   * these compartments.
+   * 
+   * @return a new array with the initial values of all slots
+   */
+  public double[] getInitialState() {
+    double[] state = initialValues.clone();
+    for (int i = 0; i < initialAssignments.length; i++) {
+      state[initialAssignmentSlots[i]] = initialAssignments[i].eval(state, 0d);
+    }
+    return state;
+  }
+
+  /**
+   * Returns the slots of all variables.
+   * 
+   * @return a mapping from the identifiers of all variables to their
+   *         positions in the state.
+   */
+  public Map<String, Integer> getSlots() {
+    return Collections.unmodifiableMap(slots);
+  }
+
+  /**
+   * Returns the length of the state.
+   * 
+   * @return the number of slots.
+   */
+  public int getStateSize() {
+    return slots.size();
+  }
+
+  /**
+   * Computes the initial value of the given species in the units of its
+   * symbol, i.e., its concentration unless it has only substance units.
+   * 
+   * @param species
+   * @return
+   */
+  private double initialValue(Species species) {
+    Compartment compartment = species.getCompartmentInstance();
+    double size = (compartment != null) && compartment.isSetSize() ? compartment.getSize() : 1d;
+    if (species.isSetInitialAmount()) {
+      double amount = species.getInitialAmount();
+      return species.getHasOnlySubstanceUnits() ? amount : amount / size;
+    } else if (species.isSetInitialConcentration()) {
+      double concentration = species.getInitialConcentration();
+      return species.getHasOnlySubstanceUnits() ? concentration * size : concentration;
+    }
+    return Double.NaN;
+  }
+
+  /**
+   * Creates the math that computes the initial value of the given species in
+   * the units of its symbol from the size of its compartment.
+   *
+   * @param species
+   * @return {@code null} if the species does not need to be converted.
+   */
+  private static ASTNode initialMath(Species species) {
+    ASTNode size = new ASTNode(species.getCompartment());
+    if (species.isSetInitialAmount() && !species.getHasOnlySubstanceUnits()) {
+      return ASTNode.frac(new ASTNode(species.getInitialAmount()), size);
+    } else if (species.isSetInitialConcentration() && species.getHasOnlySubstanceUnits()) {
+      return ASTNode.times(new ASTNode(species.getInitialConcentration()), size);
+    }
+    return null;
+  }
+
+  /**
+   * Sets the initial value of a species reference with an identifier.
+   * 
+   * @param specRef
+   */
+  private void initStoichiometry(SpeciesReference specRef) {
+    if (specRef.isSetId()) {
+      initialValues[slot(specRef.getId())] = specRef.getStoichiometry();
+    }
+  }
+
+  /**
+   * 
+   * @param id
+   * @return the slot of the given identifier
+   * @throws IllegalArgumentException if there is no such slot
+   */
+  private int slot(String id) {
+    Integer slot = slots.get(id);
+    if (slot == null) {
+      throw new IllegalArgumentException(MessageFormat.format(
+        "There is no slot for identifier {0}.", id));
+    }
+    return slot.intValue();
+  }
+
+  /**
+   * Sorts the variables of the given assignments such that every variable
+   * comes after all variables that its math depends on.
+   * 
+   * @param assignments
+   *        maps variables to their math
+   * @return the variables in topological order
+   * @throws SBMLException
+   *         if the assignments contain a cycle.
+   */
+  private static List<String> sort(Map<String, ASTNode> assignments) throws SBMLException {
+    Map<String, Set<String>> dependencies = new HashMap<String, Set<String>>();
+    for (Map.Entry<String, ASTNode> entry : assignments.entrySet()) {
+      Set<String> names = new HashSet<String>();
+      collectNames(entry.getValue(), names);
+      names.retainAll(assignments.keySet());
+      dependencies.put(entry.getKey(), names);
+    }
+    List<String> order = new ArrayList<String>(assignments.size());
+    Set<String> done = new HashSet<String>();
+    while (order.size() < assignments.size()) {
+      boolean progress = false;
+      for (String variable : assignments.keySet()) {
+        if (!done.contains(variable) && done.containsAll(dependencies.get(variable))) {
+          order.add(variable);
+          done.add(variable);
+          progress = true;
+        }
+      }
+      if (!progress) {
+        Set<String> cycle = new HashSet<String>(assignments.keySet());
+        cycle.removeAll(done);
+        throw new SBMLException(MessageFormat.format(
+          "The assignments to {0} depend on each other.", cycle));
+      }
+    }
+    return order;
+  }
+
+  /**
+   * 
+   * @param values
+   * @return
+   */
+  private static int[] toIntArray(Collection<Integer> values) {
+    int[] array = new int[values.size()];
+    int i = 0;
+    for (Integer value : values) {
+      array[i++] = value.intValue();
+    }
+    return array;
+  }
+
+}
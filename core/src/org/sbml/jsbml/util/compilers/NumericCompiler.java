@@ -0,0 +1,1296 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.util.compilers;
+
+import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.CallableSBase;
+import org.sbml.jsbml.Compartment;
+import org.sbml.jsbml.FunctionDefinition;
+import org.sbml.jsbml.KineticLaw;
+import org.sbml.jsbml.LocalParameter;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.NamedSBaseWithDerivedUnit;
+import org.sbml.jsbml.Parameter;
+import org.sbml.jsbml.Reaction;
+import org.sbml.jsbml.SBMLException;
+import org.sbml.jsbml.Species;
+import org.sbml.jsbml.SpeciesReference;
+import org.sbml.jsbml.util.Maths;
+
+/**
+ * Compiles {@link ASTNode}s into {@link CompiledMath} objects for the fast
+ * numerical evaluation of the same expression for many different states, for
+ * instance, when integrating a model or during parameter scans.
+ * 
+ * <p>In contrast to an {@link ASTNodeCompiler}, which walks through the syntax
+ * tree and creates an {@link ASTNodeValue} for every node during each
+ * evaluation, this compiler analyzes the syntax tree only once. It resolves all
+ * identifiers, inlines the calls of {@link FunctionDefinition}s and the
+ * kinetic laws of referenced {@link Reaction}s, folds constant sub-expressions
+ * and creates a tree of small, specialized evaluation objects. Evaluating this
+ * tree does not allocate any objects.
+ * 
+ * <p>Each variable of the {@link Model} is assigned to a slot, i.e., a position
+ * in the state array that is passed to {@link CompiledMath#eval(double[], double)}.
+ * Identifiers are resolved in the following order: arguments of the
+ * enclosing {@link FunctionDefinition}, {@link LocalParameter}s (whose values
+ * are considered constant), slots, and {@link Reaction}s. The {@code delay}
+ * function is delegated to a {@link DelayCallback}.
+ * 
+ * <p>Instances of this class are not thread-safe, but the
+ * {@link CompiledMath} objects they create are.
+ * 
+ * @since 1.6
+ */
+public class NumericCompiler {
+
+  /**
+   * A node with one argument.
+   */
+  private static abstract class Unary implements CompiledMath {
+
+    /**
+     * 
+     */
+    protected final CompiledMath arg;
+
+    /**
+     * 
+     * @param arg
+     */
+    public Unary(CompiledMath arg) {
+      this.arg = arg;
+    }
+
+  }
+
+  /**
+   * A node with two arguments.
+   */
+  private static abstract class Binary implements CompiledMath {
+
+    /**
+     * 
+     */
+    protected final CompiledMath left, right;
+
+    /**
+     * 
+     * @param left
+     * @param right
+     */
+    public Binary(CompiledMath left, CompiledMath right) {
+      this.left = left;
+      this.right = right;
+    }
+
+  }
+
+  /**
+   * A node with an arbitrary number of arguments.
+   */
+  private static abstract class Nary implements CompiledMath {
+
+    /**
+     * 
+     */
+    protected final CompiledMath[] args;
+
+    /**
+     * 
+     * @param args
+     */
+    public Nary(CompiledMath[] args) {
+      this.args = args;
+    }
+
+  }
+
+  /**
+   * A constant value.
+   */
+  private static final class Constant implements CompiledMath {
+
+    /**
+     * 
+     */
+    private final double value;
+
+    /**
+     * 
+     * @param value
+     */
+    public Constant(double value) {
+      this.value = value;
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.util.compilers.CompiledMath#eval(double[], double)
+     */
+    @Override
+    public double eval(double[] state, double t) {
+      return value;
+    }
+
+  }
+
+  /**
+   * The value of a variable in the state array.
+   */
+  private static final class Slot implements CompiledMath {
+
+    /**
+     * 
+     */
+    private final int index;
+
+    /**
+     * 
+     * @param index
+     */
+    public Slot(int index) {
+      this.index = index;
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.util.compilers.CompiledMath#eval(double[], double)
+     */
+    @Override
+    public double eval(double[] state, double t) {
+      return state[index];
+    }
+
+  }
+
+  /**
+   * The simulation time.
+   */
+  private static final CompiledMath TIME = new CompiledMath() {
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.util.compilers.CompiledMath#eval(double[], double)
+     */
+    @Override
+    public double eval(double[] state, double t) {
+      return t;
+    }
+  };
+
+  /**
+   * Assigns a slot to every compartment, species, parameter and species
+   * reference with an identifier in the given {@link Model}, in this order.
+   * 
+   * @param model
+   *        the model
+   * @return a mapping from the identifiers of all variables of the given
+   *         model to consecutive positions in a state array.
+   */
+  public static Map<String, Integer> createSlots(Model model) {
+    Map<String, Integer> slots = new LinkedHashMap<String, Integer>();
+    for (Compartment compartment : model.getListOfCompartments()) {
+      slots.put(compartment.getId(), slots.size());
+    }
+    for (Species species : model.getListOfSpecies()) {
+      slots.put(species.getId(), slots.size());
+    }
+    for (Parameter parameter : model.getListOfParameters()) {
+      slots.put(parameter.getId(), slots.size());
+    }
+    for (Reaction reaction : model.getListOfReactions()) {
+      addSlots(slots, reaction.getListOfReactants());
+      addSlots(slots, reaction.getListOfProducts());
+    }
+    return slots;
+  }
+
+  /**
+   * Assigns a slot to every species reference with an identifier.
+   * 
+   * @param slots
+   * @param listOfSpeciesReferences
+   */
+  private static void addSlots(Map<String, Integer> slots,
+    List<SpeciesReference> listOfSpeciesReferences) {
+    for (SpeciesReference specRef : listOfSpeciesReferences) {
+      if (specRef.isSetId() && !slots.containsKey(specRef.getId())) {
+        slots.put(specRef.getId(), slots.size());
+      }
+    }
+  }
+
+  /**
+   * 
+   */
+  private DelayCallback delayCallback;
+
+  /**
+   * The identifiers of the {@link FunctionDefinition}s and {@link Reaction}s
+   * that are currently being inlined, to detect cycles.
+   */
+  private final Set<String> inlining;
+
+  /**
+   * 
+   */
+  private final Model model;
+
+  /**
+   * 
+   */
+  private final Map<String, Integer> slots;
+
+  /**
+   * Creates a compiler for the given {@link Model}, whose slots are assigned
+   * by {@link #createSlots(Model)}.
+   * 
+   * @param model
+   *        the model, in which identifiers are resolved.
+   */
+  public NumericCompiler(Model model) {
+    this(model, createSlots(model));
+  }
+
+  /**
+   * Creates a compiler for the given {@link Model} and slots.
+   * 
+   * @param model
+   *        the model, in which identifiers are resolved, can be {@code null}
+   *        if the expressions to be compiled only refer to the given slots.
+   * @param slots
+   *        maps the identifiers of all variables to their positions in the
+   *        state array.
+   */
+  public NumericCompiler(Model model, Map<String, Integer> slots) {
+    this.model = model;
+    this.slots = new HashMap<String, Integer>(slots);
+    inlining = new HashSet<String>();
+  }
+
+  /**
+   * Compiles the given expression.
+   * 
+   * @param math
+   *        the expression to be compiled.
+   * @return an object that evaluates the given expression.
+   * @throws SBMLException
+   *         if the expression contains an identifier that cannot be
+   *         resolved or an unsupported operation.
+   */
+  public CompiledMath compile(ASTNode math) throws SBMLException {
+    inlining.clear();
+    return compile(math, Collections.<String, CompiledMath> emptyMap());
+  }
+
+  /**
+   * Compiles the given node.
+   * 
+   * @param node
+   * @param arguments
+   *        the values of the arguments of the {@link FunctionDefinition},
+   *        whose body is being compiled.
+   * @return
+   * @throws SBMLException
+   */
+  private CompiledMath compile(ASTNode node, Map<String, CompiledMath> arguments) throws SBMLException {
+    int childCount = node.getChildCount();
+    switch (node.getType()) {
+    case INTEGER:
+      return new Constant(node.getInteger());
+    case REAL:
+    case REAL_E:
+    case RATIONAL:
+    case CONSTANT_E:
+    case CONSTANT_PI:
+      return new Constant(node.getReal());
+    case CONSTANT_TRUE:
+      return new Constant(1d);
+    case CONSTANT_FALSE:
+      return new Constant(0d);
+    case NAME_AVOGADRO:
+      return new Constant((model != null) ? Maths.getAvogadro(model.getLevel(),
+        model.getVersion()) : Maths.AVOGADRO_L3V1);
+    case NAME_TIME:
+      return TIME;
+    case NAME:
+      return compileName(node, arguments);
+    case FUNCTION:
+      return compileFunction(node, arguments);
+    case FUNCTION_DELAY:
+      return compileDelay(node, arguments);
+    case PLUS:
+      return compilePlus(compileChildren(node, arguments));
+    case TIMES:
+      return compileTimes(compileChildren(node, arguments));
+    case MINUS:
+      return compileMinus(compileChildren(node, arguments));
+    case DIVIDE:
+      return compileBinary(node, arguments, node.getLeftChild(), node.getRightChild());
+    case POWER:
+    case FUNCTION_POWER:
+      return compileBinary(node, arguments, node.getLeftChild(), node.getRightChild());
+    case FUNCTION_LOG:
+      if (childCount == 2) {
+        return compileBinary(node, arguments, node.getLeftChild(), node.getRightChild());
+      }
+      return compileUnary(node, compile(node.getRightChild(), arguments));
+    case FUNCTION_LN:
+      if (childCount == 2) {
+        // log(base, x) is sometimes read as ln(base, x)
+        return compileLog(compile(node.getLeftChild(), arguments),
+          compile(node.getRightChild(), arguments));
+      }
+      return compileUnary(node, compile(node.getLeftChild(), arguments));
+    case FUNCTION_ROOT:
+      if (childCount == 2) {
+        return compileBinary(node, arguments, node.getLeftChild(), node.getRightChild());
+      }
+      return compileUnary(node, compile(node.getRightChild(), arguments));
+    case FUNCTION_ABS:
+      return compileUnary(node, compile(node.getRightChild(), arguments));
+    case FUNCTION_ARCCOS:
+    case FUNCTION_ARCCOSH:
+    case FUNCTION_ARCCOT:
+    case FUNCTION_ARCCOTH:
+    case FUNCTION_ARCCSC:
+    case FUNCTION_ARCCSCH:
+    case FUNCTION_ARCSEC:
+    case FUNCTION_ARCSECH:
+    case FUNCTION_ARCSIN:
+    case FUNCTION_ARCSINH:
+    case FUNCTION_ARCTAN:
+    case FUNCTION_ARCTANH:
+    case FUNCTION_CEILING:
+    case FUNCTION_COS:
+    case FUNCTION_COSH:
+    case FUNCTION_COT:
+    case FUNCTION_COTH:
+    case FUNCTION_CSC:
+    case FUNCTION_CSCH:
+    case FUNCTION_EXP:
+    case FUNCTION_FACTORIAL:
+    case FUNCTION_FLOOR:
+    case FUNCTION_SEC:
+    case FUNCTION_SECH:
+    case FUNCTION_SIN:
+    case FUNCTION_SINH:
+    case FUNCTION_TAN:
+    case FUNCTION_TANH:
+    case LOGICAL_NOT:
+      return compileUnary(node, compile(node.getLeftChild(), arguments));
+    case FUNCTION_QUOTIENT:
+    case FUNCTION_REM:
+      return compileBinary(node, arguments, node.getLeftChild(), node.getRightChild());
+    case FUNCTION_MAX:
+    case FUNCTION_MIN:
+    case LOGICAL_AND:
+    case LOGICAL_OR:
+    case LOGICAL_XOR:
+    case LOGICAL_IMPLIES:
+      return compileNary(node, compileChildren(node, arguments));
+    case RELATIONAL_EQ:
+    case RELATIONAL_NEQ:
+    case RELATIONAL_GEQ:
+    case RELATIONAL_GT:
+    case RELATIONAL_LEQ:
+    case RELATIONAL_LT:
+      return compileRelational(node, compileChildren(node, arguments));
+    case FUNCTION_PIECEWISE:
+      return compilePiecewise(compileChildren(node, arguments));
+    default:
+      throw new SBMLException(MessageFormat.format(
+        "Cannot numerically evaluate syntax tree nodes of type {0}.", node.getType()));
+    }
+  }
+
+  /**
+   * Compiles a node with two children.
+   * 
+   * @param node
+   * @param arguments
+   * @param leftChild
+   * @param rightChild
+   * @return
+   * @throws SBMLException
+   */
+  private CompiledMath compileBinary(ASTNode node, Map<String, CompiledMath> arguments,
+    ASTNode leftChild, ASTNode rightChild) throws SBMLException {
+    CompiledMath left = compile(leftChild, arguments);
+    CompiledMath right = compile(rightChild, arguments);
+    CompiledMath result;
+    switch (node.getType()) {
+    case DIVIDE:
+      result = new Binary(left, right) {
+        @Override
+        public double eval(double[] state, double t) {
+          return left.eval(state, t) / right.eval(state, t);
+        }
+      };
+      break;
+    case POWER:
+    case FUNCTION_POWER:
+      result = new Binary(left, right) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Math.pow(left.eval(state, t), right.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_LOG:
+      return compileLog(left, right);
+    case FUNCTION_ROOT:
+      result = new Binary(left, right) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Maths.root(right.eval(state, t), left.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_QUOTIENT:
+      result = new Binary(left, right) {
+        @Override
+        public double eval(double[] state, double t) {
+          double quotient = left.eval(state, t) / right.eval(state, t);
+          return (quotient < 0d) ? Math.ceil(quotient) : Math.floor(quotient);
+        }
+      };
+      break;
+    case FUNCTION_REM:
+      result = new Binary(left, right) {
+        @Override
+        public double eval(double[] state, double t) {
+          return left.eval(state, t) % right.eval(state, t);
+        }
+      };
+      break;
+    default:
+      throw new SBMLException(MessageFormat.format(
+        "Cannot numerically evaluate syntax tree nodes of type {0}.", node.getType()));
+    }
+    return fold(result, left, right);
+  }
+
+  /**
+   * Compiles all children of the given node.
+   * 
+   * @param node
+   * @param arguments
+   * @return
+   * @throws SBMLException
+   */
+  private CompiledMath[] compileChildren(ASTNode node, Map<String, CompiledMath> arguments) throws SBMLException {
+    CompiledMath[] children = new CompiledMath[node.getChildCount()];
+    for (int i = 0; i < children.length; i++) {
+      children[i] = compile(node.getChild(i), arguments);
+    }
+    return children;
+  }
+
+  /**
+   * Compiles a call of the {@code delay} function.
+   * 
+   * @param node
+   * @param arguments
+   * @return
+   * @throws SBMLException
+   */
+  private CompiledMath compileDelay(ASTNode node, Map<String, CompiledMath> arguments) throws SBMLException {
+    if (delayCallback == null) {
+      throw new SBMLException("Cannot evaluate the delay function without a DelayCallback.");
+    }
+    final ASTNode expression = node.getLeftChild();
+    final DelayCallback callback = delayCallback;
+    return new Binary(compile(expression, arguments), compile(node.getRightChild(), arguments)) {
+      @Override
+      public double eval(double[] state, double t) {
+        return callback.delay(expression, left, right.eval(state, t), state, t);
+      }
+    };
+  }
+
+  /**
+   * Inlines the call of a {@link FunctionDefinition}.
+   * 
+   * @param node
+   * @param arguments
+   * @return
+   * @throws SBMLException
+   */
+  private CompiledMath compileFunction(ASTNode node, Map<String, CompiledMath> arguments) throws SBMLException {
+    String name = node.getName();
+    FunctionDefinition function = null;
+    CallableSBase variable = node.getVariable();
+    if (variable instanceof FunctionDefinition) {
+      function = (FunctionDefinition) variable;
+    } else if (model != null) {
+      function = model.getFunctionDefinition(name);
+    }
+    if ((function == null) || !function.isSetMath()) {
+      throw new SBMLException(MessageFormat.format(
+        "Cannot find the definition of function {0}.", name));
+    }
+    ASTNode lambda = function.getMath();
+    int argumentCount = function.getArgumentCount();
+    if (argumentCount != node.getChildCount()) {
+      throw new SBMLException(MessageFormat.format(
+        "Function {0} requires {1,number,integer} arguments, but {2,number,integer} are given.",
+        name, argumentCount, node.getChildCount()));
+    }
+    // the arguments may call the same function, e.g., f(f(x))
+    Map<String, CompiledMath> values = new HashMap<String, CompiledMath>();
+    for (int i = 0; i < argumentCount; i++) {
+      values.put(lambda.getChild(i).getName(), compile(node.getChild(i), arguments));
+    }
+    if (!inlining.add(name)) {
+      throw new SBMLException(MessageFormat.format(
+        "Function {0} calls itself.", name));
+    }
+    try {
+      return compile(function.getBody(), values);
+    } finally {
+      inlining.remove(name);
+    }
+  }
+
+  /**
+   * Compiles the logarithm of the given value to the given base.
+   * 
+   * @param base
+   * @param value
+   * @return
+   */
+  private CompiledMath compileLog(CompiledMath base, CompiledMath value) {
+    return fold(new Binary(base, value) {
+      @Override
+      public double eval(double[] state, double t) {
+        return Maths.log(right.eval(state, t), left.eval(state, t));
+      }
+    }, base, value);
+  }
+
+  /**
+   * Compiles a subtraction or the negation of a single value.
+   * 
+   * @param children
+   * @return
+   */
+  private CompiledMath compileMinus(CompiledMath[] children) {
+    if (children.length == 0) {
+      return new Constant(0d);
+    } else if (children.length == 1) {
+      return fold(new Unary(children[0]) {
+        @Override
+        public double eval(double[] state, double t) {
+          return -arg.eval(state, t);
+        }
+      }, children);
+    } else if (children.length == 2) {
+      return fold(new Binary(children[0], children[1]) {
+        @Override
+        public double eval(double[] state, double t) {
+          return left.eval(state, t) - right.eval(state, t);
+        }
+      }, children);
+    }
+    return fold(new Nary(children) {
+      @Override
+      public double eval(double[] state, double t) {
+        double value = args[0].eval(state, t);
+        for (int i = 1; i < args.length; i++) {
+          value -= args[i].eval(state, t);
+        }
+        return value;
+      }
+    }, children);
+  }
+
+  /**
+   * Resolves an identifier.
+   * 
+   * @param node
+   * @param arguments
+   * @return
+   * @throws SBMLException
+   */
+  private CompiledMath compileName(ASTNode node, Map<String, CompiledMath> arguments) throws SBMLException {
+    String name = node.getName();
+    CompiledMath argument = arguments.get(name);
+    if (argument != null) {
+      return argument;
+    }
+    NamedSBaseWithDerivedUnit variable = node.getVariable();
+    if ((variable == null) && (model != null)) {
+      variable = model.findNamedSBaseWithDerivedUnit(name);
+    }
+    if (variable instanceof LocalParameter) {
+      return new Constant(((LocalParameter) variable).getValue());
+    }
+    Integer slot = slots.get(name);
+    if (slot != null) {
+      return new Slot(slot.intValue());
+    }
+    if (variable instanceof Reaction) {
+      KineticLaw kineticLaw = ((Reaction) variable).getKineticLaw();
+      if ((kineticLaw != null) && kineticLaw.isSetMath()) {
+        if (!inlining.add(name)) {
+          throw new SBMLException(MessageFormat.format(
+            "The kinetic law of reaction {0} refers to itself.", name));
+        }
+        try {
+          return compile(kineticLaw.getMath(), Collections.<String, CompiledMath> emptyMap());
+        } finally {
+          inlining.remove(name);
+        }
+      }
+    }
+    throw new SBMLException(MessageFormat.format(
+      "There is no slot for identifier {0}.", name));
+  }
+
+  /**
+   * Compiles an operation on an arbitrary number of arguments.
+   * 
+   * @param node
+   * @param children
+   * @return
+   * @throws SBMLException
+   */
+  private CompiledMath compileNary(ASTNode node, CompiledMath[] children) throws SBMLException {
+    CompiledMath result;
+    switch (node.getType()) {
+    case FUNCTION_MAX:
+      result = new Nary(children) {
+        @Override
+        public double eval(double[] state, double t) {
+          double value = Double.NEGATIVE_INFINITY;
+          for (CompiledMath arg : args) {
+            value = Math.max(value, arg.eval(state, t));
+          }
+          return value;
+        }
+      };
+      break;
+    case FUNCTION_MIN:
+      result = new Nary(children) {
+        @Override
+        public double eval(double[] state, double t) {
+          double value = Double.POSITIVE_INFINITY;
+          for (CompiledMath arg : args) {
+            value = Math.min(value, arg.eval(state, t));
+          }
+          return value;
+        }
+      };
+      break;
+    case LOGICAL_AND:
+      result = new Nary(children) {
+        @Override
+        public double eval(double[] state, double t) {
+          for (CompiledMath arg : args) {
+            if (arg.eval(state, t) == 0d) {
+              return 0d;
+            }
+          }
+          return 1d;
+        }
+      };
+      break;
+    case LOGICAL_OR:
+      result = new Nary(children) {
+        @Override
+        public double eval(double[] state, double t) {
+          for (CompiledMath arg : args) {
+            if (arg.eval(state, t) != 0d) {
+              return 1d;
+            }
+          }
+          return 0d;
+        }
+      };
+      break;
+    case LOGICAL_XOR:
+      result = new Nary(children) {
+        @Override
+        public double eval(double[] state, double t) {
+          boolean value = false;
+          for (CompiledMath arg : args) {
+            value ^= arg.eval(state, t) != 0d;
+          }
+          return value ? 1d : 0d;
+        }
+      };
+      break;
+    case LOGICAL_IMPLIES:
+      if (children.length != 2) {
+        throw new SBMLException("The implies function requires exactly two arguments.");
+      }
+      result = new Nary(children) {
+        @Override
+        public double eval(double[] state, double t) {
+          return ((args[0].eval(state, t) == 0d) || (args[1].eval(state, t) != 0d)) ? 1d : 0d;
+        }
+      };
+      break;
+    default:
+      throw new SBMLException(MessageFormat.format(
+        "Cannot numerically evaluate syntax tree nodes of type {0}.", node.getType()));
+    }
+    return fold(result, children);
+  }
+
+  /**
+   * Compiles a piecewise function, whose children are pairs of values and
+   * conditions, optionally followed by the otherwise value.
+   * 
+   * @param children
+   * @return
+   */
+  private CompiledMath compilePiecewise(CompiledMath[] children) {
+    return fold(new Nary(children) {
+      @Override
+      public double eval(double[] state, double t) {
+        int i = 0;
+        for (; i < args.length - 1; i += 2) {
+          if (args[i + 1].eval(state, t) != 0d) {
+            return args[i].eval(state, t);
+          }
+        }
+        return (i < args.length) ? args[i].eval(state, t) : Double.NaN;
+      }
+    }, children);
+  }
+
+  /**
+   * Compiles a sum.
+   * 
+   * @param children
+   * @return
+   */
+  private CompiledMath compilePlus(CompiledMath[] children) {
+    if (children.length == 0) {
+      return new Constant(0d);
+    } else if (children.length == 1) {
+      return children[0];
+    } else if (children.length == 2) {
+      return fold(new Binary(children[0], children[1]) {
+        @Override
+        public double eval(double[] state, double t) {
+          return left.eval(state, t) + right.eval(state, t);
+        }
+      }, children);
+    }
+    return fold(new Nary(children) {
+      @Override
+      public double eval(double[] state, double t) {
+        double value = 0d;
+        for (CompiledMath arg : args) {
+          value += arg.eval(state, t);
+        }
+        return value;
+      }
+    }, children);
+  }
+
+  /**
+   * Compiles a relational operator, which is {@code true} if the relation
+   * holds for all pairs of consecutive arguments.
+   * 
+   * @param node
+   * @param children
+   * @return
+   * @throws SBMLException
+   */
+  private CompiledMath compileRelational(ASTNode node, CompiledMath[] children) throws SBMLException {
+    if (children.length < 2) {
+      throw new SBMLException(MessageFormat.format(
+        "The relational operator {0} requires at least two arguments.", node.getType()));
+    }
+    CompiledMath result;
+    switch (node.getType()) {
+    case RELATIONAL_EQ:
+      result = new Nary(children) {
+        @Override
+        public double eval(double[] state, double t) {
+          double previous = args[0].eval(state, t);
+          for (int i = 1; i < args.length; i++) {
+            double value = args[i].eval(state, t);
+            if (!(previous == value)) {
+              return 0d;
+            }
+            previous = value;
+          }
+          return 1d;
+        }
+      };
+      break;
+    case RELATIONAL_NEQ:
+      result = new Nary(children) {
+        @Override
+        public double eval(double[] state, double t) {
+          double previous = args[0].eval(state, t);
+          for (int i = 1; i < args.length; i++) {
+            double value = args[i].eval(state, t);
+            if (!(previous != value)) {
+              return 0d;
+            }
+            previous = value;
+          }
+          return 1d;
+        }
+      };
+      break;
+    case RELATIONAL_GEQ:
+      result = new Nary(children) {
+        @Override
+        public double eval(double[] state, double t) {
+          double previous = args[0].eval(state, t);
+          for (int i = 1; i < args.length; i++) {
+            double value = args[i].eval(state, t);
+            if (!(previous >= value)) {
+              return 0d;
+            }
+            previous = value;
+          }
+          return 1d;
+        }
+      };
+      break;
+    case RELATIONAL_GT:
+      result = new Nary(children) {
+        @Override
+        public double eval(double[] state, double t) {
+          double previous = args[0].eval(state, t);
+          for (int i = 1; i < args.length; i++) {
+            double value = args[i].eval(state, t);
+            if (!(previous > value)) {
+              return 0d;
+            }
+            previous = value;
+          }
+          return 1d;
+        }
+      };
+      break;
+    case RELATIONAL_LEQ:
+      result = new Nary(children) {
+        @Override
+        public double eval(double[] state, double t) {
+          double previous = args[0].eval(state, t);
+          for (int i = 1; i < args.length; i++) {
+            double value = args[i].eval(state, t);
+            if (!(previous <= value)) {
+              return 0d;
+            }
+            previous = value;
+          }
+          return 1d;
+        }
+      };
+      break;
+    case RELATIONAL_LT:
+      result = new Nary(children) {
+        @Override
+        public double eval(double[] state, double t) {
+          double previous = args[0].eval(state, t);
+          for (int i = 1; i < args.length; i++) {
+            double value = args[i].eval(state, t);
+            if (!(previous < value)) {
+              return 0d;
+            }
+            previous = value;
+          }
+          return 1d;
+        }
+      };
+      break;
+    default:
+      throw new SBMLException(MessageFormat.format(
+        "Cannot numerically evaluate syntax tree nodes of type {0}.", node.getType()));
+    }
+    return fold(result, children);
+  }
+
+  /**
+   * Compiles a product.
+   * 
+   * @param children
+   * @return
+   */
+  private CompiledMath compileTimes(CompiledMath[] children) {
+    if (children.length == 0) {
+      return new Constant(1d);
+    } else if (children.length == 1) {
+      return children[0];
+    } else if (children.length == 2) {
+      return fold(new Binary(children[0], children[1]) {
+        @Override
+        public double eval(double[] state, double t) {
+          return left.eval(state, t) * right.eval(state, t);
+        }
+      }, children);
+    }
+    return fold(new Nary(children) {
+      @Override
+      public double eval(double[] state, double t) {
+        double value = 1d;
+        for (CompiledMath arg : args) {
+          value *= arg.eval(state, t);
+        }
+        return value;
+      }
+    }, children);
+  }
+
+  /**
+   * Compiles a function with a single argument.
+   * 
+   * @param node
+   * @param arg
+   * @return
+   * @throws SBMLException
+   */
+  private CompiledMath compileUnary(ASTNode node, CompiledMath arg) throws SBMLException {
+    CompiledMath result;
+    switch (node.getType()) {
+    case FUNCTION_ABS:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Math.abs(arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_ARCCOS:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Math.acos(arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_ARCCOSH:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Maths.arccosh(arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_ARCCOT:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Maths.arccot(arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_ARCCOTH:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Maths.arccoth(arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_ARCCSC:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Maths.arccsc(arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_ARCCSCH:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Maths.arccsch(arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_ARCSEC:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Maths.arcsec(arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_ARCSECH:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Maths.arcsech(arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_ARCSIN:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Math.asin(arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_ARCSINH:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Maths.arcsinh(arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_ARCTAN:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Math.atan(arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_ARCTANH:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Maths.arctanh(arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_CEILING:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Math.ceil(arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_COS:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Math.cos(arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_COSH:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Math.cosh(arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_COT:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Maths.cot(arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_COTH:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Maths.coth(arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_CSC:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Maths.csc(arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_CSCH:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Maths.csch(arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_EXP:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Math.exp(arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_FACTORIAL:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Maths.factorial((int) arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_FLOOR:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Math.floor(arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_LN:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Math.log(arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_LOG:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Math.log10(arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_ROOT:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Math.sqrt(arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_SEC:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Maths.sec(arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_SECH:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Maths.sech(arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_SIN:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Math.sin(arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_SINH:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Math.sinh(arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_TAN:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Math.tan(arg.eval(state, t));
+        }
+      };
+      break;
+    case FUNCTION_TANH:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return Math.tanh(arg.eval(state, t));
+        }
+      };
+      break;
+    case LOGICAL_NOT:
+      result = new Unary(arg) {
+        @Override
+        public double eval(double[] state, double t) {
+          return (arg.eval(state, t) == 0d) ? 1d : 0d;
+        }
+      };
+      break;
+    default:
+      throw new SBMLException(MessageFormat.format(
+        "Cannot numerically evaluate syntax tree nodes of type {0}.", node.getType()));
+    }
+    return fold(result, arg);
+  }
+
+  /**
+   * Replaces the given node by a {@link Constant} if all its arguments are
+   * constant.
+   * 
+   * @param node
+   * @param args
+   * @return
+   */
+  private static CompiledMath fold(CompiledMath node, CompiledMath... args) {
+    for (CompiledMath arg : args) {
+      if (!(arg instanceof Constant)) {
+        return node;
+      }
+    }
+    return new Constant(node.eval(null, 0d));
+  }
+
+  /**
+   * 
+   * @return the callback that evaluates the {@code delay} function, or
+   *         {@code null} if none has been set.
+   */
+  public DelayCallback getDelayCallback() {
+    return delayCallback;
+  }
+
+  /**
+   * Returns the slots of all variables.
+   * 
+   * @return an unmodifiable mapping from the identifiers of all variables to
+   *         their positions in the state array.
+   */
+  public Map<String, Integer> getSlots() {
+    return Collections.unmodifiableMap(slots);
+  }
+
+  /**
+   * Sets the callback that evaluates the {@code delay} function. It must be
+   * set before an expression that contains this function is compiled.
+   * 
+   * @param delayCallback
+   */
+  public void setDelayCallback(DelayCallback delayCallback) {
+    this.delayCallback = delayCallback;
+  }
+
+}
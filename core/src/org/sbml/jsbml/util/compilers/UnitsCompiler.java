@@ -26,6 +26,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import javax.swing.tree.TreeNode;
+
 import org.sbml.jsbml.ASTNode;
 import org.sbml.jsbml.AssignmentRule;
 import org.sbml.jsbml.CallableSBase;
@@ -41,7 +43,7 @@ import org.sbml.jsbml.Unit;
 import org.sbml.jsbml.Unit.Kind;
 import org.sbml.jsbml.UnitDefinition;
 import org.sbml.jsbml.util.Maths;
-import org.sbml.jsbml.util.filters.Filter;
+import org.sbml.jsbml.util.TreeNodeIterator;
 import org.sbml.jsbml.validator.offline.LoggingValidationContext;
 import org.sbml.jsbml.validator.offline.ValidationContext;
 import org.sbml.jsbml.validator.offline.constraints.helper.AssignmentCycleValidation;
@@ -461,38 +463,33 @@ public class UnitsCompiler implements ASTNodeCompiler {
    * @param reactionIdsSet
    */
   private void findReactionLoops(final ASTNode node, final Set<String> reactionIdsSet, final Set<String> checkedReactionIdsSet) {
-    node.filter(new Filter() {
-      
-      @Override
-      public boolean accepts(Object o) {
-        if (o instanceof ASTNode) {
-          ASTNode n = (ASTNode) o;
-          
-          if (n.getType() == ASTNode.Type.NAME) {
-            CallableSBase var = n.getVariable();
-            
-            if (var != null) {
-              
-            
-
-              if (var instanceof Reaction) {
-                reactionIdsSet.add(node.getName());            
-              } else {              
-                String sid = var.getId();
-                Model m = var.getModel();
-
-                if (m.getAssignmentRuleByVariable(sid) != null) {
-                  findReactionLoops(m.getAssignmentRuleByVariable(sid).getMath(), reactionIdsSet, checkedReactionIdsSet);
-                } else if (m.getInitialAssignmentBySymbol(sid) != null) {
-                  findReactionLoops(m.getInitialAssignmentBySymbol(sid).getMath(), reactionIdsSet, checkedReactionIdsSet);
-                }
+    TreeNodeIterator iterator = new TreeNodeIterator(node);
+    while (iterator.hasNext()) {
+      TreeNode o = iterator.next();
+      if (o instanceof ASTNode) {
+        ASTNode n = (ASTNode) o;
+
+        if (n.getType() == ASTNode.Type.NAME) {
+          CallableSBase var = n.getVariable();
+
+          if (var != null) {
+
+            if (var instanceof Reaction) {
+              reactionIdsSet.add(node.getName());
+            } else {
+              String sid = var.getId();
+              Model m = var.getModel();
+
+              if (m.getAssignmentRuleByVariable(sid) != null) {
+                findReactionLoops(m.getAssignmentRuleByVariable(sid).getMath(), reactionIdsSet, checkedReactionIdsSet);
+              } else if (m.getInitialAssignmentBySymbol(sid) != null) {
+                findReactionLoops(m.getInitialAssignmentBySymbol(sid).getMath(), reactionIdsSet, checkedReactionIdsSet);
               }
             }
           }
         }
-        return false;
       }
-    });
+    }
     
     for (String reactionId : reactionIdsSet) {
       if (!checkedReactionIdsSet.contains(reactionId)) {
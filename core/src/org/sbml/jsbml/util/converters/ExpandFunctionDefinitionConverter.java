@@ -34,7 +34,7 @@ import org.sbml.jsbml.SBMLDocument;
 import org.sbml.jsbml.SBMLException;
 import org.sbml.jsbml.SBMLReader;
 import org.sbml.jsbml.SBMLWriter;
-import org.sbml.jsbml.util.filters.Filter;
+import org.sbml.jsbml.util.TreeNodeIterator;
 
 /**
  * Expands user-defined {@link FunctionDefinition} in an SBML document.
@@ -73,19 +73,18 @@ public class ExpandFunctionDefinitionConverter implements SBMLConverter {
     try {
       resultdoc = doc.clone();
 
-      resultdoc.filter(new Filter() {
+      TreeNodeIterator iterator = new TreeNodeIterator(resultdoc);
+      while (iterator.hasNext()) {
+        TreeNode node = iterator.next();
+        if (node instanceof MathContainer) {
 
-        @Override
-        public boolean accepts(Object o) {
-          if (o instanceof MathContainer) {
-
-            // call an utility that will replace the FDs
-            expandFunctionDefinition((MathContainer) o);
-          }
-
-          return false;
+          // call an utility that will replace the FDs
+          expandFunctionDefinition((MathContainer) node);
+        } else if (node instanceof ASTNode) {
+          // there are no further math containers inside of math
+          iterator.skipChildren();
         }
-      });
+      }
     } catch (Exception e) {
       // something went wrong during cloning. It can happen with malformed FunctionDefinition math
       // just returning the original unmodified document
@@ -140,84 +139,90 @@ public class ExpandFunctionDefinitionConverter implements SBMLConverter {
     
     // Starting the actual conversion
     boolean foundFunctionDefinition = false;
-    // container for the math to be able to modify it inside the Filter if the top level AST is a functionDefinition
+    // container for the math to be able to modify it inside expandFunctionCall if the top level AST is a functionDefinition
     final List<ASTNode> container = new ArrayList<ASTNode>();
     container.add(math);
     
     do {
       
-      List<? extends TreeNode> foundFunctionDefinitions = container.get(0).filter((new Filter() {
+      foundFunctionDefinition = false;
+      TreeNodeIterator iterator = new TreeNodeIterator(container.get(0));
+
+      // stops at the first replaced function call, because the tree has changed
+      while (iterator.hasNext() && !foundFunctionDefinition) {
+        foundFunctionDefinition = expandFunctionCall(m, iterator.next(), container);
+      }
+      
+    } while (foundFunctionDefinition);
+    
+    return container.get(0);
+  }
+
+  /**
+   * Replaces the given node by the body of the {@link FunctionDefinition} it
+   * calls, if any.
+   * 
+   * @param m the model that contains the {@link FunctionDefinition}s.
+   * @param o a node of the math to expand.
+   * @param container contains the math to expand as its first element. A new
+   *        math is inserted at the beginning, if the top level node is replaced.
+   * @return {@code true} if the given node has been replaced.
+   */
+  private static boolean expandFunctionCall(Model m, Object o, List<ASTNode> container) {
+    if (o instanceof ASTNode) {
+      ASTNode current = (ASTNode) o;
+      
+      if (current.getType() == ASTNode.Type.FUNCTION) {
+        String sid = current.getName();
+        FunctionDefinition fd = m.getFunctionDefinition(sid);
         
-        @Override
-        public boolean accepts(Object o) {
-          if (o instanceof ASTNode) {
-            ASTNode current = (ASTNode) o;
+        if (fd != null) {
+          // We found a FunctionDefinition referenced in a 'ci' mathML element
+          // we need to expand it
+          
+          // TODO - test for infinite loop
+      	  // System.out.println("expandFunctionDefinition - fdNode nb child = " + current.getChildCount());
+          
+          if (current.getChildCount() != fd.getArgumentCount()) {
+            System.out.println("expandFunctionDefinition - number of arguments differ, aborting for " + sid);
+            // return the ASTNode as it is so that the validation work for this FunctionDefinition.
+            return false;
+          }
+          
+          ASTNode newMath = fd.getBody().clone(); 
+          
+          for (int i = 0; i < current.getChildCount(); i++) {
+            ASTNode bvar = fd.getArgument(i);
+            ASTNode expandedBVar = current.getChild(i);
             
-            if (current.getType() == ASTNode.Type.FUNCTION) {
-              String sid = current.getName();
-              FunctionDefinition fd = m.getFunctionDefinition(sid);
-              
-              if (fd != null) {
-                // We found a FunctionDefinition referenced in a 'ci' mathML element
-                // we need to expand it
-                
-                // TODO - test for infinite loop
-            	  // System.out.println("expandFunctionDefinition - fdNode nb child = " + current.getChildCount());
-                
-                if (current.getChildCount() != fd.getArgumentCount()) {
-                  System.out.println("expandFunctionDefinition - number of arguments differ, aborting for " + sid);
-                  // return the ASTNode as it is so that the validation work for this FunctionDefinition.
-                  return false;
-                }
-                
-                ASTNode newMath = fd.getBody().clone(); 
-                
-                for (int i = 0; i < current.getChildCount(); i++) {
-                  ASTNode bvar = fd.getArgument(i);
-                  ASTNode expandedBVar = current.getChild(i);
-                  
-                  // test if newMath is directly equals to one of the arguments
-                  if (newMath.equals(bvar)) {
-                    // in this case we return directly expandedBVar
-                    newMath = expandedBVar;
-                    break;
-                  } else {                  
-                    replaceAll(newMath, bvar, expandedBVar);
-                  }
-                }
-                
-                TreeNode parent = current.getParent();
-                
-                if (parent == null || parent instanceof MathContainer) {
-                  container.add(0, newMath);
-                } else {
-                  int index = parent.getIndex(current);
+            // test if newMath is directly equals to one of the arguments
+            if (newMath.equals(bvar)) {
+              // in this case we return directly expandedBVar
+              newMath = expandedBVar;
+              break;
+            } else {                  
+              replaceAll(newMath, bvar, expandedBVar);
+            }
+          }
+          
+          TreeNode parent = current.getParent();
+          
+          if (parent == null || parent instanceof MathContainer) {
+            container.add(0, newMath);
+          } else {
+            int index = parent.getIndex(current);
 
-                  if (index != -1) {
-                    ((ASTNode) parent).replaceChild(index, newMath);
-                  }
-                }
-                
-                return true;
-              }
+            if (index != -1) {
+              ((ASTNode) parent).replaceChild(index, newMath);
             }
           }
           
-          return false;
+          return true;
         }
-
-      }), false, true);
-      
-      if (foundFunctionDefinitions != null && foundFunctionDefinitions.size() > 0) {
-        // System.out.println("found size = " + foundFunctionDefinitions.size());
-        foundFunctionDefinition = true;
-      } else {
-        foundFunctionDefinition = false;
       }
-      
-    } while (foundFunctionDefinition);
+    }
     
-    return container.get(0);
+    return false;
   }
 
   /**
@@ -229,25 +234,22 @@ public class ExpandFunctionDefinitionConverter implements SBMLConverter {
    */
   private static void replaceAll(ASTNode newMath, final ASTNode bvar, final ASTNode expandedBVar) {
 
-    newMath.filter(new Filter() {
-      
-      @Override
-      public boolean accepts(Object o) {
-        if (o instanceof ASTNode) {
-          ASTNode current = (ASTNode) o;
-          
-          if (current.equals(bvar)) {
-            ASTNode parent = (ASTNode) current.getParent();
-            int index = parent.getIndex(current);
-            
-            if (index != -1) {
-              parent.replaceChild(index, expandedBVar);
-            }
+    TreeNodeIterator iterator = new TreeNodeIterator(newMath);
+    while (iterator.hasNext()) {
+      TreeNode node = iterator.next();
+      if (node instanceof ASTNode) {
+        ASTNode current = (ASTNode) node;
+
+        if (current.equals(bvar)) {
+          ASTNode parent = (ASTNode) current.getParent();
+          int index = parent.getIndex(current);
+
+          if (index != -1) {
+            parent.replaceChild(index, expandedBVar);
           }
         }
-        return false;
       }
-    });
+    }
     
   }
 
@@ -62,6 +62,11 @@ public class LoggingValidationContext extends ValidationContext implements Valid
    */
   private SBMLErrorLog log;
 
+  /**
+   * The number of threads used to validate a tree.
+   */
+  private int threadCount = 1;
+
 
   /**
    * Creates a new {@link LoggingValidationContext} instance.
@@ -125,6 +130,27 @@ public class LoggingValidationContext extends ValidationContext implements Valid
     return filteredLog;
   }
 
+  /**
+   * Returns the {@link SBMLErrorLog} of this context without filtering out
+   * categories.
+   * 
+   * @return the {@link SBMLErrorLog} of this context, not a copy.
+   * @see #getErrorLog()
+   */
+  SBMLErrorLog getUnfilteredErrorLog() {
+    return log;
+  }
+
+  /**
+   * Returns the number of threads used to validate a tree.
+   * 
+   * @return the number of threads used to validate a tree.
+   * @see #setThreadCount(int)
+   */
+  public int getThreadCount() {
+    return threadCount;
+  }
+
   /**
    * Logs an {@link SBMLError} into the {@link SBMLErrorLog}.
    * 
@@ -239,6 +265,29 @@ public class LoggingValidationContext extends ValidationContext implements Valid
   }
 
 
+  /**
+   * Sets the number of threads used to validate a tree.
+   * 
+   * <p>With more than one thread, the elements of the tree and the unit
+   * checks are validated concurrently on a {@link java.util.concurrent.ForkJoinPool},
+   * each part with its own scratch space instead of the one from
+   * {@link #getHashMap()}. The errors are merged into the log of this context
+   * in the order of the tree. The tree must not be modified during the
+   * validation and any additional {@link ValidationListener} of this context
+   * must be thread-safe.</p>
+   * 
+   * @param threadCount the number of threads, 1 to validate the tree in the
+   *        calling thread (default).
+   * @throws IllegalArgumentException if the number is smaller than 1.
+   */
+  public void setThreadCount(int threadCount) {
+    if (threadCount < 1) {
+      throw new IllegalArgumentException("The number of threads must be positive.");
+    }
+    this.threadCount = threadCount;
+  }
+
+
   /* (non-Javadoc)
    * @see org.sbml.jsbml.validator.offline.ValidationContext#validate(java.lang.Object, boolean)
    */
@@ -247,6 +296,10 @@ public class LoggingValidationContext extends ValidationContext implements Valid
     // go through each CategoryConstraintGroup here ? 
     // and maintain a set of category that we ignore if there was an error (not only warnings) in one of the previous category 
     
+    if ((threadCount > 1) && (o instanceof TreeNode) && getValidateRecursively()
+        && (getConstraintType() != null) && getConstraintType().isInstance(o)) {
+      return new ParallelValidation(this).validate((TreeNode) o);
+    }
     return super.validate(o, clearMap);
   }
 
@@ -259,7 +312,10 @@ public class LoggingValidationContext extends ValidationContext implements Valid
     if (o instanceof SBase) {
       SBase s = (SBase) o;
       
-      s.putUserObject(JSBML.ALLOW_INVALID_SBML, Boolean.TRUE);
+      // only read the user objects if the flag has already been set, e.g., by a parallel validation
+      if (!s.containsUserObjectKey(JSBML.ALLOW_INVALID_SBML)) {
+        s.putUserObject(JSBML.ALLOW_INVALID_SBML, Boolean.TRUE);
+      }
     }
   }
 
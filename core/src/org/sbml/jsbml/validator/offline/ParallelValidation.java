@@ -0,0 +1,568 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.validator.offline;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import javax.swing.tree.TreeNode;
+
+import org.sbml.jsbml.JSBML;
+import org.sbml.jsbml.ListOf;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.SBMLError;
+import org.sbml.jsbml.SBase;
+import org.sbml.jsbml.ext.SBasePlugin;
+import org.sbml.jsbml.validator.SBMLValidator.CHECK_CATEGORY;
+import org.sbml.jsbml.validator.offline.constraints.AnyConstraint;
+import org.sbml.jsbml.validator.offline.constraints.CoreSpecialErrorCodes;
+import org.sbml.jsbml.validator.offline.constraints.helper.ValidationTools;
+
+/**
+ * Validates a tree with several threads on behalf of a
+ * {@link LoggingValidationContext}.
+ * 
+ * <p>The tree is cut into parts: the {@link SBMLDocument}, the {@link Model}
+ * and their {@link ListOf}s are validated on their own, and the elements of
+ * these lists are validated recursively in chunks of {@link #CHUNK_SIZE}
+ * elements. The lists of compartments, rules and initial assignments are not
+ * cut, because their constraints share information between the elements of
+ * the list, e.g., to report a cycle only once. Each chunk is validated by its
+ * own {@link LoggingValidationContext}, i.e., with its own scratch space, but
+ * with the same constraints as the whole tree.</p>
+ * 
+ * <p>The errors of all chunks are merged in the order in which a validation
+ * in one thread reports them: the errors of a node that is validated on its
+ * own are split at the point where its descendants would have been
+ * validated. Duplicate meta identifiers are detected across all chunks.
+ * Other findings that involve elements from different chunks, such as
+ * assignment cycles between rules and reactions, are only kept the first
+ * time a chunk reports them for the same element.</p>
+ * 
+ * @since 1.6
+ */
+class ParallelValidation {
+
+  /**
+   * A node of the tree together with the information if its descendants have
+   * to be validated as well.
+   * 
+   * @since 1.6
+   */
+  private static class Part {
+
+    /**
+     * The constraints to validate the node with, or {@code null} if they have
+     * to be loaded for the class of the node.
+     */
+    private AnyConstraint<Object> constraints;
+
+    /**
+     * 
+     */
+    private final Object node;
+
+    /**
+     * 
+     */
+    private final boolean recursive;
+
+    /**
+     * @param node
+     * @param recursive
+     */
+    public Part(Object node, boolean recursive) {
+      this.node = node;
+      this.recursive = recursive;
+    }
+  }
+
+  /**
+   * The context that validates one chunk. It memorizes how many errors it
+   * had logged when the descendants of a node that is validated on its own
+   * would have been validated.
+   * 
+   * @since 1.6
+   */
+  private static class ChunkValidationContext extends LoggingValidationContext {
+
+    /**
+     * The number of errors that have been logged before the descendants of
+     * the node would have been validated, or -1.
+     */
+    private int descendantsPosition = -1;
+
+    /**
+     * @param level
+     * @param version
+     */
+    public ChunkValidationContext(int level, int version) {
+      super(level, version);
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.validator.offline.LoggingValidationContext#didValidate(org.sbml.jsbml.validator.offline.ValidationContext, org.sbml.jsbml.validator.offline.constraints.AnyConstraint, java.lang.Object, boolean)
+     */
+    @Override
+    public void didValidate(ValidationContext ctx, AnyConstraint<?> c, Object o, boolean success) {
+      super.didValidate(ctx, c, o, success);
+      if ((descendantsPosition < 0) && !getValidateRecursively()
+          && (c.getErrorCode() == CoreSpecialErrorCodes.ID_VALIDATE_TREE_NODE)) {
+        // in one thread, the errors of the descendants would be logged now.
+        descendantsPosition = getUnfilteredErrorLog().getErrorCount();
+      }
+    }
+  }
+
+  /**
+   * The set of meta identifiers of one chunk, which also contains all meta
+   * identifiers that first occur in one of the previous chunks. The check
+   * for unique meta identifiers in a chunk therefore finds exactly those
+   * elements that it would find when validating the whole tree in one go.
+   * 
+   * @since 1.6
+   */
+  private static class MetaIdSet extends AbstractSet<String> {
+
+    /**
+     * The index of the chunk.
+     */
+    private final int chunk;
+
+    /**
+     * Maps all meta identifiers of the tree to the index of the first chunk
+     * that contains them.
+     */
+    private final Map<String, Integer> firstChunks;
+
+    /**
+     * The meta identifiers that have been added during the validation of the
+     * chunk.
+     */
+    private final Set<String> metaIds = new HashSet<String>();
+
+    /**
+     * @param firstChunks
+     * @param chunk
+     */
+    public MetaIdSet(Map<String, Integer> firstChunks, int chunk) {
+      this.firstChunks = firstChunks;
+      this.chunk = chunk;
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.AbstractCollection#add(java.lang.Object)
+     */
+    @Override
+    public boolean add(String metaId) {
+      return !contains(metaId) && metaIds.add(metaId);
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.AbstractCollection#contains(java.lang.Object)
+     */
+    @Override
+    public boolean contains(Object metaId) {
+      if (metaIds.contains(metaId)) {
+        return true;
+      }
+      Integer first = firstChunks.get(metaId);
+      return (first != null) && (first.intValue() < chunk);
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.AbstractCollection#iterator()
+     */
+    @Override
+    public Iterator<String> iterator() {
+      return metaIds.iterator();
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.AbstractCollection#size()
+     */
+    @Override
+    public int size() {
+      return metaIds.size();
+    }
+  }
+
+  /**
+   * Validates one chunk.
+   * 
+   * @since 1.6
+   */
+  private static class ValidationTask extends RecursiveAction {
+
+    /**
+     * Generated serial version identifier.
+     */
+    private static final long serialVersionUID = -3573545262713311585L;
+
+    /**
+     * 
+     */
+    private final transient ChunkValidationContext context;
+
+    /**
+     * 
+     */
+    private final transient List<Part> parts;
+
+    /**
+     * 
+     */
+    private boolean success;
+
+    /**
+     * @param context
+     * @param parts
+     */
+    public ValidationTask(ChunkValidationContext context, List<Part> parts) {
+      this.context = context;
+      this.parts = parts;
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.concurrent.RecursiveAction#compute()
+     */
+    @Override
+    protected void compute() {
+      success = true;
+      for (Part part : parts) {
+        context.setValidateRecursively(part.recursive);
+        if (part.constraints != null) {
+          context.setRootConstraint(part.constraints, part.node.getClass());
+        } else {
+          context.loadConstraints(part.node.getClass());
+        }
+        success = context.validate(part.node, false) && success;
+      }
+      context.setValidateRecursively(true);
+    }
+  }
+
+  /**
+   * The maximal number of list elements that are validated in one task.
+   */
+  static final int CHUNK_SIZE = 64;
+
+  /**
+   * The parts of the tree, where the parts of one chunk are validated by the
+   * same task.
+   */
+  private final List<List<Part>> chunks = new ArrayList<List<Part>>();
+
+  /**
+   * For each chunk, the index of the first chunk that does not contain any
+   * descendant of the parts of the chunk.
+   */
+  private final List<Integer> subtreeEnds = new ArrayList<Integer>();
+
+  /**
+   * The context on whose behalf the validation is performed.
+   */
+  private final LoggingValidationContext context;
+
+  /**
+   * The check categories of the context.
+   */
+  private final Set<CHECK_CATEGORY> enabledCategories;
+
+  /**
+   * Maps all meta identifiers of the tree to the index of the first chunk
+   * that contains them.
+   */
+  private final Map<String, Integer> firstChunks = new HashMap<String, Integer>();
+
+  /**
+   * @param context
+   */
+  public ParallelValidation(LoggingValidationContext context) {
+    this.context = context;
+    enabledCategories = EnumSet.noneOf(CHECK_CATEGORY.class);
+    enabledCategories.addAll(Arrays.asList(context.getCheckCategories()));
+  }
+
+  /**
+   * Adds the given parts as a new chunk.
+   * 
+   * @param parts
+   */
+  private void addChunk(Part... parts) {
+    addChunk(Arrays.asList(parts));
+  }
+
+  /**
+   * Adds the given parts as a new chunk.
+   * 
+   * @param parts
+   */
+  private void addChunk(List<Part> parts) {
+    chunks.add(parts);
+    subtreeEnds.add(chunks.size());
+  }
+
+  /**
+   * Creates the context that validates one chunk.
+   * 
+   * @param chunk
+   * @return
+   */
+  private ChunkValidationContext createContext(int chunk) {
+    ChunkValidationContext chunkContext = new ChunkValidationContext(context.getLevel(),
+      context.getVersion());
+    chunkContext.enableCheckCategories(context.getCheckCategories(), true);
+    for (Map.Entry<String, Integer> entry : context.getPackageVersions().entrySet()) {
+      chunkContext.setPackageVersion(entry.getKey(), entry.getValue());
+    }
+    for (ValidationListener listener : context.getValidationListeners()) {
+      if (listener != context) {
+        chunkContext.addValidationListener(listener);
+      }
+    }
+    chunkContext.getHashMap().put(ValidationTools.KEY_META_ID_SET, new MetaIdSet(firstChunks, chunk));
+    return chunkContext;
+  }
+
+  /**
+   * Checks if the given node is validated part by part.
+   * 
+   * @param node
+   * @return
+   */
+  private static boolean isSplit(Object node) {
+    if ((node instanceof SBMLDocument) || (node instanceof Model)) {
+      return true;
+    }
+    if (node instanceof ListOf<?>) {
+      switch (((ListOf<?>) node).getSBaseListType()) {
+      case listOfCompartments:
+      case listOfInitialAssignments:
+      case listOfRules:
+        return false;
+      default:
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Marks the given node as being validated, assigns its meta identifier to
+   * the given chunk, and does the same for all its descendants if
+   * requested.
+   * 
+   * @param node
+   * @param recursive
+   * @param chunk
+   */
+  private void prepare(Object node, boolean recursive, int chunk) {
+    if (node instanceof SBase) {
+      SBase sbase = (SBase) node;
+      // done before the validation, so that it is not changed concurrently
+      if (!sbase.containsUserObjectKey(JSBML.ALLOW_INVALID_SBML)) {
+        sbase.putUserObject(JSBML.ALLOW_INVALID_SBML, Boolean.TRUE);
+      }
+      if ((sbase instanceof Model) && enabledCategories.contains(CHECK_CATEGORY.UNITS_CONSISTENCY)) {
+        // the unit caches register listeners at all elements when created
+        ((Model) sbase).initUnitCaches();
+      }
+      if (sbase.isSetMetaId() && !firstChunks.containsKey(sbase.getMetaId())) {
+        firstChunks.put(sbase.getMetaId(), chunk);
+      }
+    }
+    if (recursive && (node instanceof TreeNode)) {
+      Enumeration<?> children = ((TreeNode) node).children();
+      while (children.hasMoreElements()) {
+        Object child = children.nextElement();
+        if (child != null) {
+          prepare(child, true, chunk);
+        }
+      }
+    }
+  }
+
+  /**
+   * Cuts the given node into chunks of parts.
+   * 
+   * @param node
+   */
+  private void split(TreeNode node) {
+    if (!isSplit(node)) {
+      addChunk(new Part(node, true));
+      return;
+    }
+    int chunk = chunks.size();
+    addChunk(new Part(node, false));
+    List<Part> elements = new ArrayList<Part>();
+    Enumeration<?> children = node.children();
+    while (children.hasMoreElements()) {
+      Object child = children.nextElement();
+      if ((child instanceof TreeNode) && isSplit(child)) {
+        split((TreeNode) child);
+      } else if ((node instanceof ListOf<?>) && (child != null)) {
+        elements.add(new Part(child, true));
+        if (elements.size() == CHUNK_SIZE) {
+          addChunk(elements);
+          elements = new ArrayList<Part>();
+        }
+      } else if (child != null) {
+        addChunk(new Part(child, true));
+      }
+    }
+    if (!elements.isEmpty()) {
+      addChunk(elements);
+    }
+    if ((node instanceof SBase) && (((SBase) node).getNumPlugins() > 0)) {
+      // the children of the plugins are already part of the children of the node
+      for (SBasePlugin plugin : ((SBase) node).getExtensionPackages().values()) {
+        if (plugin != null) {
+          addChunk(new Part(plugin, false));
+        }
+      }
+    }
+    subtreeEnds.set(chunk, chunks.size());
+  }
+
+  /**
+   * Adds the errors of the given chunk and of the chunks that contain the
+   * descendants of its parts to the log of the context, in the order of a
+   * validation in one thread. An error that an earlier chunk already
+   * reported for the same element is skipped.
+   * 
+   * @param tasks
+   *        the task of each chunk
+   * @param chunk
+   *        the index of the chunk
+   * @param reported
+   *        for each element, the index of the first chunk that reported an
+   *        error with a given code
+   * @return the index of the next chunk that has not been merged.
+   */
+  private int merge(List<ValidationTask> tasks, int chunk, Map<Object, Map<Integer, Integer>> reported) {
+    List<SBMLError> errors = tasks.get(chunk).context.getUnfilteredErrorLog().getValidationErrors();
+    int position = tasks.get(chunk).context.descendantsPosition;
+    if (position < 0) {
+      position = errors.size();
+    }
+    log(errors.subList(0, position), chunk, reported);
+    int next = chunk + 1;
+    while (next < subtreeEnds.get(chunk)) {
+      next = merge(tasks, next, reported);
+    }
+    log(errors.subList(position, errors.size()), chunk, reported);
+    return next;
+  }
+
+  /**
+   * Adds the given errors of one chunk to the log of the context unless an
+   * earlier chunk already reported them.
+   * 
+   * @param errors
+   * @param chunk
+   * @param reported
+   */
+  private void log(List<SBMLError> errors, int chunk, Map<Object, Map<Integer, Integer>> reported) {
+    for (SBMLError error : errors) {
+      if (error.getSource() != null) {
+        Map<Integer, Integer> firstChunks = reported.get(error.getSource());
+        if (firstChunks == null) {
+          firstChunks = new HashMap<Integer, Integer>();
+          reported.put(error.getSource(), firstChunks);
+        }
+        Integer first = firstChunks.get(error.getCode());
+        if (first == null) {
+          firstChunks.put(error.getCode(), chunk);
+        } else if (first.intValue() != chunk) {
+          continue;
+        }
+      }
+      context.logFailure(error);
+    }
+  }
+
+  /**
+   * Validates the given tree and adds all errors to the log of the context.
+   * 
+   * @param root
+   * @return {@code true} if no constraint was broken
+   */
+  public boolean validate(TreeNode root) {
+    split(root);
+    // in one thread, the root is validated with the constraints of the context
+    chunks.get(0).get(0).constraints = context.getRootConstraint();
+    for (int i = 0; i < chunks.size(); i++) {
+      for (Part part : chunks.get(i)) {
+        prepare(part.node, part.recursive, i);
+      }
+    }
+
+    final List<ValidationTask> tasks = new ArrayList<ValidationTask>(chunks.size());
+    for (int i = 0; i < chunks.size(); i++) {
+      tasks.add(new ValidationTask(createContext(i), chunks.get(i)));
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(context.getThreadCount());
+    try {
+      pool.invoke(new RecursiveAction() {
+
+        /**
+         * Generated serial version identifier.
+         */
+        private static final long serialVersionUID = 2346441233624367155L;
+
+        /* (non-Javadoc)
+         * @see java.util.concurrent.RecursiveAction#compute()
+         */
+        @Override
+        protected void compute() {
+          invokeAll(tasks);
+        }
+      });
+    } finally {
+      pool.shutdown();
+    }
+
+    Map<Object, Map<Integer, Integer>> reported = new IdentityHashMap<Object, Map<Integer, Integer>>();
+    for (int i = 0; i < tasks.size();) {
+      i = merge(tasks, i, reported);
+    }
+    boolean success = true;
+    for (ValidationTask task : tasks) {
+      success = task.success && success;
+    }
+    return success;
+  }
+
+}
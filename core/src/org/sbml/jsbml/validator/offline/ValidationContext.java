@@ -20,6 +20,7 @@
 
 package org.sbml.jsbml.validator.offline;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -322,6 +323,27 @@ public class ValidationContext {
   }
 
 
+  /**
+   * Returns the package versions set with
+   * {@link #setPackageVersion(String, int)}.
+   * 
+   * @return an unmodifiable view of the package versions by package short label.
+   */
+  public Map<String, Integer> getPackageVersions() {
+    return Collections.unmodifiableMap(packageVersions);
+  }
+
+
+  /**
+   * Returns the listeners of this context.
+   * 
+   * @return the listeners of this context, not a copy.
+   */
+  Set<ValidationListener> getValidationListeners() {
+    return listenerSet;
+  }
+
+
   /**
    * Returns the used level of SBML
    * 
@@ -47,7 +47,6 @@ import org.sbml.jsbml.Unit;
 import org.sbml.jsbml.UnitDefinition;
 import org.sbml.jsbml.util.compilers.ASTNodeValue;
 import org.sbml.jsbml.util.compilers.UnitsCompiler;
-import org.sbml.jsbml.util.filters.Filter;
 import org.sbml.jsbml.validator.SBMLValidator.CHECK_CATEGORY;
 import org.sbml.jsbml.validator.SyntaxChecker;
 import org.sbml.jsbml.validator.offline.ValidationContext;
@@ -993,25 +992,8 @@ public class ASTNodeConstraints extends AbstractConstraintDeclaration {
                   // check the rule math for the given id
                   ASTNode math = r.getMath();
                   
-                  if (math != null) {
-                    List<? extends TreeNode> wrongNode = math.filter(new Filter() {
-                      
-                      @Override
-                      public boolean accepts(Object o) {
-                        
-                        if (o instanceof ASTNode && ((ASTNode) o).getType().equals(Type.NAME)
-                            && ((ASTNode) o).getName().equals(id)) 
-                        {
-                          return true;
-                        }
-                        
-                        return false;
-                      }
-                    });
-                    
-                    if (wrongNode != null && wrongNode.size() > 0) {
-                      return false;
-                    }
+                  if (ValidationTools.containsNode(math, Type.NAME, id)) {
+                    return false;
                   }
                 }
               }
@@ -1064,25 +1046,8 @@ public class ASTNodeConstraints extends AbstractConstraintDeclaration {
                     // check the rule math for the given id
                     ASTNode math = r.getMath();
 
-                    if (math != null) {
-                      List<? extends TreeNode> wrongNode = math.filter(new Filter() {
-
-                        @Override
-                        public boolean accepts(Object o) {
-
-                          if (o instanceof ASTNode && ((ASTNode) o).getType().equals(Type.NAME)
-                              && ((ASTNode) o).getName().equals(cid)) 
-                          {
-                            return true;
-                          }
-
-                          return false;
-                        }
-                      });
-
-                      if (wrongNode != null && wrongNode.size() > 0) {
-                        return false;
-                      }
+                    if (ValidationTools.containsNode(math, Type.NAME, cid)) {
+                      return false;
                     }
                   }
                 }
@@ -21,10 +21,11 @@
 package org.sbml.jsbml.validator.offline.constraints;
 
 import java.lang.ref.SoftReference;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
 import org.sbml.jsbml.validator.SBMLValidator.CHECK_CATEGORY;
@@ -47,21 +48,23 @@ public abstract class AbstractConstraintDeclaration
 implements ConstraintDeclaration, SBMLErrorCodes {
 
   /**
-   * Caches the {@link ConstraintDeclaration}s with SoftReferences
+   * Caches the {@link ConstraintDeclaration}s with SoftReferences. The caches
+   * are concurrent because several validations can run at the same time.
    */
-  private static HashMap<String, SoftReference<ConstraintDeclaration>> instances     =
-      new HashMap<String, SoftReference<ConstraintDeclaration>>();
+  private static ConcurrentHashMap<String, SoftReference<ConstraintDeclaration>> instances =
+      new ConcurrentHashMap<String, SoftReference<ConstraintDeclaration>>();
 
   /**
    * Caches the constraints with SoftReferences
    */
-  private static HashMap<String, SoftReference<AnyConstraint<?>>>     cache          =
-      new HashMap<String, SoftReference<AnyConstraint<?>>>();
+  private static ConcurrentHashMap<String, SoftReference<AnyConstraint<?>>> cache =
+      new ConcurrentHashMap<String, SoftReference<AnyConstraint<?>>>();
 
   /**
    * Stores class names which didn't have a constraint declaration
    */
-  private static Set<String> classBlacklist = new HashSet<String>();
+  private static Set<String> classBlacklist =
+      Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
   /**
    * Log4j logger
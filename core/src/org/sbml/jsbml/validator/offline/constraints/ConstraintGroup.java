@@ -40,6 +40,11 @@ public class ConstraintGroup<T> extends AbstractConstraint<T> {
    */
   private Set<AnyConstraint<T>> constraints = new HashSet<AnyConstraint<T>>();
 
+  /**
+   * The members of the group once it has been frozen, {@code null} before.
+   */
+  private AnyConstraint<T>[] frozenConstraints;
+
 
   /**
    * Creates a new {@link ConstraintGroup} instance.
@@ -54,9 +59,18 @@ public class ConstraintGroup<T> extends AbstractConstraint<T> {
     context.willValidate(this, object);
 
     boolean success = true;
-    for (AnyConstraint<T> c : this.constraints) { 
-      if (c != null) {        
-        success = c.check(context, object) && success;
+    AnyConstraint<T>[] frozen = frozenConstraints;
+    if (frozen != null) {
+      for (AnyConstraint<T> c : frozen) {
+        if (c != null) {
+          success = c.check(context, object) && success;
+        }
+      }
+    } else {
+      for (AnyConstraint<T> c : this.constraints) { 
+        if (c != null) {        
+          success = c.check(context, object) && success;
+        }
       }
     }
     context.didValidate(this, object, success);
@@ -72,8 +86,11 @@ public class ConstraintGroup<T> extends AbstractConstraint<T> {
    * {@link Set}, so every constraint can only be added once.</p>
    * 
    * @param c the constraint to add
+   * @throws UnsupportedOperationException if this group is frozen
+   * @see #freeze()
    */
   public void add(AnyConstraint<T> c) {
+    checkNotFrozen();
 
     if (c != null) {
       constraints.add(c);
@@ -86,12 +103,59 @@ public class ConstraintGroup<T> extends AbstractConstraint<T> {
    * 
    * @param constraint the constraint to remove
    * @return {@code true} if constraint was in this group and was removed
+   * @throws UnsupportedOperationException if this group is frozen
+   * @see #freeze()
    */
   public boolean remove(AnyConstraint<T> constraint) {
+    checkNotFrozen();
     return constraints.remove(constraint);
   }
 
 
+  /**
+   * Makes this group and all the groups it contains read-only.
+   * 
+   * <p>A frozen group can be shared between threads: {@link #add(AnyConstraint)}
+   * and {@link #remove(AnyConstraint)} throw an
+   * {@link UnsupportedOperationException} afterwards. Freezing a group twice
+   * has no effect.</p>
+   * 
+   * @since 1.6
+   */
+  public void freeze() {
+    if (frozenConstraints != null) {
+      return;
+    }
+    for (AnyConstraint<T> c : constraints) {
+      if (c instanceof ConstraintGroup) {
+        ((ConstraintGroup<T>) c).freeze();
+      }
+    }
+    frozenConstraints = getConstraints();
+  }
+
+
+  /**
+   * Returns whether this group has been frozen.
+   * 
+   * @return {@code true} if {@link #freeze()} has been called on this group
+   * @since 1.6
+   */
+  public boolean isFrozen() {
+    return frozenConstraints != null;
+  }
+
+
+  /**
+   * @throws UnsupportedOperationException if this group is frozen
+   */
+  private void checkNotFrozen() {
+    if (frozenConstraints != null) {
+      throw new UnsupportedOperationException("The constraint group is frozen and cannot be modified.");
+    }
+  }
+
+
   /**
    * Checks if the errorCode is in the group.
    * 
@@ -28,12 +28,15 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import javax.swing.tree.TreeNode;
+
+import org.sbml.jsbml.ASTNode;
 import org.sbml.jsbml.JSBML;
 import org.sbml.jsbml.SBMLDocument;
 import org.sbml.jsbml.SBMLError;
 import org.sbml.jsbml.SBase;
 import org.sbml.jsbml.util.TreeNodeChangeEvent;
-import org.sbml.jsbml.util.filters.Filter;
+import org.sbml.jsbml.util.TreeNodeIterator;
 import org.sbml.jsbml.validator.SBMLValidator.CHECK_CATEGORY;
 import org.sbml.jsbml.validator.offline.ValidationContext;
 import org.sbml.jsbml.validator.offline.constraints.helper.DuplicatedElementValidationFunction;
@@ -177,30 +180,30 @@ public class SBMLDocumentConstraints extends AbstractConstraintDeclaration {
          */
         private List<SBase> sbaseWithUnknownXML = new ArrayList<SBase>();
 
-        @SuppressWarnings("unchecked")
         @Override
         public boolean check(ValidationContext ctx, SBMLDocument d) {
 
           // loop through the whole document to search for any unknown attributes or elements.            
-          sbaseWithUnknownXML = (List<SBase>) d.filter(new Filter() {
-
-            @Override
-            public boolean accepts(Object o) {
-
-              if (o instanceof SBase) {
-                SBase sbase = (SBase) o;
-
-                if (sbase.isSetUserObjects() && sbase.getUserObject(JSBML.UNKNOWN_XML) != null)
-                {
-                  // if the user object is set, we know they are some unknown XML
-                  // we return true to add it to the list of sbaseWithUnknownXML
-                  return true;
-                }
+          List<SBase> found = new ArrayList<SBase>();
+          TreeNodeIterator iterator = new TreeNodeIterator(d);
+          while (iterator.hasNext()) {
+            TreeNode o = iterator.next();
+
+            if (o instanceof SBase) {
+              SBase sbase = (SBase) o;
+
+              if (sbase.isSetUserObjects() && sbase.getUserObject(JSBML.UNKNOWN_XML) != null)
+              {
+                // if the user object is set, we know they are some unknown XML
+                // we add it to the list of sbaseWithUnknownXML
+                found.add(sbase);
               }
-
-              return false;
+            } else if (o instanceof ASTNode) {
+              // math does not contain any SBase
+              iterator.skipChildren();
             }
-          });
+          }
+          sbaseWithUnknownXML = found;
 
           // System.out.println(d.getModel());
 
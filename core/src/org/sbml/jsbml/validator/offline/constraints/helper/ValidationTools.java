@@ -25,6 +25,8 @@ import java.util.LinkedList;
 import java.util.Queue;
 import java.util.Set;
 
+import javax.swing.tree.TreeNode;
+
 import org.apache.log4j.Logger;
 import org.sbml.jsbml.ASTNode;
 import org.sbml.jsbml.ASTNode.Type;
@@ -49,6 +51,7 @@ import org.sbml.jsbml.SpeciesReference;
 import org.sbml.jsbml.Unit;
 import org.sbml.jsbml.UnitDefinition;
 import org.sbml.jsbml.Variable;
+import org.sbml.jsbml.util.TreeNodeIterator;
 import org.sbml.jsbml.util.compilers.UnitsCompiler;
 import org.sbml.jsbml.util.filters.Filter;
 import org.sbml.jsbml.validator.SyntaxChecker;
@@ -164,6 +167,28 @@ public final class ValidationTools {
   }
 
 
+  /**
+   * Checks whether the given math contains a node of the given type, and
+   * optionally with the given name. The search stops at the first match.
+   * 
+   * @param math the math to search, can be {@code null}.
+   * @param type the type of the node to find.
+   * @param name the name of the node to find or {@code null} to accept any name.
+   * @return {@code true} if the given math contains such a node.
+   */
+  public static boolean containsNode(ASTNode math, Type type, String name) {
+    TreeNodeIterator iterator = new TreeNodeIterator(math);
+    while (iterator.hasNext()) {
+      TreeNode o = iterator.next();
+      if ((o instanceof ASTNode) && (((ASTNode) o).getType() == type)
+          && ((name == null) || name.equals(((ASTNode) o).getName()))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+
   public static Set<String> getDefinedSpecies(Reaction r) {
     Set<String> definedSpecies = new HashSet<String>();
 
@@ -398,13 +423,7 @@ public final class ValidationTools {
       return false;
     }
 
-    try {
-      SBO.getTerm(s);
-    } catch (Exception e) {
-      return false;
-    }
-
-    return true;
+    return SBO.getAncestorIndex().contains(SBO.stringToInt(s));
   }
 
 
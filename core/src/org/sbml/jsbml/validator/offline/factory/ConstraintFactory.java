@@ -20,8 +20,13 @@
 
 package org.sbml.jsbml.validator.offline.factory;
 
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
 import org.sbml.jsbml.validator.SBMLValidator.CHECK_CATEGORY;
@@ -38,6 +43,10 @@ import org.sbml.jsbml.validator.offline.constraints.ConstraintGroup;
  * all the needed constraints. This factory is basically creating via reflection some {@link ConstraintDeclaration}
  * instances which it use to create the {@link ConstraintGroup}.</p>
  * 
+ * <p>The constraints for a class are cached for every combination of SBML level and version, check categories
+ * and package versions, i.e., all validation contexts with the same settings share the same {@link ConstraintGroup}s.
+ * These groups must therefore not be modified.</p>
+ * 
  * @see AbstractConstraintDeclaration#getInstance(String)
  * @see ConstraintDeclaration#createConstraints(int, int, CHECK_CATEGORY[], ValidationContext)
  * @see ConstraintDeclaration#createConstraints(int, int, String, ValidationContext)
@@ -54,18 +63,114 @@ public class ConstraintFactory {
    */
   protected static final transient Logger logger = Logger.getLogger(ConstraintFactory.class);
 
+  /**
+   * The settings of a {@link ValidationContext}, which determine the
+   * constraints that are loaded for a class.
+   * 
+   * @since 1.6
+   */
+  private static final class CacheKey {
+
+    /**
+     * 
+     */
+    private final Object target;
+
+    /**
+     * The categories of the context, i.e., the categories for which
+     * constraints are loaded.
+     */
+    private final Set<CHECK_CATEGORY> categories;
+
+    /**
+     * The categories for which the context reports that they are enabled.
+     */
+    private final Set<CHECK_CATEGORY> enabledCategories;
+
+    /**
+     * 
+     */
+    private final int level;
+
+    /**
+     * 
+     */
+    private final Map<String, Integer> packageVersions;
+
+    /**
+     * 
+     */
+    private final int version;
+
+    /**
+     * @param target the class or the class and attribute name
+     * @param ctx
+     */
+    public CacheKey(Object target, ValidationContext ctx) {
+      this.target = target;
+      level = ctx.getLevel();
+      version = ctx.getVersion();
+      categories = EnumSet.noneOf(CHECK_CATEGORY.class);
+      categories.addAll(Arrays.asList(ctx.getCheckCategories()));
+      enabledCategories = EnumSet.noneOf(CHECK_CATEGORY.class);
+      for (CHECK_CATEGORY category : CHECK_CATEGORY.values()) {
+        if (ctx.isEnabledCategory(category)) {
+          enabledCategories.add(category);
+        }
+      }
+      packageVersions = new HashMap<String, Integer>(ctx.getPackageVersions());
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof CacheKey)) {
+        return false;
+      }
+      CacheKey key = (CacheKey) obj;
+      return target.equals(key.target) && (level == key.level) && (version == key.version)
+          && categories.equals(key.categories) && enabledCategories.equals(key.enabledCategories)
+          && packageVersions.equals(key.packageVersions);
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+      int hashCode = 31 * target.hashCode() + 8 * level + version;
+      hashCode = 31 * hashCode + categories.hashCode();
+      hashCode = 31 * hashCode + enabledCategories.hashCode();
+      return 31 * hashCode + packageVersions.hashCode();
+    }
+  }
+
+  /**
+   * Stands for the absence of constraints in the {@link #cache}, which does
+   * not accept {@code null} values.
+   */
+  private static final Object NO_CONSTRAINTS = new Object();
+
   /**
    * Shared singleton instance
    */
   private static ConstraintFactory        instance;
 
+  /**
+   * The constraints that have already been created for the settings of a
+   * context.
+   */
+  private final ConcurrentHashMap<CacheKey, Object> cache = new ConcurrentHashMap<CacheKey, Object>();
+
 
   /**
    * Returns the {@link ConstraintFactory} singleton instance.
    * 
    * @return the {@link ConstraintFactory} singleton instance.
    */
-  public static ConstraintFactory getInstance() {
+  public static synchronized ConstraintFactory getInstance() {
     if (ConstraintFactory.instance == null) {
       ConstraintFactory.instance = new ConstraintFactory();
     }
@@ -73,17 +178,40 @@ public class ConstraintFactory {
   }
 
 
+  /**
+   * Removes all constraints from the cache of this factory.
+   */
+  public void clearCache() {
+    cache.clear();
+  }
+
+
   /**
    * Gets all the constraints for one class.
    * 
+   * <p>The constraints are taken from the cache if they have already been
+   * created for a context with the same settings. The returned group is
+   * shared and frozen, see {@link ConstraintGroup#freeze()}.</p>
+   * 
    * @param clazz the class to get constraints for
    * @param ctx the validation context
    * @return all the constraints for one class.
    */
+  @SuppressWarnings("unchecked")
   public <T> ConstraintGroup<T> getConstraintsForClass(Class<?> clazz, ValidationContext ctx) {
+    CacheKey key = new CacheKey(clazz, ctx);
+    Object group = cache.get(key);
+
+    if (group == null) {
+      group = this.getConstraintsForClass(clazz, ctx.getCheckCategories(),
+        ctx.getLevel(), ctx.getVersion(), ctx);
+      if (group != null) {
+        ((ConstraintGroup<?>) group).freeze();
+      }
+      cache.putIfAbsent(key, (group != null) ? group : NO_CONSTRAINTS);
+    }
 
-    return this.getConstraintsForClass(clazz, ctx.getCheckCategories(),
-      ctx.getLevel(), ctx.getVersion(), ctx);
+    return (group != NO_CONSTRAINTS) ? (ConstraintGroup<T>) group : null;
   }
 
 
@@ -172,6 +300,9 @@ public class ConstraintFactory {
   /**
    * Returns all constraints necessary to validate the attribute of the specified class. 
    * 
+   * <p>The returned group is shared with other contexts with the same
+   * settings and frozen, see {@link ConstraintGroup#freeze()}.</p>
+   * 
    * @param clazz the class to get constraints for
    * @param attributeName the attribute name to get constraint for
    * @param level the SBML level
@@ -179,12 +310,24 @@ public class ConstraintFactory {
    * @param context the validation context
    * @return all constraints necessary to validate the attribute of the specified class. 
    */
+  @SuppressWarnings("unchecked")
   public <T> ConstraintGroup<T> getConstraintsForAttribute(Class<?> clazz, String attributeName,
      int level, int version, ValidationContext context) 
   {
-    Set<Class<?>> set = new HashSet<Class<?>>();
+    CacheKey key = new CacheKey(Arrays.asList(clazz, attributeName, level, version), context);
+    Object group = cache.get(key);
+
+    if (group == null) {
+      Set<Class<?>> set = new HashSet<Class<?>>();
+
+      group = getConstraintsForAttribute(clazz, attributeName, level, version, set, context);
+      if (group != null) {
+        ((ConstraintGroup<?>) group).freeze();
+      }
+      cache.putIfAbsent(key, (group != null) ? group : NO_CONSTRAINTS);
+    }
 
-    return getConstraintsForAttribute(clazz, attributeName, level, version, set, context);
+    return (group != NO_CONSTRAINTS) ? (ConstraintGroup<T>) group : null;
   }
   
   /**
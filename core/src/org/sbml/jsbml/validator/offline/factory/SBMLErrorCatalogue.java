@@ -0,0 +1,688 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.validator.offline.factory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.log4j.Logger;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+/**
+ * A compact, read-only table of all the SBML errors that are described in the
+ * file {@code SBMLErrors.json}, which is generated from the libSBML source
+ * tree.
+ *
+ * <p>The errors are stored in arrays that are sorted by error id, so that the
+ * category, package, messages and severities of an error can be looked up
+ * without any parsing or string formatting. The catalogue that is returned by
+ * {@link #getInstance()} is loaded once from a binary snapshot, which is
+ * created from the JSON file during the build by the {@link #main(String[])}
+ * method of this class, and kept for the whole lifetime of the application.
+ * The JSON file is only parsed if the snapshot is not available.</p>
+ *
+ * @since 1.6
+ * @see SBMLErrorFactory
+ */
+public class SBMLErrorCatalogue {
+
+  /**
+   * Holds the catalogue of the errors that come with JSBML, which is
+   * loaded on first use.
+   *
+   * @since 1.6
+   */
+  private static class CatalogueHolder {
+
+    /**
+     * 
+     */
+    private static final SBMLErrorCatalogue catalogue = load();
+
+  }
+
+  /**
+   * Key for the 'Available' value in the JSON file
+   */
+  private static final String JSON_KEY_AVAILABLE = "Available";
+
+  /**
+   * Key for the 'Category' value in the JSON file
+   */
+  private static final String JSON_KEY_CATEGORY = "Category";
+
+  /**
+   * Key for the 'DefaultSeverity' value in the JSON file
+   */
+  private static final String JSON_KEY_DEFAULT_SEVERITY = "DefaultSeverity";
+
+  /**
+   * Key for the 'Message' value in the JSON file
+   */
+  private static final String JSON_KEY_MESSAGE = "Message";
+
+  /**
+   * Key for the 'Package' value in the JSON file
+   */
+  private static final String JSON_KEY_PACKAGE = "Package";
+
+  /**
+   * Key for the 'ShortMessage' value in the JSON file
+   */
+  private static final String JSON_KEY_SHORT_MESSAGE = "ShortMessage";
+
+  /**
+   * Matches the keys of the severities for a certain SBML level and version
+   * in the JSON file, as well as the values of the 'Available' entries.
+   */
+  private static final Pattern LEVEL_VERSION_PATTERN = Pattern.compile("(?:Severity)?L(\\d+)V(\\d+)");
+
+  /**
+   * The location of the JSON file.
+   */
+  private static final String JSON_RESOURCE = "/org/sbml/jsbml/resources/SBMLErrors.json";
+
+  /**
+   * Identifies the binary format of a catalogue ("JSEC").
+   */
+  private static final int MAGIC_NUMBER = 0x4A534543;
+
+  /**
+   * The location of the binary snapshot, see {@link #main(String[])}.
+   */
+  private static final String SNAPSHOT_RESOURCE = "/org/sbml/jsbml/resources/SBMLErrors.bin";
+
+  /**
+   * The version of the binary format.
+   */
+  private static final int VERSION = 1;
+
+  /**
+   * 
+   */
+  private static final transient Logger logger = Logger.getLogger(SBMLErrorCatalogue.class);
+
+  /**
+   * The level and version, encoded by {@link #encode(int, int)}, from which
+   * on each error is available, or 0 if it is available in all levels and
+   * versions.
+   */
+  private final int[] available;
+
+  /**
+   * The index of the category of each error in {@link #strings}.
+   */
+  private final int[] categories;
+
+  /**
+   * The index of the default severity of each error in {@link #strings}.
+   */
+  private final int[] defaultSeverities;
+
+  /**
+   * The error ids in ascending order, i.e., the index of an error is its
+   * position in this array.
+   */
+  private final int[] ids;
+
+  /**
+   * The level and version combinations, encoded by
+   * {@link #encode(int, int)}, for which some errors have a specific
+   * severity, in the order of {@link #severities}.
+   */
+  private final int[] levelVersions;
+
+  /**
+   * The messages in the order of {@link #ids}.
+   */
+  private final String[] messages;
+
+  /**
+   * The index of the package of each error in {@link #strings}.
+   */
+  private final int[] packages;
+
+  /**
+   * For each entry of {@link #levelVersions}, the index of the severity of
+   * each error in {@link #strings} or -1 if the error has its default
+   * severity in this level and version.
+   */
+  private final int[][] severities;
+
+  /**
+   * The short messages in the order of {@link #ids}.
+   */
+  private final String[] shortMessages;
+
+  /**
+   * The distinct categories, packages and severities of all errors.
+   */
+  private final String[] strings;
+
+  /**
+   * Creates a catalogue from its components.
+   * 
+   * @param ids
+   * @param strings
+   * @param categories
+   * @param packages
+   * @param defaultSeverities
+   * @param available
+   * @param messages
+   * @param shortMessages
+   * @param levelVersions
+   * @param severities
+   */
+  private SBMLErrorCatalogue(int[] ids, String[] strings, int[] categories,
+    int[] packages, int[] defaultSeverities, int[] available, String[] messages,
+    String[] shortMessages, int[] levelVersions, int[][] severities) {
+    this.ids = ids;
+    this.strings = strings;
+    this.categories = categories;
+    this.packages = packages;
+    this.defaultSeverities = defaultSeverities;
+    this.available = available;
+    this.messages = messages;
+    this.shortMessages = shortMessages;
+    this.levelVersions = levelVersions;
+    this.severities = severities;
+  }
+
+  /**
+   * Returns the catalogue of all the errors that come with JSBML.
+   * 
+   * @return the catalogue of all the errors that come with JSBML.
+   */
+  public static SBMLErrorCatalogue getInstance() {
+    return CatalogueHolder.catalogue;
+  }
+
+  /**
+   * Loads the catalogue from the precompiled binary resource, or, if this
+   * resource is not available, from the JSON file.
+   * 
+   * @return the catalogue, which is empty if none of the resources could be
+   *         read.
+   */
+  private static SBMLErrorCatalogue load() {
+    InputStream in = SBMLErrorCatalogue.class.getResourceAsStream(SNAPSHOT_RESOURCE);
+    if (in != null) {
+      try {
+        return read(in);
+      } catch (IOException exc) {
+        logger.warn(MessageFormat.format(
+          "Could not read {0}, parsing {1} instead: {2}",
+          SNAPSHOT_RESOURCE, JSON_RESOURCE, exc.getLocalizedMessage()));
+      } finally {
+        close(in);
+      }
+    }
+    in = SBMLErrorCatalogue.class.getResourceAsStream(JSON_RESOURCE);
+    if (in != null) {
+      try {
+        return parseJSON(new InputStreamReader(in, "UTF-8"));
+      } catch (IOException exc) {
+        logger.error(exc.getLocalizedMessage(), exc);
+      } finally {
+        close(in);
+      }
+    }
+    return parseJSON(new JSONObject());
+  }
+
+  /**
+   * Closes the given stream and ignores any error.
+   * 
+   * @param in
+   */
+  private static void close(InputStream in) {
+    try {
+      in.close();
+    } catch (IOException exc) {
+      // ignore
+    }
+  }
+
+  /**
+   * Encodes a level and version into one number.
+   * 
+   * @param level
+   * @param version
+   * @return the encoded level and version
+   */
+  private static int encode(int level, int version) {
+    return (level << 16) | (version & 0xFFFF);
+  }
+
+  /**
+   * Encodes the level and version in a string such as {@code "L2V4"} or
+   * {@code "SeverityL2V4"}.
+   * 
+   * @param value
+   * @return the encoded level and version or -1 if the string does not have
+   *         the expected format.
+   */
+  private static int parseLevelVersion(String value) {
+    Matcher matcher = LEVEL_VERSION_PATTERN.matcher(value);
+    if (!matcher.matches()) {
+      return -1;
+    }
+    return encode(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+  }
+
+  /**
+   * Parses a catalogue from the JSON format of {@code SBMLErrors.json}.
+   * 
+   * @param reader the JSON content, which is not closed by this method.
+   * @return the catalogue
+   * @throws IOException if the content cannot be read or is not a valid JSON
+   *         object.
+   */
+  public static SBMLErrorCatalogue parseJSON(Reader reader) throws IOException {
+    try {
+      return parseJSON((JSONObject) new JSONParser().parse(reader));
+    } catch (ParseException exc) {
+      throw new IOException(exc);
+    } catch (ClassCastException exc) {
+      throw new IOException(exc);
+    }
+  }
+
+  /**
+   * Creates a catalogue from the parsed content of {@code SBMLErrors.json}.
+   * 
+   * @param json maps error ids to the description of each error.
+   * @return the catalogue
+   */
+  private static SBMLErrorCatalogue parseJSON(JSONObject json) {
+    int[] ids = new int[json.size()];
+    int n = 0;
+    for (Object key : json.keySet()) {
+      ids[n++] = Integer.parseInt(key.toString());
+    }
+    Arrays.sort(ids);
+
+    List<String> strings = new ArrayList<String>();
+    Map<String, Integer> stringIndices = new HashMap<String, Integer>();
+    int[] categories = new int[n];
+    int[] packages = new int[n];
+    int[] defaultSeverities = new int[n];
+    int[] available = new int[n];
+    String[] messages = new String[n];
+    String[] shortMessages = new String[n];
+    List<Integer> levelVersions = new ArrayList<Integer>();
+    List<int[]> severities = new ArrayList<int[]>();
+
+    for (int i = 0; i < n; i++) {
+      JSONObject entry = (JSONObject) json.get(Integer.toString(ids[i]));
+      categories[i] = indexOf((String) entry.get(JSON_KEY_CATEGORY), strings, stringIndices);
+      packages[i] = indexOf((String) entry.get(JSON_KEY_PACKAGE), strings, stringIndices);
+      defaultSeverities[i] = indexOf((String) entry.get(JSON_KEY_DEFAULT_SEVERITY), strings, stringIndices);
+      messages[i] = (String) entry.get(JSON_KEY_MESSAGE);
+      shortMessages[i] = (String) entry.get(JSON_KEY_SHORT_MESSAGE);
+      String minLv = (String) entry.get(JSON_KEY_AVAILABLE);
+      available[i] = (minLv != null) ? Math.max(parseLevelVersion(minLv), 0) : 0;
+
+      for (Object key : entry.keySet()) {
+        int levelVersion = key.toString().startsWith("Severity")
+            ? parseLevelVersion(key.toString()) : -1;
+        if (levelVersion >= 0) {
+          int slot = levelVersions.indexOf(levelVersion);
+          if (slot < 0) {
+            slot = levelVersions.size();
+            levelVersions.add(levelVersion);
+            int[] severity = new int[n];
+            Arrays.fill(severity, -1);
+            severities.add(severity);
+          }
+          severities.get(slot)[i] = indexOf((String) entry.get(key), strings, stringIndices);
+        }
+      }
+    }
+
+    int[] lv = new int[levelVersions.size()];
+    for (int i = 0; i < lv.length; i++) {
+      lv[i] = levelVersions.get(i);
+    }
+    return new SBMLErrorCatalogue(ids, strings.toArray(new String[strings.size()]),
+      categories, packages, defaultSeverities, available, messages, shortMessages,
+      lv, severities.toArray(new int[severities.size()][]));
+  }
+
+  /**
+   * Returns the position of the given string in the list of distinct
+   * strings, and adds it if necessary.
+   * 
+   * @param value
+   * @param strings
+   * @param indices
+   * @return the position of the value or -1 if the value is {@code null}.
+   */
+  private static int indexOf(String value, List<String> strings, Map<String, Integer> indices) {
+    if (value == null) {
+      return -1;
+    }
+    Integer index = indices.get(value);
+    if (index == null) {
+      index = strings.size();
+      strings.add(value);
+      indices.put(value, index);
+    }
+    return index;
+  }
+
+  /**
+   * Reads a catalogue in the binary format that is created by
+   * {@link #write(OutputStream)}. The given stream is not closed.
+   * 
+   * @param stream the binary catalogue
+   * @return the catalogue
+   * @throws IOException if the stream cannot be read or does not contain a
+   *         catalogue in a supported format.
+   */
+  public static SBMLErrorCatalogue read(InputStream stream) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+    if (in.readInt() != MAGIC_NUMBER) {
+      throw new IOException("The stream does not contain an SBML error catalogue.");
+    }
+    int version = in.readInt();
+    if (version != VERSION) {
+      throw new IOException(MessageFormat.format(
+        "Unsupported version {0,number,integer} of the SBML error catalogue format.",
+        version));
+    }
+    String[] strings = new String[in.readInt()];
+    for (int i = 0; i < strings.length; i++) {
+      strings[i] = in.readUTF();
+    }
+    int n = in.readInt();
+    int[] ids = new int[n];
+    int[] categories = new int[n];
+    int[] packages = new int[n];
+    int[] defaultSeverities = new int[n];
+    int[] available = new int[n];
+    String[] messages = new String[n];
+    String[] shortMessages = new String[n];
+    for (int i = 0; i < n; i++) {
+      ids[i] = in.readInt();
+      categories[i] = in.readInt();
+      packages[i] = in.readInt();
+      defaultSeverities[i] = in.readInt();
+      available[i] = in.readInt();
+      messages[i] = readString(in);
+      shortMessages[i] = readString(in);
+    }
+    int[] levelVersions = new int[in.readInt()];
+    int[][] severities = new int[levelVersions.length][n];
+    for (int slot = 0; slot < levelVersions.length; slot++) {
+      levelVersions[slot] = in.readInt();
+      for (int i = 0; i < n; i++) {
+        severities[slot][i] = in.readInt();
+      }
+    }
+    return new SBMLErrorCatalogue(ids, strings, categories, packages,
+      defaultSeverities, available, messages, shortMessages, levelVersions, severities);
+  }
+
+  /**
+   * Reads a string that may be {@code null}.
+   * 
+   * @param in
+   * @return the string
+   * @throws IOException
+   */
+  private static String readString(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+  /**
+   * Writes a string that may be {@code null}.
+   * 
+   * @param out
+   * @param value
+   * @throws IOException
+   */
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  /**
+   * Writes this catalogue in a compact binary format. The given stream is
+   * flushed but not closed.
+   * 
+   * @param stream the destination
+   * @throws IOException if writing fails
+   */
+  public void write(OutputStream stream) throws IOException {
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+    out.writeInt(MAGIC_NUMBER);
+    out.writeInt(VERSION);
+    out.writeInt(strings.length);
+    for (String value : strings) {
+      out.writeUTF(value);
+    }
+    out.writeInt(ids.length);
+    for (int i = 0; i < ids.length; i++) {
+      out.writeInt(ids[i]);
+      out.writeInt(categories[i]);
+      out.writeInt(packages[i]);
+      out.writeInt(defaultSeverities[i]);
+      out.writeInt(available[i]);
+      writeString(out, messages[i]);
+      writeString(out, shortMessages[i]);
+    }
+    out.writeInt(levelVersions.length);
+    for (int slot = 0; slot < levelVersions.length; slot++) {
+      out.writeInt(levelVersions[slot]);
+      for (int severity : severities[slot]) {
+        out.writeInt(severity);
+      }
+    }
+    out.flush();
+  }
+
+  /**
+   * Checks whether this catalogue contains an error with the given id.
+   * 
+   * @param id the error id
+   * @return {@code true} if this catalogue contains an error with the given
+   *         id.
+   */
+  public boolean contains(int id) {
+    return indexOf(id) >= 0;
+  }
+
+  /**
+   * Returns the category of the given error.
+   * 
+   * @param id the error id
+   * @return the category of the error or {@code null} if there is no such
+   *         error.
+   */
+  public String getCategory(int id) {
+    int index = indexOf(id);
+    return (index >= 0) ? string(categories[index]) : null;
+  }
+
+  /**
+   * Returns the number of errors in this catalogue.
+   * 
+   * @return the number of errors in this catalogue.
+   */
+  public int getErrorCount() {
+    return ids.length;
+  }
+
+  /**
+   * Returns the message of the given error as it is given in the JSON file.
+   * 
+   * @param id the error id
+   * @return the message of the error or {@code null} if there is no such
+   *         error.
+   */
+  public String getMessage(int id) {
+    int index = indexOf(id);
+    return (index >= 0) ? messages[index] : null;
+  }
+
+  /**
+   * Returns the package of the given error.
+   * 
+   * @param id the error id
+   * @return the short name of the package of the error, e.g., {@code "core"},
+   *         or {@code null} if there is no such error.
+   */
+  public String getPackage(int id) {
+    int index = indexOf(id);
+    return (index >= 0) ? string(packages[index]) : null;
+  }
+
+  /**
+   * Returns the severity of the given error in the given SBML level and
+   * version.
+   * 
+   * @param id the error id
+   * @param level the SBML level
+   * @param version the SBML version
+   * @return the severity of the error, e.g., {@code "error"}, or {@code null}
+   *         if there is no such error.
+   */
+  public String getSeverity(int id, int level, int version) {
+    int index = indexOf(id);
+    if (index < 0) {
+      return null;
+    }
+    int levelVersion = encode(level, version);
+    for (int slot = 0; slot < levelVersions.length; slot++) {
+      if (levelVersions[slot] == levelVersion) {
+        if (severities[slot][index] >= 0) {
+          return strings[severities[slot][index]];
+        }
+        break;
+      }
+    }
+    return string(defaultSeverities[index]);
+  }
+
+  /**
+   * Returns the short message of the given error as it is given in the JSON
+   * file.
+   * 
+   * @param id the error id
+   * @return the short message of the error or {@code null} if there is no
+   *         such error.
+   */
+  public String getShortMessage(int id) {
+    int index = indexOf(id);
+    return (index >= 0) ? shortMessages[index] : null;
+  }
+
+  /**
+   * Returns the position of the given error in {@link #ids}.
+   * 
+   * @param id the error id
+   * @return the index of the error or a negative value if there is no such
+   *         error.
+   */
+  private int indexOf(int id) {
+    return Arrays.binarySearch(ids, id);
+  }
+
+  /**
+   * Checks whether the given error is available in the given SBML level and
+   * version.
+   * 
+   * @param id the error id
+   * @param level the SBML level
+   * @param version the SBML version
+   * @return {@code true} if this catalogue contains the error and the error
+   *         is available in the given level and version.
+   */
+  public boolean isAvailable(int id, int level, int version) {
+    int index = indexOf(id);
+    return (index >= 0) && (encode(level, version) >= available[index]);
+  }
+
+  /**
+   * Returns the distinct string with the given index.
+   * 
+   * @param index
+   * @return the string or {@code null} if the index is negative.
+   */
+  private String string(int index) {
+    return (index >= 0) ? strings[index] : null;
+  }
+
+  /**
+   * Creates the binary catalogue from the JSON file. This method is called
+   * during the build to create the catalogue that is shipped with JSBML.
+   * 
+   * @param args the JSON file and the output file.
+   * @throws IOException if one of the files cannot be read or written.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.err.printf("Usage: java %s <json file> <output file>%n",
+        SBMLErrorCatalogue.class.getName());
+      System.exit(1);
+    }
+    SBMLErrorCatalogue catalogue;
+    Reader reader = new InputStreamReader(new FileInputStream(args[0]), "UTF-8");
+    try {
+      catalogue = parseJSON(reader);
+    } finally {
+      reader.close();
+    }
+    File file = new File(args[1]);
+    if (file.getParentFile() != null) {
+      file.getParentFile().mkdirs();
+    }
+    OutputStream out = new FileOutputStream(file);
+    try {
+      catalogue.write(out);
+    } finally {
+      out.close();
+    }
+  }
+
+}
@@ -20,17 +20,12 @@
 
 package org.sbml.jsbml.validator.offline.factory;
 
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.lang.ref.SoftReference;
 import java.text.MessageFormat;
 import java.util.Locale;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
 
 import org.apache.log4j.Logger;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
 import org.sbml.jsbml.Assignment;
 import org.sbml.jsbml.Delay;
 import org.sbml.jsbml.Event;
@@ -48,7 +43,8 @@ import org.sbml.jsbml.validator.offline.i18n.SBMLErrorShortMessage;
 /**
  * Creates {@link SBMLError} populated with values coming from a json file.
  * 
- * <p>This json file is generated from the libSBML source tree.</p>
+ * <p>This json file is generated from the libSBML source tree. Its content is
+ * looked up in the {@link SBMLErrorCatalogue}, which is loaded only once.</p>
  * 
  * @author Roman
  * @author rodrigue
@@ -56,40 +52,6 @@ import org.sbml.jsbml.validator.offline.i18n.SBMLErrorShortMessage;
  */
 public class SBMLErrorFactory {
 
-  /**
-   * Key for the 'Available' value in the JSON file
-   */
-  private static final String              JSON_KEY_AVAILABLE           = "Available";
-  /**
-   * Key for the 'Message' value in the JSON file
-   */
-  private static final String              JSON_KEY_MESSAGE             = "Message";
-  /**
-   * Key for the 'ShortMessage' value in the JSON file
-   */
-  private static final String              JSON_KEY_SHORT_MESSAGE       = "ShortMessage";
-  /**
-   * Key for the 'Package' value in the JSON file
-   */
-  private static final String              JSON_KEY_PACKAGE             = "Package";
-  /**
-   * Key for the 'Category' value in the JSON file
-   */
-  private static final String              JSON_KEY_CATEGORY            = "Category";
-  /**
-   * Key for the 'DefaultSeverity' value in the JSON file
-   */
-  private static final String              JSON_KEY_DEFAULT_SEVERITY    = "DefaultSeverity";
-  /**
-   * Key for the 'Severity' value for a certain SBML level and version in the JSON file
-   */
-  private static final String              JSON_KEY_UNFORMATED_SEVERITY = "SeverityL%dV%d";
-
-  /**
-   * the cache for the json object to avoid to read the json file too often.
-   */
-  private static SoftReference<JSONObject> cachedJson;
-
   /**
    * 
    */
@@ -138,36 +100,16 @@ public class SBMLErrorFactory {
    * @return a new {@link SBMLError} instance.
    */
   public static SBMLError createError(int id, int level, int version, boolean customMessage, SBase sbase) {
-    JSONObject errors = null;
-
-    // Trying to get the json object from the cache
-    if (SBMLErrorFactory.cachedJson != null) {
-      errors = cachedJson.get();
-    }
+    SBMLErrorCatalogue catalogue = SBMLErrorCatalogue.getInstance();
 
-    // if the json object is null, populate it from the json file and put it on the cache.
-    if (errors == null) {
-      try {
-        InputStream in = SBMLErrorFactory.class.getResourceAsStream("/org/sbml/jsbml/resources/SBMLErrors.json");
-        JSONParser parser = new JSONParser();
+    if (catalogue.contains(id)) {
 
-        errors = (JSONObject) (parser.parse(new InputStreamReader(in)));
-
-      } catch (Exception e) {
-        e.printStackTrace();
-      }
-      SBMLErrorFactory.cachedJson = new SoftReference<JSONObject>(errors);
-    }
-
-    if (errors != null && errors.containsKey("" + id)) {
-      JSONObject errorEntry = (JSONObject) errors.get("" + id);
-
-      if (errorEntry != null && isAvailable(errorEntry, level, version)) {
+      if (catalogue.isAvailable(id, level, version)) {
         SBMLError e = new SBMLError();
 
         e.setCode(id);
-        e.setCategory((String) errorEntry.get(JSON_KEY_CATEGORY));
-        e.setPackage((String) errorEntry.get(JSON_KEY_PACKAGE));
+        e.setCategory(catalogue.getCategory(id));
+        e.setPackage(catalogue.getPackage(id));
         e.setSource(sbase);
 
         //
@@ -199,7 +141,7 @@ public class SBMLErrorFactory {
         else
         {
           // getting the message from the json file
-          messageI18n = (String) errorEntry.get(JSON_KEY_MESSAGE);
+          messageI18n = catalogue.getMessage(id);
 
           if (messageI18n != null && messageI18n.trim().length() > 0)
           {
@@ -274,17 +216,12 @@ public class SBMLErrorFactory {
           sm.setLang("en"); // TODO - set the language of the bundle or Locale
         }
         else {
-          sm.setMessage((String) errorEntry.get(JSON_KEY_SHORT_MESSAGE));
+          sm.setMessage(catalogue.getShortMessage(id));
           sm.setLang("en");
         }
         e.setShortMessage(sm);
 
-        Object sev = errorEntry.get(SBMLErrorFactory.getSeverityKey(level, version));
-
-        if (sev == null) {
-          sev = errorEntry.get(SBMLErrorFactory.JSON_KEY_DEFAULT_SEVERITY);
-        }
-        e.setSeverity((String) sev);
+        e.setSeverity(catalogue.getSeverity(id, level, version));
 
         return e;
       }
@@ -308,6 +245,11 @@ public class SBMLErrorFactory {
 
     String value = null;
 
+    // most errors have no pre or post message, hence check first instead of creating an exception
+    if (!bundle.containsKey(key)) {
+      return null;
+    }
+
     try {
       value = bundle.getString(key);
     }
@@ -387,49 +329,4 @@ public class SBMLErrorFactory {
     return ResourceBundle.getBundle("org.sbml.jsbml.validator.offline.i18n.SBMLErrorPreMessage", locale);
   }
 
-
-  /**
-   * Returns {@code true} if the error is available for the given SBML level and version.
-   * 
-   * @param error the json SBML error object
-   * @param level the SBML level
-   * @param version the SBML version
-   * @return {@code true} if the error is available for the given SBML level and version.
-   */
-  private static boolean isAvailable(JSONObject error, int level, int version) {
-    String minLv = (String) (error.get(JSON_KEY_AVAILABLE));
-
-    if (minLv != null) {
-
-      // Kicks out the first Character (because it will always be a 'L')
-      // Split the String at the 'V' character
-      // The remaining Strings should be the level and version value as String
-      String[] blocks = minLv.substring(1).split("V");
-
-      // Check if there are really just 2 Strings left
-      if (blocks.length == 2) {
-        int l = Integer.parseInt(blocks[0]);
-        int v = Integer.parseInt(blocks[1]);
-
-        // Return true if level is greater as the minimal level
-        // Or if the level is equal, but the version greater equal as the min
-        // version.
-        return (level > l) || (level == l && version >= v);
-      }
-    }
-
-    return true;
-  }
-
-
-  /**
-   * Gets the severity json key for a given SBML level and version.
-   * 
-   * @param level the SBML level
-   * @param version the SBML version
-   * @return the severity json key for a given SBML level and version.
-   */
-  private static String getSeverityKey(int level, int version) {
-    return String.format(JSON_KEY_UNFORMATED_SEVERITY, level, version);
-  }
 }
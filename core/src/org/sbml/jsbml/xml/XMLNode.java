@@ -239,7 +239,9 @@ public class XMLNode extends XMLToken {
     if (orig.childElements != null && orig.childElements.size() > 0) {
       childElements = new ArrayList<XMLNode>();
       for (XMLNode origchildren : orig.childElements) {
-        childElements.add(origchildren.clone());
+        XMLNode child = origchildren.clone();
+        child.parent = this;
+        childElements.add(child);
       }
     }
     // clone our jsbml user objects for XMLNode
@@ -424,6 +426,7 @@ public class XMLNode extends XMLToken {
     childElements.add(node);
     node.fireNodeAddedEvent();
     node.parent = this;
+    invalidateHashCode();
 
     return OPERATION_SUCCESS;
   }
@@ -504,6 +507,7 @@ public class XMLNode extends XMLToken {
       node.fireNodeAddedEvent();
     }
     node.parent = this;
+    invalidateHashCode();
 
     return node;
   }
@@ -547,6 +551,7 @@ public class XMLNode extends XMLToken {
     if (childElements != null) {
       List<XMLNode> removedChildren = childElements;
       childElements.clear();
+      invalidateHashCode();
       for (XMLNode child : removedChildren) {
         child.fireNodeRemovedEvent();
       }
@@ -685,6 +690,7 @@ public class XMLNode extends XMLToken {
       return false;
     }
 
+    invalidateHashCode();
     return childElements.remove(xmlNode);
   }
 
@@ -1564,6 +1564,7 @@ public abstract class XMLToken extends AbstractTreeNode {
   public int setEnd() {
 
     isEndElement = true;
+    invalidateHashCode();
 
     return JSBML.OPERATION_SUCCESS;
   }
@@ -1666,6 +1667,7 @@ public abstract class XMLToken extends AbstractTreeNode {
    */
   public int unsetEnd() {
     isEndElement = false;
+    invalidateHashCode();
 
     return JSBML.OPERATION_SUCCESS;
   }
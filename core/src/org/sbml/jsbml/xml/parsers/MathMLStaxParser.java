@@ -21,7 +21,9 @@ package org.sbml.jsbml.xml.parsers;
 
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.swing.tree.TreeNode;
 
@@ -119,6 +121,12 @@ public class MathMLStaxParser implements ReadingParser {
    * <p>The size of the list should be equals to piecewiseCount.
    */
   private ArrayList<Integer> piecewiseOtherwiseCount = new ArrayList<Integer>();
+
+  /**
+   * One instance of each name read so far, so that all {@link ASTNode}s that
+   * refer to the same element share the same {@link String}.
+   */
+  private final Map<String, String> names = new HashMap<String, String>();
   
   /**
    * Returns the indent
@@ -259,7 +267,7 @@ public class MathMLStaxParser implements ReadingParser {
     }
 
     if (astNode.isName() || astNode.isFunction()) {
-      astNode.setName(characters.trim());
+      astNode.setName(share(characters.trim()));
     } else if (astNode.isInteger()) {
       astNode.setValue(StringTools.parseSBMLInt(characters.trim()));
     } else if (astNode.isRational()) {
@@ -277,7 +285,7 @@ public class MathMLStaxParser implements ReadingParser {
     } else if (astNode.isReal()) {
       astNode.setValue(Double.valueOf(characters.trim()));
     } else if (astNode.getType().equals(Type.FUNCTION_DELAY)) {
-      astNode.setName(characters.trim());
+      astNode.setName(share(characters.trim()));
     } else {
       logger.warn("processCharactersOf : !!!!!!!!! I don't know what to do with that : " +
           elementName + " !!!!!!!!!!");
@@ -605,6 +613,21 @@ public class MathMLStaxParser implements ReadingParser {
     }
   }
 
+  /**
+   * 
+   * @param name
+   * @return the instance of the given name that has been read first.
+   */
+  private String share(String name) {
+    String shared = names.get(name);
+    if (shared == null) {
+      names.put(name, name);
+      shared = name;
+    }
+    return shared;
+  }
+
+
   /**
    * @param indent
    *            the indent to set
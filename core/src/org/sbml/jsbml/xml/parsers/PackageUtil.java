@@ -75,10 +75,25 @@ public class PackageUtil {
       return;
     }
 
+    checkPackages(doc, getPackageNamespaces(doc), silent, fix);
+  }
+
+  /**
+   * Returns the namespaces of all enabled SBML L3 packages that are declared
+   * on the given {@link SBMLDocument}.
+   * 
+   * @param doc an {@link SBMLDocument}, can be {@code null}.
+   * @return the namespaces of all enabled and declared packages.
+   */
+  private static List<String> getPackageNamespaces(SBMLDocument doc) {
+    List<String> packageNamespaces = new ArrayList<String>();
+    if (doc == null) {
+      return packageNamespaces;
+    }
+
     // getting the list of declared L3 packages from the declared namespaces
     // TODO - add a proper method to get this list directly from SBMLdocument?
     Map<String, String> declaredNamespaces = doc.getDeclaredNamespaces();
-    List<String> packageNamespaces = new ArrayList<String>();
 
     if (declaredNamespaces != null && declaredNamespaces.size() > 0) {
       for (String xmlns : declaredNamespaces.keySet()) {
@@ -92,7 +107,7 @@ public class PackageUtil {
       }
     }
 
-    checkPackages(doc, packageNamespaces, silent, fix);
+    return packageNamespaces;
   }
 
   /**
@@ -111,12 +126,26 @@ public class PackageUtil {
     if (sbase == null) {
       return;
     }
-    if (packageNamespaces == null) {
-      packageNamespaces = new ArrayList<String>();
-    }
-
     Map<String, PackageInfo> prefixMap = new HashMap<String, PackageInfo>();
     Map<String, PackageInfo> namespaceMap = new HashMap<String, PackageInfo>();
+    initPackageInfo(packageNamespaces, prefixMap, namespaceMap);
+
+    // recursive test for all children if prefix is not "core"
+    checkPackages(sbase, prefixMap, namespaceMap, silent, fix);
+  }
+
+  /**
+   * Creates the {@link PackageInfo} for each of the given package namespaces.
+   * 
+   * @param packageNamespaces the namespaces of SBML L3 packages, can be {@code null}.
+   * @param prefixMap the map between package names and {@link PackageInfo} to fill.
+   * @param namespaceMap the map between package namespaces and {@link PackageInfo} to fill.
+   */
+  private static void initPackageInfo(List<String> packageNamespaces,
+    Map<String, PackageInfo> prefixMap, Map<String, PackageInfo> namespaceMap) {
+    if (packageNamespaces == null) {
+      return;
+    }
 
     for (String namespace : packageNamespaces) {
 
@@ -140,9 +169,6 @@ public class PackageUtil {
         logger.warn("Package namespace unknow: '" + namespace + "'");
       }
     }
-
-    // recursive test for all children if prefix is not "core"
-    checkPackages(sbase, prefixMap, namespaceMap, silent, fix);
   }
 
   /**
@@ -166,7 +192,40 @@ public class PackageUtil {
     if (sbase == null) {
       return;
     }
-    
+
+    if (!checkElement(sbase, prefixMap, namespaceMap, silent, fix)) {
+      return;
+    }
+
+    // check all children
+    int childCount = sbase.getChildCount();
+
+    for (int i = 0; i < childCount; i++) {
+      Object childObj = sbase.getChildAt(i);
+
+      if (childObj instanceof SBase) {
+        checkPackages((SBase) childObj, prefixMap, namespaceMap, silent, fix);
+      }
+    }
+  }
+
+  /**
+   * Checks the given {@link SBase} and its {@link SBasePlugin}s, but not its
+   * children, to make sure that the package version and namespace is set properly.
+   * 
+   * @param sbase the {@link SBase} to check.
+   * @param prefixMap map between package name (or prefix or label) and a {@link PackageInfo} object,
+   *  representing the package name, namespace and version
+   * @param namespaceMap map between package namespace and a {@link PackageInfo} object,
+   *  representing the package name, namespace and version
+   * @param silent boolean to indicate if errors and warnings should be shown.
+   * @param fix boolean to indicate if encountered problems should be fixed.
+   * @return {@code false} if the package of the given {@link SBase} could not
+   *         be identified, in which case its children should not be checked.
+   */
+  private static boolean checkElement(SBase sbase, Map<String, PackageInfo> prefixMap,
+    Map<String, PackageInfo> namespaceMap, boolean silent, boolean fix) {
+
     String packageName = sbase.getPackageName();
     String elementNamespace = sbase.getNamespace();
     int packageVersion = sbase.getPackageVersion();
@@ -192,7 +251,7 @@ public class PackageUtil {
       PackageInfo pi = getPackageInfo(sbase, packageName, packageVersion, elementNamespace, prefixMap, namespaceMap, silent, fix);
 
       if (pi == null) {
-        return;
+        return false;
       }
 
       // checking package version
@@ -294,17 +353,87 @@ public class PackageUtil {
 
     }
 
+    return true;
+  }
 
-    // check all children
-    int childCount = sbase.getChildCount();
+  /**
+   * Creates a {@link PackageChecker} that checks, element by element, the
+   * package version and namespace of the elements of the given
+   * {@link SBMLDocument}. This allows readers to do the check while they
+   * create the elements, instead of traversing the whole document afterwards.
+   * 
+   * @param doc the {@link SBMLDocument}, whose declared namespaces must be set already,
+   *        can be {@code null}.
+   * @param silent boolean to indicate if errors and warnings should be shown.
+   * @param fix boolean to indicate if encountered problems should be fixed.
+   * @return a new {@link PackageChecker}
+   * @since 1.6
+   */
+  public static PackageChecker createPackageChecker(SBMLDocument doc, boolean silent, boolean fix) {
+    return new PackageChecker(getPackageNamespaces(doc), silent, fix);
+  }
 
-    for (int i = 0; i < childCount; i++) {
-      Object childObj = sbase.getChildAt(i);
+  /**
+   * Checks single elements of one {@link SBMLDocument}, see
+   * {@link PackageUtil#createPackageChecker(SBMLDocument, boolean, boolean)}.
+   * 
+   * @since 1.6
+   */
+  public static class PackageChecker {
+
+    /**
+     * Whether encountered problems should be fixed.
+     */
+    private final boolean fix;
+
+    /**
+     * Map between package namespace and {@link PackageInfo}.
+     */
+    private final Map<String, PackageInfo> namespaceMap = new HashMap<String, PackageInfo>();
+
+    /**
+     * Map between package name and {@link PackageInfo}.
+     */
+    private final Map<String, PackageInfo> prefixMap = new HashMap<String, PackageInfo>();
+
+    /**
+     * Whether errors and warnings should be hidden.
+     */
+    private final boolean silent;
+
+    /**
+     * 
+     * @param packageNamespaces
+     * @param silent
+     * @param fix
+     */
+    private PackageChecker(List<String> packageNamespaces, boolean silent, boolean fix) {
+      this.silent = silent;
+      this.fix = fix;
+      initPackageInfo(packageNamespaces, prefixMap, namespaceMap);
+    }
 
-      if (childObj instanceof SBase) {
-        checkPackages((SBase) childObj, prefixMap, namespaceMap, silent, fix);
+    /**
+     * Checks the given {@link SBase} and its {@link SBasePlugin}s, but not
+     * its children.
+     * 
+     * @param sbase the {@link SBase} to check.
+     */
+    public void check(SBase sbase) {
+      if (sbase != null) {
+        checkElement(sbase, prefixMap, namespaceMap, silent, fix);
       }
     }
+
+    /**
+     * Checks the given {@link SBase}, including all its children.
+     * 
+     * @param sbase the {@link SBase} to check.
+     */
+    public void checkAll(SBase sbase) {
+      checkPackages(sbase, prefixMap, namespaceMap, silent, fix);
+    }
+
   }
 
   /**
@@ -20,6 +20,7 @@
 package org.sbml.jsbml.xml.parsers;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -31,6 +32,13 @@ import org.apache.log4j.Logger;
 
 
 /**
+ * Knows all {@link ReadingParser}s and {@link WritingParser}s. The parsers
+ * are looked up once, when the manager is created, and the registry is not
+ * changed afterwards, so that the manager can be used by several threads at
+ * the same time. Because the parsers keep track of the element they are
+ * reading or writing, {@link #getReadingParsers()} and
+ * {@link #getWritingParsers()} create new parser instances for every
+ * document.
  * 
  * @author Nicolas Rodriguez
  * @since 1.0
@@ -38,43 +46,45 @@ import org.apache.log4j.Logger;
 public class ParserManager {
 
   /**
-   * 
+   * A {@link Logger} for this class.
    */
-  private static ParserManager manager;
+  private static final transient Logger logger = Logger.getLogger(ParserManager.class);
 
   /**
-   *  Loading the ReadingParsers
-   */
-  private static Iterator<ReadingParser> readingParserList = ServiceLoader.load(ReadingParser.class).iterator();
-  
-  /**
-   *  Loading the WritingParsers
+   * The only {@link ParserManager}, which is created when this class is
+   * initialized.
    */
-  private static Iterator<WritingParser> writingParserList = ServiceLoader.load(WritingParser.class).iterator();
-
+  private static final ParserManager manager = new ParserManager();
 
   /**
-   * 
+   * The registered {@link ReadingParser}s, which cannot be modified.
    */
-  public Map<String, ReadingParser> readingParsers = new HashMap<String, ReadingParser>();
+  public final Map<String, ReadingParser> readingParsers;
   /**
    * 
    */
-  private Map<String, WritingParser> writingParsers = new HashMap<String, WritingParser>();
+  private final Map<String, WritingParser> writingParsers;
   /**
    * 
    */
-  private Map<String, PackageParser> packageParsers = new HashMap<String, PackageParser>();
+  private final Map<String, PackageParser> packageParsers;
 
   /**
    * Map between the {@link PackageParser} namespace and package short name.
    */
-  private Map<String, String> namespaceToNameMap = new HashMap<String, String>();
+  private final Map<String, String> namespaceToNameMap;
 
   /**
-   * A {@link Logger} for this class.
+   * The classes of all registered {@link ReadingParser}s, in the order in
+   * which they are registered.
    */
-  private static final transient Logger logger = Logger.getLogger(ParserManager.class);
+  private final List<Class<? extends ReadingParser>> readingParserClasses;
+
+  /**
+   * The classes of all registered {@link WritingParser}s, in the order in
+   * which they are registered.
+   */
+  private final List<Class<? extends WritingParser>> writingParserClasses;
 
   private String[] parserDefaults = 
     {"org.sbml.jsbml.xml.parsers.UncertMLXMLNodeReader", "org.sbml.jsbml.xml.parsers.SBMLCoreParser", 
@@ -89,53 +99,26 @@ public class ParserManager {
    * Private constructor to make sure that we have only one {@link ParserManager} per JVM.
    */
   private ParserManager() {
-    init();
-  }
-
-  /**
-   * Returns the {@link ParserManager}.
-   * 
-   * @return the {@link ParserManager}.
-   */
-  public static ParserManager getManager() {
-    if (manager == null) {
-      manager = new ParserManager();
-    }
-    return manager;
-  }
-
-  /**
-   * 
-   */
-  private void init() {
+    Map<String, ReadingParser> readingParsers = new HashMap<String, ReadingParser>();
+    Map<String, WritingParser> writingParsers = new HashMap<String, WritingParser>();
+    Map<String, PackageParser> packageParsers = new HashMap<String, PackageParser>();
+    Map<String, String> namespaceToNameMap = new HashMap<String, String>();
+    List<Class<? extends ReadingParser>> readingParserClasses = new ArrayList<Class<? extends ReadingParser>>();
+    List<Class<? extends WritingParser>> writingParserClasses = new ArrayList<Class<? extends WritingParser>>();
+    List<Object> parsers = new ArrayList<Object>();
     List<String> classNames = new ArrayList<String>();
-    
+
     // TODO - each time we add one HashMap entry, check that it was not defined already
     // so that we notice problems as early as possible if two packages declared to take care of the same namespace
 
+    Iterator<ReadingParser> readingParserList = ServiceLoader.load(ReadingParser.class).iterator();
     while (readingParserList.hasNext()) {
       try {
         ReadingParser readingParser = readingParserList.next();
 
         if (readingParser != null) {
-
-          String packageName = "core";
           classNames.add(readingParser.getClass().getName());
-          
-          if (readingParser instanceof PackageParser) {
-            packageName = ((PackageParser) readingParser).getPackageName();
-            packageParsers.put(packageName, (PackageParser) readingParser);
-          }
-          for (String namespaceURI : readingParser.getNamespaces()) {
-            readingParsers.put(namespaceURI, readingParser);
-            namespaceToNameMap.put(namespaceURI, packageName);
-          }
-
-          if (readingParser instanceof WritingParser) {
-            for (String namespaceURI : readingParser.getNamespaces()) {
-              writingParsers.put(namespaceURI, (WritingParser) readingParser);
-            }
-          }
+          parsers.add(readingParser);
         }
       }
       catch (ServiceConfigurationError e){
@@ -143,78 +126,29 @@ public class ParserManager {
       }
     }
 
+    Iterator<WritingParser> writingParserList = ServiceLoader.load(WritingParser.class).iterator();
     while (writingParserList.hasNext()) {
       try {
         WritingParser writingParser = writingParserList.next();
 
         if (writingParser != null) {
-
-          String packageName = "core";
           classNames.add(writingParser.getClass().getName());
-
-          if (writingParser instanceof PackageParser) {
-            packageName = ((PackageParser) writingParser).getPackageName();
-            packageParsers.put(packageName, (PackageParser) writingParser);
-          }
-
-          for (String namespaceURI : writingParser.getNamespaces()) {
-            writingParsers.put(namespaceURI, writingParser);
-            namespaceToNameMap.put(namespaceURI, packageName);
-          }
+          parsers.add(writingParser);
         }
       }
       catch (ServiceConfigurationError e){
 
       }
     }
-    
+
     // TODO - check the maps and add the parsers by hand if they are not present.
     // prevent problems when developers are not setting properly eclipse, when jar 
     // files are not generated with 
- 
+
     for (String parserClassName  : parserDefaults) {
       if (! classNames.contains(parserClassName)) {
-        
         try {
-          Object newInstance = Class.forName(parserClassName).newInstance();
-          
-          if (newInstance instanceof ReadingParser) {
-            ReadingParser readingParser = (ReadingParser) newInstance;
-            
-            String packageName = "core";
-            
-            if (readingParser instanceof PackageParser) {
-              packageName = ((PackageParser) readingParser).getPackageName();
-              packageParsers.put(packageName, (PackageParser) readingParser);
-            }
-            for (String namespaceURI : readingParser.getNamespaces()) {
-              readingParsers.put(namespaceURI, readingParser);
-              namespaceToNameMap.put(namespaceURI, packageName);
-            }
-
-            if (readingParser instanceof WritingParser) {
-              for (String namespaceURI : readingParser.getNamespaces()) {
-                writingParsers.put(namespaceURI, (WritingParser) readingParser);
-              }
-            }
-          }
-          
-          if (newInstance instanceof WritingParser)
-          {
-            WritingParser writingParser = (WritingParser) newInstance;
-
-            String packageName = "core";
-
-            if (writingParser instanceof PackageParser) {
-              packageName = ((PackageParser) writingParser).getPackageName();
-              packageParsers.put(packageName, (PackageParser) writingParser);
-            }
-
-            for (String namespaceURI : writingParser.getNamespaces()) {
-              writingParsers.put(namespaceURI, writingParser);
-              namespaceToNameMap.put(namespaceURI, packageName);
-            }
-          }
+          parsers.add(Class.forName(parserClassName).newInstance());
         } catch (ClassNotFoundException e) 
         {
           if (logger.isDebugEnabled()) {
@@ -238,7 +172,54 @@ public class ParserManager {
       }
     }
 
+    for (Object parser : parsers) {
+      String packageName = "core";
+
+      if (parser instanceof PackageParser) {
+        packageName = ((PackageParser) parser).getPackageName();
+        packageParsers.put(packageName, (PackageParser) parser);
+      }
+
+      if (parser instanceof ReadingParser) {
+        ReadingParser readingParser = (ReadingParser) parser;
+
+        if (!readingParserClasses.contains(readingParser.getClass())) {
+          readingParserClasses.add(readingParser.getClass());
+        }
+        for (String namespaceURI : readingParser.getNamespaces()) {
+          readingParsers.put(namespaceURI, readingParser);
+          namespaceToNameMap.put(namespaceURI, packageName);
+        }
+      }
+
+      if (parser instanceof WritingParser) {
+        WritingParser writingParser = (WritingParser) parser;
 
+        if (!writingParserClasses.contains(writingParser.getClass())) {
+          writingParserClasses.add(writingParser.getClass());
+        }
+        for (String namespaceURI : writingParser.getNamespaces()) {
+          writingParsers.put(namespaceURI, writingParser);
+          namespaceToNameMap.put(namespaceURI, packageName);
+        }
+      }
+    }
+
+    this.readingParsers = Collections.unmodifiableMap(readingParsers);
+    this.writingParsers = Collections.unmodifiableMap(writingParsers);
+    this.packageParsers = Collections.unmodifiableMap(packageParsers);
+    this.namespaceToNameMap = Collections.unmodifiableMap(namespaceToNameMap);
+    this.readingParserClasses = Collections.unmodifiableList(readingParserClasses);
+    this.writingParserClasses = Collections.unmodifiableList(writingParserClasses);
+  }
+
+  /**
+   * Returns the {@link ParserManager}.
+   * 
+   * @return the {@link ParserManager}.
+   */
+  public static ParserManager getManager() {
+    return manager;
   }
 
   // <br /><dependency><br />
@@ -307,156 +288,66 @@ public class ParserManager {
   }
 
   /**
-   * Gets a copy of the registered {@link ReadingParser}s map.
+   * Gets a copy of the registered {@link ReadingParser}s map. The parsers are
+   * new instances, so that they can be used to read one document.
    * 
    * @return a copy of the registered {@link ReadingParser}s map.
    */
   public Map<String, ReadingParser> getReadingParsers() {
 
     Map<String, ReadingParser> clonedMap = new HashMap<String, ReadingParser>();
-    List<String> classNames = new ArrayList<String>();
 
-    while (readingParserList.hasNext()) {
-      try {
-        ReadingParser readingParser = readingParserList.next();
-
-        if (readingParser != null) {
+    for (Class<? extends ReadingParser> parserClass : readingParserClasses) {
+      ReadingParser readingParser = newInstance(parserClass);
 
-          classNames.add(readingParser.getClass().getName());
-          
-          for (String namespaceURI : readingParser.getNamespaces()) {
-            clonedMap.put(namespaceURI, readingParser);
-          }
-        }
-      }
-      catch (ServiceConfigurationError e){
-        // No need to print the message again, it is printed once in the init() method
-      }
-    }
-    
-    for (String parserClassName  : parserDefaults) {
-      if (! classNames.contains(parserClassName)) {
-        
-        try {
-          Object newInstance = Class.forName(parserClassName).newInstance();
-          
-          if (newInstance instanceof ReadingParser) {
-            ReadingParser readingParser = (ReadingParser) newInstance;
-            
-            for (String namespaceURI : readingParser.getNamespaces()) {
-              clonedMap.put(namespaceURI, readingParser);
-            }
-          }
-        } catch (ClassNotFoundException e) 
-        {
-          if (logger.isDebugEnabled()) {
-            logger.debug("problem loading class '" + parserClassName + "': " + e.getMessage());
-          }
-        }
-        catch (InstantiationException e) 
-        {
-          if (logger.isDebugEnabled()) {
-            logger.debug("problem loading class '" + parserClassName + "': " + e.getMessage());
-            e.printStackTrace();
-          }
-        }
-        catch (IllegalAccessException e) 
-        {
-          if (logger.isDebugEnabled()) {
-            logger.debug("problem loading class '" + parserClassName + "': " + e.getMessage());
-            e.printStackTrace();
-          }
+      if (readingParser != null) {
+        for (String namespaceURI : readingParser.getNamespaces()) {
+          clonedMap.put(namespaceURI, readingParser);
         }
       }
     }
 
-
     return clonedMap;
   }
 
   /**
-   * Gets a copy of the registered {@link WritingParser}s map.
+   * Gets a copy of the registered {@link WritingParser}s map. The parsers are
+   * new instances, so that they can be used to write one document.
    * 
    * @return a copy of the registered {@link WritingParser}s map.
    */
   public Map<String, WritingParser> getWritingParsers() {
 
     Map<String, WritingParser> clonedMap = new HashMap<String, WritingParser>();
-    List<String> classNames = new ArrayList<String>();
-
-    while (readingParserList.hasNext()) {
-      try {
-        ReadingParser readingParser = readingParserList.next();
 
-        if (readingParser != null && readingParser instanceof WritingParser) {
+    for (Class<? extends WritingParser> parserClass : writingParserClasses) {
+      WritingParser writingParser = newInstance(parserClass);
 
-          classNames.add(readingParser.getClass().getName());
-
-          for (String namespaceURI : readingParser.getNamespaces()) {
-            clonedMap.put(namespaceURI, (WritingParser) readingParser);
-          }
+      if (writingParser != null) {
+        for (String namespaceURI : writingParser.getNamespaces()) {
+          clonedMap.put(namespaceURI, writingParser);
         }
       }
-      catch (ServiceConfigurationError e){
-        // No need to print the message again, it is printed once in the init() method
-      }
     }
 
-    while (writingParserList.hasNext()) {
-      try {
-        WritingParser writingParser = writingParserList.next();
-
-        if (writingParser != null) {
-
-          classNames.add(writingParser.getClass().getName());
-
-          for (String namespaceURI : writingParser.getNamespaces()) {
-            clonedMap.put(namespaceURI, writingParser);
-          }
-        }
-      }
-      catch (ServiceConfigurationError e){
-        e.printStackTrace();
-      }
-    }
+    return clonedMap;
+  }
 
-    for (String parserClassName  : parserDefaults) {
-      if (! classNames.contains(parserClassName)) {
-        
-        try {
-          Object newInstance = Class.forName(parserClassName).newInstance();
-          
-          if (newInstance instanceof WritingParser) {
-            WritingParser readingParser = (WritingParser) newInstance;
-            
-            for (String namespaceURI : readingParser.getNamespaces()) {
-              clonedMap.put(namespaceURI, readingParser);
-            }
-          }
-        } catch (ClassNotFoundException e) 
-        {
-          if (logger.isDebugEnabled()) {
-            logger.debug("problem loading class '" + parserClassName + "': " + e.getMessage());
-          }
-        }
-        catch (InstantiationException e) 
-        {
-          if (logger.isDebugEnabled()) {
-            logger.debug("problem loading class '" + parserClassName + "': " + e.getMessage());
-            e.printStackTrace();
-          }
-        }
-        catch (IllegalAccessException e) 
-        {
-          if (logger.isDebugEnabled()) {
-            logger.debug("problem loading class '" + parserClassName + "': " + e.getMessage());
-            e.printStackTrace();
-          }
-        }
-      }
+  /**
+   * Creates a new instance of a registered parser class.
+   * 
+   * @param parserClass
+   * @return a new parser or {@code null} if the class cannot be instantiated.
+   */
+  private static <T> T newInstance(Class<T> parserClass) {
+    try {
+      return parserClass.newInstance();
+    } catch (InstantiationException e) {
+      logger.debug("problem loading class '" + parserClass.getName() + "': " + e.getMessage());
+    } catch (IllegalAccessException e) {
+      logger.debug("problem loading class '" + parserClass.getName() + "': " + e.getMessage());
     }
-
-    return clonedMap;
+    return null;
   }
 
   /**
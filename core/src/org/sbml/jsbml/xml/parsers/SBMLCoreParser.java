@@ -21,6 +21,7 @@ package org.sbml.jsbml.xml.parsers;
 
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -65,8 +66,6 @@ import org.sbml.jsbml.Unit;
 import org.sbml.jsbml.UnitDefinition;
 import org.sbml.jsbml.util.ResourceManager;
 import org.sbml.jsbml.util.SBMLtools;
-import org.sbml.jsbml.util.TreeNodeWithChangeSupport;
-import org.sbml.jsbml.util.filters.Filter;
 import org.sbml.jsbml.xml.XMLAttributes;
 import org.sbml.jsbml.xml.XMLNode;
 import org.sbml.jsbml.xml.XMLTriple;
@@ -90,9 +89,16 @@ public class SBMLCoreParser implements ReadingParser, WritingParser {
 
   /**
    * This map contains all the relationships XML element name <=> matching
-   * java class.
+   * java class. It is loaded once and shared by all instances, which may
+   * read different documents concurrently.
    */
-  private Map<String, Class<? extends Object>> sbmlCoreElements;
+  private static final Map<String, Class<? extends Object>> sbmlCoreElements;
+
+  static {
+    Map<String, Class<? extends Object>> elements = new HashMap<String, Class<? extends Object>>();
+    JSBML.loadClasses("org/sbml/jsbml/resources/cfg/SBMLCoreElements.xml", elements);
+    sbmlCoreElements = Collections.unmodifiableMap(elements);
+  }
 
   /**
    * Log4j logger
@@ -105,15 +111,11 @@ public class SBMLCoreParser implements ReadingParser, WritingParser {
   private static final transient ResourceBundle bundle = ResourceManager.getBundle("org.sbml.jsbml.resources.cfg.Messages");
 
   /**
-   * Creates a SBMLCoreParser instance. Initializes the sbmlCoreElements of
-   * this PackageParser.
+   * Creates a SBMLCoreParser instance.
    * 
    */
   public SBMLCoreParser() {
-    sbmlCoreElements = new HashMap<String, Class<? extends Object>>();
-    // Initializes the sbmlCoreElements of this parser.
-    JSBML.loadClasses("org/sbml/jsbml/resources/cfg/SBMLCoreElements.xml",
-      sbmlCoreElements);
+    super();
   }
 
   /* (non-Javadoc)
@@ -588,26 +590,6 @@ public class SBMLCoreParser implements ReadingParser, WritingParser {
     } else { // no Model element defined
       // logger.error("The Model element has not been created."); // No need to log this error. And in L3V2, it is allowed to not have a Model element
     }
-
-    // Go through the whole document (using a fake filter!) to remove the variable that says that we were in the process of reading an xml stream.
-    sbmlDocument.filter(new Filter() {
-      
-      @Override
-      public boolean accepts(Object o) {
-        if (o instanceof TreeNodeWithChangeSupport) {
-          if (((TreeNodeWithChangeSupport) o).isSetUserObjects()) {
-            ((TreeNodeWithChangeSupport) o).userObjectKeySet().remove(JSBML.READING_IN_PROGRESS);
-          } // else if (! ((o instanceof TreeNodeAdapter) || (o instanceof XMLNode))) {
-//            System.out.println("######### user objects not set !!!!!!!! " + o + " class name = " + o.getClass().getSimpleName());
-//          }
-        }
-        return false;
-      }
-    });
-    
-    logger.debug("Starting to check the package version and namespace for all package elements");
-    // checks silently package version and namespace and try to fix any problems encountered.
-    PackageUtil.checkPackages(sbmlDocument, true, true);
   }
 
   /* (non-Javadoc)
@@ -511,9 +511,6 @@ public class SBMLRDFAnnotationParser implements AnnotationReader, AnnotationWrit
           removeXmlNodeIfEmpty(rdfNode);
         }
       }
-      if (contextObject.isSetHistory()) {
-        contextObject.getHistory().putUserObject(JSBML.READING_IN_PROGRESS, Boolean.TRUE);
-      }
     }
 
     /**
@@ -747,7 +744,6 @@ public class SBMLRDFAnnotationParser implements AnnotationReader, AnnotationWrit
 
         Creator creator = new Creator();
         contextSBase.getHistory().addCreator(creator);
-        creator.putUserObject(JSBML.READING_IN_PROGRESS, Boolean.TRUE);
 
         // get name information
         List<XMLNode> nameNodes = liNode.getChildElements("N", Creator.URI_RDF_VCARD_NS);
@@ -957,7 +953,6 @@ public class SBMLRDFAnnotationParser implements AnnotationReader, AnnotationWrit
 
         CVTerm.Qualifier qualifier = CVTerm.Qualifier.getModelQualifierFor(bqmodelNode.getName());
         CVTerm cvTerm = new CVTerm(CVTerm.Type.MODEL_QUALIFIER, qualifier, resources.toArray(new String[resources.size()]));
-        cvTerm.putUserObject(JSBML.READING_IN_PROGRESS, Boolean.TRUE);
 
         if (!qualifier.getElementNameEquivalent().equals(bqmodelNode.getName())) {
           // The qualifier was not recognized properly, it might have been created after the last JSBML release.
@@ -1019,7 +1014,6 @@ public class SBMLRDFAnnotationParser implements AnnotationReader, AnnotationWrit
 
         CVTerm.Qualifier qualifier = CVTerm.Qualifier.getBiologicalQualifierFor(bqbiolNode.getName());
         CVTerm cvTerm = new CVTerm(CVTerm.Type.BIOLOGICAL_QUALIFIER, qualifier, resources.toArray(new String[resources.size()]));
-        cvTerm.putUserObject(JSBML.READING_IN_PROGRESS, Boolean.TRUE);
 
         if (!qualifier.getElementNameEquivalent().equals(bqbiolNode.getName())) {
           // The qualifier was not recognized properly, it might have been created after the last JSBML release.
@@ -0,0 +1,190 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.xml.stax;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.MessageFormat;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Opens SBML files that may be compressed in gzip format or packed into a zip
+ * archive, such as a COMBINE archive. The format is recognized from the
+ * first bytes of the file, not from its name. The content is always streamed
+ * and never read into memory as a whole.
+ * 
+ * @since 1.6
+ */
+final class CompressedInput {
+
+  /**
+   * The size of the buffers for reading.
+   */
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /**
+   * The name of the manifest of a COMBINE archive.
+   */
+  private static final String MANIFEST = "manifest.xml";
+
+  /**
+   * Opens the given file for reading. A gzip file is decompressed on the fly.
+   * Of a zip archive, the SBML file is returned that its manifest declares as
+   * master file, or the first SBML file in the manifest, or else the first
+   * XML file in the archive.
+   * 
+   * @param file
+   * @return a stream with the uncompressed XML content of the given file.
+   * @throws IOException if the file cannot be read or if a zip archive does
+   *         not contain any XML file.
+   */
+  static InputStream open(File file) throws IOException {
+    BufferedInputStream stream = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+    try {
+      stream.mark(4);
+      int b0 = stream.read(), b1 = stream.read(), b2 = stream.read(), b3 = stream.read();
+      stream.reset();
+      if ((b0 == 0x1f) && (b1 == 0x8b)) {
+        return new GZIPInputStream(stream, BUFFER_SIZE);
+      }
+      if ((b0 == 'P') && (b1 == 'K') && (b2 == 3) && (b3 == 4)) {
+        stream.close();
+        return openZipEntry(file);
+      }
+      return stream;
+    } catch (IOException exc) {
+      stream.close();
+      throw exc;
+    }
+  }
+
+  /**
+   * 
+   * @param file a zip archive.
+   * @return a stream that reads the SBML file in the given archive and that
+   *         closes the archive when it is closed.
+   * @throws IOException
+   */
+  private static InputStream openZipEntry(File file) throws IOException {
+    final ZipFile zip = new ZipFile(file);
+    try {
+      ZipEntry entry = findSBMLEntry(zip);
+      if (entry == null) {
+        throw new IOException(MessageFormat.format(
+          "The archive {0} does not contain any SBML file.", file.getAbsolutePath()));
+      }
+      return new FilterInputStream(zip.getInputStream(entry)) {
+
+        /* (non-Javadoc)
+         * @see java.io.FilterInputStream#close()
+         */
+        @Override
+        public void close() throws IOException {
+          try {
+            super.close();
+          } finally {
+            zip.close();
+          }
+        }
+      };
+    } catch (IOException exc) {
+      zip.close();
+      throw exc;
+    }
+  }
+
+  /**
+   * 
+   * @param zip
+   * @return the entry of the SBML file in the given archive, or {@code null}.
+   * @throws IOException
+   */
+  private static ZipEntry findSBMLEntry(ZipFile zip) throws IOException {
+    ZipEntry manifest = zip.getEntry(MANIFEST);
+    if (manifest != null) {
+      String location = readMasterLocation(zip, manifest);
+      if (location != null) {
+        ZipEntry entry = zip.getEntry(location.startsWith("./") ? location.substring(2) : location);
+        if (entry != null) {
+          return entry;
+        }
+      }
+    }
+    for (Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements();) {
+      ZipEntry entry = entries.nextElement();
+      if (!entry.isDirectory() && !entry.getName().equals(MANIFEST)
+          && entry.getName().toLowerCase().endsWith(".xml")) {
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * 
+   * @param zip
+   * @param manifest
+   * @return the location of the SBML master file, or else of the first SBML
+   *         file, in the given manifest, or {@code null}.
+   * @throws IOException
+   */
+  private static String readMasterLocation(ZipFile zip, ZipEntry manifest) throws IOException {
+    InputStream stream = zip.getInputStream(manifest);
+    try {
+      XMLStreamReader reader = SBMLReader.createXMLStreamReader(stream);
+      String first = null;
+      try {
+        while (reader.hasNext()) {
+          if ((reader.next() == XMLStreamConstants.START_ELEMENT)
+              && reader.getLocalName().equals("content")) {
+            String format = reader.getAttributeValue(null, "format");
+            String location = reader.getAttributeValue(null, "location");
+            if ((format != null) && (location != null) && format.contains("sbml")) {
+              if ("true".equals(reader.getAttributeValue(null, "master"))) {
+                return location;
+              } else if (first == null) {
+                first = location;
+              }
+            }
+          }
+        }
+      } finally {
+        reader.close();
+      }
+      return first;
+    } catch (XMLStreamException exc) {
+      throw new IOException(exc);
+    } finally {
+      stream.close();
+    }
+  }
+
+}
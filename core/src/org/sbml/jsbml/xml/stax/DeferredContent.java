@@ -0,0 +1,217 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.xml.stax;
+
+import java.io.Serializable;
+import java.text.MessageFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.log4j.Logger;
+import org.sbml.jsbml.AbstractSBase;
+
+/**
+ * Holds child elements of an {@link AbstractSBase} in their XML form, whose
+ * parsing has been deferred by the {@link SBMLReader}, see
+ * {@link SBMLReader#setContentPolicy(String, SBMLReader.ContentPolicy)}. The
+ * elements are parsed into their parent when they are accessed for the first
+ * time.
+ * 
+ * <p>The elements are grouped by their kind: {@link #NOTES},
+ * {@link #ANNOTATION}, or the namespace URI of the package they belong to.</p>
+ * 
+ * @since 1.6
+ */
+public class DeferredContent implements Serializable {
+
+  /**
+   * The kind of the annotation element.
+   */
+  public static final String ANNOTATION = "annotation";
+
+  /**
+   * The kind of the notes element.
+   */
+  public static final String NOTES = "notes";
+
+  /**
+   * Stands for the elements of all packages when deferred elements are
+   * resolved, see {@link #resolve(AbstractSBase, String)}.
+   */
+  public static final String PACKAGES = "packages";
+
+  /**
+   * The name of the element that encloses the deferred elements when they are
+   * parsed.
+   */
+  static final String ENCLOSING_ELEMENT = "deferred";
+
+  /**
+   * A {@link Logger} for this class.
+   */
+  private static final transient Logger logger = Logger.getLogger(DeferredContent.class);
+
+  /**
+   * The readers of each thread that parse deferred elements.
+   */
+  private static final ThreadLocal<SBMLReader> readers = new ThreadLocal<SBMLReader>();
+
+  /**
+   * Generated serial version identifier.
+   */
+  private static final long serialVersionUID = 5476384393711000328L;
+
+  /**
+   * The XML of the deferred elements of each kind in document order.
+   */
+  private final Map<String, String> elements;
+
+  /**
+   * The declarations of all namespaces that are in scope for the deferred
+   * elements.
+   */
+  private final String namespaces;
+
+  /**
+   * @param namespaces
+   *        the declarations of all namespaces that are in scope for the
+   *        deferred elements, e.g., {@code " xmlns=\"...\""}.
+   */
+  DeferredContent(String namespaces) {
+    this.namespaces = namespaces;
+    elements = new LinkedHashMap<String, String>(4);
+  }
+
+  /**
+   * Adds the XML of an element of the given kind.
+   * 
+   * @param kind
+   * @param xml
+   */
+  void add(String kind, String xml) {
+    String previous = elements.get(kind);
+    elements.put(kind, (previous != null) ? previous + xml : xml);
+  }
+
+  /**
+   * Checks whether elements of the given kind are deferred.
+   * 
+   * @param kind
+   *        {@link #NOTES}, {@link #ANNOTATION}, or a namespace URI.
+   * @return {@code true} if there are deferred elements of the given kind.
+   */
+  public boolean contains(String kind) {
+    return elements.containsKey(kind);
+  }
+
+  /**
+   * @return {@code true} if elements of some package are deferred.
+   */
+  private boolean containsPackageContent() {
+    int size = elements.size();
+    if (elements.containsKey(NOTES)) {
+      size--;
+    }
+    if (elements.containsKey(ANNOTATION)) {
+      size--;
+    }
+    return size > 0;
+  }
+
+  /**
+   * Drops the elements of the given kind without parsing them.
+   * 
+   * @param kind
+   *        {@link #NOTES}, {@link #ANNOTATION}, or a namespace URI.
+   */
+  public void discard(String kind) {
+    elements.remove(kind);
+  }
+
+  /**
+   * Returns the XML of the deferred elements of the given kind.
+   * 
+   * @param kind
+   *        {@link #NOTES}, {@link #ANNOTATION}, or a namespace URI.
+   * @return the XML of the deferred elements of the given kind or
+   *         {@code null} if there are none.
+   */
+  public String getXMLString(String kind) {
+    return elements.get(kind);
+  }
+
+  /**
+   * @return {@code true} if there are no deferred elements left.
+   */
+  public boolean isEmpty() {
+    return elements.isEmpty();
+  }
+
+  /**
+   * Parses the deferred elements of the given kind into the given parent.
+   * Problems are logged, since they cannot occur for elements that have been
+   * read before.
+   * 
+   * @param parent
+   *        the element that contained the deferred elements.
+   * @param kind
+   *        {@link #NOTES}, {@link #ANNOTATION}, {@link #PACKAGES} for the
+   *        elements of all packages, or {@code null} for all deferred
+   *        elements.
+   */
+  public void resolve(AbstractSBase parent, String kind) {
+    boolean packages = PACKAGES.equals(kind);
+    if ((kind == null) ? elements.isEmpty()
+        : (packages ? !containsPackageContent() : !elements.containsKey(kind))) {
+      return;
+    }
+    StringBuilder xml = new StringBuilder();
+    xml.append('<').append(ENCLOSING_ELEMENT).append(namespaces).append('>');
+    if ((kind == null) || packages) {
+      Iterator<Map.Entry<String, String>> iterator = elements.entrySet().iterator();
+      while (iterator.hasNext()) {
+        Map.Entry<String, String> entry = iterator.next();
+        if ((kind == null) || (!entry.getKey().equals(NOTES) && !entry.getKey().equals(ANNOTATION))) {
+          xml.append(entry.getValue());
+          iterator.remove();
+        }
+      }
+    } else {
+      xml.append(elements.remove(kind));
+    }
+    xml.append("</").append(ENCLOSING_ELEMENT).append('>');
+
+    SBMLReader reader = readers.get();
+    if (reader == null) {
+      reader = new SBMLReader();
+      readers.set(reader);
+    }
+    try {
+      reader.readDeferredContent(parent, xml.toString());
+    } catch (XMLStreamException exc) {
+      logger.error(MessageFormat.format(
+        "Could not parse the deferred content of {0}: {1}", parent, exc.getMessage()));
+    }
+  }
+
+}
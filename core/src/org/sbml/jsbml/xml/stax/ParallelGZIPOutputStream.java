@@ -0,0 +1,386 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.xml.stax;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * An {@link OutputStream} that writes its data in gzip format and compresses
+ * it with several threads.
+ * 
+ * <p>The data is split into blocks that are compressed concurrently on a
+ * {@link ForkJoinPool}. Each block uses the last 32 KiB of its predecessor as
+ * preset dictionary, so that the compression ratio is nearly the same as with
+ * a single thread. The compressed blocks are written in order as soon as they
+ * are complete, i.e., only a few blocks are kept in memory at any time. The
+ * result is a single gzip member that can be read with
+ * {@link java.util.zip.GZIPInputStream} or any other gzip tool.</p>
+ * 
+ * <p>Calling {@link #flush()} ends the current block, which impairs the
+ * compression if done frequently.</p>
+ * 
+ * @since 1.6
+ */
+public class ParallelGZIPOutputStream extends FilterOutputStream {
+
+  /**
+   * Compresses a single block.
+   */
+  private static class Block implements Callable<byte[]> {
+
+    /**
+     * The uncompressed data.
+     */
+    private final byte[] data;
+    /**
+     * The number of bytes in {@link #data}.
+     */
+    private final int length;
+    /**
+     * The uncompressed data of the previous block, or {@code null}.
+     */
+    private final byte[] previous;
+    /**
+     * The number of bytes in {@link #previous}.
+     */
+    private final int previousLength;
+    /**
+     * Whether this is the final block of the stream.
+     */
+    private final boolean last;
+
+    /**
+     * 
+     * @param data
+     * @param length
+     * @param previous
+     * @param previousLength
+     * @param last
+     */
+    public Block(byte[] data, int length, byte[] previous, int previousLength, boolean last) {
+      this.data = data;
+      this.length = length;
+      this.previous = previous;
+      this.previousLength = previousLength;
+      this.last = last;
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.concurrent.Callable#call()
+     */
+    @Override
+    public byte[] call() {
+      Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+      try {
+        if (previousLength > 0) {
+          int size = Math.min(previousLength, DICTIONARY_SIZE);
+          deflater.setDictionary(previous, previousLength - size, size);
+        }
+        deflater.setInput(data, 0, length);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length / 2 + 64);
+        byte[] buffer = new byte[1 << 14];
+        if (last) {
+          deflater.finish();
+          while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+          }
+        } else {
+          // A sync flush ends on a byte boundary, so that blocks can be concatenated.
+          int count;
+          do {
+            count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+            out.write(buffer, 0, count);
+          } while (count == buffer.length);
+        }
+        return out.toByteArray();
+      } finally {
+        deflater.end();
+      }
+    }
+
+  }
+
+  /**
+   * The number of uncompressed bytes per block.
+   */
+  private static final int BLOCK_SIZE = 1 << 17;
+
+  /**
+   * The maximal size of a preset dictionary for the deflate algorithm.
+   */
+  private static final int DICTIONARY_SIZE = 1 << 15;
+
+  /**
+   * The header of a gzip member without file name, modification time or
+   * comment.
+   */
+  private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+  /**
+   * The data of the current block.
+   */
+  private byte[] block;
+
+  /**
+   * The number of bytes in {@link #block}.
+   */
+  private int count;
+
+  /**
+   * The checksum of all uncompressed data.
+   */
+  private final CRC32 crc;
+
+  /**
+   * Whether the trailer has already been written.
+   */
+  private boolean finished;
+
+  /**
+   * The blocks being compressed, in the order of the data.
+   */
+  private final Deque<Future<byte[]>> pending;
+
+  /**
+   * The pool compressing the blocks, or {@code null} if they are compressed
+   * in the calling thread.
+   */
+  private final ForkJoinPool pool;
+
+  /**
+   * The uncompressed data of the previous block, or {@code null}.
+   */
+  private byte[] previous;
+
+  /**
+   * The number of bytes in {@link #previous}.
+   */
+  private int previousLength;
+
+  /**
+   * The total number of uncompressed bytes.
+   */
+  private long size;
+
+  /**
+   * The number of threads.
+   */
+  private final int threadCount;
+
+  /**
+   * Creates a new stream that compresses with one thread per available
+   * processor.
+   * 
+   * @param out the stream to write the compressed data to.
+   * @throws IOException if the header cannot be written.
+   */
+  public ParallelGZIPOutputStream(OutputStream out) throws IOException {
+    this(out, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Creates a new stream that compresses with the given number of threads.
+   * 
+   * @param out the stream to write the compressed data to.
+   * @param threadCount the number of threads, 1 to compress in the calling
+   *        thread.
+   * @throws IOException if the header cannot be written.
+   * @throws IllegalArgumentException if the number is smaller than 1.
+   */
+  public ParallelGZIPOutputStream(OutputStream out, int threadCount) throws IOException {
+    super(out);
+    if (threadCount < 1) {
+      throw new IllegalArgumentException("The number of threads must be positive.");
+    }
+    this.threadCount = threadCount;
+    pool = threadCount > 1 ? new ForkJoinPool(threadCount) : null;
+    pending = new ArrayDeque<Future<byte[]>>();
+    crc = new CRC32();
+    block = new byte[BLOCK_SIZE];
+    out.write(HEADER);
+  }
+
+  /**
+   * Discards all data that has not been written yet and stops the threads
+   * compressing it, without closing the underlying stream. Nothing can be
+   * written afterwards. Calling this method after {@link #finish()} has no
+   * effect.
+   */
+  void abort() {
+    if (!finished) {
+      finished = true;
+      for (Future<byte[]> future : pending) {
+        future.cancel(true);
+      }
+      pending.clear();
+    }
+    if (pool != null) {
+      pool.shutdownNow();
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see java.io.FilterOutputStream#close()
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      finish();
+    } finally {
+      if (pool != null) {
+        pool.shutdownNow();
+      }
+      out.close();
+    }
+  }
+
+  /**
+   * Compresses all remaining data and writes the gzip trailer without closing
+   * the underlying stream. Nothing can be written afterwards.
+   * 
+   * @throws IOException if an I/O error occurs.
+   */
+  public void finish() throws IOException {
+    if (!finished) {
+      submit(true);
+      while (!pending.isEmpty()) {
+        writeBlock(pending.removeFirst());
+      }
+      writeInt((int) crc.getValue());
+      writeInt((int) size);
+      finished = true;
+      if (pool != null) {
+        pool.shutdown();
+      }
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see java.io.FilterOutputStream#flush()
+   */
+  @Override
+  public void flush() throws IOException {
+    if (!finished) {
+      if (count > 0) {
+        submit(false);
+      }
+      while (!pending.isEmpty()) {
+        writeBlock(pending.removeFirst());
+      }
+    }
+    out.flush();
+  }
+
+  /**
+   * Hands the current block over to compression and starts a new one.
+   * 
+   * @param last whether this is the final block of the stream.
+   * @throws IOException if an I/O error occurs.
+   */
+  private void submit(boolean last) throws IOException {
+    Block task = new Block(block, count, previous, previousLength, last);
+    if (pool == null) {
+      out.write(task.call());
+    } else {
+      pending.addLast(pool.submit(task));
+      // Bound the memory by waiting for the oldest block.
+      while (pending.size() > 2 * threadCount) {
+        writeBlock(pending.removeFirst());
+      }
+    }
+    previous = block;
+    previousLength = count;
+    block = new byte[BLOCK_SIZE];
+    count = 0;
+  }
+
+  /* (non-Javadoc)
+   * @see java.io.FilterOutputStream#write(byte[], int, int)
+   */
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    if (finished) {
+      throw new IOException("The stream has already been finished.");
+    }
+    crc.update(b, off, len);
+    size += len;
+    while (len > 0) {
+      int n = Math.min(len, BLOCK_SIZE - count);
+      System.arraycopy(b, off, block, count, n);
+      count += n;
+      off += n;
+      len -= n;
+      if (count == BLOCK_SIZE) {
+        submit(false);
+      }
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see java.io.FilterOutputStream#write(int)
+   */
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[] {(byte) b}, 0, 1);
+  }
+
+  /**
+   * Waits for the given block and writes it.
+   * 
+   * @param future
+   * @throws IOException if the compression failed or an I/O error occurs.
+   */
+  private void writeBlock(Future<byte[]> future) throws IOException {
+    try {
+      out.write(future.get());
+    } catch (InterruptedException exc) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(exc.getMessage());
+    } catch (ExecutionException exc) {
+      throw new IOException(exc.getCause());
+    }
+  }
+
+  /**
+   * Writes the given value in little endian byte order.
+   * 
+   * @param value
+   * @throws IOException
+   */
+  private void writeInt(int value) throws IOException {
+    out.write(value & 0xff);
+    out.write((value >>> 8) & 0xff);
+    out.write((value >>> 16) & 0xff);
+    out.write((value >>> 24) & 0xff);
+  }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.xml.stax;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.SBase;
+import org.sbml.jsbml.xml.XMLException;
+import org.sbml.jsbml.xml.stax.SBMLReader.ReadingState;
+
+/**
+ * Reads an SBML document element by element, see
+ * {@link SBMLReader#readSBMLElements(java.io.InputStream, Class...)}. Each
+ * call of {@link #next()} reads the document only as far as needed to
+ * complete the next element. Errors while reading are thrown as
+ * {@link XMLException}s, whose cause is the original
+ * {@link XMLStreamException}.
+ * 
+ * @since 1.6
+ */
+public class SBMLElementIterator implements Iterator<SBase>, Closeable {
+
+  /**
+   * 
+   */
+  private final XMLCursor cursor;
+
+  /**
+   * The next element or {@code null} if it has not been read yet.
+   */
+  private SBase next;
+
+  /**
+   * 
+   */
+  private final SBMLReader reader;
+
+  /**
+   * The stream, from which the document is read, if it should be closed
+   * together with this iterator, or {@code null}.
+   */
+  private final Closeable source;
+
+  /**
+   * 
+   */
+  private final ReadingState state;
+
+  /**
+   * 
+   */
+  private final XMLStreamReader xmlStreamReader;
+
+  /**
+   * @param reader
+   * @param xmlStreamReader
+   * @param source
+   * @param types
+   */
+  SBMLElementIterator(SBMLReader reader, XMLStreamReader xmlStreamReader, Closeable source, Class<?>[] types) {
+    this.reader = reader;
+    this.xmlStreamReader = xmlStreamReader;
+    this.source = source;
+    cursor = new XMLCursor.StreamCursor(xmlStreamReader);
+    state = reader.createReadingState(null);
+    state.streamedTypes = (types == null) ? new Class<?>[0] : types;
+  }
+
+  /* (non-Javadoc)
+   * @see java.io.Closeable#close()
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      xmlStreamReader.close();
+    } catch (XMLStreamException exc) {
+      throw new IOException(exc);
+    } finally {
+      if (source != null) {
+        source.close();
+      }
+    }
+  }
+
+  /**
+   * Returns the document that is read. Until the end of the document has been
+   * reached, it is incomplete. It never contains the elements that are
+   * returned by this iterator.
+   * 
+   * @return the {@link SBMLDocument} that is read or {@code null} if the
+   *         sbml element has not been read yet.
+   */
+  public SBMLDocument getSBMLDocument() {
+    return state.getSBMLDocument();
+  }
+
+  /* (non-Javadoc)
+   * @see java.util.Iterator#hasNext()
+   */
+  @Override
+  public boolean hasNext() {
+    if ((next == null) && (state.document == null)) {
+      try {
+        next = reader.readNextElement(cursor, state);
+        if (next == null) {
+          close();
+        }
+      } catch (XMLStreamException exc) {
+        throw new XMLException(exc);
+      } catch (IOException exc) {
+        throw new XMLException(exc);
+      }
+    }
+    return next != null;
+  }
+
+  /* (non-Javadoc)
+   * @see java.util.Iterator#next()
+   */
+  @Override
+  public SBase next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    SBase element = next;
+    next = null;
+    return element;
+  }
+
+  /* (non-Javadoc)
+   * @see java.util.Iterator#remove()
+   */
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+}
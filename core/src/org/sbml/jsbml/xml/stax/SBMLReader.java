@@ -21,39 +21,43 @@ package org.sbml.jsbml.xml.stax;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Stack;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import javax.xml.namespace.QName;
+import javax.swing.tree.TreeNode;
 import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.events.Attribute;
-import javax.xml.stream.events.Characters;
-import javax.xml.stream.events.EndDocument;
-import javax.xml.stream.events.Namespace;
-import javax.xml.stream.events.StartDocument;
-import javax.xml.stream.events.StartElement;
-import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.XMLStreamReader;
 
 import org.apache.log4j.Logger;
 import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.AbstractSBase;
 import org.sbml.jsbml.ASTNode.Type;
-import org.sbml.jsbml.AbstractTreeNode;
 import org.sbml.jsbml.Annotation;
 import org.sbml.jsbml.Constraint;
 import org.sbml.jsbml.JSBML;
+import org.sbml.jsbml.ListOf;
 import org.sbml.jsbml.MathContainer;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.Reaction;
 import org.sbml.jsbml.SBMLDocument;
 import org.sbml.jsbml.SBMLException;
 import org.sbml.jsbml.SBase;
@@ -61,13 +65,13 @@ import org.sbml.jsbml.Species;
 import org.sbml.jsbml.util.SimpleTreeNodeChangeListener;
 import org.sbml.jsbml.util.StringTools;
 import org.sbml.jsbml.util.TreeNodeChangeListener;
-import org.sbml.jsbml.util.TreeNodeWithChangeSupport;
-import org.sbml.jsbml.util.filters.Filter;
 import org.sbml.jsbml.validator.offline.constraints.SBMLDocumentConstraints;
 import org.sbml.jsbml.xml.XMLNode;
 import org.sbml.jsbml.xml.parsers.AbstractReaderWriter;
 import org.sbml.jsbml.xml.parsers.AnnotationReader;
 import org.sbml.jsbml.xml.parsers.MathMLStaxParser;
+import org.sbml.jsbml.xml.parsers.PackageUtil;
+import org.sbml.jsbml.xml.parsers.PackageUtil.PackageChecker;
 import org.sbml.jsbml.xml.parsers.ParserManager;
 import org.sbml.jsbml.xml.parsers.ReadingParser;
 import org.sbml.jsbml.xml.parsers.SBMLCoreParser;
@@ -91,6 +95,258 @@ import com.ctc.wstx.stax.WstxInputFactory;
  */
 public class SBMLReader {
 
+  /**
+   * Defines how an {@link SBMLReader} deals with the notes, the annotations or
+   * the elements of a package, see
+   * {@link SBMLReader#setContentPolicy(String, ContentPolicy)}.
+   * 
+   * @since 1.6
+   */
+  public static enum ContentPolicy {
+    /**
+     * The elements are kept in their XML form and parsed into their parent
+     * element when they are accessed for the first time, see
+     * {@link DeferredContent}.
+     */
+    DEFER,
+    /**
+     * The elements are parsed while the document is read (default).
+     */
+    READ,
+    /**
+     * The elements are ignored, i.e., they are lost when the document is
+     * written again.
+     */
+    SKIP;
+  }
+
+  /**
+   * Keeps track of the namespace declarations of all open elements, so that
+   * deferred elements can be parsed on their own.
+   * 
+   * @since 1.6
+   */
+  private static class NamespaceScope {
+
+    /**
+     * The prefixes and URIs of all declarations of the open elements.
+     */
+    private String[] bindings = new String[2 * 16];
+
+    /**
+     * The declarations of all namespaces in scope or {@code null} if they
+     * have changed since they were created.
+     */
+    private String declarations = "";
+
+    /**
+     * The number of open elements.
+     */
+    private int depth;
+
+    /**
+     * The number of declarations before each open element.
+     */
+    private int[] marks = new int[32];
+
+    /**
+     * The number of declarations of the open elements.
+     */
+    private int size;
+
+    /**
+     * Returns the declarations of all namespaces that are in scope. The same
+     * {@link String} is returned as long as the scope does not change.
+     * 
+     * @return the declarations, e.g., {@code xmlns="..." xmlns:p="..."},
+     *         each preceded by a space.
+     */
+    String getDeclarations() {
+      if (declarations == null) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = size - 1; i >= 0; i--) {
+          String prefix = bindings[2 * i];
+          boolean shadowed = false;
+          for (int j = i + 1; (j < size) && !shadowed; j++) {
+            shadowed = prefix.equals(bindings[2 * j]);
+          }
+          if (!shadowed) {
+            sb.append(" xmlns");
+            if (prefix.length() > 0) {
+              sb.append(':').append(prefix);
+            }
+            sb.append("=\"");
+            appendEscaped(sb, bindings[2 * i + 1], true);
+            sb.append('"');
+          }
+        }
+        declarations = sb.toString();
+      }
+      return declarations;
+    }
+
+    /**
+     * Closes the most recently opened element.
+     */
+    void pop() {
+      int mark = marks[--depth];
+      if (mark != size) {
+        size = mark;
+        declarations = null;
+      }
+    }
+
+    /**
+     * Opens the element at the current position of the given cursor.
+     * 
+     * @param cursor
+     */
+    void push(XMLCursor cursor) {
+      if (depth == marks.length) {
+        marks = Arrays.copyOf(marks, 2 * depth);
+      }
+      marks[depth++] = size;
+      int count = cursor.getNamespaceCount();
+      if (count > 0) {
+        if (2 * (size + count) > bindings.length) {
+          bindings = Arrays.copyOf(bindings, 2 * (size + count) + bindings.length);
+        }
+        for (int i = 0; i < count; i++) {
+          bindings[2 * size] = cursor.getNamespacePrefix(i);
+          bindings[2 * size + 1] = cursor.getNamespaceURI(i);
+          size++;
+        }
+        declarations = null;
+      }
+    }
+
+  }
+
+  /**
+   * Holds everything that is known about the document that is currently
+   * read, so that its events can be processed one after another, see
+   * {@link SBMLElementIterator}.
+   * 
+   * @since 1.6
+   */
+  static class ReadingState {
+
+    /**
+     * The depth within the current annotation, -1 outside of annotations.
+     */
+    int annotationDeepness = -1;
+    /**
+     * The namespace of SBML core, as soon as it is needed.
+     */
+    String coreNamespace;
+    /**
+     * 
+     */
+    String currentNamespace;
+    /**
+     * 
+     */
+    String currentNode;
+    /**
+     * 
+     */
+    String currentPrefix;
+    /**
+     * The number of open elements.
+     */
+    int depth;
+    /**
+     * The complete document, as soon as its end has been processed.
+     */
+    SBMLDocument document;
+    /**
+     * The encoding declared in the XML declaration.
+     */
+    String encoding;
+    /**
+     * 
+     */
+    boolean isHTML;
+    /**
+     * 
+     */
+    boolean isInsideAnnotation;
+    /**
+     * 
+     */
+    boolean isNested;
+    /**
+     * 
+     */
+    boolean isText;
+    /**
+     * 
+     */
+    Object lastElement;
+    /**
+     * 
+     */
+    int level = -1;
+    /**
+     * 
+     */
+    TreeNodeChangeListener listener;
+    /**
+     * The namespaces in scope or {@code null} if they are not needed.
+     */
+    NamespaceScope namespaceScope;
+    /**
+     * The {@link PackageChecker} of this document.
+     */
+    PackageChecker packageChecker;
+    /**
+     * 
+     */
+    ReadingParser parser;
+    /**
+     * The stack of the open elements.
+     */
+    Stack<Object> sbmlElements = new Stack<Object>();
+    /**
+     * The most recent complete element of one of the {@link #streamedTypes}
+     * or {@code null}.
+     */
+    SBase streamedElement;
+    /**
+     * The types of the elements that are streamed, an empty array for all
+     * elements of the lists in the model, or {@code null} if the whole
+     * document is read.
+     */
+    Class<?>[] streamedTypes;
+    /**
+     * 
+     */
+    int version = -1;
+
+    /**
+     * @param listener
+     */
+    ReadingState(TreeNodeChangeListener listener) {
+      this.listener = listener;
+    }
+
+    /**
+     * @return the {@link SBMLDocument} that is read, without all the elements
+     * that have been streamed, or {@code null} if its sbml element has not
+     * been reached yet.
+     */
+    SBMLDocument getSBMLDocument() {
+      if (document != null) {
+        return document;
+      }
+      if (!sbmlElements.isEmpty() && (sbmlElements.firstElement() instanceof SBMLDocument)) {
+        return (SBMLDocument) sbmlElements.firstElement();
+      }
+      return null;
+    }
+
+  }
+
   // Commenting out this static block as setting those system properties has some unwanted side
   // effect, for example in OSGi where the properties are global
   // The fact to use directly WstxOutputFactory and WstxInputFactory when creating the parser
@@ -102,12 +358,18 @@ public class SBMLReader {
   //    System.setProperty("javax.xml.stream.XMLEventFactory", "com.ctc.wstx.stax.WstxEventFactory");
   //  }
 
-  private static Map<String, Class<? extends AnnotationReader>> annotationParserClasses = new HashMap<String, Class<? extends AnnotationReader>>();
+  /**
+   * The classes of the annotation parsers, which are loaded once and not
+   * changed afterwards.
+   */
+  private static final Map<String, Class<? extends AnnotationReader>> annotationParserClasses;
 
  static {
    
    // loading the annotation parsers once
-   JSBML.loadClasses("org/sbml/jsbml/resources/cfg/annotationParsers.xml", annotationParserClasses);
+   Map<String, Class<? extends AnnotationReader>> classes = new HashMap<String, Class<? extends AnnotationReader>>();
+   JSBML.loadClasses("org/sbml/jsbml/resources/cfg/annotationParsers.xml", classes);
+   annotationParserClasses = Collections.unmodifiableMap(classes);
 
   }
 
@@ -129,11 +391,36 @@ public class SBMLReader {
    */
   private MathContainer astNodeParent;
 
+  /**
+   * Checks the package version and namespace of each element of the
+   * document that is currently read, as soon as the element is complete.
+   */
+  private PackageChecker packageChecker;
+
+  /**
+   * How the notes, the annotations and the elements of the packages are read,
+   * keyed by {@code "notes"}, {@code "annotation"}, a package name or a
+   * namespace URI.
+   */
+  private Map<String, ContentPolicy> contentPolicies = new HashMap<String, ContentPolicy>();
+
+  /**
+   * The {@link ContentPolicy} of each namespace URI that occurred so far.
+   */
+  private Map<String, ContentPolicy> namespacePolicies = new HashMap<String, ContentPolicy>();
+
+  /**
+   * The element, whose deferred child elements are currently parsed, see
+   * {@link #readDeferredContent(AbstractSBase, String)}.
+   */
+  private AbstractSBase deferredParent;
+
 
   /**
-   * Initialize a static instance of the core parser.
+   * The core parser of this reader. Every reader has its own parsers, so
+   * that several readers can read documents at the same time.
    */
-  private static SBMLCoreParser sbmlCoreParser = new SBMLCoreParser();
+  private final SBMLCoreParser sbmlCoreParser = new SBMLCoreParser();
 
   /**
    * A {@link Logger} for this class.
@@ -163,15 +450,12 @@ public class SBMLReader {
 
   /**
    * Associates any unknown namespaces with the {@link AnnotationReader}.
-   * @param startElement
+   * @param cursor the cursor, positioned on the start of an element.
    */
-  private void addAnnotationParsers(StartElement startElement)
+  private void addAnnotationParsers(XMLCursor cursor)
   {
-    @SuppressWarnings("unchecked")
-    Iterator<Namespace> namespacesIterator = startElement.getNamespaces();
-
-    while (namespacesIterator.hasNext()) {
-      String namespaceURI = namespacesIterator.next().getNamespaceURI();
+    for (int i = 0; i < cursor.getNamespaceCount(); i++) {
+      String namespaceURI = cursor.getNamespaceURI(i);
 
       if (initializedParsers.get(namespaceURI) == null) {
         initializedParsers.put(namespaceURI, initializedParsers.get("anyXML"));
@@ -200,6 +484,185 @@ public class SBMLReader {
   }
 
 
+  /**
+   * Returns how the given kind of content is read.
+   * 
+   * @param kind
+   *        {@code "notes"}, {@code "annotation"}, the name of a package or a
+   *        namespace URI.
+   * @return the {@link ContentPolicy} of the given kind of content.
+   * @see #setContentPolicy(String, ContentPolicy)
+   */
+  public ContentPolicy getContentPolicy(String kind) {
+    ContentPolicy policy = contentPolicies.get(kind);
+    return (policy != null) ? policy : ContentPolicy.READ;
+  }
+
+  /**
+   * Defines how the given kind of content is read. By default, all content is
+   * read.
+   * 
+   * <p>The notes and the annotations of all elements can be skipped or
+   * deferred, as well as the elements of a package or of any other namespace.
+   * Attributes of the elements that are read are never affected. Deferred
+   * elements are kept in their XML form and parsed into their parent element
+   * when they are accessed for the first time, e.g., through
+   * {@link SBase#getNotes()}, {@link SBase#getAnnotation()},
+   * {@link SBase#getPlugin(String)} or when walking through the tree. This
+   * saves time and memory if only few of them are needed. Inside annotations,
+   * notes or math, elements can only be skipped.</p>
+   * 
+   * @param kind
+   *        {@code "notes"}, {@code "annotation"}, the name of a package, such
+   *        as {@code "layout"}, or a namespace URI.
+   * @param policy
+   *        how to read the given kind of content, {@code null} stands for
+   *        {@link ContentPolicy#READ}.
+   */
+  public void setContentPolicy(String kind, ContentPolicy policy) {
+    if ((policy == null) || (policy == ContentPolicy.READ)) {
+      contentPolicies.remove(kind);
+    } else {
+      contentPolicies.put(kind, policy);
+    }
+    namespacePolicies.clear();
+  }
+
+  /**
+   * Returns how the given element is read.
+   * 
+   * @param elementName
+   * @param namespaceURI
+   * @param sbmlNamespace the namespace of the SBML core elements
+   * @return the {@link ContentPolicy} of the given element.
+   */
+  private ContentPolicy getContentPolicy(String elementName, String namespaceURI, String sbmlNamespace) {
+    if (namespaceURI.equals(sbmlNamespace)) {
+      if (elementName.equals("notes") || elementName.equals("annotation")) {
+        return getContentPolicy(elementName);
+      }
+      return ContentPolicy.READ;
+    }
+    ContentPolicy policy = namespacePolicies.get(namespaceURI);
+    if (policy == null) {
+      policy = contentPolicies.get(namespaceURI);
+      if (policy == null) {
+        String packageName = ParserManager.getManager().getPackageName(namespaceURI);
+        policy = (packageName != null) ? getContentPolicy(packageName) : ContentPolicy.READ;
+      }
+      namespacePolicies.put(namespaceURI, policy);
+    }
+    return policy;
+  }
+
+  /**
+   * Appends the given text to the given {@link StringBuilder} and escapes all
+   * characters that cannot appear literally in XML text or attribute values.
+   * 
+   * @param sb
+   * @param text
+   * @param isAttribute
+   */
+  private static void appendEscaped(StringBuilder sb, String text, boolean isAttribute) {
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      switch (c) {
+      case '&':
+        sb.append("&amp;");
+        break;
+      case '<':
+        sb.append("&lt;");
+        break;
+      case '>':
+        sb.append("&gt;");
+        break;
+      case '"':
+        sb.append(isAttribute ? "&quot;" : "\"");
+        break;
+      case '\r':
+        sb.append("&#13;");
+        break;
+      case '\n':
+        sb.append(isAttribute ? "&#10;" : "\n");
+        break;
+      case '\t':
+        sb.append(isAttribute ? "&#9;" : "\t");
+        break;
+      default:
+        sb.append(c);
+      }
+    }
+  }
+
+  /**
+   * Consumes the element at the current position of the given cursor
+   * including all its content and appends it to the given
+   * {@link StringBuilder}. Comments and processing instructions are dropped,
+   * as when reading the element.
+   * 
+   * @param cursor
+   *        the cursor, positioned on the start of an element; afterwards, it
+   *        is positioned on the end of this element.
+   * @param sb
+   *        the destination or {@code null} if the element is to be skipped.
+   * @throws XMLStreamException
+   */
+  private static void copyElement(XMLCursor cursor, StringBuilder sb) throws XMLStreamException {
+    int depth = 0;
+    int eventType = XMLCursor.START_ELEMENT;
+    while (true) {
+      if (eventType == XMLCursor.START_ELEMENT) {
+        depth++;
+        if (sb != null) {
+          sb.append('<');
+          appendQualifiedName(sb, cursor.getPrefix(), cursor.getLocalName());
+          for (int i = 0; i < cursor.getNamespaceCount(); i++) {
+            String prefix = cursor.getNamespacePrefix(i);
+            sb.append(" xmlns");
+            if (prefix.length() > 0) {
+              sb.append(':').append(prefix);
+            }
+            sb.append("=\"");
+            appendEscaped(sb, cursor.getNamespaceURI(i), true);
+            sb.append('"');
+          }
+          for (int i = 0; i < cursor.getAttributeCount(); i++) {
+            sb.append(' ');
+            appendQualifiedName(sb, cursor.getAttributePrefix(i), cursor.getAttributeLocalName(i));
+            sb.append("=\"");
+            appendEscaped(sb, cursor.getAttributeValue(i), true);
+            sb.append('"');
+          }
+          sb.append('>');
+        }
+      } else if (eventType == XMLCursor.END_ELEMENT) {
+        if (sb != null) {
+          sb.append("</");
+          appendQualifiedName(sb, cursor.getPrefix(), cursor.getLocalName());
+          sb.append('>');
+        }
+        if (--depth == 0) {
+          return;
+        }
+      } else if ((eventType == XMLCursor.CHARACTERS) && (sb != null)) {
+        appendEscaped(sb, cursor.getText(), false);
+      }
+      eventType = cursor.next();
+    }
+  }
+
+  /**
+   * @param sb
+   * @param prefix
+   * @param localName
+   */
+  private static void appendQualifiedName(StringBuilder sb, String prefix, String localName) {
+    if (prefix.length() > 0) {
+      sb.append(prefix).append(':');
+    }
+    sb.append(localName);
+  }
+
   /**
    * Reads the file that is passed as argument and write it to the console,
    * using the method {@link SBMLWriter#write(SBMLDocument, java.io.OutputStream)}.
@@ -289,7 +752,10 @@ public class SBMLReader {
   }
 
   /**
-   * Reads a SBML String from the given file.
+   * Reads a SBML String from the given file. The file may also be compressed
+   * in gzip format or be a zip archive, e.g., a COMBINE archive, in which
+   * case the SBML file that the manifest declares as master file is read.
+   * Compressed content is decompressed while it is parsed.
    *
    * @param file
    *            A file containing SBML content.
@@ -299,7 +765,7 @@ public class SBMLReader {
    * @throws XMLStreamException
    */
   public SBMLDocument readSBML(File file, TreeNodeChangeListener listener) throws IOException, XMLStreamException {
-    FileInputStream stream = new FileInputStream(file);
+    InputStream stream = CompressedInput.open(file);
     XMLStreamException exc1 = null;
     Object readObject = null;
     try {
@@ -389,6 +855,33 @@ public class SBMLReader {
     return readSBML(xmlEventReader, new SimpleTreeNodeChangeListener());
   }
 
+  /**
+   * Reads an {@link SBMLDocument} from the given {@link XMLStreamReader}.
+   * This is faster and needs less memory than reading from an
+   * {@link XMLEventReader}. The reader is not closed by this method.
+   *
+   * @param xmlStreamReader
+   * @param listener
+   * @return
+   * @throws XMLStreamException
+   * @since 1.6
+   */
+  public SBMLDocument readSBML(XMLStreamReader xmlStreamReader, TreeNodeChangeListener listener)
+      throws XMLStreamException {
+    return (SBMLDocument) readXMLFromXMLStreamReader(xmlStreamReader, listener);
+  }
+
+  /**
+   *
+   * @param xmlStreamReader
+   * @return
+   * @throws XMLStreamException
+   * @since 1.6
+   */
+  public SBMLDocument readSBML(XMLStreamReader xmlStreamReader) throws XMLStreamException {
+    return readSBML(xmlStreamReader, new SimpleTreeNodeChangeListener());
+  }
+
   /**
    * Reads a mathML String into an {@link ASTNode}.
    *
@@ -408,38 +901,12 @@ public class SBMLReader {
     if (object != null && object instanceof Constraint) {
       ASTNode math = ((Constraint) object).getMath();
       if (math != null) {
-        cleanTreeNode(math);
         return math;
       }
     }
     return null;
   }
 
-  /**
-   * Cleans the given node by removing user object(s) set during reading/parsing.
-   * 
-   * @param treeNode the node to be cleaned
-   */
-  private void cleanTreeNode(AbstractTreeNode treeNode)
-  {
-    // Go through the whole treeNode (using a fake filter!) to remove the variable that says that we were in the process of reading an xml stream.
-    treeNode.filter(new Filter() {
-
-      @Override
-      public boolean accepts(Object o) {
-        if (o instanceof TreeNodeWithChangeSupport) {
-          if (((TreeNodeWithChangeSupport) o).isSetUserObjects()) {
-            ((TreeNodeWithChangeSupport) o).userObjectKeySet().remove(JSBML.READING_IN_PROGRESS);
-          } // else if (! ((o instanceof TreeNodeAdapter) || (o instanceof XMLNode))) {
-          //	            System.out.println("######### user objects not set !!!!!!!! " + o + " class name = " + o.getClass().getSimpleName());
-          //	          }
-        }
-        return false;
-      }
-    });
-
-  }
-
   /**
    * Reads a mathML {@link String} into an {@link ASTNode}.
    *
@@ -462,7 +929,6 @@ public class SBMLReader {
     if (object != null && object instanceof Constraint) {
       ASTNode math = ((Constraint) object).getMath();
       if (math != null) {
-        cleanTreeNode(math);
         return math;
       }
     }
@@ -493,7 +959,6 @@ public class SBMLReader {
 
     if ((object != null) && (object instanceof Constraint)) {
       Constraint constraint = ((Constraint) object);
-      cleanTreeNode(constraint);
 
       if (constraint.isSetNotes()) {
         XMLNode notes = constraint.getNotes();
@@ -550,8 +1015,12 @@ public class SBMLReader {
     // see https://github.com/OWASP/CheatSheetSeries/blob/master/cheatsheets/XML_External_Entity_Prevention_Cheat_Sheet.md
     inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
     inputFactory.setProperty("javax.xml.stream.isSupportingExternalEntities", false);
-    XMLEventReader xmlEventReader = inputFactory.createXMLEventReader(stream);
-    return (SBMLDocument) readXMLFromXMLEventReader(xmlEventReader, listener);
+    XMLStreamReader xmlStreamReader = inputFactory.createXMLStreamReader(stream);
+    try {
+      return (SBMLDocument) readXMLFromXMLStreamReader(xmlStreamReader, listener);
+    } finally {
+      xmlStreamReader.close();
+    }
   }
 
   /**
@@ -565,16 +1034,130 @@ public class SBMLReader {
   }
 
   /**
-   * Reads a XML document from the given {@code stream}. It need to be a self contain part of
-   * an SBML document.
+   * Reads the given files concurrently on the given {@link ExecutorService}.
+   * Every file is read by its own {@link SBMLReader}, which uses the same
+   * {@link ContentPolicy}s as this reader. This method returns when all files
+   * have been read.
+   *
+   * @param files
+   *            the files to read, which may be compressed, see
+   *            {@link #readSBML(File, TreeNodeChangeListener)}.
+   * @param executor
+   * @return one completed {@link Future} per file, in the order of the given
+   *         files. Its {@link Future#get()} method returns the document or
+   *         throws an {@link ExecutionException}, whose cause is the
+   *         exception that occurred while reading the file. Note that a
+   *         {@link java.util.concurrent.ForkJoinPool} wraps this exception
+   *         into a {@link RuntimeException}.
+   * @throws InterruptedException
+   *             if the current thread is interrupted while waiting.
+   */
+  public List<Future<SBMLDocument>> readSBML(Collection<File> files,
+    ExecutorService executor) throws InterruptedException {
+    final Map<String, ContentPolicy> policies = new HashMap<String, ContentPolicy>(contentPolicies);
+    List<Callable<SBMLDocument>> tasks = new ArrayList<Callable<SBMLDocument>>(files.size());
+    for (final File file : files) {
+      tasks.add(new Callable<SBMLDocument>() {
+
+        /* (non-Javadoc)
+         * @see java.util.concurrent.Callable#call()
+         */
+        @Override
+        public SBMLDocument call() throws IOException, XMLStreamException {
+          SBMLReader reader = new SBMLReader();
+          reader.contentPolicies.putAll(policies);
+          return reader.readSBML(file);
+        }
+      });
+    }
+    return executor.invokeAll(tasks);
+  }
+
+  /**
+   * Reads the given files with the given number of threads, see
+   * {@link #readSBML(Collection, ExecutorService)}.
+   *
+   * @param files
+   * @param threadCount
+   *            the number of threads.
+   * @return one completed {@link Future} per file, in the order of the given
+   *         files.
+   * @throws InterruptedException
+   *             if the current thread is interrupted while waiting.
+   * @throws IllegalArgumentException
+   *             if the number of threads is smaller than 1.
+   */
+  public List<Future<SBMLDocument>> readSBML(Collection<File> files,
+    int threadCount) throws InterruptedException {
+    if (threadCount < 1) {
+      throw new IllegalArgumentException("The number of threads must be positive.");
+    }
+    // not a ForkJoinPool, which would wrap the exceptions of the readers
+    ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+    try {
+      return readSBML(files, pool);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Reads the given SBML file element by element, see
+   * {@link #readSBMLElements(InputStream, Class...)}. The file is closed when
+   * the returned iterator is closed or exhausted. The file may be compressed,
+   * see {@link #readSBML(File, TreeNodeChangeListener)}.
+   *
+   * @param file
+   *            A file containing SBML content.
+   * @param types
+   * @return an iterator over the elements of the given types.
+   * @throws IOException
+   * @throws XMLStreamException
+   */
+  public SBMLElementIterator readSBMLElements(File file, Class<?>... types)
+      throws IOException, XMLStreamException {
+    InputStream stream = CompressedInput.open(file);
+    try {
+      return new SBMLElementIterator(this, createXMLStreamReader(stream), stream, types);
+    } catch (XMLStreamException exc) {
+      stream.close();
+      throw exc;
+    }
+  }
+
+  /**
+   * Reads the given SBML document element by element. Only the elements of
+   * the given types that are direct children of a list in the {@link Model}
+   * (e.g., all {@link Species} or all {@link Reaction}s) are returned, each
+   * one as soon as it is complete. They are removed from the model before
+   * they are returned, so that the memory needed does not depend on the size
+   * of the document. If no type is given, the elements of all lists in the
+   * model are returned.
+   *
+   * <p>All other elements, e.g., the units or the compartments if only the
+   * reactions are read, stay in the document that is available from
+   * {@link SBMLElementIterator#getSBMLDocument()}. The returned elements do
+   * not belong to any model, i.e., references to other elements can only be
+   * resolved by their identifiers.</p>
    *
    * @param stream
-   * @param listener
-   * @return
+   * @param types the types of the elements to return.
+   * @return an iterator over the elements of the given types. It should be
+   * closed if it is not exhausted.
    * @throws XMLStreamException
    */
-  private Object readXMLFromStream(InputStream stream, TreeNodeChangeListener listener)
+  public SBMLElementIterator readSBMLElements(InputStream stream, Class<?>... types)
       throws XMLStreamException {
+    return new SBMLElementIterator(this, createXMLStreamReader(stream), null, types);
+  }
+
+  /**
+   * @param stream
+   * @return a new {@link XMLStreamReader} for the given stream that neither
+   * supports DTDs nor external entities.
+   * @throws XMLStreamException
+   */
+  static XMLStreamReader createXMLStreamReader(InputStream stream) throws XMLStreamException {
     WstxInputFactory inputFactory = new WstxInputFactory();
 
     try {
@@ -588,8 +1171,27 @@ public class SBMLReader {
       // do nothing - the XML libraries used do not support this property for some reason
     }
 
-    XMLEventReader xmlEventReader = inputFactory.createXMLEventReader(stream);
-    return readXMLFromXMLEventReader(xmlEventReader, listener);
+    // names and namespace URIs are interned by default, which makes the comparisons with the known names fast
+    return inputFactory.createXMLStreamReader(stream);
+  }
+
+  /**
+   * Reads a XML document from the given {@code stream}. It need to be a self contain part of
+   * an SBML document.
+   *
+   * @param stream
+   * @param listener
+   * @return
+   * @throws XMLStreamException
+   */
+  private Object readXMLFromStream(InputStream stream, TreeNodeChangeListener listener)
+      throws XMLStreamException {
+    XMLStreamReader xmlStreamReader = createXMLStreamReader(stream);
+    try {
+      return readXMLFromXMLStreamReader(xmlStreamReader, listener);
+    } finally {
+      xmlStreamReader.close();
+    }
   }
 
 
@@ -598,6 +1200,9 @@ public class SBMLReader {
    * an SBML document. It can be either a math element, a notes element or the whole SBML model. If math or notes are given,
    * a Rule containing the math or notes will be returned, otherwise an SBMLDocument is returned.
    *
+   * <p>This is slower than reading from an {@link XMLStreamReader}, see
+   * {@link #readXMLFromXMLStreamReader(XMLStreamReader, TreeNodeChangeListener)},
+   * because an event object is created for every element and every piece of text.</p>
    *
    * @param xmlEventReader
    * @param listener
@@ -605,288 +1210,506 @@ public class SBMLReader {
    * @throws XMLStreamException
    */
   private Object readXMLFromXMLEventReader(XMLEventReader xmlEventReader, TreeNodeChangeListener listener)  throws XMLStreamException {
+    return readXML(new XMLCursor.EventCursor(xmlEventReader), listener);
+  }
 
-    initializePackageParsers();
+  /**
+   * Reads an XML document from the given {@link XMLStreamReader}. It need to represent a self contain part of
+   * an SBML document. It can be either a math element, a notes element or the whole SBML model. If math or notes are given,
+   * a Rule containing the math or notes will be returned, otherwise an SBMLDocument is returned.
+   *
+   * @param xmlStreamReader
+   * @param listener
+   * @return an {@code Object} representing the given XML.
+   * @throws XMLStreamException
+   */
+  private Object readXMLFromXMLStreamReader(XMLStreamReader xmlStreamReader, TreeNodeChangeListener listener)  throws XMLStreamException {
+    return readXML(new XMLCursor.StreamCursor(xmlStreamReader), listener);
+  }
 
-    XMLEvent event;
-    StartElement startElement = null;
-    ReadingParser parser = null;
-    Stack<Object> sbmlElements = new Stack<Object>();
-    QName currentNode = null;
-    String encoding = null;
-    boolean isNested = false;
-    boolean isText = false;
-    boolean isHTML = false;
-    boolean isInsideAnnotation = false;
-    int annotationDeepness = -1;
-    int level = -1, version = -1;
-    Object lastElement = null;
+  /**
+   * Reads an XML document from the given {@link XMLCursor}. While reading,
+   * the current thread is marked as reading, see {@link JSBML#startReading()},
+   * so that the created elements accept exactly what is written in the document.
+   *
+   * @param cursor
+   * @param listener
+   * @return an {@code Object} representing the given XML.
+   * @throws XMLStreamException
+   * @see #readXMLFromXMLEventReader(XMLEventReader, TreeNodeChangeListener)
+   */
+  private Object readXML(XMLCursor cursor, TreeNodeChangeListener listener)  throws XMLStreamException {
+    PackageChecker enclosingChecker = packageChecker;
+    packageChecker = null;
+    JSBML.startReading();
+    try {
+      return processXML(cursor, listener);
+    } finally {
+      JSBML.stopReading();
+      packageChecker = enclosingChecker;
+    }
+  }
 
-    // Read all the elements of the file
-    while (xmlEventReader.hasNext()) {
-      event = xmlEventReader.nextEvent();
-
-      // StartDocument
-      if (event.isStartDocument()) {
-        @SuppressWarnings("unused")
-        StartDocument startDocument = (StartDocument) event;
-        // checking the declared encoding
-        if (startDocument.encodingSet()) {
-          encoding = startDocument.getCharacterEncodingScheme();        
+  /**
+   * Returns the {@link PackageChecker} of the document that is currently
+   * read. It is created when it is needed for the first time, i.e., after the
+   * namespaces of the sbml element have been processed.
+   *
+   * @param sbmlElements the stack of elements, whose first element should be the {@link SBMLDocument}.
+   * @return the {@link PackageChecker} of the document that is currently read.
+   */
+  private PackageChecker getPackageChecker(Stack<Object> sbmlElements) {
+    if (packageChecker == null) {
+      // checks silently package version and namespace and try to fix any problems encountered.
+      Object root = sbmlElements.isEmpty() ? null : sbmlElements.firstElement();
+      SBMLDocument doc = null;
+      if (root instanceof SBMLDocument) {
+        doc = (SBMLDocument) root;
+      } else if (root == deferredParent) {
+        doc = deferredParent.getSBMLDocument();
+      }
+      packageChecker = PackageUtil.createPackageChecker(doc, true, true);
+    }
+    return packageChecker;
+  }
+
+  /**
+   * Parses child elements of the given parent, whose parsing has been
+   * deferred, see {@link DeferredContent}.
+   *
+   * @param parent the element that contained the deferred elements.
+   * @param xml the deferred elements, enclosed by an element that declares
+   * all namespaces that are in scope.
+   * @throws XMLStreamException
+   */
+  void readDeferredContent(AbstractSBase parent, String xml) throws XMLStreamException {
+    AbstractSBase enclosingParent = deferredParent;
+    deferredParent = parent;
+    try {
+      readXMLFromString(xml, null);
+    } finally {
+      deferredParent = enclosingParent;
+    }
+  }
+
+  /**
+   * Processes the events of the given {@link XMLCursor} until the next
+   * element of the {@link ReadingState#streamedTypes} is complete.
+   *
+   * @param cursor
+   * @param state
+   * @return the next complete element, removed from its list, or
+   * {@code null} if the end of the document has been reached.
+   * @throws XMLStreamException
+   * @see #readSBMLElements(InputStream, Class...)
+   */
+  SBase readNextElement(XMLCursor cursor, ReadingState state) throws XMLStreamException {
+    PackageChecker enclosingChecker = packageChecker;
+    packageChecker = state.packageChecker;
+    JSBML.startReading();
+    try {
+      while (cursor.hasNext()) {
+        Object result = processEvent(cursor, cursor.next(), state);
+        if (result instanceof SBMLDocument) {
+          state.document = (SBMLDocument) result;
+          return null;
+        }
+        if (state.streamedElement != null) {
+          SBase element = state.streamedElement;
+          state.streamedElement = null;
+          element.removeFromParent();
+          return element;
         }
       }
-      // EndDocument
-      else if (event.isEndDocument()) {
-        @SuppressWarnings("unused")
-        EndDocument endDocument = (EndDocument) event;
-        // nothing to do?
+      return null;
+    } finally {
+      JSBML.stopReading();
+      state.packageChecker = packageChecker;
+      packageChecker = enclosingChecker;
+    }
+  }
+
+  /**
+   * @param element
+   * @param types
+   * @return {@code true} if the given element is a direct child of a list in
+   *         the {@link Model} and an instance of one of the given types (or
+   *         if no type is given).
+   */
+  private static boolean isStreamed(Object element, Class<?>[] types) {
+    if (!(element instanceof SBase)) {
+      return false;
+    }
+    TreeNode list = ((SBase) element).getParent();
+    if (!(list instanceof ListOf<?>) || !(list.getParent() instanceof Model)) {
+      return false;
+    }
+    if (types.length == 0) {
+      return true;
+    }
+    for (Class<?> type : types) {
+      if (type.isInstance(element)) {
+        return true;
       }
-      // StartElement
-      else if (event.isStartElement()) {
-
-        startElement = event.asStartElement();
-        currentNode = startElement.getName();
-        isNested = false;
-        isText = false;
-
-        addAnnotationParsers(startElement);
-
-        // If the XML element is the sbml element, creates the
-        // necessary ReadingParser instances.
-        // Creates an empty SBMLDocument instance and pushes it on
-        // the SBMLElements stack.
-        if (currentNode.getLocalPart().equals("sbml")) {
-
-          SBMLDocument sbmlDocument = new SBMLDocument();
-          sbmlDocument.putUserObject(JSBML.READING_IN_PROGRESS, Boolean.TRUE);
-          
-          if (encoding != null) {
-            sbmlDocument.putUserObject(SBMLDocumentConstraints.XML_DECLARED_ENCODING, encoding);
-          }
+    }
+    return false;
+  }
 
-          if (currentNode.getPrefix() != null && currentNode.getPrefix().trim().length() > 0) {
-            sbmlDocument.putUserObject(JSBML.ELEMENT_XML_PREFIX, currentNode.getPrefix());
-          }
+  /**
+   * Processes all events of the given {@link XMLCursor}.
+   *
+   * @param cursor
+   * @param listener
+   * @return an {@code Object} representing the given XML.
+   * @throws XMLStreamException
+   * @see #readXML(XMLCursor, TreeNodeChangeListener)
+   */
+  private Object processXML(XMLCursor cursor, TreeNodeChangeListener listener)  throws XMLStreamException {
 
-          // the output of the change listener is activated or not via log4j.properties
-          sbmlDocument.addTreeNodeChangeListener(listener == null
-              ? new SimpleTreeNodeChangeListener() : listener);
+    ReadingState state = createReadingState(listener);
 
-          for (@SuppressWarnings("unchecked")
-          Iterator<Attribute> iterator = startElement.getAttributes(); iterator.hasNext();)
-          {
-            Attribute attr = iterator.next();
-            if (attr.getName().toString().equals("level")) {
-              level = StringTools.parseSBMLInt(attr.getValue());
-              sbmlDocument.setLevel(level);
-            } else if (attr.getName().toString().equals("version")) {
-              version = StringTools.parseSBMLInt(attr.getValue());
-              sbmlDocument.setVersion(version);
-            }
-          }
-          sbmlElements.push(sbmlDocument);
-        }
-        else if (lastElement == null) // We are probably reading some 'free' XML, mathML or HTML
-        {
-          // We put a fake Constraint element in the stack that can take either math, notes or message.
-          // This a hack to be able to read some mathMl or notes by themselves.
-          // If the parent container is set in this SBMLReader, we use it instead.
-
-          // TODO: will not work with arbitrary SBML part
-          // TODO: we need to be able, somehow, to set the Model element in the Constraint
-          // to be able to have a fully functional parsing. Without it the functionDefinition, for examples, are
-          // not properly recognized.
-          if (astNodeParent != null)
-          {
-            sbmlElements.push(astNodeParent);
-          }
-          else
-          {
-            Constraint constraint = new Constraint(3,1);
-            sbmlElements.push(constraint);
-          }
+    // Read all the elements of the file
+    while (cursor.hasNext()) {
+      Object result = processEvent(cursor, cursor.next(), state);
+      if (result != null) {
+        return result;
+      }
+    }
 
-          if (currentNode.getLocalPart().equals("notes") || currentNode.getLocalPart().equals("message")
-              || currentNode.getLocalPart().equals("annotation"))
-          {
-            initializedParsers.put("", sbmlCoreParser);
+    // We reach the end of the XML fragment and no 'sbml' have been found
+    // so we are probably parsing some math or notes String.
 
-            // get the sbml namespace to set it on the first element to parse
-            SBase sbase = (SBase) sbmlElements.firstElement();
-            String sbmlNamespace = JSBML.getNamespaceFrom(sbase.getLevel(), sbase.getVersion());
-            currentNode = new QName(sbmlNamespace, currentNode.getLocalPart());
-          }
-          else if (currentNode.getLocalPart().equals("math"))
-          {
-            initializedParsers.put("", new MathMLStaxParser());
-            initializedParsers.put(ASTNode.URI_MATHML_DEFINITION, new MathMLStaxParser());
-            currentNode = new QName(ASTNode.URI_MATHML_DEFINITION, "math");
-          }
-          // TODO - add something generic for the L3 packages or change all the parsers to work if the contextObject is 'null' ??
+    if (logger.isDebugEnabled()) {
+      logger.debug("no more XMLEvent: stack.size = " + state.sbmlElements.size());
 
-        } else if (currentNode.getLocalPart().equals("annotation")) {
+      logger.debug("no more XMLEvent: stack = " + state.sbmlElements);
+    }
 
-          // get the sbml namespace as some element can have similar names in different namespaces
-          SBase sbmlDoc = (SBase) sbmlElements.firstElement();
-          String sbmlNamespace = JSBML.getNamespaceFrom(sbmlDoc.getLevel(), sbmlDoc.getVersion());
+    initializedParsers.remove("");
 
-          if (currentNode.getNamespaceURI().equals(sbmlNamespace)) {
-            if (isInsideAnnotation) {
-              logger.warn("Starting to read a new annotation element while the previous annotation element is not finished.");
-            }
-            isInsideAnnotation = true;
-          }
-        }
-        else if (isInsideAnnotation) {
-          // Count the number of open elements to know how deep we are in the annotation
-          annotationDeepness++;
-        }
-        else if (currentNode.getLocalPart().equals("notes") || currentNode.getLocalPart().equals("message"))
-        {
-          // get the sbml namespace as some element can have similar names in different namespaces
-          SBase firstElement = (SBase) sbmlElements.firstElement();
+    if (state.sbmlElements.size() > 0) {
+      return state.sbmlElements.peek();
+    }
 
-          if (firstElement instanceof SBMLDocument) {
-            SBase sbmlDoc = (SBase) sbmlElements.firstElement();
-            String sbmlNamespace = JSBML.getNamespaceFrom(sbmlDoc.getLevel(), sbmlDoc.getVersion());
+    return null;
+  }
 
-            if (currentNode.getNamespaceURI().equals(sbmlNamespace)) {
-              isHTML = true;
-            }
-          } else if (firstElement instanceof Constraint) { // we are reading a partial document from SBMLReader#readNotes for example
-            isHTML = true;
-          }
-        }
+  /**
+   * Creates the state for reading a new document.
+   *
+   * @param listener
+   * @return a new {@link ReadingState}.
+   */
+  ReadingState createReadingState(TreeNodeChangeListener listener) {
+    initializePackageParsers();
+    ReadingState state = new ReadingState(listener);
+    if (contentPolicies.containsValue(ContentPolicy.DEFER)) {
+      // the namespaces in scope are only needed to defer elements
+      state.namespaceScope = new NamespaceScope();
+    }
+    return state;
+  }
 
-        if (isInsideAnnotation && logger.isDebugEnabled()) {
-          logger.debug("startElement: local part = " + currentNode.getLocalPart());
-          // logger.debug("startElement: annotation deepness = " + annotationDeepness);
+  /**
+   * Processes the current event of the given {@link XMLCursor}.
+   *
+   * @param cursor
+   * @param eventType the type of the current event.
+   * @param state the state of the document that is currently read.
+   * @return the {@link SBMLDocument} after its end has been processed, the
+   * parent of the deferred elements after their end has been processed, or
+   * {@code null} if the document is not complete yet.
+   * @throws XMLStreamException
+   * @see #processXML(XMLCursor, TreeNodeChangeListener)
+   */
+  private Object processEvent(XMLCursor cursor, int eventType, ReadingState state) throws XMLStreamException {
+    // StartDocument
+    if (eventType == XMLCursor.START_DOCUMENT) {
+      // checking the declared encoding
+      state.encoding = cursor.getEncoding();
+    }
+    // StartElement
+    else if (eventType == XMLCursor.START_ELEMENT) {
+
+      state.currentNode = cursor.getLocalName();
+      state.currentNamespace = cursor.getNamespaceURI();
+      state.currentPrefix = cursor.getPrefix();
+      state.isNested = false;
+      state.isText = false;
+
+      addAnnotationParsers(cursor);
+
+      if ((deferredParent != null) && (state.lastElement == null)) {
+        // the element that encloses deferred elements stands for their parent
+        state.sbmlElements.push(deferredParent);
+        state.lastElement = deferredParent;
+        state.depth++;
+        if (state.namespaceScope != null) {
+          state.namespaceScope.push(cursor);
         }
+        return null;
+      }
 
-        // annotationDeepness = 0 is the annotation element and we want to pass everything inside it to the anyXML parser
-        parser = processStartElement(startElement, currentNode, isHTML,	sbmlElements, (annotationDeepness > 0));
-        lastElement = sbmlElements.peek();
+      if (!contentPolicies.isEmpty() && (state.lastElement != null)) {
+        if (state.coreNamespace == null) {
+          SBase sbmlDoc = (SBase) state.sbmlElements.firstElement();
+          state.coreNamespace = JSBML.getNamespaceFrom(sbmlDoc.getLevel(), sbmlDoc.getVersion());
+        }
+        ContentPolicy policy = getContentPolicy(state.currentNode, state.currentNamespace, state.coreNamespace);
 
+        if ((policy == ContentPolicy.DEFER) && !state.isInsideAnnotation && !state.isHTML
+            && (state.sbmlElements.peek() instanceof AbstractSBase))
+        {
+          AbstractSBase parent = (AbstractSBase) state.sbmlElements.peek();
+          DeferredContent content = parent.getDeferredContent();
+          if (content == null) {
+            content = new DeferredContent(state.namespaceScope.getDeclarations());
+            parent.setDeferredContent(content);
+          }
+          String kind = state.currentNamespace.equals(state.coreNamespace) ? state.currentNode : state.currentNamespace;
+          StringBuilder sb = new StringBuilder();
+          copyElement(cursor, sb);
+          content.add(kind, sb.toString());
+          return null;
+        } else if (policy == ContentPolicy.SKIP) {
+          copyElement(cursor, null);
+          return null;
+        }
       }
-      // Characters
-      else if (event.isCharacters()) {
-        Characters characters = event.asCharacters();
+      state.depth++;
+      if (state.namespaceScope != null) {
+        state.namespaceScope.push(cursor);
+      }
+
+      // If the XML element is the sbml element, creates the
+      // necessary ReadingParser instances.
+      // Creates an empty SBMLDocument instance and pushes it on
+      // the SBMLElements stack.
+      if (state.currentNode.equals("sbml")) {
 
-        if (!characters.isWhiteSpace()) {
-          isText = true; // the characters are not only 'white spaces'
+        SBMLDocument sbmlDocument = new SBMLDocument();
+        if (state.encoding != null) {
+          sbmlDocument.putUserObject(SBMLDocumentConstraints.XML_DECLARED_ENCODING, state.encoding);
         }
-        if ((!sbmlElements.isEmpty() && (sbmlElements.peek() instanceof XMLNode)) || isHTML || isInsideAnnotation) {
-          isText = true; // We want to keep the whitespace/formatting when reading html block
+
+        if (state.currentPrefix.trim().length() > 0) {
+          sbmlDocument.putUserObject(JSBML.ELEMENT_XML_PREFIX, state.currentPrefix);
         }
 
-        // process the text of a XML element.
-        if ((parser != null) && !sbmlElements.isEmpty()	&& (isText || isInsideAnnotation)) {
+        // the output of the change listener is activated or not via log4j.properties
+        sbmlDocument.addTreeNodeChangeListener(state.listener == null
+            ? new SimpleTreeNodeChangeListener() : state.listener);
 
-          if (isHTML) {
-            parser = initializedParsers.get(JSBML.URI_XHTML_DEFINITION); // TODO : this is probably not needed
+        for (int i = 0; i < cursor.getAttributeCount(); i++)
+        {
+          if (cursor.getAttributeNamespace(i).length() > 0) {
+            continue;
           }
-          else if (isInsideAnnotation) {
-            parser = initializedParsers.get("anyXML");
+          if (cursor.getAttributeLocalName(i).equals("level")) {
+            state.level = StringTools.parseSBMLInt(cursor.getAttributeValue(i));
+            sbmlDocument.setLevel(state.level);
+          } else if (cursor.getAttributeLocalName(i).equals("version")) {
+            state.version = StringTools.parseSBMLInt(cursor.getAttributeValue(i));
+            sbmlDocument.setVersion(state.version);
           }
+        }
+        state.sbmlElements.push(sbmlDocument);
+      }
+      else if (state.lastElement == null) // We are probably reading some 'free' XML, mathML or HTML
+      {
+        // We put a fake Constraint element in the stack that can take either math, notes or message.
+        // This a hack to be able to read some mathMl or notes by themselves.
+        // If the parent container is set in this SBMLReader, we use it instead.
+
+        // TODO: will not work with arbitrary SBML part
+        // TODO: we need to be able, somehow, to set the Model element in the Constraint
+        // to be able to have a fully functional parsing. Without it the functionDefinition, for examples, are
+        // not properly recognized.
+        if (astNodeParent != null)
+        {
+          state.sbmlElements.push(astNodeParent);
+        }
+        else
+        {
+          Constraint constraint = new Constraint(3,1);
+          state.sbmlElements.push(constraint);
+        }
 
-          if (logger.isDebugEnabled()) {
-            logger.debug(" PackageParser = " + parser.getClass().getName());
-            logger.debug(" Characters = @" + characters.getData() + "@");
-          }
+        if (state.currentNode.equals("notes") || state.currentNode.equals("message")
+            || state.currentNode.equals("annotation"))
+        {
+          initializedParsers.put("", sbmlCoreParser);
 
-          if (currentNode != null) {
+          // get the sbml namespace to set it on the first element to parse
+          SBase sbase = (SBase) state.sbmlElements.firstElement();
+          state.currentNamespace = JSBML.getNamespaceFrom(sbase.getLevel(), sbase.getVersion());
+          state.currentPrefix = "";
+        }
+        else if (state.currentNode.equals("math"))
+        {
+          initializedParsers.put("", new MathMLStaxParser());
+          initializedParsers.put(ASTNode.URI_MATHML_DEFINITION, new MathMLStaxParser());
+          state.currentNamespace = ASTNode.URI_MATHML_DEFINITION;
+          state.currentPrefix = "";
+        }
+        // TODO - add something generic for the L3 packages or change all the parsers to work if the contextObject is 'null' ??
 
-            // logger.debug("isCharacter: elementName = " + currentNode.getLocalPart());
+      } else if (state.currentNode.equals("annotation")) {
 
-            parser.processCharactersOf(currentNode.getLocalPart(),
-              characters.getData(), sbmlElements.peek());
-          } else {
-            parser.processCharactersOf(null, characters.getData(),
-              sbmlElements.peek());
-          }
-        } else if (isText) {
-          logger.warn(MessageFormat.format("Some characters cannot be read: {0}", characters.getData()));
-          if (logger.isDebugEnabled()) {
-            logger.debug("PackageParser = " + parser);
-            if (sbmlElements.isEmpty()) {
-              logger.debug("The Object Stack is empty!");
-            } else {
-              logger.debug("The current Object in the stack is: " + sbmlElements.peek());
-            }
+        // get the sbml namespace as some element can have similar names in different namespaces
+        SBase sbmlDoc = (SBase) state.sbmlElements.firstElement();
+        String sbmlNamespace = JSBML.getNamespaceFrom(sbmlDoc.getLevel(), sbmlDoc.getVersion());
+
+        if (state.currentNamespace.equals(sbmlNamespace)) {
+          if (state.isInsideAnnotation) {
+            logger.warn("Starting to read a new annotation element while the previous annotation element is not finished.");
           }
+          state.isInsideAnnotation = true;
+        }
+      }
+      else if (state.isInsideAnnotation) {
+        // Count the number of open elements to know how deep we are in the annotation
+        state.annotationDeepness++;
+      }
+      else if (state.currentNode.equals("notes") || state.currentNode.equals("message"))
+      {
+        // get the sbml namespace as some element can have similar names in different namespaces
+        SBase firstElement = (SBase) state.sbmlElements.firstElement();
 
+        if ((firstElement instanceof SBMLDocument) || (firstElement == deferredParent)) {
+          SBase sbmlDoc = (SBase) state.sbmlElements.firstElement();
+          String sbmlNamespace = JSBML.getNamespaceFrom(sbmlDoc.getLevel(), sbmlDoc.getVersion());
 
+          if (state.currentNamespace.equals(sbmlNamespace)) {
+            state.isHTML = true;
+          }
+        } else if (firstElement instanceof Constraint) { // we are reading a partial document from SBMLReader#readNotes for example
+          state.isHTML = true;
         }
       }
-      // EndElement
-      else if (event.isEndElement()) {
 
-        // the method  processEndElement will return null until we arrive at the end of the 'sbml' element.
-        lastElement = sbmlElements.peek();
+      if (state.isInsideAnnotation && logger.isDebugEnabled()) {
+        logger.debug("startElement: local part = " + state.currentNode);
+        // logger.debug("startElement: annotation deepness = " + annotationDeepness);
+      }
 
-        currentNode = event.asEndElement().getName();
+      // annotationDeepness = 0 is the annotation element and we want to pass everything inside it to the anyXML parser
+      state.parser = processStartElement(cursor, state.currentNode, state.currentNamespace, state.currentPrefix,
+        state.isHTML, state.sbmlElements, (state.annotationDeepness > 0));
+      state.lastElement = state.sbmlElements.peek();
 
-        if (currentNode != null) {
+    }
+    // Characters
+    else if (eventType == XMLCursor.CHARACTERS) {
 
-          boolean isSBMLelement = true;
+      if (!cursor.isWhiteSpace()) {
+        state.isText = true; // the characters are not only 'white spaces'
+      }
+      if ((!state.sbmlElements.isEmpty() && (state.sbmlElements.peek() instanceof XMLNode)) || state.isHTML || state.isInsideAnnotation) {
+        state.isText = true; // We want to keep the whitespace/formatting when reading html block
+      }
 
-          // get the sbml namespace as some element can have similar names in different namespaces
-          if (sbmlElements.firstElement() instanceof SBase)
-          {
-            SBase sbmlDoc = (SBase) sbmlElements.firstElement();
-            String sbmlNamespace = JSBML.getNamespaceFrom(sbmlDoc.getLevel(), sbmlDoc.getVersion());
+      // process the text of a XML element.
+      if ((state.parser != null) && !state.sbmlElements.isEmpty()	&& (state.isText || state.isInsideAnnotation)) {
 
-            if (!currentNode.getNamespaceURI().equals(sbmlNamespace)) {
-              isSBMLelement = false;
-            }
-          }
+        if (state.isHTML) {
+          state.parser = initializedParsers.get(JSBML.URI_XHTML_DEFINITION); // TODO : this is probably not needed
+        }
+        else if (state.isInsideAnnotation) {
+          state.parser = initializedParsers.get("anyXML");
+        }
 
-          if (currentNode.getLocalPart().equals("annotation") && isSBMLelement)
-          {
-            isInsideAnnotation = false;
-            annotationDeepness = -1;
+        if (logger.isDebugEnabled()) {
+          logger.debug(" PackageParser = " + state.parser.getClass().getName());
+          logger.debug(" Characters = @" + cursor.getText() + "@");
+        }
 
-            // calling the annotation parsers
-            for (AnnotationReader annoReader : annotationParsers) {
-              annoReader.processAnnotation((SBase) ((Annotation) lastElement).getParent()); // or take the second element in the stack ??
-            }
+        // currentNode is null after the end of an element
+        state.parser.processCharactersOf(state.currentNode, cursor.getText(), state.sbmlElements.peek());
 
-          } else if (isInsideAnnotation) {
-            annotationDeepness--;
-          }
-          else if ((currentNode.getLocalPart().equals("notes") || currentNode.getLocalPart().equals("message")) && isSBMLelement)
-          {
-            isHTML = false;
+      } else if (state.isText) {
+        logger.warn(MessageFormat.format("Some characters cannot be read: {0}", cursor.getText()));
+        if (logger.isDebugEnabled()) {
+          logger.debug("PackageParser = " + state.parser);
+          if (state.sbmlElements.isEmpty()) {
+            logger.debug("The Object Stack is empty!");
+          } else {
+            logger.debug("The current Object in the stack is: " + state.sbmlElements.peek());
           }
         }
 
-        SBMLDocument sbmlDocument = processEndElement(currentNode, isNested, isText, isHTML,
-          level, version, parser, sbmlElements, (annotationDeepness >= 0));
 
-        if (sbmlDocument != null) {
-          return sbmlDocument;
-        }
+      }
+    }
+    // EndElement
+    else if (eventType == XMLCursor.END_ELEMENT) {
 
+      if (state.namespaceScope != null) {
+        state.namespaceScope.pop();
+      }
+      if ((--state.depth == 0) && (deferredParent != null)) {
+        // the end of the element that encloses deferred elements
+        return deferredParent;
+      }
 
-        currentNode = null;
-        isNested = false;
-        isText = false;
+      // the method  processEndElement will return null until we arrive at the end of the 'sbml' element.
+      state.lastElement = state.sbmlElements.peek();
+
+      state.currentNode = cursor.getLocalName();
+      state.currentNamespace = cursor.getNamespaceURI();
+      state.currentPrefix = cursor.getPrefix();
+
+      boolean isSBMLelement = true;
+
+      // get the sbml namespace as some element can have similar names in different namespaces
+      if (state.sbmlElements.firstElement() instanceof SBase)
+      {
+        SBase sbmlDoc = (SBase) state.sbmlElements.firstElement();
+        String sbmlNamespace = JSBML.getNamespaceFrom(sbmlDoc.getLevel(), sbmlDoc.getVersion());
+
+        if (!state.currentNamespace.equals(sbmlNamespace)) {
+          isSBMLelement = false;
+        }
       }
-    }
 
-    // We reach the end of the XML fragment and no 'sbml' have been found
-    // so we are probably parsing some math or notes String.
+      if (state.currentNode.equals("annotation") && isSBMLelement)
+      {
+        state.isInsideAnnotation = false;
+        state.annotationDeepness = -1;
 
-    if (logger.isDebugEnabled()) {
-      logger.debug("no more XMLEvent: stack.size = " + sbmlElements.size());
+        // calling the annotation parsers
+        SBase annotatedElement = (SBase) ((Annotation) state.lastElement).getParent();
+        for (AnnotationReader annoReader : annotationParsers) {
+          annoReader.processAnnotation(annotatedElement); // or take the second element in the stack ??
+        }
+        // the annotation parsers might have created new elements that are never on the stack
+        getPackageChecker(state.sbmlElements).checkAll(annotatedElement);
 
-      logger.debug("no more XMLEvent: stack = " + sbmlElements);
-    }
+      } else if (state.isInsideAnnotation) {
+        state.annotationDeepness--;
+      }
+      else if ((state.currentNode.equals("notes") || state.currentNode.equals("message")) && isSBMLelement)
+      {
+        state.isHTML = false;
+      }
+
+      int stackSize = state.sbmlElements.size();
+      SBMLDocument sbmlDocument = processEndElement(state.currentNode, state.currentNamespace,
+        state.currentPrefix, state.isNested, state.isText, state.isHTML, state.level, state.version,
+        state.parser, state.sbmlElements, (state.annotationDeepness >= 0));
+
+      if (sbmlDocument != null) {
+        return sbmlDocument;
+      }
+      if ((state.streamedTypes != null) && (state.sbmlElements.size() < stackSize)
+          && isStreamed(state.lastElement, state.streamedTypes)) {
+        state.streamedElement = (SBase) state.lastElement;
+      }
 
-    initializedParsers.remove("");
 
-    if (sbmlElements.size() > 0) {
-      return sbmlElements.peek();
+      state.currentNode = null;
+      state.isNested = false;
+      state.isText = false;
     }
 
     return null;
@@ -933,24 +1756,24 @@ public class SBMLReader {
 
 
   /**
-   * Process a {@link StartElement} event.
+   * Process the start of an element.
    *
-   * @param startElement
-   * @param currentNode
+   * @param cursor the cursor, positioned on the start of the element.
+   * @param currentNode the local name of the element
+   * @param elementNamespace the namespace URI of the element
+   * @param elementPrefix the prefix of the element
    * @param isHTML
    * @param sbmlElements
    * @param isInsideAnnotation
    * @return
    */
-  private ReadingParser processStartElement(StartElement startElement, QName currentNode,
-    Boolean isHTML, Stack<Object> sbmlElements, boolean isInsideAnnotation)
+  private ReadingParser processStartElement(XMLCursor cursor, String currentNode, String elementNamespace,
+    String elementPrefix, Boolean isHTML, Stack<Object> sbmlElements, boolean isInsideAnnotation)
   {
     ReadingParser parser = null;
 
-    String elementNamespace = currentNode.getNamespaceURI();
-
     if (logger.isDebugEnabled()) {
-      logger.debug("processStartElement: " + currentNode.getLocalPart() + ", " + elementNamespace);
+      logger.debug("processStartElement: " + currentNode + ", " + elementNamespace);
     }
 
     // To be able to parse all the SBML file, the sbml node
@@ -968,9 +1791,9 @@ public class SBMLReader {
         // and the matching ReadingParser is a XMLNodeReader,
         // we need to set the typeOfNotes variable of the
         // XMLNodeReader instance.
-        if (currentNode.getLocalPart().equals("notes")
-            || currentNode.getLocalPart().equals("message")
-            || currentNode.getLocalPart().equals("annotation"))
+        if (currentNode.equals("notes")
+            || currentNode.equals("message")
+            || currentNode.equals("annotation"))
         {
           ReadingParser sbmlparser = initializedParsers.get("anyXML");
           SBase sbmlDoc = (SBase) sbmlElements.firstElement();
@@ -979,18 +1802,14 @@ public class SBMLReader {
           if (sbmlparser instanceof XMLNodeReader && elementNamespace.equals(sbmlNamespace)) {
             // TODO - update only when the top level element from the stack is an SBase ??
             XMLNodeReader notesParser = (XMLNodeReader) sbmlparser;
-            notesParser.setTypeOfNotes(currentNode.getLocalPart());
+            notesParser.setTypeOfNotes(currentNode);
           }
         }
 
         if (parser != null) {
 
-          @SuppressWarnings("unchecked")
-          Iterator<Namespace> nam = startElement.getNamespaces();
-          @SuppressWarnings("unchecked")
-          Iterator<Attribute> att = startElement.getAttributes();
-          boolean hasAttributes = att.hasNext();
-          boolean hasNamespace = nam.hasNext();
+          boolean hasAttributes = cursor.getAttributeCount() > 0;
+          boolean hasNamespace = cursor.getNamespaceCount() > 0;
 
           // if the object on the top of the stack is an XMLNode, we always use the XMLNodeReader
           if (isInsideAnnotation || (sbmlElements.peek() instanceof XMLNode))
@@ -999,11 +1818,10 @@ public class SBMLReader {
           }
 
           // All the subNodes of SBML are processed.
-          if (!currentNode.getLocalPart().equals("sbml"))
+          if (!currentNode.equals("sbml"))
           {
-            Object processedElement = parser.processStartElement(currentNode.getLocalPart(),
-              currentNode.getNamespaceURI(),
-              currentNode.getPrefix(), hasAttributes,
+            Object processedElement = parser.processStartElement(currentNode,
+              elementNamespace, elementPrefix, hasAttributes,
               hasNamespace, sbmlElements.peek());
 
             if (processedElement != null) {
@@ -1011,16 +1829,15 @@ public class SBMLReader {
               // TODO - try to remove this code and check if the ASTNode2 can still pass the sbml-test-suite
               if (processedElement instanceof ASTNode) {
                 ASTNode astNode = (ASTNode) processedElement;
-                if (currentNode.getLocalPart().equals("cn") && hasAttributes) {
+                if (currentNode.equals("cn") && hasAttributes) {
                   Object object = sbmlElements.peek();
 
-                  while (att.hasNext()) {
+                  for (int i = 0; i < cursor.getAttributeCount(); i++) {
 
-                    Attribute attribute = att.next();
-                    String attributeName = attribute.getName().getLocalPart();
+                    String attributeName = cursor.getAttributeLocalName(i);
 
                     if (attributeName.equals("type")) {
-                      String type = attribute.getValue();
+                      String type = cursor.getAttributeValue(i);
 
                       if (type.equalsIgnoreCase("integer")) {
                         astNode.setType(Type.INTEGER);
@@ -1040,16 +1857,15 @@ public class SBMLReader {
                     }
                   }
                 }
-                if (currentNode.getLocalPart().equals("csymbol") && hasAttributes) {
+                if (currentNode.equals("csymbol") && hasAttributes) {
                   Object object = sbmlElements.peek();
 
-                  while (att.hasNext()) {
+                  for (int i = 0; i < cursor.getAttributeCount(); i++) {
 
-                    Attribute attribute = att.next();
-                    String attributeName = attribute.getName().getLocalPart();
+                    String attributeName = cursor.getAttributeLocalName(i);
 
                     if (attributeName.equals("definitionURL")) {
-                      String type = attribute.getValue();
+                      String type = cursor.getAttributeValue(i);
 
                       if (type.equalsIgnoreCase(ASTNode.URI_TIME_DEFINITION)) {
                         astNode.setType(Type.NAME_TIME);
@@ -1071,15 +1887,9 @@ public class SBMLReader {
                     }
                   }
                 }
-
-                // reset the Iterator of attributes so that they can be processed correctly in #processAttributes(...)
-                att = startElement.getAttributes();
               }
 
               sbmlElements.push(processedElement);
-              if (processedElement instanceof TreeNodeWithChangeSupport) {
-                ((TreeNodeWithChangeSupport) processedElement).putUserObject(JSBML.READING_IN_PROGRESS, Boolean.TRUE);
-              }
             } else {
               // It is normal to have sometimes null returned as some of the
               // XML elements are ignored or do not produce a new java object (like 'apply' in mathML).
@@ -1087,10 +1897,10 @@ public class SBMLReader {
           }
 
           // process the namespaces
-          processNamespaces(nam, currentNode,sbmlElements, parser, hasAttributes);
+          processNamespaces(cursor, currentNode, sbmlElements, parser, hasAttributes);
 
           // Process the attributes
-          processAttributes(att, currentNode, sbmlElements, parser, hasAttributes, isInsideAnnotation);
+          processAttributes(cursor, currentNode, sbmlElements, parser, hasAttributes, isInsideAnnotation);
 
         } else {
           logger.warn(MessageFormat.format("Cannot find a parser for the {0} namespace", elementNamespace));
@@ -1108,46 +1918,53 @@ public class SBMLReader {
   /**
    * Process Namespaces of the current element on the stack.
    *
-   * @param nam
+   * @param cursor
    * @param currentNode
    * @param sbmlElements
    * @param parser
    * @param hasAttributes
    */
-  private void processNamespaces(Iterator<Namespace> nam, QName currentNode,
+  private void processNamespaces(XMLCursor cursor, String currentNode,
     Stack<Object> sbmlElements,	ReadingParser parser, boolean hasAttributes)
   {
     ReadingParser namespaceParser = null;
+    int namespaceCount = cursor.getNamespaceCount();
+
+    for (int i = 0; i < namespaceCount; i++) {
+      String namespaceURI = cursor.getNamespaceURI(i);
+      boolean isLastNamespace = i == namespaceCount - 1;
+      namespaceParser = initializedParsers.get(namespaceURI);
+
+      // the name of a namespace declaration is 'xmlns' for the default namespace and 'xmlns:prefix' otherwise
+      String prefix = cursor.getNamespacePrefix(i);
+      String localName = "xmlns";
+      if (prefix.length() > 0) {
+        localName = prefix;
+        prefix = "xmlns";
+      }
 
-    while (nam.hasNext()) {
-      Namespace namespace = nam.next();
-      boolean isLastNamespace = !nam.hasNext();
-      namespaceParser = initializedParsers.get(namespace.getNamespaceURI());
-
-      logger.debug("processNamespaces: " + namespace.getNamespaceURI());
+      if (logger.isDebugEnabled()) {
+        logger.debug("processNamespaces: " + namespaceURI);
+      }
 
       // Calling the currentNode parser to store all the declared namespaces
-      parser.processNamespace(currentNode.getLocalPart(),
-        namespace.getNamespaceURI(),
-        namespace.getName().getPrefix(),
-        namespace.getName().getLocalPart(),
+      parser.processNamespace(currentNode, namespaceURI, prefix, localName,
         hasAttributes, isLastNamespace,
         sbmlElements.peek());
 
       // Calling each corresponding parser, in case they want to initialize things for the currentNode
       if ((namespaceParser != null) && !namespaceParser.getClass().equals(parser.getClass())) {
 
-        logger.debug("processNamespaces 2e parser: " + namespaceParser);
+        if (logger.isDebugEnabled()) {
+          logger.debug("processNamespaces 2e parser: " + namespaceParser);
+        }
 
-        namespaceParser.processNamespace(currentNode.getLocalPart(),
-          namespace.getNamespaceURI(),
-          namespace.getName().getPrefix(),
-          namespace.getName().getLocalPart(),
+        namespaceParser.processNamespace(currentNode, namespaceURI, prefix, localName,
           hasAttributes, isLastNamespace,
           sbmlElements.peek());
       } else if (namespaceParser == null) {
         // These namespaces would be treated by the anyXML parser
-        logger.warn(MessageFormat.format("Cannot find a parser for the {0} namespace", namespace.getNamespaceURI()));
+        logger.warn(MessageFormat.format("Cannot find a parser for the {0} namespace", namespaceURI));
       }
     }
 
@@ -1156,27 +1973,26 @@ public class SBMLReader {
   /**
    * Process Attributes of the current element on the stack.
    *
-   * @param att
+   * @param cursor
    * @param currentNode
    * @param sbmlElements
    * @param parser
    * @param hasAttributes
    * @param isInsideAnnotation
    */
-  private void processAttributes(Iterator<Attribute> att, QName currentNode,
+  private void processAttributes(XMLCursor cursor, String currentNode,
     Stack<Object> sbmlElements, ReadingParser parser, boolean hasAttributes,
     boolean isInsideAnnotation)
   {
     ReadingParser attributeParser = null;
+    int attributeCount = cursor.getAttributeCount();
 
-    while (att.hasNext()) {
+    for (int i = 0; i < attributeCount; i++) {
 
-      Attribute attribute = att.next();
-      boolean isLastAttribute = !att.hasNext();
-      QName attributeName = attribute.getName();
+      boolean isLastAttribute = i == attributeCount - 1;
+      String attributeNamespaceURI = cursor.getAttributeNamespace(i);
 
-      if (attribute.getName().getNamespaceURI().length() > 0) {
-        String attributeNamespaceURI = attribute.getName().getNamespaceURI();
+      if (attributeNamespaceURI.length() > 0) {
 
         if (isInsideAnnotation)
         {
@@ -1193,21 +2009,21 @@ public class SBMLReader {
 
       if (attributeParser != null) {
         boolean isAttributeRead = attributeParser.processAttribute(
-          currentNode.getLocalPart(),
-          attributeName.getLocalPart(),
-          attribute.getValue(),
-          attributeName.getNamespaceURI(),
-          attributeName.getPrefix(),
+          currentNode,
+          cursor.getAttributeLocalName(i),
+          cursor.getAttributeValue(i),
+          attributeNamespaceURI,
+          cursor.getAttributePrefix(i),
           isLastAttribute, sbmlElements.peek());
 
         if (!isAttributeRead) {
           // store the unknownAttribute
-          AbstractReaderWriter.processUnknownAttribute(attributeName.getLocalPart(), attributeName.getNamespaceURI(),
-            attribute.getValue(), attributeName.getPrefix(), sbmlElements.peek());
+          AbstractReaderWriter.processUnknownAttribute(cursor.getAttributeLocalName(i), attributeNamespaceURI,
+            cursor.getAttributeValue(i), cursor.getAttributePrefix(i), sbmlElements.peek());
         }
 
       } else {
-        logger.warn("Cannot find a parser for the " + attribute.getName().getNamespaceURI() + " namespace");
+        logger.warn("Cannot find a parser for the " + attributeNamespaceURI + " namespace");
       }
     }
   }
@@ -1216,7 +2032,9 @@ public class SBMLReader {
   /**
    * Process the end of an element.
    *
-   * @param currentNode
+   * @param currentNode the local name of the element
+   * @param elementNamespaceURI the namespace URI of the element
+   * @param prefix the prefix of the element
    * @param isNested
    * @param isText
    * @param isHTML
@@ -1227,23 +2045,23 @@ public class SBMLReader {
    * @param isInsideAnnotation
    * @return
    */
-  private SBMLDocument processEndElement(QName currentNode, Boolean isNested, Boolean isText,
+  private SBMLDocument processEndElement(String currentNode, String elementNamespaceURI, String prefix,
+    Boolean isNested, Boolean isText,
     Boolean isHTML, int level, int version, ReadingParser parser,
     Stack<Object> sbmlElements, boolean isInsideAnnotation)
   {
     if (logger.isDebugEnabled()) {
       logger.debug("event.isEndElement: stack.size = " + sbmlElements.size());
-      logger.debug("event.isEndElement: element name = " + currentNode.getLocalPart());
+      logger.debug("event.isEndElement: element name = " + currentNode);
 
-      if (currentNode.getLocalPart().equals("kineticLaw") || currentNode.getLocalPart().startsWith("listOf")
-          || currentNode.getLocalPart().equals("math")) {
+      if (currentNode.equals("kineticLaw") || currentNode.startsWith("listOf")
+          || currentNode.equals("math")) {
         logger.debug("event.isEndElement: stack = " + sbmlElements);
       }
     }
     // check that the stack did not increase before and after an element ?
 
     if (initializedParsers != null) {
-      String elementNamespaceURI = currentNode.getNamespaceURI();
       parser = initializedParsers.get(elementNamespaceURI);
 
       if (isInsideAnnotation)
@@ -1258,14 +2076,17 @@ public class SBMLReader {
           logger.debug("event.isEndElement: calling parser.processEndElement " + parser.getClass());
         }
 
-        boolean popElementFromTheStack = parser.processEndElement(currentNode.getLocalPart(),
-          currentNode.getPrefix(), isNested, sbmlElements.peek());
+        boolean popElementFromTheStack = parser.processEndElement(currentNode,
+          prefix, isNested, sbmlElements.peek());
         // remove the top of the SBMLElements stack at the
         // end of an element if this element is not the sbml
         // element.
-        if (!currentNode.getLocalPart().equals("sbml")) {
+        if (!currentNode.equals("sbml")) {
           if (popElementFromTheStack) {
-            sbmlElements.pop();
+            Object element = sbmlElements.pop();
+            if (element instanceof SBase) {
+              getPackageChecker(sbmlElements).check((SBase) element);
+            }
           }
 
           // System.out.println("SBMLReader: event.isEndElement: new stack.size = "
@@ -1279,6 +2100,7 @@ public class SBMLReader {
           // the final SBMLDocument
           if (sbmlElements.peek() instanceof SBMLDocument) {
             SBMLDocument sbmlDocument = (SBMLDocument) sbmlElements.peek();
+            getPackageChecker(sbmlElements).check(sbmlDocument);
 
             Iterator<Entry<String, ReadingParser>> iterator = initializedParsers.entrySet().iterator();
             List<String> readingParserClasses = new ArrayList<String>();
@@ -28,8 +28,11 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -45,13 +48,6 @@ import javax.xml.stream.XMLStreamWriter;
 
 import org.apache.log4j.Logger;
 import org.codehaus.stax2.XMLStreamWriter2;
-import org.codehaus.staxmate.SMOutputFactory;
-import org.codehaus.staxmate.out.SMNamespace;
-import org.codehaus.staxmate.out.SMOutputContainer;
-import org.codehaus.staxmate.out.SMOutputContext;
-import org.codehaus.staxmate.out.SMOutputDocument;
-import org.codehaus.staxmate.out.SMOutputElement;
-import org.codehaus.staxmate.out.SMRootFragment;
 import org.sbml.jsbml.ASTNode;
 import org.sbml.jsbml.Annotation;
 import org.sbml.jsbml.Constraint;
@@ -236,6 +232,12 @@ public class SBMLWriter {
      */
   }
 
+  /**
+   * The size of the buffer, in which the output to files and channels is
+   * collected.
+   */
+  private static final int BUFFER_SIZE = 1 << 16;
+
   /**
    * The symbol for indentation.
    */
@@ -246,6 +248,22 @@ public class SBMLWriter {
    */
   private short indentCount;
 
+  /**
+   * The indentation strings that have been created so far, indexed by their
+   * length.
+   */
+  private String[] indentations = new String[16];
+
+  /**
+   * Whether the output is compressed in gzip format.
+   */
+  private boolean gzipCompression;
+
+  /**
+   * The number of threads for the compression of the output.
+   */
+  private int threadCount = Runtime.getRuntime().availableProcessors();
+
   /**
    * contains the WritingParser instances of this class.
    */
@@ -317,7 +335,25 @@ public class SBMLWriter {
    * @return
    */
   private String createIndentationString(int indent) {
-    return StringTools.fill(indent, indentChar);
+    if (indent >= indentations.length) {
+      indentations = Arrays.copyOf(indentations, Math.max(indent + 1, 2 * indentations.length));
+    }
+    String indentation = indentations[indent];
+    if (indentation == null) {
+      indentation = StringTools.fill(indent, indentChar);
+      indentations[indent] = indentation;
+    }
+    return indentation;
+  }
+
+  /**
+   * @param stream
+   * @return a new {@link XMLStreamWriter2} that writes to the given stream.
+   * @throws XMLStreamException
+   */
+  private static XMLStreamWriter2 createXMLStreamWriter(OutputStream stream) throws XMLStreamException {
+    // Explicitly creating WstxOutputFactory as it is then easier for OSGi to find the needed dependencies
+    return (XMLStreamWriter2) new WstxOutputFactory().createXMLStreamWriter(stream);
   }
 
   /**
@@ -339,6 +375,16 @@ public class SBMLWriter {
     return indentCount;
   }
 
+  /**
+   * Returns the number of threads that compress the output.
+   * 
+   * @return the number of threads that compress the output.
+   * @see #setThreadCount(int)
+   */
+  public int getThreadCount() {
+    return threadCount;
+  }
+
 
   /**
    * Gets all the writing parsers necessary to write the given object.
@@ -407,6 +453,29 @@ public class SBMLWriter {
   }
 
 
+  /**
+   * Returns whether all output of this {@link SBMLWriter} is compressed in
+   * gzip format.
+   * 
+   * @return whether all output is compressed in gzip format.
+   * @see #setGZIPCompression(boolean)
+   */
+  public boolean isGZIPCompression() {
+    return gzipCompression;
+  }
+
+  /**
+   * Sets whether all output of this {@link SBMLWriter} is compressed in gzip
+   * format, see {@link ParallelGZIPOutputStream}. Files whose name ends with
+   * {@code .gz} are always compressed. {@link #writeSBMLToString(SBMLDocument)}
+   * is not affected.
+   * 
+   * @param gzipCompression whether all output is compressed.
+   */
+  public void setGZIPCompression(boolean gzipCompression) {
+    this.gzipCompression = gzipCompression;
+  }
+
   /**
    * Sets other blank character(s) for indentation.
    * <p> Allowed are
@@ -421,6 +490,7 @@ public class SBMLWriter {
         indentSymbol));
     }
     indentChar = indentSymbol;
+    indentations = new String[16];
   }
 
   /**
@@ -447,6 +517,23 @@ public class SBMLWriter {
     this.indentCount = indentCount;
   }
 
+  /**
+   * Sets the number of threads that compress the output, if it is
+   * compressed at all.
+   * 
+   * @param threadCount the number of threads, 1 to compress the output in
+   *        the calling thread. The default is the number of available
+   *        processors.
+   * @throws IllegalArgumentException if the number is smaller than 1.
+   * @see #setGZIPCompression(boolean)
+   */
+  public void setThreadCount(int threadCount) {
+    if (threadCount < 1) {
+      throw new IllegalArgumentException("The number of threads must be positive.");
+    }
+    this.threadCount = threadCount;
+  }
+
   /**
    * Writes the {@link SBMLDocument} into a {@link File}.
    * 
@@ -464,7 +551,9 @@ public class SBMLWriter {
   }
 
   /**
-   * Writes the {@link SBMLDocument} into a {@link File}.
+   * Writes the {@link SBMLDocument} into a {@link File}. The file is
+   * compressed in gzip format if its name ends with {@code .gz} or if
+   * {@link #isGZIPCompression()}.
    * 
    * @param document the {@link SBMLDocument} to write.
    * @param file the {@link File} to write to.
@@ -479,10 +568,18 @@ public class SBMLWriter {
   public void write(SBMLDocument document, File file, String programName,
     String programVersion) throws XMLStreamException, SBMLException, IOException {
     FileOutputStream stream = new FileOutputStream(file);
-    BufferedOutputStream buffer = new BufferedOutputStream(stream);
+    OutputStream buffer;
+    try {
+      buffer = new BufferedOutputStream(gzipCompression || file.getName().endsWith(".gz")
+        ? new ParallelGZIPOutputStream(stream, threadCount) : stream, BUFFER_SIZE);
+    } catch (IOException exc) {
+      stream.close();
+      throw exc;
+    }
     XMLStreamException exc1 = null;
     try {
-      write(document, buffer, programName, programVersion);
+      writeDocument(document, buffer, programName, programVersion);
+      buffer.flush();
     } catch (XMLStreamException exc) {
       /*
        * Catching this exception makes sure that we have still the chance to
@@ -492,11 +589,7 @@ public class SBMLWriter {
       exc1 = exc;
     } finally {
       try {
-        try {
-          stream.close();
-        } finally {
-          buffer.close();
-        }
+        buffer.close();
       } catch (IOException exc2) {
         // Ok, we lost. No chance to really close these streams. Heavy error.
         if (exc1 != null) {
@@ -511,6 +604,33 @@ public class SBMLWriter {
     }
   }
 
+  /**
+   * Writes the {@link SBMLDocument} into a {@link WritableByteChannel}, e.g.,
+   * a {@link java.nio.channels.FileChannel} or a
+   * {@link java.nio.channels.SocketChannel}. The output is collected in a
+   * buffer, so that the channel receives large blocks. The channel is not
+   * closed.
+   * 
+   * @param sbmlDocument
+   *          the {@link SBMLDocument} to write.
+   * @param channel
+   *          the channel to write to.
+   * @param programName
+   *            the program name (can be null).
+   * @param programVersion
+   *            the program version (can be null).
+   * @throws XMLStreamException if any error occur while creating the XML document.
+   * @throws SBMLException if any error is detected in the {@link SBMLDocument}.
+   * @throws IOException if an I/O error occurs.
+   */
+  public void write(SBMLDocument sbmlDocument, WritableByteChannel channel,
+    String programName, String programVersion)
+        throws XMLStreamException, SBMLException, IOException {
+    OutputStream buffer = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+    write(sbmlDocument, buffer, programName, programVersion);
+    buffer.flush();
+  }
+
   /**
    * Writes the {@link SBMLDocument} into an {@link OutputStream}.
    * 
@@ -528,7 +648,9 @@ public class SBMLWriter {
   }
 
   /**
-   * Writes the XML representation of an {@link SBMLDocument} into an {@link OutputStream}.
+   * Writes the XML representation of an {@link SBMLDocument} into an
+   * {@link OutputStream}. If {@link #isGZIPCompression()}, the output is
+   * compressed. The stream is not closed.
    * 
    * @param sbmlDocument the {@link SBMLDocument}
    * @param stream the {@link OutputStream} to write to.
@@ -541,6 +663,40 @@ public class SBMLWriter {
    * 
    */
   public void write(SBMLDocument sbmlDocument, OutputStream stream,
+    String programName, String programVersion)
+        throws XMLStreamException, SBMLException {
+    if (!gzipCompression) {
+      writeDocument(sbmlDocument, stream, programName, programVersion);
+      return;
+    }
+    try {
+      ParallelGZIPOutputStream gzip = new ParallelGZIPOutputStream(stream, threadCount);
+      try {
+        writeDocument(sbmlDocument, gzip, programName, programVersion);
+        gzip.finish();
+      } finally {
+        // releases the threads of the stream if the document cannot be written
+        gzip.abort();
+      }
+    } catch (IOException exc) {
+      throw new XMLStreamException(exc);
+    }
+  }
+
+  /**
+   * Writes the uncompressed XML representation of an {@link SBMLDocument}
+   * into an {@link OutputStream}.
+   * 
+   * @param sbmlDocument the {@link SBMLDocument}
+   * @param stream the {@link OutputStream} to write to.
+   * @param programName
+   *            the program name (can be null).
+   * @param programVersion
+   *            the program version (can be null).
+   * @throws XMLStreamException if any error occur while creating the XML document.
+   * @throws SBMLException if any error is detected in the {@link SBMLDocument}.
+   */
+  private void writeDocument(SBMLDocument sbmlDocument, OutputStream stream,
     String programName, String programVersion)
         throws XMLStreamException, SBMLException {
     if ((sbmlDocument == null) || !sbmlDocument.isSetLevel() || !sbmlDocument.isSetVersion()) {
@@ -555,41 +711,31 @@ public class SBMLWriter {
 
     initializePackageParsers();
 
-    // Explicitly creating WstxOutputFactory as it is needed by staxmate and it is then easier for
-    // OSGi to find the needed dependencies
-    WstxOutputFactory factory = new WstxOutputFactory();
-    SMOutputFactory smFactory = new SMOutputFactory(factory);
-    XMLStreamWriter2 streamWriter = smFactory.createStax2Writer(stream);
-
-    SMOutputDocument outputDocument = SMOutputFactory.createOutputDocument(
-      streamWriter, "1.0", "UTF-8", false);
-    // to have the automatic indentation working, we should probably only be using StaxMate classes and not directly StAX
-    // outputDocument.setIndentation("\n  ", 1, 1);
+    XMLStreamWriter2 streamWriter = createXMLStreamWriter(stream);
+    XMLElementWriter output = new XMLElementWriter(streamWriter);
+    streamWriter.writeStartDocument("1.0", "UTF-8", false);
 
     String SBMLNamespace = JSBML.getNamespaceFrom(sbmlDocument.getLevel(),
       sbmlDocument.getVersion());
-    SMOutputContext context = outputDocument.getContext();
-    context.setIndentation('\n' + createIndentationString(indentCount), 1, 2);
-    SMNamespace namespace = context.getNamespace(SBMLNamespace);
+    XMLElementWriter.Namespace namespace = output.getNamespace(SBMLNamespace, null);
     namespace.setPreferredPrefix("");
-    outputDocument.addCharacters("\n");
+    streamWriter.writeCharacters("\n");
 
     /*
      * Write a comment to track which program created this SBML file and
      * which version of JSBML was used for this purpose.
      */
     if ((programName != null) && (programName.length() > 0)) {
-      outputDocument.addComment(
+      streamWriter.writeComment(
         MessageFormat.format(
           " Created by {0} version {1} on {2,date,yyyy-MM-dd} at {2,time,kk:mm:ss z} with JSBML version {3}. ",
           (programName != null) && (programName.length() > 0) ? programName : "?",
             (programVersion != null)  && (programVersion.length() > 0) ? programVersion : "?",
               Calendar.getInstance().getTime(), JSBML.getJSBMLDottedVersion()));
-      outputDocument.addCharacters("\n");
+      streamWriter.writeCharacters("\n");
     }
 
-    SMOutputElement smOutputElement = outputDocument.addElement(namespace,
-      sbmlDocument.getElementName());
+    output.writeStartElement(namespace, sbmlDocument.getElementName());
 
     SBMLObjectForXML xmlObject = new SBMLObjectForXML();
     xmlObject.setName(sbmlDocument.getElementName());
@@ -620,27 +766,22 @@ public class SBMLWriter {
       }
     }
 
-    Iterator<Map.Entry<String, String>> it = xmlObject.getAttributes().entrySet().iterator();
-    while (it.hasNext()) {
-      Entry<String, String> entry = it.next();
-      smOutputElement.addAttribute(entry.getKey(), entry.getValue());
-    }
+    writeAttributes(streamWriter, xmlObject);
 
     int indent = indentCount;
     if (sbmlDocument.isSetNotes()) {
-      writeNotes(sbmlDocument, smOutputElement, streamWriter,
-        SBMLNamespace, indent);
+      writeNotes(sbmlDocument, streamWriter, indent);
     }
     if (sbmlDocument.isSetAnnotation()) {
-      writeAnnotation(sbmlDocument, smOutputElement, streamWriter,
-        indent, false);
+      writeAnnotation(sbmlDocument, streamWriter, indent);
     }
-    smOutputElement.addCharacters("\n");
+    streamWriter.writeCharacters("\n");
 
-    writeSBMLElements(xmlObject, smOutputElement, streamWriter,
-      sbmlDocument, indent);
+    writeSBMLElements(xmlObject, output, sbmlDocument, indent);
 
-    outputDocument.closeRoot();
+    output.writeEndElement();
+    streamWriter.writeEndDocument();
+    streamWriter.close();
   }
 
   /**
@@ -695,17 +836,10 @@ public class SBMLWriter {
     }
 
     StringWriter stream = new StringWriter();
-    WstxOutputFactory outputFactory = new WstxOutputFactory();
-    SMOutputFactory smFactory = new SMOutputFactory(outputFactory);
-    XMLStreamWriter2 writer = smFactory.createStax2Writer(stream);
+    XMLStreamWriter writer = new WstxOutputFactory().createXMLStreamWriter(stream);
 
-    // Create an xml fragment to avoid having the xml declaration
-    SMRootFragment outputDocument = SMOutputFactory.createOutputFragment(writer);
-
-    // all the sbml element namespaces are registered to the writer in the writeAnnotation method
-
-    // call the writeAnnotation, indicating that we are building an xml fragment
-    writeAnnotation(sbase, outputDocument, writer, 0, true);
+    // no xml declaration is written, because this is only a fragment
+    writeAnnotation(sbase, writer, 0);
 
     writer.writeEndDocument();
     writer.close();
@@ -720,17 +854,13 @@ public class SBMLWriter {
    * 
    * @param sbase
    *          the {@link SBase} element.
-   * @param element
-   *          the matching {@link SMOutputElement}
    * @param writer
    *          the {@link XMLStreamWriter} to write to.
    * @param indent
    *            the number of indent white spaces of this annotation.
-   * @param xmlFragment
    * @throws XMLStreamException if any error occur while creating the XML document.
    */
-  private void writeAnnotation(SBase sbase, SMOutputContainer element,
-    XMLStreamWriter writer, int indent, boolean xmlFragment)
+  private void writeAnnotation(SBase sbase, XMLStreamWriter writer, int indent)
         throws XMLStreamException
   {
     XMLNode fullAnnotationXMLNode = sbase.getAnnotation().getFullAnnotation();
@@ -741,15 +871,30 @@ public class SBMLWriter {
 
   }
 
+  /**
+   * Writes the attributes of the given object to the start tag, which has
+   * just been written.
+   * 
+   * @param writer
+   * @param xmlObject
+   * @throws XMLStreamException
+   */
+  private void writeAttributes(XMLStreamWriter writer, SBMLObjectForXML xmlObject)
+      throws XMLStreamException {
+    if (xmlObject.isSetAttributes()) {
+      for (Entry<String, String> attribute : xmlObject.getAttributes().entrySet()) {
+        writer.writeAttribute(attribute.getKey(), attribute.getValue());
+      }
+    }
+  }
+
   /**
    * @param xmlNode
-   * @param smOutputParentElement
    * @param writer
    * @param indent
    * @throws XMLStreamException
    */
-  private void writeXMLNode(XMLNode xmlNode,
-    SMOutputElement smOutputParentElement, XMLStreamWriter writer,
+  private void writeXMLNode(XMLNode xmlNode, XMLStreamWriter writer,
     int indent) throws XMLStreamException
   {
 
@@ -766,27 +911,22 @@ public class SBMLWriter {
    * 
    * @param m
    *          the {@link MathContainer} element.
-   * @param element
-   *          the matching {@link SMOutputElement}.
-   * @param writer
-   *          the {@link XMLStreamWriter} to write to.
+   * @param output
+   *          the {@link XMLElementWriter} to write to.
    * @param indent the number of white spaces to indent this element.
    * @throws XMLStreamException if any error occur while creating the XML document.
    * 
    */
-  private void writeMathML(MathContainer m, SMOutputElement element,
-    XMLStreamWriter writer, int indent) throws XMLStreamException
+  private void writeMathML(MathContainer m, XMLElementWriter output,
+    int indent) throws XMLStreamException
   {
     if (m.isSetMath()) {
 
+      XMLStreamWriter writer = output.getWriter();
       String whitespaces = createIndentationString(indent);
-      element.addCharacters("\n");
-      // set the indentation for the math opening tag
-      element.setIndentation(whitespaces, indent + indentCount, indentCount);
-
-      // Creating an SMOutputElement to be sure that the previous nested element tag is closed properly.
-      SMNamespace mathMLNamespace = element.getNamespace(ASTNode.URI_MATHML_DEFINITION, ASTNode.URI_MATHML_PREFIX);
-      SMOutputElement mathElement = element.addElement(mathMLNamespace, "math");
+      writer.writeCharacters("\n");
+      writer.writeCharacters(whitespaces);
+      output.writeStartElement(output.getNamespace(ASTNode.URI_MATHML_DEFINITION, ASTNode.URI_MATHML_PREFIX), "math");
 
       MathMLXMLStreamCompiler compiler = new MathMLXMLStreamCompiler(
         writer, createIndentationString(indent + indentCount));
@@ -814,8 +954,6 @@ public class SBMLWriter {
         writer.writeNamespace("sbml", sbmlNamespace);
       }
 
-      mathElement.setIndentation(createIndentationString(indent + 2), indent + indentCount, indentCount);
-
       writer.writeCharacters(whitespaces);
       writer.writeCharacters("\n");
 
@@ -841,6 +979,7 @@ public class SBMLWriter {
       }
 
       writer.writeCharacters(whitespaces);
+      output.writeEndElement();
     }
   }
 
@@ -849,29 +988,19 @@ public class SBMLWriter {
    * 
    * @param sbase
    *          the {@link Constraint} element.
-   * @param element
-   *          the matching {@link SMOutputElement}.
-   * @param writer
-   *          the {@link XMLStreamWriter} to write to.
-   * @param sbmlNamespace
-   *          the SBML namespace.
+   * @param output
+   *          the {@link XMLElementWriter} to write to.
    * @param indent the number of white spaces to indent this element.
    * @throws XMLStreamException if any error occur while creating the XML document.
    */
-  private void writeMessage(Constraint sbase, SMOutputElement element,
-    XMLStreamWriter writer, String sbmlNamespace, int indent)
+  private void writeMessage(Constraint sbase, XMLElementWriter output, int indent)
         throws XMLStreamException
   {
-
+    XMLStreamWriter writer = output.getWriter();
     String whitespaces = createIndentationString(indent);
-    element.addCharacters("\n");
-    // set the indentation for the math opening tag
-    element.setIndentation(whitespaces, indent + indentCount, indentCount);
-
-    // Creating an SMOutputElement to be sure that the previous nested element tag is closed properly.
-    SMNamespace sbmlSMNamespace = element.getNamespace();
-    SMOutputElement messageElement = element.addElement(sbmlSMNamespace, "message");
-    messageElement.setIndentation(createIndentationString(indent + 2), indent + indentCount, indentCount);
+    writer.writeCharacters("\n");
+    writer.writeCharacters(whitespaces);
+    output.writeStartElement(output.getCurrentNamespace(), "message");
 
     writer.writeCharacters(whitespaces);
     writer.writeCharacters("\n");
@@ -881,6 +1010,7 @@ public class SBMLWriter {
     xmlNodeWriter.write(sbase.getMessage());
 
     writer.writeCharacters(whitespaces);
+    output.writeEndElement();
   }
 
   /**
@@ -888,17 +1018,12 @@ public class SBMLWriter {
    * 
    * @param sbase
    *          the {@link SBase} element.
-   * @param element
-   *          the matching {@link SMOutputElement}
    * @param writer
    *          the {@link XMLStreamWriter} to write to.
-   * @param sbmlNamespace
-   *          the SBML namespace.
    * @param indent the number of white spaces to indent this element.
    * @throws XMLStreamException if any error occur while creating the XML document.
    */
-  private void writeNotes(SBase sbase, SMOutputElement element,
-    XMLStreamWriter writer, String sbmlNamespace, int indent)
+  private void writeNotes(SBase sbase, XMLStreamWriter writer, int indent)
         throws XMLStreamException
   {
     writer.writeCharacters("\n");
@@ -913,9 +1038,9 @@ public class SBMLWriter {
    * 
    * @param parentXmlObject
    *          contains the XML information of the parentElement.
-   * @param smOutputParentElement
-   *          {@link SMOutputElement} of the parentElement.
-   * @param streamWriter the {@link XMLStreamWriter} to write to.
+   * @param output
+   *          the {@link XMLElementWriter} to write to, whose innermost open
+   *          element is the parentElement.
    * @param parentObject
    *          the {@link Object} to write.
    * @param indent
@@ -924,15 +1049,16 @@ public class SBMLWriter {
    * @throws SBMLException if any error is detected in the {@link SBMLDocument}.
    */
   private void writeSBMLElements(SBMLObjectForXML parentXmlObject,
-    SMOutputElement smOutputParentElement,
-    XMLStreamWriter streamWriter, Object parentObject, int indent)
+    XMLElementWriter output, Object parentObject, int indent)
         throws XMLStreamException, SBMLException
   {
+    XMLStreamWriter streamWriter = output.getWriter();
     String whiteSpaces = createIndentationString(indent);
+    XMLElementWriter.Namespace parentNamespace = output.getCurrentNamespace();
 
     // Get the list of parsers to use.
     List<WritingParser> listOfPackages = getWritingParsers(
-      parentObject, smOutputParentElement.getNamespace().getURI());
+      parentObject, parentNamespace.getURI());
 
     if (listOfPackages.size() > 1) {
       logger.warn("An SBML element should only be associated with one package!");
@@ -941,8 +1067,7 @@ public class SBMLWriter {
     if (logger.isDebugEnabled()) {
       logger.debug("\nwriteSBMLElements: parentXmlObject = " + parentXmlObject);
       logger.debug("writeSBMLElements: parentElement = "
-          + smOutputParentElement.getLocalName() + ", "
-          + smOutputParentElement.getNamespace().getURI());
+          + parentXmlObject.getName() + ", " + parentNamespace.getURI());
       logger.debug("writeSBMLElements: parentObject = "	+ parentObject + '\n');
       logger.debug("writeSBMLElements: listOfPackages = " + listOfPackages + '\n');
     }
@@ -985,7 +1110,7 @@ public class SBMLWriter {
 
           // additional XMLNode that could come from an L3 package or from unknown XML elements
           if (nextObjectToWrite instanceof XMLNode) {
-            writeXMLNode((XMLNode) nextObjectToWrite, smOutputParentElement, streamWriter, indent);
+            writeXMLNode((XMLNode) nextObjectToWrite, streamWriter, indent);
             continue;
           }
 
@@ -1015,7 +1140,7 @@ public class SBMLWriter {
         }
 
         // this new element might need a different writer than it's parent !!
-        List<WritingParser> listOfChildPackages = getWritingParsers(nextObjectToWrite, smOutputParentElement.getNamespace().getURI());
+        List<WritingParser> listOfChildPackages = getWritingParsers(nextObjectToWrite, parentNamespace.getURI());
         SBMLObjectForXML childXmlObject = new SBMLObjectForXML();
 
         boolean elementIsNested = false;
@@ -1057,40 +1182,30 @@ public class SBMLWriter {
           continue;
         }
 
-        SMOutputElement newOutPutElement = null;
         boolean isClosedMathContainer = false, isClosedAnnotation = false;
 
-        SMNamespace namespace = null;
+        XMLElementWriter.Namespace namespace = null;
 
         if (childXmlObject.isSetNamespace()) {
-          namespace = smOutputParentElement.getContext().getNamespace(childXmlObject.getNamespace(), childXmlObject.getPrefix());
+          namespace = output.getNamespace(childXmlObject.getNamespace(), childXmlObject.getPrefix());
         } else {
-          namespace = smOutputParentElement.getNamespace();
+          namespace = parentNamespace;
         }
 
-        newOutPutElement = smOutputParentElement.addElement(namespace, childXmlObject.getName());
-
-        // adding the attributes to the {@link SMOutputElement}
-        for (String attributeName : childXmlObject.getAttributes().keySet())
-        {
-          newOutPutElement.addAttribute(attributeName, childXmlObject.getAttributes().get(attributeName));
-        }
+        output.writeStartElement(namespace, childXmlObject.getName());
+        writeAttributes(streamWriter, childXmlObject);
 
         if (s.isSetNotes()) {
-          writeNotes(s, newOutPutElement, streamWriter,
-            newOutPutElement.getNamespace()
-            .getURI(), indent + indentCount);
+          writeNotes(s, streamWriter, indent + indentCount);
           elementIsNested = true;
         }
         if (s.isSetAnnotation()) {
-          writeAnnotation(s, newOutPutElement,
-            streamWriter,
-            indent + indentCount, false);
+          writeAnnotation(s, streamWriter, indent + indentCount);
           elementIsNested = isClosedAnnotation = true;
         }
 
         if (childXmlObject.getCharacters() != null && childXmlObject.getCharacters().trim().length() != 0) {
-          newOutPutElement.addCharacters(childXmlObject.getCharacters());
+          streamWriter.writeCharacters(childXmlObject.getCharacters());
         }
 
         if (s.getChildCount() > 0) {
@@ -1101,8 +1216,7 @@ public class SBMLWriter {
         if (nextObjectToWrite instanceof MathContainer) {
           MathContainer mathContainer = (MathContainer) nextObjectToWrite;
           if (mathContainer.getLevel() > 1) {
-            writeMathML(mathContainer, newOutPutElement,
-              streamWriter, indent + indentCount);
+            writeMathML(mathContainer, output, indent + indentCount);
             elementIsNested = true;
           }
           isClosedMathContainer = true;
@@ -1110,10 +1224,7 @@ public class SBMLWriter {
         if (nextObjectToWrite instanceof Constraint) {
           Constraint constraint = (Constraint) nextObjectToWrite;
           if (constraint.isSetMessage()) {
-            writeMessage(constraint, newOutPutElement,
-              streamWriter, newOutPutElement
-              .getNamespace().getURI(),
-              indent + indentCount);
+            writeMessage(constraint, output, indent + indentCount);
             elementIsNested = true;
           }
         }
@@ -1124,15 +1235,15 @@ public class SBMLWriter {
 
         // to allow the XML parser to prune empty element, this line should not be added in all the cases.
         if (elementIsNested) {
-          newOutPutElement.addCharacters("\n");
+          streamWriter.writeCharacters("\n");
           if (isClosedMathContainer || isClosedAnnotation) {
-            newOutPutElement.addCharacters(whiteSpaces);
+            streamWriter.writeCharacters(whiteSpaces);
           }
         }
 
-        writeSBMLElements(childXmlObject, newOutPutElement,
-          streamWriter, nextObjectToWrite, indent + indentCount);
-        smOutputParentElement.addCharacters("\n");
+        writeSBMLElements(childXmlObject, output, nextObjectToWrite, indent + indentCount);
+        output.writeEndElement();
+        streamWriter.writeCharacters("\n");
       }
 
       // write the indent before closing the element
@@ -1194,7 +1305,7 @@ public class SBMLWriter {
   public String writeSBMLToString(SBMLDocument d, String programName,
     String programVersion) throws XMLStreamException, SBMLException {
     ByteArrayOutputStream stream = new ByteArrayOutputStream();
-    write(d, stream, programName, programVersion);
+    writeDocument(d, stream, programName, programVersion);
     try {
       return stream.toString("UTF-8");
     } catch (UnsupportedEncodingException e) {
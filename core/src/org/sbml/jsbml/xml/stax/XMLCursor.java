@@ -0,0 +1,562 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.xml.stax;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.Characters;
+import javax.xml.stream.events.Namespace;
+import javax.xml.stream.events.StartDocument;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+/**
+ * A uniform view on the events of an {@link XMLStreamReader} or an
+ * {@link XMLEventReader}, which is used by the {@link SBMLReader}.
+ * 
+ * <p>The cursor only exposes the current event. Names, attributes and
+ * namespace declarations are accessed by index, so that reading from an
+ * {@link XMLStreamReader} does not create any event, name or iterator objects.
+ * Absent namespaces and prefixes are always returned as empty strings, as in
+ * {@link QName}.</p>
+ * 
+ * @since 1.6
+ */
+abstract class XMLCursor {
+
+  /**
+   * Reads from an {@link XMLEventReader}, i.e., the content of each
+   * {@link StartElement} is copied into buffers that are reused for all
+   * elements.
+   * 
+   * @since 1.6
+   */
+  static class EventCursor extends XMLCursor {
+
+    /**
+     * The number of attributes of the current element.
+     */
+    private int attributeCount;
+
+    /**
+     * The local names, namespaces, prefixes and values of the attributes of
+     * the current element.
+     */
+    private String[] attributes = new String[4 * 8];
+
+    /**
+     * 
+     */
+    private XMLEvent event;
+
+    /**
+     * The name of the current element.
+     */
+    private QName name;
+
+    /**
+     * The number of namespace declarations of the current element.
+     */
+    private int namespaceCount;
+
+    /**
+     * The prefixes and URIs of the namespace declarations of the current
+     * element.
+     */
+    private String[] namespaces = new String[2 * 4];
+
+    /**
+     * 
+     */
+    private final XMLEventReader reader;
+
+    /**
+     * @param reader
+     */
+    EventCursor(XMLEventReader reader) {
+      this.reader = reader;
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#getAttributeCount()
+     */
+    @Override
+    int getAttributeCount() {
+      return attributeCount;
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#getAttributeLocalName(int)
+     */
+    @Override
+    String getAttributeLocalName(int index) {
+      return attributes[4 * index];
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#getAttributeNamespace(int)
+     */
+    @Override
+    String getAttributeNamespace(int index) {
+      return attributes[4 * index + 1];
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#getAttributePrefix(int)
+     */
+    @Override
+    String getAttributePrefix(int index) {
+      return attributes[4 * index + 2];
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#getAttributeValue(int)
+     */
+    @Override
+    String getAttributeValue(int index) {
+      return attributes[4 * index + 3];
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#getEncoding()
+     */
+    @Override
+    String getEncoding() {
+      StartDocument startDocument = (StartDocument) event;
+      return startDocument.encodingSet() ? startDocument.getCharacterEncodingScheme() : null;
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#getLocalName()
+     */
+    @Override
+    String getLocalName() {
+      return name.getLocalPart();
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#getNamespaceCount()
+     */
+    @Override
+    int getNamespaceCount() {
+      return namespaceCount;
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#getNamespacePrefix(int)
+     */
+    @Override
+    String getNamespacePrefix(int index) {
+      return namespaces[2 * index];
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#getNamespaceURI()
+     */
+    @Override
+    String getNamespaceURI() {
+      return name.getNamespaceURI();
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#getNamespaceURI(int)
+     */
+    @Override
+    String getNamespaceURI(int index) {
+      return namespaces[2 * index + 1];
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#getPrefix()
+     */
+    @Override
+    String getPrefix() {
+      return name.getPrefix();
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#getText()
+     */
+    @Override
+    String getText() {
+      return ((Characters) event).getData();
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#hasNext()
+     */
+    @Override
+    boolean hasNext() throws XMLStreamException {
+      return reader.hasNext();
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#isWhiteSpace()
+     */
+    @Override
+    boolean isWhiteSpace() {
+      return ((Characters) event).isWhiteSpace();
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#next()
+     */
+    @Override
+    int next() throws XMLStreamException {
+      event = reader.nextEvent();
+      if (event.isStartElement()) {
+        StartElement startElement = event.asStartElement();
+        name = startElement.getName();
+        attributeCount = 0;
+        for (Iterator<?> iterator = startElement.getAttributes(); iterator.hasNext(); attributeCount++) {
+          Attribute attribute = (Attribute) iterator.next();
+          if (attributes.length < 4 * (attributeCount + 1)) {
+            attributes = Arrays.copyOf(attributes, 2 * attributes.length);
+          }
+          QName attributeName = attribute.getName();
+          attributes[4 * attributeCount] = attributeName.getLocalPart();
+          attributes[4 * attributeCount + 1] = attributeName.getNamespaceURI();
+          attributes[4 * attributeCount + 2] = attributeName.getPrefix();
+          attributes[4 * attributeCount + 3] = attribute.getValue();
+        }
+        namespaceCount = 0;
+        for (Iterator<?> iterator = startElement.getNamespaces(); iterator.hasNext(); namespaceCount++) {
+          Namespace namespace = (Namespace) iterator.next();
+          if (namespaces.length < 2 * (namespaceCount + 1)) {
+            namespaces = Arrays.copyOf(namespaces, 2 * namespaces.length);
+          }
+          namespaces[2 * namespaceCount] = namespace.getPrefix();
+          namespaces[2 * namespaceCount + 1] = namespace.getNamespaceURI();
+        }
+        return START_ELEMENT;
+      } else if (event.isEndElement()) {
+        name = event.asEndElement().getName();
+        return END_ELEMENT;
+      } else if (event.isCharacters()) {
+        return CHARACTERS;
+      }
+      return event.getEventType();
+    }
+
+  }
+
+  /**
+   * Reads from an {@link XMLStreamReader}. The names, attributes and namespace
+   * declarations are taken directly from the reader.
+   * 
+   * @since 1.6
+   */
+  static class StreamCursor extends XMLCursor {
+
+    /**
+     * 
+     */
+    private final XMLStreamReader reader;
+
+    /**
+     * Whether {@link #next()} has been called at least once, because the
+     * reader is already positioned on the start of the document when it is
+     * created.
+     */
+    private boolean started;
+
+    /**
+     * @param reader
+     */
+    StreamCursor(XMLStreamReader reader) {
+      this.reader = reader;
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#getAttributeCount()
+     */
+    @Override
+    int getAttributeCount() {
+      return reader.getAttributeCount();
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#getAttributeLocalName(int)
+     */
+    @Override
+    String getAttributeLocalName(int index) {
+      return reader.getAttributeLocalName(index);
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#getAttributeNamespace(int)
+     */
+    @Override
+    String getAttributeNamespace(int index) {
+      return nonNull(reader.getAttributeNamespace(index));
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#getAttributePrefix(int)
+     */
+    @Override
+    String getAttributePrefix(int index) {
+      return nonNull(reader.getAttributePrefix(index));
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#getAttributeValue(int)
+     */
+    @Override
+    String getAttributeValue(int index) {
+      return reader.getAttributeValue(index);
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#getEncoding()
+     */
+    @Override
+    String getEncoding() {
+      return reader.getCharacterEncodingScheme();
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#getLocalName()
+     */
+    @Override
+    String getLocalName() {
+      return reader.getLocalName();
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#getNamespaceCount()
+     */
+    @Override
+    int getNamespaceCount() {
+      return reader.getNamespaceCount();
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#getNamespacePrefix(int)
+     */
+    @Override
+    String getNamespacePrefix(int index) {
+      return nonNull(reader.getNamespacePrefix(index));
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#getNamespaceURI()
+     */
+    @Override
+    String getNamespaceURI() {
+      return nonNull(reader.getNamespaceURI());
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#getNamespaceURI(int)
+     */
+    @Override
+    String getNamespaceURI(int index) {
+      return nonNull(reader.getNamespaceURI(index));
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#getPrefix()
+     */
+    @Override
+    String getPrefix() {
+      return nonNull(reader.getPrefix());
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#getText()
+     */
+    @Override
+    String getText() {
+      return reader.getText();
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#hasNext()
+     */
+    @Override
+    boolean hasNext() throws XMLStreamException {
+      return !started || reader.hasNext();
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#isWhiteSpace()
+     */
+    @Override
+    boolean isWhiteSpace() {
+      return reader.isWhiteSpace();
+    }
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.xml.stax.XMLCursor#next()
+     */
+    @Override
+    int next() throws XMLStreamException {
+      int eventType;
+      if (started) {
+        eventType = reader.next();
+      } else {
+        started = true;
+        eventType = reader.getEventType();
+      }
+      switch (eventType) {
+      case XMLStreamConstants.CDATA:
+      case XMLStreamConstants.SPACE:
+        return CHARACTERS;
+      default:
+        return eventType;
+      }
+    }
+
+  }
+
+  /**
+   * The current event is a sequence of characters, which may also be white
+   * space or a CDATA section.
+   */
+  static final int CHARACTERS = XMLStreamConstants.CHARACTERS;
+
+  /**
+   * The current event is the end of an element.
+   */
+  static final int END_ELEMENT = XMLStreamConstants.END_ELEMENT;
+
+  /**
+   * The current event is the start of the document.
+   */
+  static final int START_DOCUMENT = XMLStreamConstants.START_DOCUMENT;
+
+  /**
+   * The current event is the start of an element.
+   */
+  static final int START_ELEMENT = XMLStreamConstants.START_ELEMENT;
+
+  /**
+   * @param value
+   * @return the given value or an empty string if it is {@code null}.
+   */
+  private static String nonNull(String value) {
+    return (value != null) ? value : "";
+  }
+
+  /**
+   * @return the number of attributes of the current start element.
+   */
+  abstract int getAttributeCount();
+
+  /**
+   * @param index
+   * @return the local name of the attribute with the given index.
+   */
+  abstract String getAttributeLocalName(int index);
+
+  /**
+   * @param index
+   * @return the namespace URI of the attribute with the given index.
+   */
+  abstract String getAttributeNamespace(int index);
+
+  /**
+   * @param index
+   * @return the prefix of the attribute with the given index.
+   */
+  abstract String getAttributePrefix(int index);
+
+  /**
+   * @param index
+   * @return the value of the attribute with the given index.
+   */
+  abstract String getAttributeValue(int index);
+
+  /**
+   * @return the encoding that is declared at the start of the document or
+   *         {@code null}.
+   */
+  abstract String getEncoding();
+
+  /**
+   * @return the local name of the current start or end element.
+   */
+  abstract String getLocalName();
+
+  /**
+   * @return the number of namespaces that are declared on the current start
+   *         element.
+   */
+  abstract int getNamespaceCount();
+
+  /**
+   * @param index
+   * @return the prefix of the namespace declaration with the given index,
+   *         which is empty for the default namespace.
+   */
+  abstract String getNamespacePrefix(int index);
+
+  /**
+   * @return the namespace URI of the current start or end element.
+   */
+  abstract String getNamespaceURI();
+
+  /**
+   * @param index
+   * @return the URI of the namespace declaration with the given index.
+   */
+  abstract String getNamespaceURI(int index);
+
+  /**
+   * @return the prefix of the current start or end element.
+   */
+  abstract String getPrefix();
+
+  /**
+   * @return the current characters.
+   */
+  abstract String getText();
+
+  /**
+   * @return {@code true} if there are more events.
+   * @throws XMLStreamException
+   */
+  abstract boolean hasNext() throws XMLStreamException;
+
+  /**
+   * @return {@code true} if the current characters consist only of white
+   *         space.
+   */
+  abstract boolean isWhiteSpace();
+
+  /**
+   * Moves to the next event.
+   * 
+   * @return the type of the event, one of the constants of
+   *         {@link XMLStreamConstants}, where CDATA and white space are
+   *         reported as {@link #CHARACTERS}.
+   * @throws XMLStreamException
+   */
+  abstract int next() throws XMLStreamException;
+
+}
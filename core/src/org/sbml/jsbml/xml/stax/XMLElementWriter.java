@@ -0,0 +1,334 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.xml.stax;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLStreamException;
+
+import org.codehaus.stax2.XMLStreamWriter2;
+
+/**
+ * Writes the start and end tags of elements directly to an
+ * {@link XMLStreamWriter2} and declares their namespaces, which is used by
+ * the {@link SBMLWriter}.
+ * 
+ * <p>The prefixes are chosen exactly as StaxMate would choose them, so that
+ * the output does not change: an element in the default namespace or in a
+ * namespace that is bound by one of its ancestors does not declare anything.
+ * Otherwise the namespace is bound to its last or its preferred prefix (or
+ * becomes the default namespace if there is none) for the subtree of the
+ * element.</p>
+ * 
+ * @since 1.6
+ */
+final class XMLElementWriter {
+
+  /**
+   * A namespace together with the prefixes it is or has been bound to.
+   * 
+   * @since 1.6
+   */
+  static final class Namespace {
+
+    /**
+     * The prefix of the current binding or {@code null} if the namespace is
+     * not bound.
+     */
+    private String boundPrefix;
+
+    /**
+     * Whether the namespace is always bound to its {@link #boundPrefix}.
+     */
+    private boolean isGlobal;
+
+    /**
+     * The prefix of the last binding or {@code null}.
+     */
+    private String lastPrefix;
+
+    /**
+     * 
+     */
+    private String preferredPrefix;
+
+    /**
+     * 
+     */
+    private final String uri;
+
+    /**
+     * @param uri
+     * @param preferredPrefix
+     */
+    private Namespace(String uri, String preferredPrefix) {
+      this.uri = uri;
+      this.preferredPrefix = preferredPrefix;
+    }
+
+    /**
+     * @return the namespace URI.
+     */
+    String getURI() {
+      return uri;
+    }
+
+    /**
+     * @param prefix the prefix to use if this namespace needs to be declared.
+     */
+    void setPreferredPrefix(String prefix) {
+      preferredPrefix = prefix;
+    }
+
+  }
+
+  /**
+   * The empty namespace, which is never declared.
+   */
+  private static final Namespace EMPTY = createGlobal(XMLConstants.NULL_NS_URI, XMLConstants.DEFAULT_NS_PREFIX);
+
+  /**
+   * The namespaces that need not be declared.
+   */
+  private static final Map<String, Namespace> globalNamespaces = new HashMap<String, Namespace>();
+
+  static {
+    globalNamespaces.put(EMPTY.uri, EMPTY);
+    Namespace xml = createGlobal(XMLConstants.XML_NS_URI, XMLConstants.XML_NS_PREFIX);
+    globalNamespaces.put(xml.uri, xml);
+    Namespace xmlns = createGlobal(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, XMLConstants.XMLNS_ATTRIBUTE);
+    globalNamespaces.put(xmlns.uri, xmlns);
+  }
+
+  /**
+   * @param uri
+   * @param prefix
+   * @return a namespace that is always bound to the given prefix.
+   */
+  private static Namespace createGlobal(String uri, String prefix) {
+    Namespace namespace = new Namespace(uri, prefix);
+    namespace.boundPrefix = prefix;
+    namespace.isGlobal = true;
+    return namespace;
+  }
+
+  /**
+   * The namespaces that are bound by the open elements, in the order of
+   * their declaration.
+   */
+  private Namespace[] bindings = new Namespace[16];
+
+  /**
+   * The number of valid entries in {@link #bindings}.
+   */
+  private int bindingCount;
+
+  /**
+   * The namespace of elements without a prefix.
+   */
+  private Namespace defaultNamespace = EMPTY;
+
+  /**
+   * The number of open elements.
+   */
+  private int depth;
+
+  /**
+   * The namespaces of the open elements.
+   */
+  private Namespace[] elementNamespaces = new Namespace[16];
+
+  /**
+   * For each open element, the default namespace and the number of bindings
+   * of its parent, which are restored when the element ends.
+   */
+  private Namespace[] enclosingDefaults = new Namespace[16];
+
+  /**
+   * 
+   */
+  private int[] enclosingBindingCounts = new int[16];
+
+  /**
+   * All namespaces that have been used, keyed by their URI.
+   */
+  private final Map<String, Namespace> namespaces = new HashMap<String, Namespace>();
+
+  /**
+   * The namespaces that were in scope when this object was created.
+   */
+  private final NamespaceContext rootContext;
+
+  /**
+   * 
+   */
+  private final XMLStreamWriter2 writer;
+
+  /**
+   * @param writer
+   */
+  XMLElementWriter(XMLStreamWriter2 writer) {
+    this.writer = writer;
+    rootContext = writer.getNamespaceContext();
+  }
+
+  /**
+   * @return the namespace of the innermost open element.
+   */
+  Namespace getCurrentNamespace() {
+    return elementNamespaces[depth - 1];
+  }
+
+  /**
+   * Returns the namespace with the given URI. The preferred prefix is only
+   * considered if the namespace has not been used before.
+   * 
+   * @param uri
+   * @param preferredPrefix
+   * @return the namespace with the given URI.
+   */
+  Namespace getNamespace(String uri, String preferredPrefix) {
+    if ((uri == null) || (uri.length() == 0)) {
+      return EMPTY;
+    }
+    Namespace namespace = namespaces.get(uri);
+    if (namespace == null) {
+      namespace = globalNamespaces.get(uri);
+      if (namespace == null) {
+        namespace = new Namespace(uri, preferredPrefix);
+        namespaces.put(uri, namespace);
+      }
+    }
+    return namespace;
+  }
+
+  /**
+   * @return the writer, to which all output goes.
+   */
+  XMLStreamWriter2 getWriter() {
+    return writer;
+  }
+
+  /**
+   * @param prefix
+   * @return {@code true} if one of the open elements binds the given prefix.
+   */
+  private boolean isPrefixBound(String prefix) {
+    for (int i = bindingCount - 1; i >= 0; i--) {
+      if (prefix.equals(bindings[i].boundPrefix)) {
+        return true;
+      }
+    }
+    if (rootContext != null) {
+      String uri = rootContext.getNamespaceURI(prefix);
+      return (uri != null) && (uri.length() > 0);
+    }
+    return false;
+  }
+
+  /**
+   * Ends the innermost open element and all bindings of its namespaces.
+   * 
+   * @throws XMLStreamException
+   */
+  void writeEndElement() throws XMLStreamException {
+    depth--;
+    writer.writeEndElement();
+    int count = enclosingBindingCounts[depth];
+    while (bindingCount > count) {
+      Namespace namespace = bindings[--bindingCount];
+      bindings[bindingCount] = null;
+      if (!namespace.isGlobal) {
+        namespace.boundPrefix = null;
+      }
+    }
+    defaultNamespace = enclosingDefaults[depth];
+    elementNamespaces[depth] = null;
+    enclosingDefaults[depth] = null;
+  }
+
+  /**
+   * Starts a new element in the given namespace and declares the namespace
+   * if it is not in scope.
+   * 
+   * @param namespace
+   * @param localName
+   * @throws XMLStreamException
+   */
+  void writeStartElement(Namespace namespace, String localName) throws XMLStreamException {
+    if (depth == elementNamespaces.length) {
+      elementNamespaces = Arrays.copyOf(elementNamespaces, 2 * depth);
+      enclosingDefaults = Arrays.copyOf(enclosingDefaults, 2 * depth);
+      enclosingBindingCounts = Arrays.copyOf(enclosingBindingCounts, 2 * depth);
+    }
+    elementNamespaces[depth] = namespace;
+    enclosingDefaults[depth] = defaultNamespace;
+    enclosingBindingCounts[depth] = bindingCount;
+    depth++;
+
+    String prefix;
+    boolean declare = false;
+    if (namespace == defaultNamespace) {
+      prefix = XMLConstants.DEFAULT_NS_PREFIX;
+    } else if (namespace.boundPrefix != null) {
+      prefix = namespace.boundPrefix;
+      declare = namespace == EMPTY;
+    } else {
+      prefix = null;
+      if (rootContext != null) {
+        prefix = rootContext.getPrefix(namespace.uri);
+      }
+      if ((prefix != null) && (prefix.length() > 0)) {
+        // bound outside of the written elements
+        namespace.boundPrefix = namespace.lastPrefix = prefix;
+        namespace.isGlobal = true;
+      } else {
+        declare = true;
+        prefix = namespace.lastPrefix;
+        if ((prefix == null) || isPrefixBound(prefix)) {
+          prefix = namespace.preferredPrefix;
+          if ((prefix == null) || isPrefixBound(prefix)) {
+            prefix = XMLConstants.DEFAULT_NS_PREFIX;
+          }
+        }
+      }
+    }
+
+    writer.writeStartElement(prefix, localName, namespace.uri);
+    if (declare) {
+      if (prefix.length() == 0) {
+        defaultNamespace = namespace;
+        writer.writeDefaultNamespace(namespace.uri);
+      } else {
+        if (bindingCount == bindings.length) {
+          bindings = Arrays.copyOf(bindings, 2 * bindingCount);
+        }
+        bindings[bindingCount++] = namespace;
+        namespace.boundPrefix = namespace.lastPrefix = prefix;
+        writer.writeNamespace(prefix, namespace.uri);
+      }
+    }
+  }
+
+}
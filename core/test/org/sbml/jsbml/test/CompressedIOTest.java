@@ -0,0 +1,258 @@
+/*
+ *
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.SBMLException;
+import org.sbml.jsbml.xml.stax.ParallelGZIPOutputStream;
+import org.sbml.jsbml.xml.stax.SBMLReader;
+import org.sbml.jsbml.xml.stax.SBMLWriter;
+
+/**
+ * Tests reading and writing of compressed SBML files.
+ * 
+ * @since 1.6
+ */
+public class CompressedIOTest {
+
+  /**
+   * 
+   */
+  private SBMLDocument doc;
+
+  /**
+   * The XML representation of {@link #doc}.
+   */
+  private String xml;
+
+  /**
+   * The XML representation of the document that is read from {@link #xml}.
+   */
+  private String rewritten;
+
+  /**
+   * @throws XMLStreamException
+   * @throws SBMLException
+   */
+  @Before
+  public void setUp() throws XMLStreamException, SBMLException {
+    doc = new SBMLReader().readSBMLFromStream(getClass().getResourceAsStream(
+        "/org/sbml/jsbml/xml/test/data/l2v4/BIOMD0000000228.xml"));
+    xml = new SBMLWriter().writeSBMLToString(doc);
+    rewritten = new SBMLWriter().writeSBMLToString(new SBMLReader().readSBMLFromString(xml));
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test
+  public void gzipFile() throws Exception {
+    File file = File.createTempFile("jsbml", ".xml.gz");
+    try {
+      new SBMLWriter().write(doc, file);
+      InputStream stream = new FileInputStream(file);
+      assertEquals(0x1f, stream.read());
+      stream.close();
+      assertEquals(rewritten, new SBMLWriter().writeSBMLToString(new SBMLReader().readSBML(file)));
+    } finally {
+      file.delete();
+    }
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test
+  public void gzipStream() throws Exception {
+    SBMLWriter writer = new SBMLWriter();
+    writer.setGZIPCompression(true);
+    writer.setThreadCount(3);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    writer.write(doc, out);
+    assertEquals(xml, new String(gunzip(out.toByteArray()), "UTF-8"));
+    assertEquals(xml, writer.writeSBMLToString(doc));
+  }
+
+  /**
+   * Checks that the compressing threads are stopped if the document cannot
+   * be written.
+   * 
+   * @throws Exception
+   */
+  @Test
+  public void gzipStreamFailure() throws Exception {
+    int threads = poolThreadCount();
+    SBMLWriter writer = new SBMLWriter();
+    writer.setGZIPCompression(true);
+    writer.setThreadCount(3);
+    for (int i = 0; i < 5; i++) {
+      try {
+        writer.write(doc, new FailingOutputStream());
+        fail();
+      } catch (XMLStreamException exc) {
+        assertTrue(exc.getNestedException() instanceof IOException);
+      }
+    }
+    long end = System.currentTimeMillis() + 10000;
+    while ((poolThreadCount() > threads) && (System.currentTimeMillis() < end)) {
+      Thread.sleep(50);
+    }
+    assertTrue(poolThreadCount() <= threads);
+  }
+
+  /**
+   * @return the number of living worker threads of {@link ForkJoinPool}s
+   *         other than the common pool.
+   */
+  private static int poolThreadCount() {
+    int count = 0;
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      if (thread.isAlive() && (thread instanceof ForkJoinWorkerThread)
+          && !thread.getName().startsWith("ForkJoinPool.commonPool")) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * An {@link OutputStream} that accepts the gzip header and fails afterwards.
+   */
+  private static class FailingOutputStream extends OutputStream {
+
+    /**
+     * 
+     */
+    private int count;
+
+    /* (non-Javadoc)
+     * @see java.io.OutputStream#write(int)
+     */
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    /* (non-Javadoc)
+     * @see java.io.OutputStream#write(byte[], int, int)
+     */
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      count += len;
+      if (count > 10) {
+        throw new IOException("The stream is full.");
+      }
+    }
+
+  }
+
+  /**
+   * @throws IOException
+   */
+  @Test
+  public void parallelBlocks() throws IOException {
+    byte[] data = new byte[1000000];
+    Random random = new Random(1);
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) ('a' + random.nextInt(8));
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ParallelGZIPOutputStream gzip = new ParallelGZIPOutputStream(out, 4);
+    gzip.write(data, 0, 300000);
+    gzip.flush();
+    gzip.write(data[300000]);
+    gzip.write(data, 300001, data.length - 300001);
+    gzip.close();
+    assertArrayEquals(data, gunzip(out.toByteArray()));
+
+    out.reset();
+    gzip = new ParallelGZIPOutputStream(out, 1);
+    gzip.close();
+    assertEquals(0, gunzip(out.toByteArray()).length);
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test
+  public void zipArchive() throws Exception {
+    File file = File.createTempFile("jsbml", ".omex");
+    try {
+      ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(file));
+      zip.putNextEntry(new ZipEntry("other.xml"));
+      zip.write("<sbml/>".getBytes("UTF-8"));
+      zip.putNextEntry(new ZipEntry("manifest.xml"));
+      zip.write(("<omexManifest xmlns=\"http://identifiers.org/combine.specifications/omex-manifest\">"
+          + "<content location=\"./other.xml\" format=\"http://identifiers.org/combine.specifications/sbml\"/>"
+          + "<content location=\"./models/model.xml\" format=\"http://identifiers.org/combine.specifications/sbml\" master=\"true\"/>"
+          + "</omexManifest>").getBytes("UTF-8"));
+      zip.putNextEntry(new ZipEntry("models/model.xml"));
+      zip.write(xml.getBytes("UTF-8"));
+      zip.close();
+
+      assertEquals(rewritten, new SBMLWriter().writeSBMLToString(new SBMLReader().readSBML(file)));
+    } finally {
+      file.delete();
+    }
+  }
+
+  /**
+   * 
+   * @param data
+   * @return the uncompressed data.
+   * @throws IOException
+   */
+  private static byte[] gunzip(byte[] data) throws IOException {
+    InputStream in = new GZIPInputStream(new ByteArrayInputStream(data));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    for (int n; (n = in.read(buffer)) > 0;) {
+      out.write(buffer, 0, n);
+    }
+    in.close();
+    return out.toByteArray();
+  }
+
+}
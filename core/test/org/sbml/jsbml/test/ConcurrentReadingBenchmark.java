@@ -0,0 +1,107 @@
+/*
+ *
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.xml.stax.SBMLReader;
+
+/**
+ * Reads all SBML files in a directory and its subdirectories with an
+ * increasing number of threads and reports the time and the speedup over one
+ * thread.
+ * 
+ * <p>Usage: {@code ConcurrentReadingBenchmark directory [maxThreadCount]}
+ * 
+ * @since 1.6
+ */
+public final class ConcurrentReadingBenchmark {
+
+  /**
+   * 
+   * @param args
+   * @throws InterruptedException
+   */
+  public static void main(String[] args) throws InterruptedException {
+    List<File> files = new ArrayList<File>();
+    collect(new File(args[0]), files);
+    int maxThreadCount = args.length > 1 ? Integer.parseInt(args[1])
+      : Runtime.getRuntime().availableProcessors();
+
+    // warm up, so that class loading and compilation are not counted.
+    int failures = count(new SBMLReader().readSBML(files, maxThreadCount));
+    System.out.printf("%d files, %d cannot be read.%n", files.size(), failures);
+
+    double single = 0d;
+    for (int threadCount = 1; threadCount <= maxThreadCount; threadCount *= 2) {
+      long time = System.nanoTime();
+      new SBMLReader().readSBML(files, threadCount);
+      double seconds = (System.nanoTime() - time) / 1E9d;
+      if (threadCount == 1) {
+        single = seconds;
+      }
+      System.out.printf("%2d threads: %.2f s, speedup %.2f%n", threadCount, seconds, single / seconds);
+    }
+  }
+
+  /**
+   * Adds all XML files in the given directory and its subdirectories to the
+   * list.
+   * 
+   * @param file
+   * @param files
+   */
+  private static void collect(File file, List<File> files) {
+    if (file.isDirectory()) {
+      File[] children = file.listFiles();
+      if (children != null) {
+        for (File child : children) {
+          collect(child, files);
+        }
+      }
+    } else if (file.getName().endsWith(".xml")) {
+      files.add(file);
+    }
+  }
+
+  /**
+   * @param documents
+   * @return the number of files that could not be read.
+   * @throws InterruptedException
+   */
+  private static int count(List<Future<SBMLDocument>> documents) throws InterruptedException {
+    int failures = 0;
+    for (Future<SBMLDocument> document : documents) {
+      try {
+        document.get();
+      } catch (ExecutionException exc) {
+        failures++;
+      }
+    }
+    return failures;
+  }
+
+}
@@ -0,0 +1,124 @@
+/*
+ *
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.xml.parsers.ParserManager;
+import org.sbml.jsbml.xml.parsers.SBMLCoreParser;
+import org.sbml.jsbml.xml.stax.SBMLReader;
+import org.sbml.jsbml.xml.stax.SBMLWriter;
+
+/**
+ * Tests reading several files at the same time with
+ * {@link SBMLReader#readSBML(java.util.Collection, int)}.
+ * 
+ * @since 1.6
+ */
+public class ConcurrentReadingTest {
+
+  /**
+   * The files to read, each one several times.
+   */
+  private List<File> files;
+
+  /**
+   * @throws Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    String[] names = {"l2v1/BIOMD0000000025.xml", "l2v1/BIOMD0000000227.xml",
+      "l2v3/BIOMD0000000191.xml", "l2v4/BIOMD0000000228.xml",
+      "l2v4/BIOMD0000000229.xml"};
+    files = new ArrayList<File>();
+    for (int i = 0; i < 4; i++) {
+      for (String name : names) {
+        files.add(new File(getClass().getResource("/org/sbml/jsbml/xml/test/data/" + name).toURI()));
+      }
+    }
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test
+  public void sameAsSequential() throws Exception {
+    List<Future<SBMLDocument>> documents = new SBMLReader().readSBML(files, 4);
+    assertEquals(files.size(), documents.size());
+    for (int i = 0; i < files.size(); i++) {
+      assertTrue(documents.get(i).isDone());
+      assertEquals(new SBMLWriter().writeSBMLToString(new SBMLReader().readSBML(files.get(i))),
+        new SBMLWriter().writeSBMLToString(documents.get(i).get()));
+    }
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test
+  public void failures() throws Exception {
+    List<File> files = new ArrayList<File>(this.files.subList(0, 2));
+    files.add(1, new File(getClass().getResource(
+      "/org/sbml/jsbml/xml/test/data/libsbml-test-data/not-sbml.xml").toURI()));
+    List<Future<SBMLDocument>> documents = new SBMLReader().readSBML(files, 2);
+    assertEquals("Smolen2002", documents.get(0).get().getModel().getId());
+    try {
+      documents.get(1).get();
+      fail();
+    } catch (ExecutionException exc) {
+      assertTrue(exc.getCause() instanceof XMLStreamException);
+    }
+    assertEquals("Radulescu2008_NFkB_hierarchy_M_39_65_90", documents.get(2).get().getModel().getId());
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void parserRegistry() {
+    ParserManager manager = ParserManager.getManager();
+    try {
+      manager.readingParsers.put("urn:test", new SBMLCoreParser());
+      fail();
+    } catch (UnsupportedOperationException exc) {
+      // the registry cannot be changed
+    }
+    String namespace = "http://www.sbml.org/sbml/level3/version1/core";
+    assertTrue(manager.getReadingParsers().get(namespace) instanceof SBMLCoreParser);
+    assertNotSame(manager.getReadingParsers().get(namespace),
+      manager.getReadingParsers().get(namespace));
+  }
+
+}
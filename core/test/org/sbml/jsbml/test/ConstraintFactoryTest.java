@@ -0,0 +1,113 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.sbml.jsbml.Species;
+import org.sbml.jsbml.validator.SBMLValidator.CHECK_CATEGORY;
+import org.sbml.jsbml.validator.offline.ValidationContext;
+import org.sbml.jsbml.validator.offline.constraints.AnyConstraint;
+import org.sbml.jsbml.validator.offline.constraints.ConstraintGroup;
+import org.sbml.jsbml.validator.offline.factory.ConstraintFactory;
+
+/**
+ * Checks that the {@link ConstraintFactory} shares the constraints between
+ * validation contexts with the same settings.
+ *
+ * @since 1.6
+ */
+public class ConstraintFactoryTest {
+
+  /**
+   * Creates a context that checks the general consistency and optionally the
+   * units.
+   * 
+   * @param level
+   * @param version
+   * @param units
+   * @return the context
+   */
+  private ValidationContext createContext(int level, int version, boolean units) {
+    ValidationContext ctx = new ValidationContext(level, version);
+    ctx.enableCheckCategory(CHECK_CATEGORY.GENERAL_CONSISTENCY, true);
+    ctx.enableCheckCategory(CHECK_CATEGORY.UNITS_CONSISTENCY, units);
+    return ctx;
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void sameSettings() {
+    ConstraintFactory factory = ConstraintFactory.getInstance();
+    ConstraintGroup<Object> a = factory.getConstraintsForClass(Species.class, createContext(3, 1, true));
+    ConstraintGroup<Object> b = factory.getConstraintsForClass(Species.class, createContext(3, 1, true));
+    assertNotNull(a);
+    assertTrue(a == b);
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void differentSettings() {
+    ConstraintFactory factory = ConstraintFactory.getInstance();
+    ConstraintGroup<Object> a = factory.getConstraintsForClass(Species.class, createContext(3, 1, true));
+    assertTrue(a != factory.getConstraintsForClass(Species.class, createContext(3, 1, false)));
+    assertTrue(a != factory.getConstraintsForClass(Species.class, createContext(2, 4, true)));
+
+    factory.clearCache();
+    assertTrue(a != factory.getConstraintsForClass(Species.class, createContext(3, 1, true)));
+  }
+
+  /**
+   * The cached groups are shared between contexts and must not be modifiable.
+   */
+  @Test
+  public void cachedGroupsAreFrozen() {
+    ConstraintGroup<Object> group = ConstraintFactory.getInstance().getConstraintsForClass(Species.class, createContext(3, 1, true));
+    assertTrue(group.isFrozen());
+    int count = group.getConstraintsCount();
+
+    for (AnyConstraint<Object> c : group.getConstraints()) {
+      if (c instanceof ConstraintGroup) {
+        assertTrue(((ConstraintGroup<Object>) c).isFrozen());
+      }
+    }
+    try {
+      group.add(new ConstraintGroup<Object>());
+      fail("add should fail on a cached group");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+    try {
+      group.remove(group.getConstraints()[0]);
+      fail("remove should fail on a cached group");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+    assertTrue(count == group.getConstraintsCount());
+  }
+
+}
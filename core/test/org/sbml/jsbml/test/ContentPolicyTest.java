@@ -0,0 +1,120 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Test;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.SBMLException;
+import org.sbml.jsbml.SBMLWriter;
+import org.sbml.jsbml.Species;
+import org.sbml.jsbml.xml.stax.DeferredContent;
+import org.sbml.jsbml.xml.stax.SBMLReader;
+import org.sbml.jsbml.xml.stax.SBMLReader.ContentPolicy;
+
+/**
+ * Checks that notes and annotations can be skipped or deferred while reading.
+ *
+ * @since 1.6
+ */
+public class ContentPolicyTest {
+
+  /**
+   * 
+   */
+  private static final String FILE = "/org/sbml/jsbml/xml/test/data/l2v4/BIOMD0000000228.xml";
+
+  /**
+   * @param notes
+   * @param annotation
+   * @return the test document read with the given policies.
+   * @throws XMLStreamException
+   */
+  private SBMLDocument read(ContentPolicy notes, ContentPolicy annotation) throws XMLStreamException {
+    SBMLReader reader = new SBMLReader();
+    reader.setContentPolicy("notes", notes);
+    reader.setContentPolicy("annotation", annotation);
+    return reader.readSBMLFromStream(getClass().getResourceAsStream(FILE));
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void deferred() throws XMLStreamException, SBMLException {
+    SBMLDocument expected = read(ContentPolicy.READ, ContentPolicy.READ);
+    Species expectedSpecies = expected.getModel().getSpecies("pRB");
+    SBMLDocument doc = read(ContentPolicy.DEFER, ContentPolicy.DEFER);
+    Species species = doc.getModel().getSpecies("pRB");
+
+    DeferredContent content = species.getDeferredContent();
+    assertNotNull(content);
+    assertTrue(content.contains(DeferredContent.NOTES));
+    assertTrue(content.contains(DeferredContent.ANNOTATION));
+
+    assertEquals(expectedSpecies.getNotesString(), species.getNotesString());
+    assertFalse(content.contains(DeferredContent.NOTES));
+    assertTrue(content.contains(DeferredContent.ANNOTATION));
+
+    assertEquals(expectedSpecies.getCVTermCount(), species.getCVTermCount());
+    assertEquals(expectedSpecies.getCVTerm(0), species.getCVTerm(0));
+    assertNull(species.getDeferredContent());
+
+    // all other deferred elements are parsed while writing
+    assertEquals(new SBMLWriter().writeSBMLToString(expected), new SBMLWriter().writeSBMLToString(doc));
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void replaced() throws XMLStreamException {
+    SBMLDocument doc = read(ContentPolicy.DEFER, ContentPolicy.DEFER);
+    Species species = doc.getModel().getSpecies("pRB");
+    species.unsetAnnotation();
+    species.setNotes("<notes><p xmlns=\"http://www.w3.org/1999/xhtml\">new</p></notes>");
+    assertNull(species.getDeferredContent());
+    assertFalse(species.isSetAnnotation());
+    assertTrue(species.getNotesString().contains("new"));
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void skipped() throws XMLStreamException {
+    SBMLDocument doc = read(ContentPolicy.SKIP, ContentPolicy.SKIP);
+    Species species = doc.getModel().getSpecies("pRB");
+    assertNull(species.getDeferredContent());
+    assertFalse(species.isSetNotes());
+    assertFalse(species.isSetAnnotation());
+    assertFalse(doc.getModel().isSetAnnotation());
+    assertEquals(read(ContentPolicy.READ, ContentPolicy.READ).getModel().getSpeciesCount(),
+      doc.getModel().getSpeciesCount());
+  }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import static org.junit.Assert.assertEquals;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.junit.Test;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.SBMLException;
+import org.sbml.jsbml.SBMLWriter;
+import org.sbml.jsbml.xml.stax.SBMLReader;
+
+import com.ctc.wstx.stax.WstxInputFactory;
+
+/**
+ * Checks that reading from an {@link XMLStreamReader} creates the same
+ * documents as reading from an {@link javax.xml.stream.XMLEventReader}.
+ *
+ * @since 1.6
+ */
+public class CursorReadingTest {
+
+  /**
+   * Files with notes, annotations, math and unknown attributes.
+   */
+  private static final String[] FILES = {
+    "/org/sbml/jsbml/xml/test/data/l2v1/BIOMD0000000025.xml",
+    "/org/sbml/jsbml/xml/test/data/l2v4/BIOMD0000000228.xml",
+    "/org/sbml/jsbml/xml/test/data/libsbml-test-data/l2v3-all.xml",
+    "/org/sbml/jsbml/xml/test/data/libsbml-test-data/l2v4-new.xml"
+  };
+
+  /**
+   * @return a factory for both kinds of readers
+   */
+  private XMLInputFactory createInputFactory() {
+    XMLInputFactory inputFactory = new WstxInputFactory();
+    inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    return inputFactory;
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void sameDocuments() throws XMLStreamException, SBMLException {
+    for (String file : FILES) {
+      SBMLDocument fromCursor = new SBMLReader().readSBMLFromStream(getClass().getResourceAsStream(file));
+      SBMLDocument fromEvents = new SBMLReader().readSBML(
+        createInputFactory().createXMLEventReader(getClass().getResourceAsStream(file)));
+      assertEquals(file, new SBMLWriter().writeSBMLToString(fromEvents),
+        new SBMLWriter().writeSBMLToString(fromCursor));
+    }
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void readFromStreamReader() throws XMLStreamException, SBMLException {
+    String file = FILES[0];
+    XMLStreamReader reader = createInputFactory().createXMLStreamReader(getClass().getResourceAsStream(file));
+    SBMLDocument doc = new SBMLReader().readSBML(reader);
+    reader.close();
+    assertEquals(new SBMLWriter().writeSBMLToString(new SBMLReader().readSBMLFromStream(getClass().getResourceAsStream(file))),
+      new SBMLWriter().writeSBMLToString(doc));
+    assertEquals(2, doc.getLevel());
+  }
+
+}
@@ -0,0 +1,177 @@
+/*
+ *
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.AssignmentRule;
+import org.sbml.jsbml.FunctionDefinition;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.Parameter;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.Unit;
+import org.sbml.jsbml.UnitDefinition;
+import org.sbml.jsbml.text.parser.ParseException;
+
+/**
+ * Tests that the memorized derived units of a model follow its changes.
+ * 
+ * @since 1.6
+ */
+public class DerivedUnitCacheTest {
+
+  /**
+   * 
+   */
+  private Model model;
+
+  /**
+   * 
+   */
+  private AssignmentRule rule;
+
+  /**
+   * @throws ParseException
+   */
+  @Before
+  public void setUp() throws ParseException {
+    SBMLDocument doc = new SBMLDocument(3, 1);
+    model = doc.createModel("m");
+    model.createParameter("k").setUnits(Unit.Kind.SECOND);
+    model.createParameter("x").setUnits(Unit.Kind.METRE);
+    Parameter y = model.createParameter("y");
+    y.setConstant(false);
+    rule = model.createAssignmentRule();
+    rule.setVariable(y);
+    rule.setMath(ASTNode.parseFormula("k * x"));
+  }
+
+  /**
+   * @param kinds
+   * @return a unit that is the product of the given kinds.
+   */
+  private static UnitDefinition unit(Unit.Kind... kinds) {
+    UnitDefinition ud = new UnitDefinition(3, 1);
+    for (Unit.Kind kind : kinds) {
+      ud.addUnit(new Unit(1d, 0, kind, 1d, 3, 1));
+    }
+    return ud;
+  }
+
+  /**
+   * @param expected
+   */
+  private void assertUnit(UnitDefinition expected) {
+    UnitDefinition derived = rule.getDerivedUnitDefinition();
+    assertTrue(UnitDefinition.printUnits(expected, true) + " != "
+        + UnitDefinition.printUnits(derived, true),
+      UnitDefinition.areEquivalent(expected, derived));
+  }
+
+  /**
+   * @throws ParseException
+   */
+  @Test
+  public void math() throws ParseException {
+    assertUnit(unit(Unit.Kind.SECOND, Unit.Kind.METRE));
+    rule.getMath().getRightChild().setVariable(model.getParameter("k"));
+    assertUnit(unit(Unit.Kind.SECOND, Unit.Kind.SECOND));
+    rule.setMath(ASTNode.parseFormula("x"));
+    assertUnit(unit(Unit.Kind.METRE));
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void variableUnits() {
+    assertUnit(unit(Unit.Kind.SECOND, Unit.Kind.METRE));
+    model.getParameter("x").setUnits(Unit.Kind.KELVIN);
+    assertUnit(unit(Unit.Kind.SECOND, Unit.Kind.KELVIN));
+    model.getParameter("x").setName("temperature");
+    model.getParameter("x").setValue(3d);
+    assertUnit(unit(Unit.Kind.SECOND, Unit.Kind.KELVIN));
+  }
+
+  /**
+   * The unit of a power depends on the value of the exponent.
+   * 
+   * @throws ParseException
+   */
+  @Test
+  public void exponentValue() throws ParseException {
+    Parameter p = model.createParameter("p");
+    p.setValue(2d);
+    p.setUnits(Unit.Kind.DIMENSIONLESS);
+    rule.setMath(ASTNode.parseFormula("pow(x, p)"));
+    assertUnit(unit(Unit.Kind.METRE, Unit.Kind.METRE));
+    p.setValue(3d);
+    assertUnit(unit(Unit.Kind.METRE, Unit.Kind.METRE, Unit.Kind.METRE));
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void unitDefinitions() {
+    assertEquals(null, rule.getDerivedUnits());
+    UnitDefinition ud = model.createUnitDefinition("ms");
+    ud.addUnit(new Unit(1d, 0, Unit.Kind.METRE, 1d, 3, 1));
+    ud.addUnit(new Unit(1d, 0, Unit.Kind.SECOND, 1d, 3, 1));
+    assertEquals("ms", rule.getDerivedUnits());
+
+    model.createUnitDefinition("mm").addUnit(new Unit(1d, -3, Unit.Kind.METRE, 1d, 3, 1));
+    model.getParameter("x").setUnits("mm");
+    assertEquals(null, rule.getDerivedUnits());
+    model.getUnitDefinition("mm").getUnit(0).setScale(0);
+    assertEquals("ms", rule.getDerivedUnits());
+  }
+
+  /**
+   * @throws ParseException
+   */
+  @Test
+  public void functionDefinitions() throws ParseException {
+    FunctionDefinition f = model.createFunctionDefinition("f");
+    f.setMath(ASTNode.parseFormula("lambda(a, a * k)"));
+    rule.setMath(ASTNode.parseFormula("f(x) * x"));
+    assertUnit(unit(Unit.Kind.METRE, Unit.Kind.METRE, Unit.Kind.SECOND));
+    f.setMath(ASTNode.parseFormula("lambda(a, a)"));
+    // the units of a document that has never been evaluated.
+    AssignmentRule copy = (AssignmentRule) rule.getModel().getSBMLDocument().clone().getModel().getRule(0);
+    assertUnit(copy.getDerivedUnitDefinition());
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void copies() {
+    UnitDefinition ud = rule.getDerivedUnitDefinition();
+    ud.getUnit(0).setKind(Unit.Kind.AMPERE);
+    assertUnit(unit(Unit.Kind.SECOND, Unit.Kind.METRE));
+  }
+
+}
@@ -0,0 +1,142 @@
+/*
+ *
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.Species;
+import org.sbml.jsbml.util.SimpleTreeNodeChangeListener;
+import org.sbml.jsbml.util.TreeNodeChangeListener;
+import org.sbml.jsbml.xml.XMLNode;
+
+/**
+ * Checks that an {@link org.sbml.jsbml.AbstractSBase} without declared
+ * namespaces, extensions, listeners or user objects behaves like one whose
+ * collections have been emptied again, and that an {@link ASTNode} without
+ * any of its rarely used attributes behaves like one whose attributes have
+ * been reset.
+ * 
+ * @since 1.6
+ */
+public class EmptyCollectionsTest {
+
+  /**
+   * 
+   */
+  @Test
+  public void declaredNamespaces() {
+    Species s1 = new Species("s", 3, 1);
+    Species s2 = new Species("s", 3, 1);
+    assertTrue(s1.getDeclaredNamespaces().isEmpty());
+
+    s2.addDeclaredNamespace("x", "http://www.example.org/x");
+    assertFalse(s1.equals(s2));
+    assertEquals("http://www.example.org/x", s2.clone().getDeclaredNamespaces().get("xmlns:x"));
+
+    s2.removeDeclaredNamespaceByPrefix("x");
+    assertTrue(s1.equals(s2));
+    assertTrue(s2.equals(s1));
+    assertEquals(s1.hashCode(), s2.hashCode());
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void extensions() {
+    Species s = new Species("s", 3, 1);
+    assertFalse(s.isExtendedByOtherPackages());
+    assertEquals(0, s.getExtensionCount());
+    assertTrue(s.getExtensionPackages().isEmpty());
+    assertEquals(0, s.clone().getChildCount());
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void listeners() {
+    Species s = new Species("s", 3, 1);
+    assertEquals(0, s.getTreeNodeChangeListenerCount());
+    assertTrue(s.getListOfTreeNodeChangeListeners().isEmpty());
+    s.removeAllTreeNodeChangeListeners();
+    s.setName("n"); // must not fail without any listeners
+
+    TreeNodeChangeListener listener = new SimpleTreeNodeChangeListener();
+    s.addTreeNodeChangeListener(listener);
+    s.addTreeNodeChangeListener(listener);
+    assertEquals(1, s.getTreeNodeChangeListenerCount());
+    s.removeTreeNodeChangeListener(listener);
+    assertEquals(0, s.getTreeNodeChangeListenerCount());
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void userObjects() {
+    Species s = new Species("s", 3, 1);
+    assertEquals(null, s.getUserObject("key"));
+    assertFalse(s.isSetUserObjects());
+    assertTrue(s.userObjectKeySet().isEmpty());
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void astNodeAttributes() {
+    ASTNode n = new ASTNode(ASTNode.Type.PLUS);
+    assertFalse(n.isExtendedByOtherPackages());
+    assertEquals(0, n.getExtensionCount());
+    assertTrue(n.getExtensionPackages().isEmpty());
+    assertNull(n.getListOfSemanticsAnnotations());
+    assertEquals(0, n.getNumSemanticsAnnotations());
+    assertNull(n.getSemanticsAnnotation(0));
+    assertFalse(n.isSetId() || n.isSetStyle() || n.isSetClassName()
+      || n.isSetEncoding() || n.isSetDefinitionURL());
+
+    n.setId("i");
+    n.setStyle("s");
+    n.setClassName("c");
+    n.addSemanticsAnnotation(new XMLNode("a"));
+    ASTNode clone = n.clone();
+    assertEquals(n, clone);
+    assertEquals("i", clone.getId());
+    assertEquals("s", clone.getStyle());
+    assertEquals("c", clone.getClassName());
+    assertEquals(1, clone.getNumSemanticsAnnotations());
+    assertEquals(n.hashCode(), clone.hashCode());
+
+    n.setType(ASTNode.Type.NAME_TIME);
+    assertNull(n.getId());
+    assertNull(n.getStyle());
+    assertEquals(ASTNode.URI_TIME_DEFINITION, n.getDefinitionURL());
+    assertEquals("text", n.getEncoding());
+    assertEquals("i", clone.getId());
+  }
+
+}
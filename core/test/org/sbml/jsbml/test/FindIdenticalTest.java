@@ -0,0 +1,135 @@
+/*
+ *
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sbml.jsbml.ListOf;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.Unit;
+import org.sbml.jsbml.UnitDefinition;
+
+/**
+ * Tests that {@link Model#findIdentical(UnitDefinition)} follows the changes
+ * of the unit definitions of a model.
+ * 
+ * @since 1.6
+ */
+public class FindIdenticalTest {
+
+  /**
+   * 
+   */
+  private Model model;
+
+  /**
+   * 
+   */
+  @Before
+  public void setUp() {
+    model = new SBMLDocument(3, 1).createModel("m");
+    UnitDefinition ud = model.createUnitDefinition("mm_per_s");
+    ud.addUnit(new Unit(1d, -3, Unit.Kind.METRE, 1d, 3, 1));
+    ud.addUnit(new Unit(1d, 0, Unit.Kind.SECOND, -1d, 3, 1));
+    ud = model.createUnitDefinition("per_s");
+    ud.addUnit(new Unit(1d, 0, Unit.Kind.SECOND, -1d, 3, 1));
+  }
+
+  /**
+   * @param scale
+   * @param kind
+   * @return a unit definition of the given length per second.
+   */
+  private static UnitDefinition velocity(int scale, Unit.Kind kind) {
+    UnitDefinition ud = new UnitDefinition(3, 1);
+    ud.addUnit(new Unit(1d, 0, Unit.Kind.SECOND, -1d, 3, 1));
+    ud.addUnit(new Unit(1d, scale, kind, 1d, 3, 1));
+    return ud;
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void find() {
+    assertSame(model.getUnitDefinition("mm_per_s"), model.findIdentical(velocity(-3, Unit.Kind.METRE)));
+    assertSame(model.getUnitDefinition("mm_per_s"), model.findIdentical(velocity(-3, Unit.Kind.METER)));
+    assertNull(model.findIdentical(velocity(0, Unit.Kind.METRE)));
+    assertSame(model.getUnitDefinition("per_s"), model.findIdentical(model.getUnitDefinition("per_s").clone()));
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void changes() {
+    UnitDefinition ud = model.getUnitDefinition("mm_per_s");
+    assertSame(ud, model.findIdentical(velocity(-3, Unit.Kind.METRE)));
+
+    ud.getUnit(0).setScale(0);
+    assertNull(model.findIdentical(velocity(-3, Unit.Kind.METRE)));
+    assertSame(ud, model.findIdentical(velocity(0, Unit.Kind.METRE)));
+
+    ud.removeUnit(0);
+    assertNull(model.findIdentical(velocity(0, Unit.Kind.METRE)));
+    ud.addUnit(new Unit(1d, 0, Unit.Kind.METRE, 1d, 3, 1));
+    assertSame(ud, model.findIdentical(velocity(0, Unit.Kind.METRE)));
+
+    model.removeUnitDefinition(ud);
+    assertNull(model.findIdentical(velocity(0, Unit.Kind.METRE)));
+    model.addUnitDefinition(ud);
+    assertSame(ud, model.findIdentical(velocity(0, Unit.Kind.METRE)));
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void duplicates() {
+    UnitDefinition ud = model.getUnitDefinition("per_s").clone();
+    ud.setId("frequency");
+    model.getListOfUnitDefinitions().add(0, ud);
+    assertEquals("frequency", model.findIdentical(ud.clone()).getId());
+    model.removeUnitDefinition(ud);
+    assertEquals("per_s", model.findIdentical(ud.clone()).getId());
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void listReplaced() {
+    assertSame(model.getUnitDefinition("per_s"), model.findIdentical(model.getUnitDefinition("per_s").clone()));
+    UnitDefinition ud = model.getUnitDefinition("per_s").clone();
+    ListOf<UnitDefinition> list = new ListOf<UnitDefinition>(3, 1);
+    ud.setId("frequency");
+    list.add(ud);
+    model.setListOfUnitDefinitions(list);
+    assertSame(ud, model.findIdentical(ud.clone()));
+    assertNull(model.findIdentical(velocity(-3, Unit.Kind.METRE)));
+  }
+
+}
@@ -0,0 +1,108 @@
+/*
+ *
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+
+import org.junit.After;
+import org.junit.Test;
+import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.text.parser.FormulaParserLL3;
+import org.sbml.jsbml.text.parser.FormulaParserLL3.LOG_BEHAVIOR;
+import org.sbml.jsbml.text.parser.ParseException;
+
+/**
+ * Tests that {@link ASTNode#parseFormula(String)} returns the same results
+ * with and without its formula cache.
+ * 
+ * @since 1.6
+ */
+public class FormulaCacheTest {
+
+  /**
+   * 
+   */
+  @After
+  public void tearDown() {
+    ASTNode.setFormulaCacheSize(0);
+    new FormulaParserLL3(new StringReader("")).setLogBehavior(LOG_BEHAVIOR.LOG_IS_LN);
+  }
+
+  /**
+   * @throws ParseException
+   */
+  @Test
+  public void copies() throws ParseException {
+    ASTNode.setFormulaCacheSize(2);
+    assertEquals(2, ASTNode.getFormulaCacheSize());
+    String formula = "k1 * S / (Km + S)";
+    ASTNode first = ASTNode.parseFormula(formula);
+    ASTNode second = ASTNode.parseFormula(formula);
+    assertNotSame(first, second);
+    assertEquals(first, second);
+
+    first.getLeftChild().setName("k2");
+    assertEquals("k1*S/(Km+S)", ASTNode.parseFormula(formula).toFormula());
+
+    ASTNode.parseFormula("a + b");
+    ASTNode.parseFormula("c - d");
+    assertEquals(second, ASTNode.parseFormula(formula));
+  }
+
+  /**
+   * @throws ParseException
+   */
+  @Test
+  public void errors() throws ParseException {
+    for (int size : new int[] {0, 10}) {
+      ASTNode.setFormulaCacheSize(size);
+      try {
+        ASTNode.parseFormula("k1 * (S +");
+        fail("Formula should not be parsed.");
+      } catch (ParseException exc) {
+        // expected
+      }
+      assertEquals("k1*S", ASTNode.parseFormula("k1 * S").toFormula());
+    }
+    try {
+      ASTNode.setFormulaCacheSize(-1);
+      fail("The size must not be negative.");
+    } catch (IllegalArgumentException exc) {
+      assertEquals(10, ASTNode.getFormulaCacheSize());
+    }
+  }
+
+  /**
+   * @throws ParseException
+   */
+  @Test
+  public void logBehavior() throws ParseException {
+    ASTNode.setFormulaCacheSize(10);
+    assertEquals(ASTNode.Type.FUNCTION_LN, ASTNode.parseFormula("log(x)").getType());
+    new FormulaParserLL3(new StringReader("")).setLogBehavior(LOG_BEHAVIOR.LOG_IS_LOG10);
+    assertEquals(ASTNode.Type.FUNCTION_LOG, ASTNode.parseFormula("log(x)").getType());
+  }
+
+}
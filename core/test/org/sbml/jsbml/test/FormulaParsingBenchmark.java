@@ -0,0 +1,139 @@
+/*
+ *
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.swing.tree.TreeNode;
+
+import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.MathContainer;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.SBMLReader;
+import org.sbml.jsbml.text.parser.FormulaParserLL3;
+import org.sbml.jsbml.text.parser.ParseException;
+import org.sbml.jsbml.util.TreeNodeIterator;
+
+/**
+ * Collects the formulas of all SBML files in a directory and its
+ * subdirectories and reports how long it takes to parse each of them with a
+ * new {@link FormulaParserLL3}, with {@link ASTNode#parseFormula(String)}
+ * and with {@link ASTNode#parseFormula(String)} and its formula cache.
+ * Each formula is parsed once per pass, and the cache is emptied before the
+ * first pass.
+ * 
+ * <p>Usage: {@code FormulaParsingBenchmark directory [passes [cacheSize]]}
+ * 
+ * @since 1.6
+ */
+public final class FormulaParsingBenchmark {
+
+  /**
+   * 
+   * @param args
+   * @throws ParseException
+   */
+  public static void main(String[] args) throws ParseException {
+    List<String> formulas = new ArrayList<String>();
+    collect(new File(args[0]), formulas);
+    int passes = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+    int cacheSize = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+    int count = passes * formulas.size();
+    System.out.printf("%d formulas, %d passes.%n", formulas.size(), passes);
+
+    // the first rounds warm up, so that compilation is not counted.
+    for (int round = 0; round < 3; round++) {
+      long time = System.nanoTime();
+      for (int pass = 0; pass < passes; pass++) {
+        for (String formula : formulas) {
+          new FormulaParserLL3(new StringReader(formula)).parse();
+        }
+      }
+      report("new parser", time, count);
+
+      ASTNode.setFormulaCacheSize(0);
+      time = System.nanoTime();
+      for (int pass = 0; pass < passes; pass++) {
+        for (String formula : formulas) {
+          ASTNode.parseFormula(formula);
+        }
+      }
+      report("parseFormula", time, count);
+
+      ASTNode.setFormulaCacheSize(cacheSize);
+      time = System.nanoTime();
+      for (int pass = 0; pass < passes; pass++) {
+        for (String formula : formulas) {
+          ASTNode.parseFormula(formula);
+        }
+      }
+      report("parseFormula, cached", time, count);
+    }
+  }
+
+  /**
+   * @param name
+   * @param start
+   * @param count
+   */
+  private static void report(String name, long start, int count) {
+    double micros = (System.nanoTime() - start) / 1E3d;
+    System.out.printf("%-22s %8.1f ms, %6.2f us per formula%n", name + ':', micros / 1E3d, micros / count);
+  }
+
+  /**
+   * Adds the formulas of all XML files in the given directory and its
+   * subdirectories to the list.
+   * 
+   * @param file
+   * @param formulas
+   */
+  private static void collect(File file, List<String> formulas) {
+    if (file.isDirectory()) {
+      File[] children = file.listFiles();
+      if (children != null) {
+        for (File child : children) {
+          collect(child, formulas);
+        }
+      }
+    } else if (file.getName().endsWith(".xml")) {
+      try {
+        SBMLDocument doc = SBMLReader.read(file);
+        for (Iterator<TreeNode> iterator = new TreeNodeIterator(doc); iterator.hasNext();) {
+          TreeNode node = iterator.next();
+          if ((node instanceof MathContainer) && ((MathContainer) node).isSetMath()) {
+            String formula = ((MathContainer) node).getMath().toFormula();
+            // only formulas that can be parsed again
+            new FormulaParserLL3(new StringReader(formula)).parse();
+            formulas.add(formula);
+          }
+        }
+      } catch (Throwable exc) {
+        // skip files and formulas that cannot be read
+      }
+    }
+  }
+
+}
@@ -0,0 +1,123 @@
+/*
+ *
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Test;
+import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.SBMLException;
+import org.sbml.jsbml.text.parser.ParseException;
+import org.sbml.jsbml.util.compilers.ASTNodeValue;
+import org.sbml.jsbml.util.compilers.FormulaCompiler;
+import org.sbml.jsbml.util.compilers.FormulaText;
+import org.sbml.jsbml.util.compilers.LaTeXCompiler;
+
+/**
+ * Tests that formulas written with {@link ASTNode#toFormula(Appendable)} and
+ * {@link ASTNode#toLaTeX(Appendable)} are the same as the {@link String}s of
+ * {@link ASTNode#toFormula()} and {@link ASTNode#toLaTeX()}.
+ * 
+ * @since 1.6
+ */
+public class FormulaTextTest {
+
+  /**
+   * 
+   */
+  private static final String[] formulas = {
+    "k1 * S / (Km + S)", "-(a - b) * c^(-2)", "a + (b + c) + -d",
+    "piecewise(x, gt(y, 0), -x)", "lambda(x, y, x * sin(y))",
+    "f(a, b) ^ (1 / (2 * n))", "and(a < b, b >= c, not(d))",
+    "sqrt(root(3, x)) + log(10, y) + ln(exp(z))", "abs(ceil(x) - floor(y))",
+    "delay(x, 2) / factorial(n)", "(x == 1) || (y != 2)", "1e-3 * 2.5 / -4"
+  };
+
+  /**
+   * @throws ParseException
+   * @throws SBMLException
+   * @throws IOException
+   */
+  @Test
+  public void appendable() throws ParseException, SBMLException, IOException {
+    for (String formula : formulas) {
+      ASTNode math = ASTNode.parseFormula(formula);
+
+      StringBuilder sb = new StringBuilder("=");
+      math.toFormula(sb);
+      assertEquals(formula, '=' + math.toFormula(), sb.toString());
+
+      StringWriter writer = new StringWriter();
+      math.toFormula(new FormulaCompiler(), writer);
+      assertEquals(formula, math.toFormula(new FormulaCompiler()), writer.toString());
+
+      sb = new StringBuilder();
+      math.toLaTeX(sb);
+      assertEquals(formula, math.toLaTeX(), sb.toString());
+      assertEquals(formula, math.compile(new LaTeXCompiler()).toString(), sb.toString());
+    }
+  }
+
+  /**
+   * @throws ParseException
+   * @throws SBMLException
+   * @throws IOException
+   */
+  @Test
+  public void deep() throws ParseException, SBMLException, IOException {
+    ASTNode math = new ASTNode("x");
+    for (int i = 0; i < 500; i++) {
+      ASTNode node = new ASTNode((i % 2 == 0) ? ASTNode.Type.PLUS : ASTNode.Type.DIVIDE);
+      node.addChild(math);
+      node.addChild(new ASTNode(i));
+      math = node;
+    }
+    String formula = math.toFormula();
+    StringBuilder sb = new StringBuilder();
+    math.toFormula(sb);
+    assertEquals(formula, sb.toString());
+    assertEquals(formula, ASTNode.parseFormula(formula).toFormula());
+    assertTrue(formula.contains("(x+0)/1+2)/3+4)/5"));
+    assertTrue(formula.endsWith("/495+496)/497+498)/499"));
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void text() {
+    FormulaText inner = new FormulaText("", "b", null);
+    FormulaText text = new FormulaText("a", null, Integer.valueOf(1), inner,
+      new ASTNodeValue(new FormulaText(inner, 'c'), new FormulaCompiler()));
+    assertEquals(5, text.length());
+    assertEquals("a1bbc", text.toString());
+    assertEquals('1', text.charAt(1));
+    assertEquals("bb", text.subSequence(2, 4).toString());
+    assertEquals("a1bbc", text.appendTo(new StringBuilder()).toString());
+    assertEquals("b", inner.toString());
+    assertEquals("a1bbc", new FormulaText(text).toString());
+  }
+
+}
@@ -29,6 +29,7 @@ import org.sbml.jsbml.ASTNode;
 import org.sbml.jsbml.CVTerm;
 import org.sbml.jsbml.Compartment;
 import org.sbml.jsbml.Model;
+import org.sbml.jsbml.Reaction;
 import org.sbml.jsbml.Rule;
 import org.sbml.jsbml.SBMLDocument;
 import org.sbml.jsbml.SBMLException;
@@ -51,6 +52,8 @@ public class HashCodeTest {
     Model model = doc1.createModel("test_model");
     Compartment c = model.createCompartment("c1");
     Species s = model.createSpecies("s1", c);
+    // otherwise, the writer generates a different meta identifier for each copy
+    s.setMetaId("meta_s1");
     s.addCVTerm(new CVTerm(CVTerm.Qualifier.BQB_IS, "http://identifiers.org/kegg.compound/C00001"));
     Rule r = model.createAlgebraicRule();
     r.setMath(ASTNode.parseFormula("sin(3) + 1"));
@@ -73,4 +76,50 @@ public class HashCodeTest {
     assertTrue(doc2.equals(doc1));
   }
 
+  /**
+   * Creates a small model with a kinetic law and an annotation.
+   * 
+   * @param formula the formula of the kinetic law
+   * @return a new model
+   * @throws ParseException
+   */
+  private static Model createModel(String formula) throws ParseException {
+    SBMLDocument doc = new SBMLDocument(3, 1);
+    Model model = doc.createModel("test_model");
+    Compartment c = model.createCompartment("c1");
+    Species s = model.createSpecies("s1", c);
+    s.addCVTerm(new CVTerm(CVTerm.Qualifier.BQB_IS, "http://identifiers.org/kegg.compound/C00001"));
+    Reaction r = model.createReaction("r1");
+    r.createReactant(s);
+    r.createKineticLaw().setMath(ASTNode.parseFormula(formula));
+    return model;
+  }
+
+  /**
+   * Checks that the memorized hash codes are discarded when a descendant
+   * changes.
+   * 
+   * @throws ParseException
+   */
+  @Test public void checkHashCodeAfterChange() throws ParseException {
+    Model model1 = createModel("k1 * s1");
+    Model model2 = createModel("k1 * s1");
+    int hashCode = model1.hashCode();
+    assertTrue(hashCode == model2.hashCode());
+    assertTrue(hashCode == model1.hashCode());
+
+    // change a leaf deep in the tree
+    model1.getReaction(0).getKineticLaw().getMath().getChild(0).setName("k2");
+    assertTrue(hashCode != model1.hashCode());
+    assertTrue(model1.hashCode() == createModel("k2 * s1").hashCode());
+
+    // add and remove children
+    Species s2 = model2.createSpecies("s2", model2.getCompartment(0));
+    assertTrue(hashCode != model2.hashCode());
+    s2.removeFromParent();
+    assertTrue(hashCode == model2.hashCode());
+    model2.getSpecies(0).addCVTerm(new CVTerm(CVTerm.Qualifier.BQB_IS_VERSION_OF, "http://identifiers.org/chebi/CHEBI:15377"));
+    assertTrue(hashCode != model2.hashCode());
+  }
+
 }
@@ -0,0 +1,296 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.beans.PropertyChangeEvent;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+
+import javax.swing.tree.TreeNode;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sbml.jsbml.AssignmentRule;
+import org.sbml.jsbml.ListOf;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.Species;
+import org.sbml.jsbml.util.TreeNodeChangeListener;
+import org.sbml.jsbml.util.TreeNodeRemovedEvent;
+
+/**
+ * Tests the identifier based access to the elements of a {@link ListOf} and
+ * the removal of elements.
+ *
+ * @since 1.6
+ */
+public class ListOfTest {
+
+  /**
+   * Number of species in the test model, large enough to make use of the
+   * identifier index of {@link ListOf}.
+   */
+  private static final int SPECIES_COUNT = 100;
+
+  /**
+   *
+   */
+  private Model model;
+
+  /**
+   *
+   */
+  @Before
+  public void setUp() {
+    SBMLDocument doc = new SBMLDocument(3, 1);
+    model = doc.createModel("m");
+    model.createCompartment("c");
+    for (int i = 0; i < SPECIES_COUNT; i++) {
+      model.createSpecies("s" + i);
+    }
+  }
+
+  /**
+   *
+   */
+  @Test
+  public void getById() {
+    ListOf<Species> list = model.getListOfSpecies();
+    for (int i = 0; i < SPECIES_COUNT; i++) {
+      assertTrue(list.get("s" + i) == list.get(i));
+    }
+    assertNull(list.get("unknown"));
+    assertNull(list.get(null));
+  }
+
+  /**
+   * Checks that the lookup is still correct after the identifier of an element
+   * has been changed.
+   */
+  @Test
+  public void getAfterSetId() {
+    ListOf<Species> list = model.getListOfSpecies();
+    Species s5 = list.get("s5");
+    s5.setId("renamed");
+    assertNull(list.get("s5"));
+    assertTrue(list.get("renamed") == s5);
+
+    Species s6 = list.get("s6");
+    s6.unsetId();
+    assertNull(list.get("s6"));
+    s6.setId("s6bis");
+    assertTrue(list.get("s6bis") == s6);
+  }
+
+  /**
+   * Checks that the lookup is still correct after elements have been added or
+   * removed.
+   */
+  @Test
+  public void getAfterModification() {
+    ListOf<Species> list = model.getListOfSpecies();
+    assertTrue(list.get("s10") != null);
+
+    Species s10 = list.remove("s10");
+    assertEquals("s10", s10.getId());
+    assertNull(list.get("s10"));
+    assertEquals(SPECIES_COUNT - 1, list.size());
+
+    list.get(20).removeFromParent();
+    assertNull(list.get("s21"));
+
+    list.remove(0);
+    assertNull(list.get("s0"));
+
+    Species added = model.createSpecies("added");
+    assertTrue(list.get("added") == added);
+
+    s10.setId("s10new");
+    list.add(3, s10);
+    assertTrue(list.get("s10new") == s10);
+    list.clear();
+    assertNull(list.get("s1"));
+  }
+
+  /**
+   * Checks that the lookup is still correct after the list has been modified
+   * through its iterator.
+   */
+  @Test
+  public void getAfterIteratorRemove() {
+    ListOf<Species> list = model.getListOfSpecies();
+    assertTrue(list.get("s3") != null);
+    for (Iterator<Species> iterator = list.iterator(); iterator.hasNext();) {
+      if (iterator.next().getId().equals("s3")) {
+        iterator.remove();
+      }
+    }
+    assertNull(list.get("s3"));
+    assertEquals(SPECIES_COUNT - 1, list.size());
+  }
+
+  /**
+   * Checks that the lookup is still correct after the list has been modified
+   * through a {@link ListIterator}.
+   */
+  @Test
+  public void getAfterListIteratorModification() {
+    ListOf<Species> list = model.getListOfSpecies();
+    assertNull(list.get("q"));
+    ListIterator<Species> iterator = list.listIterator(5);
+    Species q = new Species("q", 3, 1);
+    iterator.add(q);
+    assertTrue(list.get("q") == q);
+
+    Species r = new Species("r", 3, 1);
+    iterator.next();
+    iterator.set(r);
+    assertTrue(list.get("r") == r);
+    assertNull(list.get("s5"));
+
+    iterator.previous();
+    iterator.remove();
+    assertNull(list.get("r"));
+    assertTrue(list.get("s6") == list.get(6));
+  }
+
+  /**
+   * Checks that the lookup is still correct after a range of the list has
+   * been cleared.
+   */
+  @Test
+  public void getAfterSubListClear() {
+    ListOf<Species> list = model.getListOfSpecies();
+    assertTrue(list.get("s12") != null);
+    List<Species> range = list.subList(10, 20);
+    range.subList(0, 5).clear();
+    assertNull(list.get("s12"));
+    assertTrue(list.get("s15") == list.get(10));
+
+    range.clear();
+    assertNull(list.get("s15"));
+    assertEquals(SPECIES_COUNT - 10, list.size());
+
+    Species q = new Species("q", 3, 1);
+    list.subList(0, 1).add(q);
+    assertTrue(list.get("q") == q);
+  }
+
+  /**
+   * Checks that rules are also found by their variable.
+   */
+  @Test
+  public void getRuleByVariable() {
+    for (int i = 0; i < SPECIES_COUNT; i++) {
+      AssignmentRule rule = model.createAssignmentRule();
+      rule.setVariable("s" + i);
+    }
+    assertTrue(model.getListOfRules().get("s42") == model.getRule(42));
+
+    ((AssignmentRule) model.getRule(42)).setVariable("s420");
+    assertNull(model.getListOfRules().get("s42"));
+    assertTrue(model.getListOfRules().get("s420") == model.getRule(42));
+  }
+
+  /**
+   * Checks that an element is removed by identity and not an equal element
+   * at another position.
+   */
+  @Test
+  public void removeByIdentity() {
+    ListOf<Species> list = model.getListOfSpecies();
+    Species s3 = list.get(3);
+    assertTrue(list.remove(s3));
+    assertTrue(s3.getParent() == null);
+    assertNull(list.get("s3"));
+    assertEquals(SPECIES_COUNT - 1, list.size());
+    assertTrue(!list.remove(s3));
+  }
+
+  /**
+   * Checks the bulk removal methods and that exactly one event is fired per
+   * removed element.
+   */
+  @Test
+  public void removeAllAndRetainAll() {
+    final List<TreeNode> removedNodes = new ArrayList<TreeNode>();
+    model.addTreeNodeChangeListener(new TreeNodeChangeListener() {
+      @Override
+      public void propertyChange(PropertyChangeEvent evt) {
+      }
+
+      @Override
+      public void nodeRemoved(TreeNodeRemovedEvent event) {
+        removedNodes.add(event.getSource());
+      }
+
+      @Override
+      public void nodeAdded(TreeNode node) {
+      }
+    });
+    ListOf<Species> list = model.getListOfSpecies();
+    List<Species> toRemove = new ArrayList<Species>();
+    for (int i = 0; i < SPECIES_COUNT; i += 2) {
+      toRemove.add(list.get("s" + i));
+    }
+    assertTrue(list.removeAll(toRemove));
+    assertEquals(SPECIES_COUNT / 2, list.size());
+    assertEquals(toRemove, removedNodes);
+    assertEquals("s1", list.get(0).getId());
+    assertNull(list.get("s0"));
+    assertTrue(!list.removeAll(toRemove));
+
+    removedNodes.clear();
+    List<Species> toRetain = new ArrayList<Species>();
+    toRetain.add(list.get("s1"));
+    toRetain.add(list.get("s99"));
+    assertTrue(list.retainAll(toRetain));
+    assertEquals(toRetain, list);
+    assertEquals(SPECIES_COUNT / 2 - 2, removedNodes.size());
+    assertTrue(!list.retainAll(toRetain));
+  }
+
+  /**
+   * Checks that {@link ListOf#retainAll(java.util.Collection)} keeps the
+   * elements that are only equal to an element of the given collection.
+   */
+  @Test
+  public void retainAllByEquality() {
+    ListOf<Species> list = model.getListOfSpecies();
+    Species s1 = list.get("s1");
+    Species s2 = list.get("s2");
+    List<Species> toRetain = new ArrayList<Species>();
+    toRetain.add(s1.clone());
+    toRetain.add(s2);
+    assertTrue(toRetain.get(0) != s1);
+    assertTrue(list.retainAll(toRetain));
+    assertEquals(2, list.size());
+    assertTrue(list.get(0) == s1);
+    assertTrue(list.get(1) == s2);
+    assertTrue(!list.retainAll(toRetain));
+  }
+
+}
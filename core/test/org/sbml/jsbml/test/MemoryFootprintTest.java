@@ -0,0 +1,119 @@
+/*
+ *
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ * 
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+import javax.swing.tree.TreeNode;
+import javax.xml.stream.XMLStreamException;
+
+import org.sbml.jsbml.Compartment;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.SBMLReader;
+import org.sbml.jsbml.Species;
+import org.sbml.jsbml.util.TreeNodeIterator;
+
+/**
+ * Reports the heap that is retained per {@link TreeNode} of an
+ * {@link SBMLDocument}, either for a given SBML file or for a generated model
+ * with a given number of {@link Species}.
+ * 
+ * <p>Usage: {@code MemoryFootprintTest [sbmlFileName|numberOfSpecies]}
+ * 
+ * @since 1.6
+ */
+public final class MemoryFootprintTest {
+
+  /**
+   * 
+   * @param args
+   * @throws XMLStreamException
+   * @throws IOException
+   */
+  public static void main(String[] args) throws XMLStreamException, IOException {
+    String arg = args.length > 0 ? args[0] : "100000";
+    File file = new File(arg);
+
+    // warm up, so that class loading is not counted.
+    createDocument(file, arg);
+
+    long before = usedMemory();
+    SBMLDocument doc = createDocument(file, arg);
+    long after = usedMemory();
+
+    int nodes = 0;
+    for (Iterator<TreeNode> iterator = new TreeNodeIterator(doc); iterator.hasNext(); iterator.next()) {
+      nodes++;
+    }
+    System.out.printf("%d nodes retain %d bytes, i.e., %.1f bytes per node.%n",
+      nodes, after - before, (after - before) / (double) nodes);
+  }
+
+  /**
+   * 
+   * @param file
+   * @param arg
+   * @return
+   * @throws XMLStreamException
+   * @throws IOException
+   */
+  private static SBMLDocument createDocument(File file, String arg)
+      throws XMLStreamException, IOException {
+    if (file.exists()) {
+      return SBMLReader.read(file);
+    }
+    int n = Integer.parseInt(arg);
+    SBMLDocument doc = new SBMLDocument(3, 1);
+    Model model = doc.createModel("m");
+    Compartment c = model.createCompartment("c");
+    c.setConstant(true);
+    for (int i = 0; i < n; i++) {
+      Species s = model.createSpecies("s" + i, c);
+      s.setInitialAmount(i);
+      s.setBoundaryCondition(false);
+      s.setConstant(false);
+      s.setHasOnlySubstanceUnits(false);
+    }
+    return doc;
+  }
+
+  /**
+   * 
+   * @return the heap currently in use after a few rounds of garbage
+   *         collection.
+   */
+  private static long usedMemory() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 5; i++) {
+      System.gc();
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException exc) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+}
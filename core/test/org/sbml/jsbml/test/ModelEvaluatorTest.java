@@ -0,0 +1,272 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.AssignmentRule;
+import org.sbml.jsbml.Compartment;
+import org.sbml.jsbml.InitialAssignment;
+import org.sbml.jsbml.KineticLaw;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.Parameter;
+import org.sbml.jsbml.RateRule;
+import org.sbml.jsbml.Reaction;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.SBMLException;
+import org.sbml.jsbml.Species;
+import org.sbml.jsbml.SpeciesReference;
+import org.sbml.jsbml.text.parser.ParseException;
+import org.sbml.jsbml.util.compilers.ModelEvaluator;
+
+/**
+ * Tests the {@link ModelEvaluator}.
+ *
+ * @since 1.6
+ */
+public class ModelEvaluatorTest {
+
+  /**
+   *
+   */
+  private static final double DELTA = 1e-12;
+
+  /**
+   * A model with the reaction {@code 2 A -> B} in a compartment of size 2.
+   */
+  private Model model;
+
+  /**
+   *
+   */
+  @Before
+  public void setUp() throws ParseException {
+    SBMLDocument doc = new SBMLDocument(3, 1);
+    model = doc.createModel("m");
+    Compartment c = model.createCompartment("c");
+    c.setSize(2d);
+    c.setConstant(true);
+    model.addSpecies(createSpecies("A", c, 4d));
+    model.addSpecies(createSpecies("B", c, 0d));
+    Parameter k = model.createParameter("k");
+    k.setValue(0.5);
+    k.setConstant(true);
+
+    Reaction r = model.createReaction("r");
+    r.setReversible(false);
+    SpeciesReference a = r.createReactant(model.getSpecies("A"));
+    a.setStoichiometry(2d);
+    a.setConstant(true);
+    SpeciesReference b = r.createProduct(model.getSpecies("B"));
+    b.setStoichiometry(1d);
+    b.setConstant(true);
+    KineticLaw kl = r.createKineticLaw();
+    kl.setMath(ASTNode.parseFormula("k * A * c"));
+  }
+
+  /**
+   * @param id
+   * @param compartment
+   * @param initialAmount
+   * @return
+   */
+  private Species createSpecies(String id, Compartment compartment, double initialAmount) {
+    Species s = new Species(id, 3, 1);
+    s.setCompartment(compartment);
+    s.setInitialAmount(initialAmount);
+    s.setHasOnlySubstanceUnits(false);
+    s.setBoundaryCondition(false);
+    s.setConstant(false);
+    return s;
+  }
+
+  /**
+   * Checks the initial values and the derivatives of the concentrations.
+   *
+   * @throws SBMLException
+   */
+  @Test
+  public void derivatives() throws SBMLException {
+    ModelEvaluator evaluator = new ModelEvaluator(model);
+    Map<String, Integer> slots = evaluator.getSlots();
+    double[] state = evaluator.getInitialState();
+    assertEquals(4, evaluator.getStateSize());
+    assertEquals(2d, state[slots.get("A")], DELTA);
+    assertEquals(0d, state[slots.get("B")], DELTA);
+
+    double[] dydt = new double[evaluator.getStateSize()];
+    evaluator.computeDerivatives(state, 0d, dydt);
+    // rate = 0.5 * 2 * 2 = 2 substance units per time in a volume of 2
+    assertEquals(-2d, dydt[slots.get("A")], DELTA);
+    assertEquals(1d, dydt[slots.get("B")], DELTA);
+    assertEquals(0d, dydt[slots.get("k")], DELTA);
+    assertEquals(0d, dydt[slots.get("c")], DELTA);
+    assertEquals(2, evaluator.getDifferentialSlots().length);
+  }
+
+  /**
+   * Checks boundary species, amounts and conversion factors.
+   *
+   * @throws SBMLException
+   */
+  @Test
+  public void amountsAndConversionFactors() throws SBMLException {
+    model.getSpecies("A").setBoundaryCondition(true);
+    model.getSpecies("B").setHasOnlySubstanceUnits(true);
+    Parameter f = model.createParameter("f");
+    f.setValue(3d);
+    f.setConstant(true);
+    model.setConversionFactor(f);
+
+    ModelEvaluator evaluator = new ModelEvaluator(model);
+    Map<String, Integer> slots = evaluator.getSlots();
+    double[] state = evaluator.getInitialState();
+    double[] dydt = new double[evaluator.getStateSize()];
+    evaluator.computeDerivatives(state, 0d, dydt);
+    assertEquals(0d, dydt[slots.get("A")], DELTA);
+    assertEquals(6d, dydt[slots.get("B")], DELTA);
+  }
+
+  /**
+   * Checks assignment rules, rate rules, initial assignments, and the
+   * dilution of concentrations in a growing compartment.
+   *
+   * @throws SBMLException
+   * @throws ParseException
+   */
+  @Test
+  public void rules() throws SBMLException, ParseException {
+    Parameter k2 = model.createParameter("k2");
+    k2.setConstant(false);
+    Parameter k3 = model.createParameter("k3");
+    k3.setConstant(false);
+    // added in reverse order of their dependencies
+    AssignmentRule ar2 = model.createAssignmentRule();
+    ar2.setVariable("k3");
+    ar2.setMath(ASTNode.parseFormula("2 * k2"));
+    AssignmentRule ar1 = model.createAssignmentRule();
+    ar1.setVariable("k2");
+    ar1.setMath(ASTNode.parseFormula("k + time"));
+    InitialAssignment ia = model.createInitialAssignment();
+    ia.setVariable("k");
+    ia.setMath(ASTNode.parseFormula("1"));
+
+    model.getCompartment("c").setConstant(false);
+    RateRule rr = model.createRateRule();
+    rr.setVariable("c");
+    rr.setMath(ASTNode.parseFormula("k3"));
+
+    ModelEvaluator evaluator = new ModelEvaluator(model);
+    Map<String, Integer> slots = evaluator.getSlots();
+    double[] state = evaluator.getInitialState();
+    assertEquals(1d, state[slots.get("k")], DELTA);
+    assertEquals(1d, state[slots.get("k2")], DELTA);
+    assertEquals(2d, state[slots.get("k3")], DELTA);
+
+    double[] dydt = new double[evaluator.getStateSize()];
+    evaluator.computeDerivatives(state, 1d, dydt);
+    assertEquals(2d, state[slots.get("k2")], DELTA);
+    assertEquals(4d, state[slots.get("k3")], DELTA);
+    assertEquals(4d, dydt[slots.get("c")], DELTA);
+    // rate = 1 * 2 * 2 = 4, dA/dt = -2 * 4 / 2 - 2 * 4 / 2
+    assertEquals(-8d, dydt[slots.get("A")], DELTA);
+    assertEquals(2d, dydt[slots.get("B")], DELTA);
+  }
+
+  /**
+   * Checks that the concentrations of species that do not take part in any
+   * reaction are diluted in a growing compartment as well.
+   *
+   * @throws SBMLException
+   * @throws ParseException
+   */
+  @Test
+  public void dilutionWithoutReaction() throws SBMLException, ParseException {
+    Compartment c = model.getCompartment("c");
+    c.setConstant(false);
+    model.addSpecies(createSpecies("C", c, 6d));
+    Species d = createSpecies("D", c, 6d);
+    d.setBoundaryCondition(true);
+    model.addSpecies(d);
+    RateRule rr = model.createRateRule();
+    rr.setVariable("c");
+    rr.setMath(ASTNode.parseFormula("1"));
+
+    ModelEvaluator evaluator = new ModelEvaluator(model);
+    Map<String, Integer> slots = evaluator.getSlots();
+    double[] state = evaluator.getInitialState();
+    double[] dydt = new double[evaluator.getStateSize()];
+    evaluator.computeDerivatives(state, 0d, dydt);
+    // d[C]/dt = -[C] * c' / c = -3 * 1 / 2
+    assertEquals(-1.5, dydt[slots.get("C")], DELTA);
+    assertEquals(0d, dydt[slots.get("D")], DELTA);
+    // rate = 0.5 * 2 * 2 = 2, dB/dt = 2 / 2 - 0 * 1 / 2
+    assertEquals(1d, dydt[slots.get("B")], DELTA);
+  }
+
+  /**
+   * Checks that initial amounts are converted to concentrations with the size
+   * of the compartment that is defined by an initial assignment.
+   *
+   * @throws SBMLException
+   * @throws ParseException
+   */
+  @Test
+  public void initialAssignmentToCompartment() throws SBMLException, ParseException {
+    model.getSpecies("B").setHasOnlySubstanceUnits(true);
+    model.getSpecies("B").setInitialConcentration(3d);
+    InitialAssignment ia = model.createInitialAssignment();
+    ia.setVariable("c");
+    ia.setMath(ASTNode.parseFormula("2 * k * 8"));
+
+    ModelEvaluator evaluator = new ModelEvaluator(model);
+    Map<String, Integer> slots = evaluator.getSlots();
+    double[] state = evaluator.getInitialState();
+    assertEquals(8d, state[slots.get("c")], DELTA);
+    assertEquals(0.5, state[slots.get("A")], DELTA);
+    assertEquals(24d, state[slots.get("B")], DELTA);
+  }
+
+  /**
+   * Checks that cyclic assignment rules are rejected.
+   *
+   * @throws SBMLException
+   * @throws ParseException
+   */
+  @Test(expected = SBMLException.class)
+  public void cyclicAssignments() throws SBMLException, ParseException {
+    model.getParameter("k").setConstant(false);
+    Parameter x = model.createParameter("x");
+    x.setConstant(false);
+    AssignmentRule ar1 = model.createAssignmentRule();
+    ar1.setVariable("k");
+    ar1.setMath(ASTNode.parseFormula("x + 1"));
+    AssignmentRule ar2 = model.createAssignmentRule();
+    ar2.setVariable("x");
+    ar2.setMath(ASTNode.parseFormula("k + 1"));
+    new ModelEvaluator(model);
+  }
+
+}
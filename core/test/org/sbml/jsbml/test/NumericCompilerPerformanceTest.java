@@ -0,0 +1,99 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.SBMLException;
+import org.sbml.jsbml.ext.arrays.compiler.ArraysCompiler;
+import org.sbml.jsbml.text.parser.ParseException;
+import org.sbml.jsbml.util.compilers.CompiledMath;
+import org.sbml.jsbml.util.compilers.NumericCompiler;
+
+/**
+ * Compares the time to repeatedly evaluate a rate law with the
+ * {@link NumericCompiler} and with the {@link ArraysCompiler}, which
+ * evaluates an {@link ASTNode} through the
+ * {@link org.sbml.jsbml.util.compilers.ASTNodeCompiler} interface.
+ * 
+ * <p>Usage: {@code NumericCompilerPerformanceTest [evaluations] [formula]}
+ * 
+ * @since 1.6
+ */
+public final class NumericCompilerPerformanceTest {
+
+  /**
+   * The identifiers in the default formula.
+   */
+  private static final String[] IDS = {"S", "P", "E", "Vmax", "Km", "Ki", "k1", "k2"};
+
+  /**
+   * 
+   * @param args
+   * @throws ParseException
+   * @throws SBMLException
+   */
+  public static void main(String[] args) throws ParseException, SBMLException {
+    int evaluations = (args.length > 0) ? Integer.parseInt(args[0]) : 5000000;
+    String formula = (args.length > 1) ? args[1]
+      : "Vmax * E * S / (Km * (1 + P / Ki) + S) - k1 * P + k2 * exp(-S) * sin(P)^2";
+    ASTNode math = ASTNode.parseFormula(formula);
+
+    Map<String, Integer> slots = new HashMap<String, Integer>();
+    for (int i = 0; i < IDS.length; i++) {
+      slots.put(IDS[i], i);
+    }
+    CompiledMath compiled = new NumericCompiler(null, slots).compile(math);
+    double[] state = new double[IDS.length];
+
+    ArraysCompiler compiler = new ArraysCompiler();
+    Map<String, Double> values = compiler.getMapIdToValue();
+
+    for (int run = 0; run < 3; run++) {
+      double sum = 0d;
+      long start = System.nanoTime();
+      for (int i = 0; i < evaluations; i++) {
+        for (int j = 0; j < IDS.length; j++) {
+          values.put(IDS[j], 1d + (i % 100) * 0.01d + j);
+        }
+        sum += math.compile(compiler).toDouble();
+      }
+      long astNodeCompilerTime = System.nanoTime() - start;
+
+      double compiledSum = 0d;
+      start = System.nanoTime();
+      for (int i = 0; i < evaluations; i++) {
+        for (int j = 0; j < IDS.length; j++) {
+          state[j] = 1d + (i % 100) * 0.01d + j;
+        }
+        compiledSum += compiled.eval(state, 0d);
+      }
+      long numericCompilerTime = System.nanoTime() - start;
+
+      System.out.printf("Run %d: ASTNodeCompiler %.1f ns/evaluation, NumericCompiler %.1f ns/evaluation, speedup %.1f (checksums %g, %g)%n",
+        run + 1, ((double) astNodeCompilerTime) / evaluations,
+        ((double) numericCompilerTime) / evaluations,
+        ((double) astNodeCompilerTime) / numericCompilerTime, sum, compiledSum);
+    }
+  }
+
+}
@@ -0,0 +1,247 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.FunctionDefinition;
+import org.sbml.jsbml.KineticLaw;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.Reaction;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.SBMLException;
+import org.sbml.jsbml.text.parser.ParseException;
+import org.sbml.jsbml.util.Maths;
+import org.sbml.jsbml.util.compilers.CompiledMath;
+import org.sbml.jsbml.util.compilers.DelayCallback;
+import org.sbml.jsbml.util.compilers.NumericCompiler;
+
+/**
+ * Tests the {@link NumericCompiler}.
+ *
+ * @since 1.6
+ */
+public class NumericCompilerTest {
+
+  /**
+   *
+   */
+  private static final double DELTA = 1e-12;
+
+  /**
+   *
+   */
+  private Model model;
+
+  /**
+   * The state, in which all expressions are evaluated.
+   */
+  private double[] state;
+
+  /**
+   *
+   */
+  @Before
+  public void setUp() throws ParseException {
+    SBMLDocument doc = new SBMLDocument(3, 1);
+    model = doc.createModel("m");
+    model.createCompartment("c");
+    model.createSpecies("S");
+    model.createSpecies("P");
+    model.createParameter("k");
+    model.createParameter("x");
+
+    FunctionDefinition mm = model.createFunctionDefinition("mm");
+    mm.setMath(ASTNode.parseFormula("lambda(s, vm, km, vm * s / (km + s))"));
+    FunctionDefinition twice = model.createFunctionDefinition("twice");
+    twice.setMath(ASTNode.parseFormula("lambda(a, mm(a, 2, 1) + mm(a, 2, 1))"));
+
+    Reaction r = model.createReaction("r");
+    KineticLaw kl = r.createKineticLaw();
+    kl.createLocalParameter("k").setValue(5d);
+    kl.setMath(ASTNode.parseFormula("k * S"));
+
+    // c = 2, S = 3, P = 0.5, k = 0.1, x = -1.5
+    state = new double[] {2d, 3d, 0.5d, 0.1d, -1.5d};
+  }
+
+  /**
+   * Compiles and evaluates the given formula in the test model.
+   *
+   * @param formula
+   * @param t
+   * @return
+   * @throws ParseException
+   * @throws SBMLException
+   */
+  private double eval(String formula, double t) throws ParseException, SBMLException {
+    return new NumericCompiler(model).compile(ASTNode.parseFormula(formula)).eval(state, t);
+  }
+
+  /**
+   *
+   */
+  @Test
+  public void arithmetic() throws ParseException, SBMLException {
+    assertEquals(3.5d, eval("S + P", 0d), DELTA);
+    assertEquals(2.5d, eval("S - P", 0d), DELTA);
+    assertEquals(-3d, eval("-S", 0d), DELTA);
+    assertEquals(0.3d, eval("k * S", 0d), DELTA);
+    assertEquals(6d, eval("S / P", 0d), DELTA);
+    assertEquals(9d, eval("S^2", 0d), DELTA);
+    assertEquals(6.5d, eval("c * S + x + k * 5 * 2 + 1", 0d), DELTA);
+    assertEquals(4.25d, eval("time + S", 1.25d), DELTA);
+    assertEquals(Math.sqrt(3d), eval("sqrt(S)", 0d), DELTA);
+    assertEquals(Math.cbrt(3d), eval("root(3, S)", 0d), DELTA);
+    assertEquals(3d, eval("log(2, 8)", 0d), DELTA);
+    assertEquals(Math.log(3d), eval("ln(S)", 0d), DELTA);
+    assertEquals(6d, eval("factorial(S)", 0d), DELTA);
+    assertEquals(-2d, eval("floor(x)", 0d), DELTA);
+    assertEquals(-1d, eval("ceil(x)", 0d), DELTA);
+    assertEquals(1.5d, eval("abs(x)", 0d), DELTA);
+    assertEquals(3d, eval("max(S, P, x)", 0d), DELTA);
+    assertEquals(-1.5d, eval("min(S, P, x)", 0d), DELTA);
+    assertEquals(Math.PI * Math.E, eval("pi * exponentiale", 0d), DELTA);
+    assertEquals(Maths.AVOGADRO_L3V1, eval("avogadro", 0d), 1e12);
+  }
+
+  /**
+   *
+   */
+  @Test
+  public void functions() throws ParseException, SBMLException {
+    assertEquals(Maths.arccot(0.5d), eval("arccot(P)", 0d), DELTA);
+    assertEquals(Maths.arcsech(0.5d), eval("arcsech(P)", 0d), DELTA);
+    assertEquals(Maths.arccsch(0.5d), eval("arccsch(P)", 0d), DELTA);
+    assertEquals(Maths.coth(0.5d), eval("coth(P)", 0d), DELTA);
+    assertEquals(Maths.sec(0.5d), eval("sec(P)", 0d), DELTA);
+    assertEquals(Math.sin(0.5d) + Math.cos(0.5d), eval("sin(P) + cos(P)", 0d), DELTA);
+    assertEquals(Math.tanh(0.5d), eval("tanh(P)", 0d), DELTA);
+  }
+
+  /**
+   *
+   */
+  @Test
+  public void logicalAndPiecewise() throws ParseException, SBMLException {
+    assertEquals(1d, eval("S > P", 0d), 0d);
+    assertEquals(0d, eval("S < P", 0d), 0d);
+    assertEquals(1d, eval("S > P && P > x", 0d), 0d);
+    assertEquals(1d, eval("S < P || P > x", 0d), 0d);
+    assertEquals(0d, eval("!(S > P)", 0d), 0d);
+    assertEquals(1d, eval("xor(true, false)", 0d), 0d);
+    assertEquals(10d, eval("piecewise(10, S > 1, 20)", 0d), 0d);
+    assertEquals(20d, eval("piecewise(10, S > 5, 20)", 0d), 0d);
+    assertEquals(30d, eval("piecewise(10, S > 5, 30, time > 1)", 2d), 0d);
+  }
+
+  /**
+   * Checks that function definitions are inlined, local parameters are
+   * constant, and reactions are replaced by their kinetic laws.
+   */
+  @Test
+  public void inlining() throws ParseException, SBMLException {
+    assertEquals(2d * 3d / (1d + 3d), eval("mm(S, 2, 1)", 0d), DELTA);
+    assertEquals(3d, eval("twice(S)", 0d), DELTA);
+    assertEquals(15d, eval("r", 0d), DELTA);
+
+    // the local parameter k shadows the global parameter k
+    CompiledMath rate = new NumericCompiler(model).compile(
+      model.getReaction(0).getKineticLaw().getMath());
+    assertEquals(15d, rate.eval(state, 0d), DELTA);
+  }
+
+  /**
+   * Checks that a function can be called in the arguments of a call of the
+   * same function.
+   */
+  @Test
+  public void nestedCalls() throws ParseException, SBMLException {
+    FunctionDefinition sq = model.createFunctionDefinition("sq");
+    sq.setMath(ASTNode.parseFormula("lambda(a, a * a)"));
+    assertEquals(81d, eval("sq(sq(S))", 0d), DELTA);
+    assertEquals(6.25d, eval("sq(x) + sq(2)", 0d), DELTA);
+    assertEquals(5.0625d, eval("sq(sq(x))", 0d), DELTA);
+    assertEquals(2d * 2d / (1d + 2d), eval("mm(mm(S, 2, 0), 2, 1)", 0d), DELTA);
+  }
+
+  /**
+   * Checks that a function, whose body calls itself in the argument of
+   * another call, is rejected.
+   */
+  @Test(expected = SBMLException.class)
+  public void recursionInArgument() throws ParseException, SBMLException {
+    FunctionDefinition f = model.createFunctionDefinition("f");
+    f.setMath(ASTNode.parseFormula("lambda(a, mm(f(a), 2, 1))"));
+    eval("f(S)", 0d);
+  }
+
+  /**
+   *
+   */
+  @Test
+  public void delay() throws ParseException, SBMLException {
+    NumericCompiler compiler = new NumericCompiler(model);
+    compiler.setDelayCallback(new DelayCallback() {
+      @Override
+      public double delay(ASTNode expression, CompiledMath compiledExpression,
+        double delay, double[] state, double t) {
+        return compiledExpression.eval(state, t) * 100d + delay;
+      }
+    });
+    assertEquals(301d, compiler.compile(ASTNode.parseFormula("delay(S, 1)")).eval(state, 0d), DELTA);
+  }
+
+  /**
+   *
+   */
+  @Test(expected = SBMLException.class)
+  public void delayWithoutCallback() throws ParseException, SBMLException {
+    eval("delay(S, 1)", 0d);
+  }
+
+  /**
+   *
+   */
+  @Test(expected = SBMLException.class)
+  public void unknownIdentifier() throws ParseException, SBMLException {
+    eval("unknown + 1", 0d);
+  }
+
+  /**
+   * Checks the evaluation with custom slots and without a model.
+   */
+  @Test
+  public void customSlots() throws ParseException, SBMLException {
+    Map<String, Integer> slots = new HashMap<String, Integer>();
+    slots.put("a", 1);
+    slots.put("b", 0);
+    CompiledMath math = new NumericCompiler(null, slots).compile(ASTNode.parseFormula("a - 2 * b"));
+    assertEquals(-1d, math.eval(new double[] {1d, 1d}, 0d), DELTA);
+    assertEquals(5d, math.eval(new double[] {-2d, 1d}, 0d), DELTA);
+  }
+
+}
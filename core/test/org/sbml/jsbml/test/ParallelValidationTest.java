@@ -0,0 +1,241 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Test;
+import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.Compartment;
+import org.sbml.jsbml.Event;
+import org.sbml.jsbml.KineticLaw;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.Parameter;
+import org.sbml.jsbml.Reaction;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.SBMLError;
+import org.sbml.jsbml.SBMLReader;
+import org.sbml.jsbml.SBase;
+import org.sbml.jsbml.Species;
+import org.sbml.jsbml.Unit;
+import org.sbml.jsbml.UnitDefinition;
+import org.sbml.jsbml.text.parser.ParseException;
+import org.sbml.jsbml.validator.SBMLValidator.CHECK_CATEGORY;
+import org.sbml.jsbml.validator.offline.LoggingValidationContext;
+import org.sbml.jsbml.validator.offline.ValidationContext;
+import org.sbml.jsbml.validator.offline.ValidationListener;
+import org.sbml.jsbml.validator.offline.constraints.AnyConstraint;
+
+/**
+ * Checks that the offline validation with several threads finds the same
+ * errors as the validation in one thread.
+ *
+ * @since 1.6
+ */
+public class ParallelValidationTest {
+
+  /**
+   * The files that are validated.
+   */
+  private static final String[] FILES = {
+    "/org/sbml/jsbml/xml/test/data/l2v1/BIOMD0000000025.xml",
+    "/org/sbml/jsbml/xml/test/data/l2v1/BIOMD0000000227.xml",
+    "/org/sbml/jsbml/xml/test/data/l2v4/BIOMD0000000228.xml",
+    "/org/sbml/jsbml/xml/test/data/libsbml-test-data/l2v3-all.xml"
+  };
+
+  /**
+   * Validates the given file and describes all errors.
+   * 
+   * @param file
+   * @param threadCount
+   * @param units
+   * @return a description of each error in the order of the log.
+   * @throws XMLStreamException
+   */
+  private List<String> validate(String file, int threadCount, boolean units)
+      throws XMLStreamException {
+    SBMLDocument doc = new SBMLReader().readSBMLFromStream(getClass().getResourceAsStream(file));
+    return validate(doc, threadCount, units);
+  }
+
+  /**
+   * Validates the given document and describes all errors.
+   * 
+   * @param doc
+   * @param threadCount
+   * @param units
+   * @return a description of each error in the order of the log.
+   */
+  private List<String> validate(SBMLDocument doc, int threadCount, boolean units) {
+    doc.setConsistencyChecks(CHECK_CATEGORY.UNITS_CONSISTENCY, units);
+    doc.setOfflineValidationThreadCount(threadCount);
+    int count = doc.checkConsistencyOffline();
+    List<String> errors = new ArrayList<String>();
+    for (SBMLError error : doc.getListOfErrors().getValidationErrors()) {
+      Object source = error.getSource();
+      errors.add(error.getCode() + " "
+          + ((source instanceof SBase) ? ((SBase) source).getElementName() : source)
+          + " " + error.getMessage());
+    }
+    assertEquals(count, errors.size());
+    return errors;
+  }
+
+  /**
+   * Compares the errors found with one and with four threads.
+   * 
+   * @throws XMLStreamException
+   */
+  @Test
+  public void sameErrors() throws XMLStreamException {
+    for (String file : FILES) {
+      for (boolean units : new boolean[] {false, true}) {
+        List<String> sequential = validate(file, 1, units);
+        List<String> parallel = validate(file, 4, units);
+        assertEquals(file, sequential, parallel);
+      }
+    }
+  }
+
+  /**
+   * Creates a model with many reactions and events, so that their units are
+   * checked by several threads. The kinetic laws and delays that refer to
+   * every third parameter have inconsistent units.
+   * 
+   * @return the document
+   * @throws ParseException
+   */
+  private static SBMLDocument createReactions() throws ParseException {
+    SBMLDocument doc = new SBMLDocument(3, 1);
+    Model model = doc.createModel("m");
+    model.setSubstanceUnits(Unit.Kind.MOLE.getName());
+    model.setTimeUnits(Unit.Kind.SECOND.getName());
+    model.setExtentUnits(Unit.Kind.MOLE.getName());
+    UnitDefinition perSecond = model.createUnitDefinition("per_second");
+    perSecond.addUnit(new Unit(1d, 0, Unit.Kind.SECOND, -1d, 3, 1));
+    Compartment c = model.createCompartment("c");
+    c.setSize(1d);
+    c.setUnits(Unit.Kind.LITRE);
+    c.setConstant(true);
+    for (int i = 0; i < 5 * 64; i++) {
+      Species s = model.createSpecies("s" + i, c);
+      s.setInitialAmount(1d);
+      s.setSubstanceUnits(Unit.Kind.MOLE);
+      s.setHasOnlySubstanceUnits(true);
+      s.setBoundaryCondition(false);
+      s.setConstant(false);
+      Parameter k = model.createParameter("k" + i);
+      k.setValue(1d);
+      k.setUnits((i % 3 == 0) ? Unit.Kind.METRE.getName() : perSecond.getId());
+      k.setConstant(true);
+      Reaction r = model.createReaction("r" + i);
+      r.setReversible(false);
+      r.setFast(false);
+      r.createReactant(s).setConstant(true);
+      r.createKineticLaw().setMath(ASTNode.parseFormula("k" + i + " * s" + i));
+      if (i % 8 == 0) {
+        Event e = model.createEvent("e" + i);
+        e.setUseValuesFromTriggerTime(true);
+        e.createTrigger(false, true, ASTNode.parseFormula("s" + i + " < 0.5"));
+        e.createDelay(ASTNode.parseFormula("k" + i));
+        e.createEventAssignment(s.getId(), ASTNode.parseFormula("1"));
+      }
+    }
+    return doc;
+  }
+
+  /**
+   * Checks the units of the same model with several threads, which share the
+   * units derived for the model.
+   * 
+   * @throws ParseException
+   */
+  @Test
+  public void sameUnitErrors() throws ParseException {
+    List<String> sequential = validate(createReactions(), 1, true);
+    assertTrue(!sequential.isEmpty());
+    for (int i = 0; i < 5; i++) {
+      List<String> parallel = validate(createReactions(), 8, true);
+      assertEquals(sequential, parallel);
+    }
+  }
+
+  /**
+   * Checks that the elements are not modified during the parallel unit
+   * checks, e.g., by registering the caches of the units of the model.
+   * 
+   * @throws ParseException
+   */
+  @Test
+  public void unitCachesCreatedBeforeValidation() throws ParseException {
+    SBMLDocument doc = createReactions();
+    final KineticLaw kineticLaw = doc.getModel().getReaction(0).getKineticLaw();
+    final UnitDefinition perSecond = doc.getModel().getUnitDefinition("per_second");
+    final Set<List<Integer>> listenerCounts = Collections.synchronizedSet(new HashSet<List<Integer>>());
+    LoggingValidationContext ctx = new LoggingValidationContext(doc.getLevel(), doc.getVersion());
+    ctx.setThreadCount(8);
+    ctx.enableCheckCategories(new CHECK_CATEGORY[] {CHECK_CATEGORY.GENERAL_CONSISTENCY,
+      CHECK_CATEGORY.UNITS_CONSISTENCY}, true);
+    ctx.loadConstraints(SBMLDocument.class);
+    ctx.addValidationListener(new ValidationListener() {
+
+      @Override
+      public void willValidate(ValidationContext ctx, AnyConstraint<?> c, Object o) {
+        listenerCounts.add(Arrays.asList(kineticLaw.getTreeNodeChangeListenerCount(),
+          perSecond.getTreeNodeChangeListenerCount()));
+      }
+
+      @Override
+      public void didValidate(ValidationContext ctx, AnyConstraint<?> c, Object o, boolean success) {
+        listenerCounts.add(Arrays.asList(kineticLaw.getTreeNodeChangeListenerCount(),
+          perSecond.getTreeNodeChangeListenerCount()));
+      }
+    });
+    ctx.validate(doc);
+    assertTrue(ctx.getErrorLog().getErrorCount() > 0);
+    assertEquals(1, listenerCounts.size());
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void invalidThreadCount() {
+    SBMLDocument doc = new SBMLDocument(3, 1);
+    try {
+      doc.setOfflineValidationThreadCount(0);
+      assertTrue(false);
+    } catch (IllegalArgumentException exc) {
+      assertEquals(1, doc.getOfflineValidationThreadCount());
+    }
+  }
+
+}
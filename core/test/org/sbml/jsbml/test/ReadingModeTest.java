@@ -0,0 +1,122 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.After;
+import org.junit.Test;
+import org.sbml.jsbml.JSBML;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.Species;
+import org.sbml.jsbml.util.TreeNodeWithChangeSupport;
+import org.sbml.jsbml.util.filters.Filter;
+import org.sbml.jsbml.xml.stax.SBMLReader;
+
+/**
+ * Checks that reading a document does not leave any trace of the reading
+ * mode, neither on the elements nor on the current thread.
+ *
+ * @since 1.6
+ */
+public class ReadingModeTest {
+
+  /**
+   * Makes sure that a failed test does not leave the current thread in the
+   * reading mode.
+   */
+  @After
+  public void tearDown() {
+    while (JSBML.isReadingInProgress()) {
+      JSBML.stopReading();
+    }
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void noUserObjectsAfterReading() throws XMLStreamException {
+    SBMLDocument doc = new SBMLReader().readSBMLFromStream(getClass().getResourceAsStream(
+      "/org/sbml/jsbml/xml/test/data/l2v4/BIOMD0000000228.xml"));
+    assertFalse(JSBML.isReadingInProgress());
+    assertTrue(doc.getModel().getSpeciesCount() > 0);
+
+    List<? extends Object> flagged = doc.filter(new Filter() {
+
+      /* (non-Javadoc)
+       * @see org.sbml.jsbml.util.filters.Filter#accepts(java.lang.Object)
+       */
+      @Override
+      public boolean accepts(Object o) {
+        return (o instanceof TreeNodeWithChangeSupport)
+            && ((TreeNodeWithChangeSupport) o).isSetUserObjects()
+            && ((TreeNodeWithChangeSupport) o).userObjectKeySet().contains(JSBML.READING_IN_PROGRESS);
+      }
+    });
+    assertEquals(0, flagged.size());
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void invalidValuesWhileReading() {
+    Species species = new Species("s1", 2, 1);
+    JSBML.startReading();
+    JSBML.startReading();
+    // SBO terms are not available in SBML L2V1
+    species.setSBOTerm(5);
+    JSBML.stopReading();
+    assertTrue(JSBML.isReadingInProgress());
+    species.setSBOTerm(6);
+    JSBML.stopReading();
+    assertFalse(JSBML.isReadingInProgress());
+    assertEquals(6, species.getSBOTerm());
+    try {
+      species.setSBOTerm(7);
+      fail("The reading mode has not been left.");
+    } catch (RuntimeException exc) {
+      // expected
+    }
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void readingModeLeftOnError() {
+    try {
+      new SBMLReader().readSBMLFromString("<sbml xmlns=\"http://www.sbml.org/sbml/level2/version4\""
+          + " level=\"2\" version=\"4\"><model id=\"m\"><listOfSpecies>");
+    } catch (XMLStreamException exc) {
+      // expected
+    }
+    assertFalse(JSBML.isReadingInProgress());
+  }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Test;
+import org.sbml.jsbml.ListOf;
+import org.sbml.jsbml.Model;
+import org.sbml.jsbml.Reaction;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.SBase;
+import org.sbml.jsbml.Species;
+import org.sbml.jsbml.xml.stax.SBMLElementIterator;
+import org.sbml.jsbml.xml.stax.SBMLReader;
+
+/**
+ * Checks that the elements of a model can be read one after another.
+ *
+ * @since 1.6
+ */
+public class SBMLElementIteratorTest {
+
+  /**
+   * 
+   */
+  private static final String FILE = "/org/sbml/jsbml/xml/test/data/l2v4/BIOMD0000000228.xml";
+
+  /**
+   * @throws XMLStreamException
+   * @throws IOException
+   */
+  @Test
+  public void streamSpeciesAndReactions() throws XMLStreamException, IOException {
+    Model expected = new SBMLReader().readSBMLFromStream(getClass().getResourceAsStream(FILE)).getModel();
+
+    SBMLElementIterator iterator = new SBMLReader().readSBMLElements(
+      getClass().getResourceAsStream(FILE), Species.class, Reaction.class);
+    List<String> species = new ArrayList<String>();
+    List<String> reactions = new ArrayList<String>();
+    try {
+      while (iterator.hasNext()) {
+        SBase element = iterator.next();
+        assertNull(element.getParent());
+        if (element instanceof Species) {
+          species.add(((Species) element).getId());
+        } else {
+          Reaction reaction = (Reaction) element;
+          assertEquals(expected.getReaction(reaction.getId()).getReactantCount(), reaction.getReactantCount());
+          reactions.add(reaction.getId());
+        }
+      }
+    } finally {
+      iterator.close();
+    }
+
+    assertEquals(expected.getSpeciesCount(), species.size());
+    assertEquals(expected.getReactionCount(), reactions.size());
+    for (int i = 0; i < species.size(); i++) {
+      assertEquals(expected.getSpecies(i).getId(), species.get(i));
+    }
+
+    SBMLDocument skeleton = iterator.getSBMLDocument();
+    assertEquals(0, skeleton.getModel().getSpeciesCount());
+    assertEquals(0, skeleton.getModel().getReactionCount());
+    assertEquals(expected.getCompartmentCount(), skeleton.getModel().getCompartmentCount());
+  }
+
+  /**
+   * @throws XMLStreamException
+   * @throws IOException
+   */
+  @Test
+  public void streamAll() throws XMLStreamException, IOException {
+    Model expected = new SBMLReader().readSBMLFromStream(getClass().getResourceAsStream(FILE)).getModel();
+
+    SBMLElementIterator iterator = new SBMLReader().readSBMLElements(getClass().getResourceAsStream(FILE));
+    int count = 0;
+    while (iterator.hasNext()) {
+      iterator.next();
+      count++;
+    }
+    assertFalse(iterator.hasNext());
+
+    int expectedCount = 0;
+    for (int i = 0; i < expected.getChildCount(); i++) {
+      if (expected.getChildAt(i) instanceof ListOf<?>) {
+        expectedCount += expected.getChildAt(i).getChildCount();
+      }
+    }
+    assertEquals(expectedCount, count);
+    assertEquals(0, iterator.getSBMLDocument().getModel().getSpeciesCount());
+  }
+
+}
@@ -0,0 +1,153 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.junit.Test;
+import org.sbml.jsbml.SBMLError;
+import org.sbml.jsbml.validator.offline.factory.SBMLErrorCatalogue;
+import org.sbml.jsbml.validator.offline.factory.SBMLErrorFactory;
+
+/**
+ * Checks that the {@link SBMLErrorCatalogue} describes the errors exactly as
+ * the file {@code SBMLErrors.json}.
+ *
+ * @since 1.6
+ */
+public class SBMLErrorCatalogueTest {
+
+  /**
+   * 
+   */
+  private static final String JSON_RESOURCE = "/org/sbml/jsbml/resources/SBMLErrors.json";
+
+  /**
+   * The SBML levels and versions.
+   */
+  private static final int[][] LEVEL_VERSIONS = {{1, 1}, {1, 2}, {2, 1}, {2, 2},
+    {2, 3}, {2, 4}, {2, 5}, {3, 1}, {3, 2}};
+
+  /**
+   * Parses the JSON file.
+   * 
+   * @return the parsed JSON file
+   * @throws IOException
+   * @throws ParseException
+   */
+  private JSONObject parseJSON() throws IOException, ParseException {
+    InputStreamReader reader = new InputStreamReader(
+      getClass().getResourceAsStream(JSON_RESOURCE), "UTF-8");
+    try {
+      return (JSONObject) new JSONParser().parse(reader);
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Compares the given catalogue with the JSON file.
+   * 
+   * @param catalogue
+   * @throws IOException
+   * @throws ParseException
+   */
+  private void assertSameErrors(SBMLErrorCatalogue catalogue) throws IOException, ParseException {
+    JSONObject json = parseJSON();
+    assertEquals(json.size(), catalogue.getErrorCount());
+    for (Object key : json.keySet()) {
+      int id = Integer.parseInt(key.toString());
+      JSONObject entry = (JSONObject) json.get(key);
+      assertEquals(entry.get("Category"), catalogue.getCategory(id));
+      assertEquals(entry.get("Package"), catalogue.getPackage(id));
+      assertEquals(entry.get("Message"), catalogue.getMessage(id));
+      assertEquals(entry.get("ShortMessage"), catalogue.getShortMessage(id));
+      for (int[] lv : LEVEL_VERSIONS) {
+        Object severity = entry.get("SeverityL" + lv[0] + "V" + lv[1]);
+        if (severity == null) {
+          severity = entry.get("DefaultSeverity");
+        }
+        assertEquals(severity, catalogue.getSeverity(id, lv[0], lv[1]));
+      }
+    }
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void sameAsJSON() throws IOException, ParseException {
+    assertSameErrors(SBMLErrorCatalogue.getInstance());
+  }
+
+  /**
+   * Checks that a catalogue is the same after it has been written and read
+   * again.
+   */
+  @Test
+  public void binaryFormat() throws IOException, ParseException {
+    InputStreamReader reader = new InputStreamReader(
+      getClass().getResourceAsStream(JSON_RESOURCE), "UTF-8");
+    SBMLErrorCatalogue catalogue;
+    try {
+      catalogue = SBMLErrorCatalogue.parseJSON(reader);
+    } finally {
+      reader.close();
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    catalogue.write(out);
+    assertSameErrors(SBMLErrorCatalogue.read(new ByteArrayInputStream(out.toByteArray())));
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void unknownError() {
+    SBMLErrorCatalogue catalogue = SBMLErrorCatalogue.getInstance();
+    assertTrue(!catalogue.contains(-1));
+    assertTrue(!catalogue.isAvailable(-1, 3, 1));
+    assertNull(catalogue.getSeverity(-1, 3, 1));
+    assertNull(SBMLErrorFactory.createError(-1, 3, 1));
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void createError() {
+    SBMLError error = SBMLErrorFactory.createError(10102, 3, 1);
+    assertEquals(10102, error.getCode());
+    assertEquals("core", error.getPackage());
+    assertEquals(SBMLErrorCatalogue.getInstance().getSeverity(10102, 3, 1), error.getSeverity());
+    assertTrue(error.getMessage().length() > 0);
+  }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Locale;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Test;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.SBMLException;
+import org.sbml.jsbml.util.StringTools;
+import org.sbml.jsbml.xml.stax.SBMLReader;
+import org.sbml.jsbml.xml.stax.SBMLWriter;
+
+/**
+ * Checks the output of the {@link SBMLWriter}.
+ *
+ * @since 1.6
+ */
+public class SBMLWriterOutputTest {
+
+  /**
+   * 
+   */
+  private static final String FILE = "/org/sbml/jsbml/xml/test/data/l2v4/BIOMD0000000228.xml";
+
+  /**
+   * @throws XMLStreamException
+   * @throws SBMLException
+   * @throws IOException
+   */
+  @Test
+  public void channel() throws XMLStreamException, SBMLException, IOException {
+    SBMLDocument doc = new SBMLReader().readSBMLFromStream(getClass().getResourceAsStream(FILE));
+    SBMLWriter writer = new SBMLWriter();
+
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    writer.write(doc, Channels.newChannel(stream), null, null);
+    assertEquals(writer.writeSBMLToString(doc), stream.toString("UTF-8"));
+  }
+
+  /**
+   * @throws XMLStreamException
+   * @throws SBMLException
+   */
+  @Test
+  public void packageNamespace() throws XMLStreamException, SBMLException {
+    SBMLDocument doc = new SBMLDocument(3, 1);
+    doc.createModel("m").createCompartment("c");
+    doc.getModel().getCompartment(0).setConstant(true);
+    String xml = new SBMLWriter(' ', (short) 2).writeSBMLToString(doc);
+
+    assertTrue(xml.contains("<sbml xmlns=\"http://www.sbml.org/sbml/level3/version1/core\""));
+    assertTrue(xml.contains("\n    <listOfCompartments>\n      <compartment constant=\"true\" id=\"c\"/>\n    </listOfCompartments>\n"));
+    assertTrue(xml.endsWith("  </model>\n</sbml>"));
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void numbers() {
+    assertEquals("3", StringTools.toString(Locale.ENGLISH, 3d));
+    assertEquals("-12", StringTools.toString(Locale.ENGLISH, -12d));
+    assertEquals("0.25", StringTools.toString(Locale.ENGLISH, 0.25));
+    assertEquals("0,25", StringTools.toString(Locale.GERMAN, 0.25));
+    assertEquals("1.5E-5", StringTools.toString(Locale.ENGLISH, 1.5E-5));
+    assertEquals("0.25", StringTools.toString(Locale.ENGLISH, 0.25));
+  }
+
+}
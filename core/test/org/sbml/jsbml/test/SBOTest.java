@@ -0,0 +1,111 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+
+import org.junit.Test;
+import org.sbml.jsbml.SBO;
+import org.sbml.jsbml.ontology.AncestorIndex;
+import org.sbml.jsbml.ontology.OntologySnapshot;
+
+/**
+ * Tests the hierarchy queries of {@link SBO}.
+ *
+ * @since 1.6
+ */
+public class SBOTest {
+
+  /**
+   *
+   */
+  @Test
+  public void isChildOf() {
+    // catalyst -> stimulator -> modifier
+    assertTrue(SBO.isChildOf(13, 13));
+    assertTrue(SBO.isChildOf(13, 459));
+    assertTrue(SBO.isChildOf(13, 19));
+    assertFalse(SBO.isChildOf(19, 13));
+    assertTrue(SBO.isCatalyst(460));
+    assertFalse(SBO.isChildOf(SBO.getEntity(), SBO.getParticipantRole()));
+    assertFalse(SBO.isChildOf(-1, 13));
+  }
+
+  /**
+   *
+   */
+  @Test(expected = NoSuchElementException.class)
+  public void isChildOfUnknownTerm() {
+    SBO.isChildOf(9999999, 13);
+  }
+
+  /**
+   *
+   */
+  @Test
+  public void ancestorIndex() {
+    AncestorIndex index = SBO.getAncestorIndex();
+    assertTrue(index.contains(13));
+    assertFalse(index.contains(9999999));
+    assertArrayEquals(new int[] {0, 3, 19, 459}, index.getAncestors(13));
+    assertArrayEquals(new int[0], index.getAncestors(0));
+  }
+
+  /**
+   * Checks that a snapshot is identical to the ontology after it has been
+   * written and read again.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void snapshot() throws IOException {
+    Properties aliases = new Properties();
+    aliases.put("CATALYST", "13");
+    OntologySnapshot snapshot = new OntologySnapshot(SBO.getOntology(), "SBO:", aliases);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    snapshot.write(out);
+    OntologySnapshot copy = OntologySnapshot.read(new ByteArrayInputStream(out.toByteArray()));
+
+    assertEquals("SBO:", copy.getPrefix());
+    assertEquals(aliases, copy.getAliases());
+    int[] terms = snapshot.getAncestorIndex().getTerms();
+    assertArrayEquals(terms, copy.getAncestorIndex().getTerms());
+    for (int term : terms) {
+      assertEquals(SBO.getTerm(term).getName(), copy.getName(term));
+      assertEquals(SBO.getTerm(term).isObsolete(), copy.isObsolete(term));
+      assertEquals(SBO.isObsolete(term), copy.isObsolete(term));
+      assertArrayEquals(SBO.getAncestorIndex().getAncestors(term),
+        copy.getAncestorIndex().getAncestors(term));
+    }
+    assertEquals(243, SBO.convertAlias2SBO("GENE"));
+    assertEquals("GENE", SBO.convertSBO2Alias(243));
+    assertTrue(SBO.isObsolete(5));
+  }
+
+}
@@ -0,0 +1,193 @@
+/*
+ * ----------------------------------------------------------------------------
+ * This file is part of JSBML. Please visit <http://sbml.org/Software/JSBML>
+ * for the latest version of JSBML and more information about SBML.
+ *
+ * Copyright (C) 2009-2018 jointly by the following organizations:
+ * 1. The University of Tuebingen, Germany
+ * 2. EMBL European Bioinformatics Institute (EBML-EBI), Hinxton, UK
+ * 3. The California Institute of Technology, Pasadena, CA, USA
+ * 4. The University of California, San Diego, La Jolla, CA, USA
+ * 5. The Babraham Institute, Cambridge, UK
+ * 
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation. A copy of the license agreement is provided
+ * in the file named "LICENSE.txt" included with this software distribution
+ * and also available online as <http://sbml.org/Software/JSBML/License>.
+ * ----------------------------------------------------------------------------
+ */
+package org.sbml.jsbml.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.tree.TreeNode;
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.sbml.jsbml.ASTNode;
+import org.sbml.jsbml.SBMLDocument;
+import org.sbml.jsbml.SBase;
+import org.sbml.jsbml.util.TreeNodeIterator;
+import org.sbml.jsbml.util.TreeNodeWithChangeSupport;
+import org.sbml.jsbml.util.filters.Filter;
+import org.sbml.jsbml.xml.stax.SBMLReader;
+
+/**
+ * Tests the {@link TreeNodeIterator} and the filter methods that are based on it.
+ *
+ * @since 1.6
+ */
+public class TreeNodeIteratorTest {
+
+  /**
+   * Accepts the elements whose metaid has a hash code that is divisible by
+   * three, i.e., an arbitrary but fixed selection of nodes.
+   */
+  private static final Filter SOME_NODES = new Filter() {
+
+    /* (non-Javadoc)
+     * @see org.sbml.jsbml.util.filters.Filter#accepts(java.lang.Object)
+     */
+    @Override
+    public boolean accepts(Object o) {
+      return (o instanceof SBase) && ((SBase) o).isSetMetaId()
+          && (((SBase) o).getMetaId().hashCode() % 3 == 0);
+    }
+  };
+
+  /**
+   * 
+   */
+  private static SBMLDocument doc;
+
+  /**
+   * @throws XMLStreamException
+   */
+  @BeforeClass
+  public static void setUp() throws XMLStreamException {
+    doc = new SBMLReader().readSBMLFromStream(TreeNodeIteratorTest.class.getResourceAsStream(
+      "/org/sbml/jsbml/xml/test/data/l2v4/BIOMD0000000228.xml"));
+  }
+
+  /**
+   * Collects all nodes of the given tree recursively in document order.
+   * 
+   * @param node
+   * @param nodes
+   * @param parents the parent of each node in the tree, which is not
+   *        necessarily the node's {@link TreeNode#getParent()}.
+   */
+  private static void collect(TreeNode node, List<TreeNode> nodes, List<TreeNode> parents) {
+    for (int i = 0; i < node.getChildCount(); i++) {
+      nodes.add(node.getChildAt(i));
+      parents.add(node);
+      collect(node.getChildAt(i), nodes, parents);
+    }
+  }
+
+  /**
+   * The recursive filter as it has been implemented before the
+   * {@link TreeNodeIterator} was available.
+   * 
+   * @param node
+   * @param filter
+   * @param retainInternalNodes
+   * @param prune
+   * @return
+   */
+  private static List<TreeNode> filter(TreeNode node, Filter filter, boolean retainInternalNodes, boolean prune) {
+    List<TreeNode> list = new ArrayList<TreeNode>();
+    boolean accepts = filter.accepts(node);
+    if (accepts) {
+      list.add(node);
+      if (prune) {
+        return list;
+      }
+    }
+    for (int i = 0; i < node.getChildCount(); i++) {
+      TreeNode child = node.getChildAt(i);
+      if (child instanceof TreeNodeWithChangeSupport) {
+        List<TreeNode> childList = filter(child, filter, retainInternalNodes, prune);
+        if (childList.size() > 0) {
+          if (!accepts && retainInternalNodes) {
+            list.add(node);
+            accepts = true;
+          }
+          list.addAll(childList);
+          if (prune) {
+            return list;
+          }
+        }
+      }
+    }
+    return list;
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void documentOrder() {
+    List<TreeNode> expected = new ArrayList<TreeNode>();
+    List<TreeNode> parents = new ArrayList<TreeNode>();
+    collect(doc, expected, parents);
+    TreeNodeIterator iterator = new TreeNodeIterator(doc);
+    assertSame(doc, iterator.next());
+    assertEquals(0, iterator.getDepth());
+    int count = 0;
+    while (iterator.hasNext()) {
+      TreeNode node = iterator.next();
+      // some nodes, such as the list of creators, are created on demand
+      assertEquals(expected.get(count), node);
+      assertSame(node, iterator.getPathNode(iterator.getDepth()));
+      assertEquals(parents.get(count), iterator.getPathNode(iterator.getDepth() - 1));
+      count++;
+    }
+    assertEquals(expected.size(), count);
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void filter() {
+    boolean[] flags = {false, true};
+    for (boolean retainInternalNodes : flags) {
+      for (boolean prune : flags) {
+        assertEquals(filter(doc, SOME_NODES, retainInternalNodes, prune),
+          doc.filter(SOME_NODES, retainInternalNodes, prune));
+      }
+    }
+    assertTrue(doc.filter(SOME_NODES).size() > 1);
+  }
+
+  /**
+   * 
+   */
+  @Test
+  public void skipChildren() {
+    int mathNodes = 0;
+    TreeNodeIterator iterator = new TreeNodeIterator(doc);
+    while (iterator.hasNext()) {
+      TreeNode node = iterator.next();
+      if (node instanceof ASTNode) {
+        assertFalse(node.getParent() instanceof ASTNode);
+        mathNodes++;
+        // checking the children does not enter them
+        iterator.hasNext();
+        iterator.skipChildren();
+      }
+    }
+    assertTrue(mathNodes > 0);
+    assertFalse(new TreeNodeIterator(null).hasNext());
+  }
+
+}
@@ -25,8 +25,29 @@ import org.junit.runners.Suite.SuiteClasses;
 import org.sbml.jsbml.math.test.ASTNodeInfixParsingTest;
 import org.sbml.jsbml.math.test.ASTNodeTest;
 import org.sbml.jsbml.math.test.TestInfixOperatorPrecedence;
+import org.sbml.jsbml.test.CompressedIOTest;
+import org.sbml.jsbml.test.ConcurrentReadingTest;
+import org.sbml.jsbml.test.ConstraintFactoryTest;
+import org.sbml.jsbml.test.ContentPolicyTest;
+import org.sbml.jsbml.test.CursorReadingTest;
+import org.sbml.jsbml.test.DerivedUnitCacheTest;
+import org.sbml.jsbml.test.EmptyCollectionsTest;
+import org.sbml.jsbml.test.FindIdenticalTest;
+import org.sbml.jsbml.test.FormulaCacheTest;
+import org.sbml.jsbml.test.FormulaTextTest;
+import org.sbml.jsbml.test.HashCodeTest;
 import org.sbml.jsbml.test.IdRegistrationTest;
+import org.sbml.jsbml.test.ListOfTest;
+import org.sbml.jsbml.test.ModelEvaluatorTest;
+import org.sbml.jsbml.test.NumericCompilerTest;
+import org.sbml.jsbml.test.ParallelValidationTest;
+import org.sbml.jsbml.test.ReadingModeTest;
 import org.sbml.jsbml.test.RemoveFromParentTest;
+import org.sbml.jsbml.test.SBMLElementIteratorTest;
+import org.sbml.jsbml.test.SBMLErrorCatalogueTest;
+import org.sbml.jsbml.test.SBMLWriterOutputTest;
+import org.sbml.jsbml.test.SBOTest;
+import org.sbml.jsbml.test.TreeNodeIteratorTest;
 
 /**
  * JUnit suite of tests, including all test classes for SBML core.
@@ -38,7 +59,15 @@ import org.sbml.jsbml.test.RemoveFromParentTest;
 @SuiteClasses(value={SBML_L1VxTests.class, SBML_L2V1Test.class, CheckConsistencyTests.class, GetNotesStringTests.class,
   UnregisterTests.class, RemoveFromParentTest.class, CVTermTests.class, RemoveFromParentTest.class, ASTNodeTest.class,
   ASTNodeInfixParsingTest.class, TestInfixOperatorPrecedence.class, IdRegistrationTest.class, XMLTokenTest.class,
-  CreatorTests.class, NestedCVTermTests.class, XXEInjectionTests.class, LibsbmlCompatibilityTests.class})
+  CreatorTests.class, NestedCVTermTests.class, XXEInjectionTests.class, LibsbmlCompatibilityTests.class,
+  ListOfTest.class, HashCodeTest.class, SBOTest.class, NumericCompilerTest.class,
+  ModelEvaluatorTest.class, ParallelValidationTest.class, ConstraintFactoryTest.class,
+  SBMLErrorCatalogueTest.class, CursorReadingTest.class, ReadingModeTest.class,
+  TreeNodeIteratorTest.class, ContentPolicyTest.class,
+  SBMLElementIteratorTest.class, SBMLWriterOutputTest.class,
+  EmptyCollectionsTest.class, CompressedIOTest.class,
+  ConcurrentReadingTest.class, DerivedUnitCacheTest.class, FindIdenticalTest.class,
+  FormulaCacheTest.class, FormulaTextTest.class})
 public class Tests {
 
 }
@@ -566,7 +566,7 @@ public class ArraysCompiler implements ASTNodeCompiler{
       throws SBMLException {
     ASTNodeValue numValue = numerator.compile(this);
     ASTNodeValue demValue = denominator.compile(this);
-    if (numerator.isNumber() && denominator.isNumber()) {
+    if (numValue.isNumber() && demValue.isNumber()) {
       return new ASTNodeValue(numValue.toDouble() / demValue.toDouble(), this);
     }
     return unknownValue();
@@ -22,10 +22,12 @@ package org.sbml.jsbml.xml.parsers;
 import static org.sbml.jsbml.ext.layout.LayoutConstants.listOfLayouts;
 
 import java.text.MessageFormat;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import javax.swing.tree.TreeNode;
 
@@ -145,19 +147,21 @@ public class LayoutParser implements ReadingParser, WritingParser, PackageParser
 
   /**
    * This map contains all the relationships XML element name <=> matching
-   * java class.
+   * java class. It is loaded once and shared by all instances.
    */
-  private HashMap<String, Class<? extends Object>> sbmlLayoutElements;
+  private static final Map<String, Class<? extends Object>> sbmlLayoutElements;
+
+  static {
+    Map<String, Class<? extends Object>> elements = new HashMap<String, Class<? extends Object>>();
+    JSBML.loadClasses("org/sbml/jsbml/resources/cfg/SBMLLayoutElements.xml", elements);
+    sbmlLayoutElements = Collections.unmodifiableMap(elements);
+  }
 
   /**
    * 
    */
   public LayoutParser() {
     super();
-    sbmlLayoutElements = new HashMap<String, Class<? extends Object>>();
-    JSBML.loadClasses(
-      "org/sbml/jsbml/resources/cfg/SBMLLayoutElements.xml",
-      sbmlLayoutElements);
   }
 
   /* (non-Javadoc)
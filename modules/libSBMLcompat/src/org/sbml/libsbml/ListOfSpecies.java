@@ -95,8 +95,7 @@ public class ListOfSpecies extends ListOf<org.sbml.jsbml.Species> {
 	 * @see java.util.LinkedList#add(int index, T element)
 	 */
 	public void add(int index, Species element) {
-		setThisAsParentSBMLObject(element);
-		listOf.add(index, element);
+		super.add(index, element);
 	}
 
 	/*
@@ -129,12 +128,11 @@ public class ListOfSpecies extends ListOf<org.sbml.jsbml.Species> {
 				}
 			}
 		}
-		for (TreeNodeChangeListener l : listOfListeners) {
+		for (TreeNodeChangeListener l : getListOfTreeNodeChangeListeners()) {
 			e.addTreeNodeChangeListener(l);
 		}
 		
-		registerChild(e);
-		return listOf.add(e);
+		return super.add(e);
 	}
 
 	// TODO: overwrite all of the methods if needed !